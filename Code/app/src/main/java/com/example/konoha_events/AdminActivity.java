@@ -23,7 +23,7 @@ import androidx.appcompat.app.AppCompatActivity;
 public class AdminActivity extends AppCompatActivity {
 
     private Button manageEventsButton, manageProfilesButton,
-            manageImagesButton, manageNotificationsButton;
+            manageImagesButton, manageNotificationsButton, signOutButton;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -35,6 +35,7 @@ public class AdminActivity extends AppCompatActivity {
         manageProfilesButton = findViewById(R.id.manageProfilesButton);
         manageImagesButton = findViewById(R.id.manageImagesButton);
         manageNotificationsButton = findViewById(R.id.manageNotificationsButton);
+        signOutButton = findViewById(R.id.signOutButton);
 
         manageEventsButton.setOnClickListener(v -> {
             Intent intent = new Intent(this, AdminEventActivity.class);
@@ -55,5 +56,7 @@ public class AdminActivity extends AppCompatActivity {
             Intent intent = new Intent(this, AdminNotificationActivity.class);
             startActivity(intent);
         });
+
+        signOutButton.setOnClickListener(v -> HomeActivity.signOut(this));
     }
 }
@@ -40,5 +40,8 @@ public class AdminEventActivity extends AppCompatActivity {
         eventModelDataList = fbs.getEventsLiveData().getValue();
         eventAdminDashboardView = new EventAdminDashboardView(this, eventModelDataList, this.getClass());
         listView.setAdapter(eventAdminDashboardView);
+        // Rebind the rows whose entrant counts changed
+        fbs.getEntrantCountCache().getInvalidatedLiveData().observe(this,
+                eventIds -> eventAdminDashboardView.notifyDataSetChanged());
     }
 }
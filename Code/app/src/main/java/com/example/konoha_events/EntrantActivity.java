@@ -22,6 +22,7 @@ import java.util.ArrayList;
 
 import constants.IntentConstants;
 import models.EventModel;
+import services.EventPageRepository;
 import services.FirebaseService;
 /**
  * Shows all events available to an entrant.
@@ -32,6 +33,7 @@ import services.FirebaseService;
 public class EntrantActivity extends AppCompatActivity {
     private RecyclerView recyclerEvents;
     private EventsAdapter eventsAdapter;
+    private EventPageRepository eventPageRepository;
     private Button scanQRCodeButton;
 
     @Override
@@ -109,7 +111,9 @@ public class EntrantActivity extends AppCompatActivity {
             }
         });
         recyclerEvents.setAdapter(eventsAdapter);
-        FirebaseService.firebaseService.getEventsLiveData().observe(
+        // Events are loaded a page at a time as the list is scrolled
+        eventPageRepository = FirebaseService.firebaseService.createEventPageRepository();
+        eventPageRepository.getEventsLiveData().observe(
                 this,
                 new Observer<ArrayList<EventModel>>() {
                     @Override
@@ -118,6 +122,8 @@ public class EntrantActivity extends AppCompatActivity {
                     }
                 }
         );
+        recyclerEvents.addOnScrollListener(new EventPageScrollListener(eventPageRepository));
+        eventPageRepository.refresh();
 
         ImageButton profileButton = findViewById(R.id.profile);
         profileButton.setOnClickListener(v -> {
@@ -23,14 +23,26 @@ import java.util.Locale;
 
 import models.EventModel;
 import models.OnWaitingListModel;
+import services.EventDeadlineIndex;
+import services.EventPageRepository;
+import services.EventSearchIndex;
 import services.FirebaseService;
+import services.ModelStore;
 /**
  * Allows an entrant to filter events by keyword and/or registration deadline.
  * Displays the filtered results in a list.
+ * Keyword searches go through the events paged in since the screen opened. While the matches
+ * don't fill a page, the next page of events is loaded and indexed, until the matches fill a page
+ * or every event has been searched, so the screen never listens to the whole events collection.
  */
 public class EntrantFilterEvents extends AppCompatActivity {
     private RecyclerView recyclerFilter;
     private EventsAdapter adapter;
+    private EventPageRepository eventPageRepository;
+    // Every event paged in since the screen opened, and the keyword and deadline indexes over them
+    private final ModelStore<EventModel> loadedEvents = new ModelStore<>(null);
+    private final EventSearchIndex searchIndex = new EventSearchIndex();
+    private final EventDeadlineIndex deadlineIndex = new EventDeadlineIndex();
 
     private final ArrayList<EventModel> allEvents = new ArrayList<>();
     private String currentKeyword = null;
@@ -106,18 +118,31 @@ public class EntrantFilterEvents extends AppCompatActivity {
             }
         });
         recyclerFilter.setAdapter(adapter);
+        loadedEvents.addChangeListener(searchIndex);
+        loadedEvents.addChangeListener(deadlineIndex);
 
-        FirebaseService.firebaseService.getEventsLiveData().observe(this, list -> {
+        // Events are loaded a page at a time, the deadline filter is applied by the query
+        eventPageRepository = FirebaseService.firebaseService.createEventPageRepository();
+        eventPageRepository.getEventsLiveData().observe(this, list -> {
             allEvents.clear();
-            if (list != null) allEvents.addAll(list);
+            if (list != null) {
+                allEvents.addAll(list);
+                for (EventModel e : list) {
+                    if (e != null) loadedEvents.put(e.getId(), e);
+                }
+                loadedEvents.commit();
+            }
             applyFiltersAndShow(); //start with no filters
         });
+        recyclerFilter.addOnScrollListener(new EventPageScrollListener(eventPageRepository));
+        eventPageRepository.refresh();
 
         ImageButton back = findViewById(R.id.back_button);
         back.setOnClickListener(v -> finish());
 
         showFilterDialog();
     }
+
     //Show the filter dialog for optional keywords and registration deadline
     /**
      * Opens a dialog where the user can choose a keyword and/or deadline filter.
@@ -163,12 +188,12 @@ public class EntrantFilterEvents extends AppCompatActivity {
                 .setPositiveButton("Apply", (dialog, which) -> {
                     currentKeyword = editKeyword.getText().toString().trim();
                     currentKeyword = currentKeyword.isEmpty() ? null : currentKeyword;
-                    currentDateFilter = selectedDate[0];
+                    setDateFilter(selectedDate[0]);
                     applyFiltersAndShow();
                 })
                 .setNegativeButton("Clear filters", (dialog, which) -> {
                     currentKeyword = null;
-                    currentDateFilter = null;
+                    setDateFilter(null);
                     applyFiltersAndShow();
                 })
                 .setNeutralButton("Cancel", null)
@@ -180,40 +205,44 @@ public class EntrantFilterEvents extends AppCompatActivity {
     private void applyFiltersAndShow() {
         List<EventModel> filtered = new ArrayList<>();
 
+        if (currentKeyword != null) {
+            // Keyword results come from the search index, ranked, rather than from the window
+            for (String eventId : searchIndex.search(currentKeyword)) {
+                EventModel e = loadedEvents.get(eventId);
+                if (e == null) continue;
+                // Events paged in under an earlier date filter are still indexed
+                if (currentDateFilter != null
+                        && !deadlineIndex.isDeadlineBetween(eventId, currentDateFilter, null)) continue;
+                filtered.add(e);
+            }
+            adapter.submitList(filtered);
+            // Pages are otherwise only loaded on scroll, which a short list of matches never fires.
+            // Each loaded page calls back in here, so this keeps going until a page is filled.
+            if (filtered.size() < EventPageRepository.PAGE_SIZE && eventPageRepository.hasMore()) {
+                eventPageRepository.loadNext();
+            }
+            return;
+        }
+
+        // The pages are already limited to the date filter by their query
         for (EventModel e : allEvents) {
-            if (e == null) continue;
-            if (!matchesKeyword(e)) continue;
-            if (!matchesDate(e)) continue;
-            filtered.add(e);
+            if (e != null) filtered.add(e);
         }
 
         adapter.submitList(filtered);
     }
     /**
-     * Checks whether an event matches the current keyword filter.
-     *
-     * @param e The event to test.
-     * @return true if it matches or no keyword filter is applied.
-     */
-    private boolean matchesKeyword(EventModel e) {
-        if (currentKeyword == null) return true;
-
-        String kw = currentKeyword.toLowerCase(Locale.getDefault());
-        String title = (e.getEventTitle() == null ? "" : e.getEventTitle()).toLowerCase();
-        String desc  = (e.getDescription()  == null ? "" : e.getDescription()).toLowerCase();
-
-        return title.contains(kw) || desc.contains(kw);
-    }
-    /**
-     * Checks whether an event matches the current date filter.
+     * Changes the date filter, reloading the events from the first page if it changed.
      *
-     * @param e The event to test.
-     * @return true if the event's registration deadline is on or after the selected date.
+     * @param date Earliest registration deadline to show, or null for no date filter.
      */
-    private boolean matchesDate(EventModel e) {
-        if (currentDateFilter == null) return true;
-        if (e.getRegistrationDeadline() == null) return false;
-
-        return !e.getRegistrationDeadline().before(currentDateFilter);
+    private void setDateFilter(Date date) {
+        boolean changed = date == null ? currentDateFilter != null : !date.equals(currentDateFilter);
+        currentDateFilter = date;
+        if (changed) {
+            // Don't show the pages of the previous filter while the first page reloads
+            allEvents.clear();
+            eventPageRepository.setMinDeadline(date);
+        }
     }
-}
\ No newline at end of file
+}
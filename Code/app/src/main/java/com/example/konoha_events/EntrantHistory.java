@@ -8,23 +8,18 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.List;
 
 import constants.DatabaseConstants;
-import models.EventModel;
-import models.OnWaitingListModel;
+import models.UserWaitlistEntry;
 import services.FirebaseService;
+import services.UserWaitlistView;
 /**
  * Shows the user's event history, including events where their
  * waitlist status is WAITING, ACCEPTED, SELECTED, DECLINED, or CANCELLED.
  */
 public class EntrantHistory extends AppCompatActivity {
 
-    private ArrayList<EventModel> allEvents = new ArrayList<>();
-    private ArrayList<OnWaitingListModel> waitlistRows = new ArrayList<>();
     private EntrantHistoryAdapter adapter;
     private RecyclerView recyclerHistory;
 
@@ -45,51 +40,26 @@ public class EntrantHistory extends AppCompatActivity {
         adapter = new EntrantHistoryAdapter();
         recyclerHistory.setAdapter(adapter);
 
-        FirebaseService.firebaseService.getEventsLiveData().observe(this, list -> {
-            allEvents = (list == null) ? new ArrayList<>() : list;
-            recomputeAndShow();
-        });
-        FirebaseService.firebaseService.getOnWaitingListLiveData().observe(this, list -> {
-            waitlistRows = (list == null) ? new ArrayList<>() : list;
-            recomputeAndShow();
-        });
+        // The view of the user's waiting lists is kept up to date as rows and events change
+        UserWaitlistView waitlistView = FirebaseService.firebaseService.getUserWaitlistView();
+        if (waitlistView != null) {
+            waitlistView.getEntriesLiveData().observe(this, this::showEntries);
+        }
     }
 
     /**
      * Show all events for this user where status is
      * WAITING, ACCEPTED, SELECTED, DECLINED, or CANCELLED.
+     *
+     * @param entries The waiting list entries of the user.
      */
-    private void recomputeAndShow() {
-        String userId = FirebaseService.firebaseService.getCurrentUserId();
-        if (userId == null) return;
-
-        Map<String, DatabaseConstants.ON_WAITING_LIST_STATUS> statusByEventId = new HashMap<>();
-
-        for (OnWaitingListModel row : waitlistRows) {
-            if (row == null) continue;
-            String uid = row.getUserId();
-            String eid = row.getEventId();
-            DatabaseConstants.ON_WAITING_LIST_STATUS status = row.getStatus();
-            if (uid == null || eid == null || status == null) continue;
-            if (!uid.equals(userId)) continue;
-
-            if (status == DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING
-                    || status == DatabaseConstants.ON_WAITING_LIST_STATUS.ACCEPTED
-                    || status == DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED
-                    || status == DatabaseConstants.ON_WAITING_LIST_STATUS.DECLINED
-                    || status == DatabaseConstants.ON_WAITING_LIST_STATUS.CANCELLED) {
-                statusByEventId.put(eid, status);
-            }
-        }
-
+    private void showEntries(List<UserWaitlistEntry> entries) {
         //Use history adapter to create a list of events the user is signed up for, sort as event and status
         ArrayList<EntrantHistoryAdapter.HistoryItem> historyItems = new ArrayList<>();
-        for (EventModel e : allEvents) {
-            if (e == null) continue;
-            DatabaseConstants.ON_WAITING_LIST_STATUS st = statusByEventId.get(e.getId());
-            if (st != null) {
-                historyItems.add(new EntrantHistoryAdapter.HistoryItem(e, st));
-            }
+        for (UserWaitlistEntry entry : entries) {
+            if (entry.getEvent() == null) continue;
+            if (entry.getStatus() == DatabaseConstants.ON_WAITING_LIST_STATUS.NULL) continue;
+            historyItems.add(new EntrantHistoryAdapter.HistoryItem(entry.getEvent(), entry.getStatus()));
         }
 
         adapter.submitList(historyItems);
@@ -1,6 +1,5 @@
 package com.example.konoha_events;
 
-import android.graphics.Bitmap;
 import android.graphics.Color;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -9,20 +8,22 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Locale;
 
 import constants.DatabaseConstants;
 import models.EventModel;
+import util.ImageUtil;
+import util.StableIds;
 /**
  * Adapter that displays a list of events from the entrant's history.
  * Each list item includes the event and the user's waitlist status.
  */
-public class EntrantHistoryAdapter extends RecyclerView.Adapter<EntrantHistoryAdapter.HistoryViewHolder> {
+public class EntrantHistoryAdapter extends ListAdapter<EntrantHistoryAdapter.HistoryItem, EntrantHistoryAdapter.HistoryViewHolder> {
     //Most recycled code from EventsAdapter.
     /**
      * Represents a single history entry containing an event
@@ -45,18 +46,29 @@ public class EntrantHistoryAdapter extends RecyclerView.Adapter<EntrantHistoryAd
         }
     }
 
-    private final List<HistoryItem> items = new ArrayList<>();
-    private final SimpleDateFormat dateFormat =
-            new SimpleDateFormat("MMM d, yyyy", Locale.getDefault());
     /**
-     * Replaces the adapter's data with a new list of history items.
-     *
-     * @param newItems The new list to display.
+     * Compares history items by event, and by the fields shown in a row, so only changed rows
+     * are rebound.
      */
-    public void submitList(List<HistoryItem> newItems) {
-        items.clear();
-        if (newItems != null) items.addAll(newItems);
-        notifyDataSetChanged();
+    static final DiffUtil.ItemCallback<HistoryItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<HistoryItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull HistoryItem oldItem, @NonNull HistoryItem newItem) {
+            return oldItem.event.getId().equals(newItem.event.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull HistoryItem oldItem, @NonNull HistoryItem newItem) {
+            return oldItem.status == newItem.status
+                    && EventsAdapter.DIFF_CALLBACK.areContentsTheSame(oldItem.event, newItem.event);
+        }
+    };
+
+    private final SimpleDateFormat dateFormat =
+            new SimpleDateFormat("MMM d, yyyy", Locale.getDefault());
+
+    public EntrantHistoryAdapter() {
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
     }
     /**
      * Inflates the history item layout.
@@ -81,7 +93,7 @@ public class EntrantHistoryAdapter extends RecyclerView.Adapter<EntrantHistoryAd
      */
     @Override
     public void onBindViewHolder(@NonNull HistoryViewHolder h, int position) {
-        HistoryItem item = items.get(position);
+        HistoryItem item = getItem(position);
         EventModel e = item.event;
 
         h.title.setText(e.getEventTitle() == null ? "" : e.getEventTitle());
@@ -93,12 +105,7 @@ public class EntrantHistoryAdapter extends RecyclerView.Adapter<EntrantHistoryAd
             h.deadline.setText("Registration always open");
         }
 
-        Bitmap img = e.getImageBitmap();
-        if (img != null) {
-            h.image.setImageBitmap(img);
-        } else {
-            h.image.setImageResource(R.drawable.ic_launcher_background);
-        }
+        ImageUtil.loadInto(h.image, e, R.drawable.ic_launcher_background);
 
         //Set the status text to a colour to make it nicer and more user friendly.
         String statusText = "";
@@ -133,11 +140,11 @@ public class EntrantHistoryAdapter extends RecyclerView.Adapter<EntrantHistoryAd
         h.status.setTextColor(color);
     }
     /**
-     * @return The number of items shown in the history list.
+     * @return A stable ID for the event of the item at the position.
      */
     @Override
-    public int getItemCount() {
-        return items.size();
+    public long getItemId(int position) {
+        return StableIds.of(getItem(position).event.getId());
     }
     /**
      * Holds references to the views inside a history list item.
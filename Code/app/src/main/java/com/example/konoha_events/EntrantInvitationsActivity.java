@@ -9,11 +9,19 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import constants.DatabaseConstants;
+import models.EventSummary;
+import models.UserWaitlistEntry;
 import services.FirebaseService;
+import services.UserWaitlistView;
 
 /**
  * activity that shows all pending invitations for the logged-in entrant.
@@ -25,7 +33,7 @@ public class EntrantInvitationsActivity extends AppCompatActivity {
     /** container where all invitation cards will be added dynamically */
     private LinearLayout container;
 
-    /** firestore instance for loading pending invitations */
+    /** firestore instance for answering invitations */
     private FirebaseFirestore db;
 
     /** logged-in user's firestore id */
@@ -75,46 +83,96 @@ public class EntrantInvitationsActivity extends AppCompatActivity {
             startActivity(intent);
         });
 
-        loadPendingInvitations();
+        // the waiting list of the user is kept up to date by the role listeners, and filled in
+        // from the device on a cold start
+        UserWaitlistView waitlistView = FirebaseService.firebaseService.getUserWaitlistView();
+        if (waitlistView != null) {
+            waitlistView.getEntriesLiveData().observe(this, this::showPendingInvitations);
+        }
     }
 
     /**
-     * loads all invitations where this user has been marked as "selected".
-     * every result becomes its own card with accept/decline functionality.
+     * shows a card for every event where this user has been marked as "selected".
+     * every card has accept/decline functionality.
+     *
+     * @param entries the waiting list entries of the user
      */
-    private void loadPendingInvitations() {
+    private void showPendingInvitations(List<UserWaitlistEntry> entries) {
         container.removeAllViews();
 
-        db.collection(DatabaseConstants.COLLECTION_ON_WAITING_LIST_NAME)
-                .whereEqualTo(DatabaseConstants.COLLECTION_ON_WAITING_LIST_USER_ID_FIELD, entrantId)
-                .whereEqualTo(DatabaseConstants.COLLECTION_ON_WAITING_LIST_STATUS_FIELD,
-                        DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED.name())
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    if (querySnapshot.isEmpty()) {
-                        showMessage("you have no pending invitations.");
-                        return;
-                    }
+        // titles of invited events that aren't loaded yet are loaded together once the cards exist
+        Map<String, List<TextView>> titlesByEvent = new HashMap<>();
+        for (UserWaitlistEntry entry : entries) {
+            if (entry.getStatus() != DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED) {
+                continue;
+            }
+            TextView title = addInvitationCard(entry.getRowId(), entry.getEventId());
+            if (entry.getEvent() != null) {
+                title.setText("event: " + getTitleOrDefault(entry.getEvent().getEventTitle()));
+                continue;
+            }
+            List<TextView> titles = titlesByEvent.get(entry.getEventId());
+            if (titles == null) {
+                titles = new ArrayList<>();
+                titlesByEvent.put(entry.getEventId(), titles);
+            }
+            titles.add(title);
+        }
+
+        if (container.getChildCount() == 0) {
+            TextView empty = new TextView(this);
+            empty.setText("you have no pending invitations.");
+            container.addView(empty);
+            return;
+        }
+        loadEventTitles(titlesByEvent);
+    }
+
+    /**
+     * @return the event title, or a placeholder if the event has none
+     */
+    private String getTitleOrDefault(String eventTitle) {
+        return eventTitle == null || eventTitle.isEmpty() ? "event" : eventTitle;
+    }
+
+    /**
+     * fills in the event titles of the cards, loading every event that isn't cached in bulk.
+     *
+     * @param titlesByEvent title views of the cards, by the id of their event
+     */
+    private void loadEventTitles(Map<String, List<TextView>> titlesByEvent) {
+        if (titlesByEvent.isEmpty()) {
+            return;
+        }
 
-                    for (QueryDocumentSnapshot doc : querySnapshot) {
-                        String eventId = doc.getString(
-                                DatabaseConstants.COLLECTION_ON_WAITING_LIST_EVENT_ID_FIELD
-                        );
-                        addInvitationCard(doc.getId(), eventId);
+        FirebaseService.firebaseService.getEventSummaryLoader().load(
+                new ArrayList<>(titlesByEvent.keySet()),
+                summaries -> runOnUiThread(() -> {
+                    for (EventSummary summary : summaries) {
+                        String eventTitle = getTitleOrDefault(summary.getEventTitle());
+                        for (TextView title : titlesByEvent.remove(summary.getId())) {
+                            title.setText("event: " + eventTitle);
+                        }
                     }
-                })
-                .addOnFailureListener(e ->
-                        showMessage("failed to load invitations: " + e.getMessage()));
+                    // events that weren't found
+                    for (List<TextView> titles : titlesByEvent.values()) {
+                        for (TextView title : titles) {
+                            title.setText("event: (failed to load)");
+                        }
+                    }
+                }));
     }
 
     /**
      * creates a small ui card representing one invitation.
-     * it shows the event title, event id, and accept/decline buttons.
+     * it shows the event id and accept/decline buttons, the event title is filled in by
+     * loadEventTitles.
      *
      * @param docId   the id of the waitlist entry
      * @param eventId the id of the event this invite belongs to
+     * @return the title view of the card
      */
-    private void addInvitationCard(String docId, String eventId) {
+    private TextView addInvitationCard(String docId, String eventId) {
         if (eventId == null || eventId.isEmpty()) {
             eventId = "(unknown event)";
         }
@@ -155,25 +213,7 @@ public class EntrantInvitationsActivity extends AppCompatActivity {
 
         container.addView(card);
 
-        // fetch event title and update title text
-        db.collection(DatabaseConstants.COLLECTION_EVENTS_NAME)
-                .document(eventId)
-                .get()
-                .addOnSuccessListener(eventDoc -> {
-                    String eventTitle = null;
-                    if (eventDoc != null && eventDoc.exists()) {
-                        eventTitle = eventDoc.getString(
-                                DatabaseConstants.COLLECTION_EVENTS_TITLE_FIELD
-                        );
-                    }
-                    if (eventTitle == null || eventTitle.isEmpty()) {
-                        eventTitle = "event";
-                    }
-                    title.setText("event: " + eventTitle);
-                })
-                .addOnFailureListener(e ->
-                        title.setText("event: (failed to load)")
-                );
+        return title;
     }
 
     /**
@@ -191,7 +231,9 @@ public class EntrantInvitationsActivity extends AppCompatActivity {
         db.collection(DatabaseConstants.COLLECTION_ON_WAITING_LIST_NAME)
                 .document(docId)
                 .update(DatabaseConstants.COLLECTION_ON_WAITING_LIST_STATUS_FIELD,
-                        newStatus.name())
+                        newStatus.name(),
+                        DatabaseConstants.COLLECTION_ON_WAITING_LIST_DATE_MODIFIED_FIELD,
+                        FieldValue.serverTimestamp())
                 .addOnSuccessListener(aVoid -> {
                     Toast.makeText(this,
                             "invitation " + newStatus.name().toLowerCase(),
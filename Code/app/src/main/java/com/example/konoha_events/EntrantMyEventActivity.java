@@ -11,13 +11,13 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
 
 import constants.DatabaseConstants;
 import models.EventModel;
-import models.OnWaitingListModel;
+import models.UserWaitlistEntry;
 import services.FirebaseService;
+import services.UserWaitlistView;
 /**
  * Shows all events the entrant is currently signed up for.
  * Allows the user to leave the waitlist for any of these events.
@@ -26,8 +26,6 @@ public class EntrantMyEventActivity extends AppCompatActivity {
 
     private RecyclerView recyclerMyEvents;
     private EventsAdapter adapter;
-    private ArrayList<EventModel> allEvents = new ArrayList<>();
-    private ArrayList<OnWaitingListModel> waitlistRows = new ArrayList<>();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -93,48 +91,29 @@ public class EntrantMyEventActivity extends AppCompatActivity {
         adapter.setPrimaryButtonLabel("Leave Waitlist");
         recyclerMyEvents.setAdapter(adapter);
 
-        FirebaseService.firebaseService.getEventsLiveData().observe(this, list -> {
-            allEvents = (list == null) ? new ArrayList<>() : list;
-            recomputeAndShow();
-        });
 
-        FirebaseService.firebaseService.getOnWaitingListLiveData().observe(this, list -> {
-            waitlistRows = (list == null) ? new ArrayList<>() : list;
-            recomputeAndShow();
-        });
+        // The view of the user's waiting lists is kept up to date as rows and events change
+        UserWaitlistView waitlistView = FirebaseService.firebaseService.getUserWaitlistView();
+        if (waitlistView != null) {
+            waitlistView.getEntriesLiveData().observe(this, this::showEntries);
+        }
     }
 
-    //Helper to find all the events a user is signed up for.
-    //Collect eventIds where the user is on the waitlist for.
     /**
-     * Finds all events the current user is part of and displays them.
+     * Displays the events the current user is part of.
      * A user is shown an event if their status is WAITING, ACCEPTED, or SELECTED.
+     *
+     * @param entries The waiting list entries of the user.
      */
-    private void recomputeAndShow() {
-        String userId = FirebaseService.firebaseService.getCurrentUserId();
-        Set<String> myEventIds = new HashSet<>();
-        for (OnWaitingListModel row : waitlistRows) {
-            if (row == null) continue;
-            String uid = row.getUserId();
-            String eid = row.getEventId();
-            DatabaseConstants.ON_WAITING_LIST_STATUS status = row.getStatus();
-
-            if (uid == null || eid == null || status == null) continue;
-            //I think this is all of them that a user would be apart of
-            //TODO: Add any extra waiting list status
-            //Find all onWaitingList entries that the user is on, add the events to the Hashset.
-            if (uid.equals(userId)
+    private void showEntries(List<UserWaitlistEntry> entries) {
+        ArrayList<EventModel> mine = new ArrayList<>();
+        for (UserWaitlistEntry entry : entries) {
+            DatabaseConstants.ON_WAITING_LIST_STATUS status = entry.getStatus();
+            if (entry.getEvent() != null
                     && (status == DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING
                     || status == DatabaseConstants.ON_WAITING_LIST_STATUS.ACCEPTED
                     || status == DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED)) {
-                myEventIds.add(eid);
-            }
-        }
-
-        ArrayList<EventModel> mine = new ArrayList<>();
-        for (EventModel e : allEvents) {
-            if (e != null && myEventIds.contains(e.getId())) {
-                mine.add(e);
+                mine.add(entry.getEvent());
             }
         }
 
@@ -7,18 +7,20 @@ import android.widget.Switch;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.Query;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import constants.DatabaseConstants;
 import services.FirebaseService;
+import services.LocalDatabase;
+import services.NotificationFeed;
 
 /**
  * activity that shows all notifications for the currently logged-in entrant.
@@ -41,6 +43,9 @@ public class EntrantNotificationsActivity extends AppCompatActivity {
     /** in-memory list of notifications loaded from firestore */
     private List<Notification> notificationList = new ArrayList<>();
 
+    /** pages through the notifications, starting with the ones kept on the device */
+    private NotificationFeed notificationFeed;
+
     private FirebaseFirestore db;
 
     /** firestore user id for the currently logged-in entrant */
@@ -104,9 +109,11 @@ public class EntrantNotificationsActivity extends AppCompatActivity {
 
             fbs.getUserDocumentReference(userId)
                     .update("notificationsOptOut", optOut)
-                    .addOnSuccessListener(v ->
-                            Log.i("EntrantNotifications",
-                                    "updated notificationsOptOut=" + optOut))
+                    .addOnSuccessListener(v -> {
+                        fbs.getNotificationPreferenceCache().put(userId, optOut);
+                        Log.i("EntrantNotifications",
+                                "updated notificationsOptOut=" + optOut);
+                    })
                     .addOnFailureListener(e ->
                             Log.e("EntrantNotifications",
                                     "failed to update notificationsOptOut", e));
@@ -116,38 +123,49 @@ public class EntrantNotificationsActivity extends AppCompatActivity {
     }
 
     /**
-     * loads all notifications for the current entrant from the "notifications" collection.
-     * they are ordered by dateCreated in descending order so the newest ones show up first.
+     * stops listening for new notifications once the screen is gone.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (notificationFeed != null) {
+            notificationFeed.close();
+        }
+    }
+
+    /**
+     * shows the notifications of the current entrant, newest first.
+     * the ones already on the device show up right away, only newer ones are fetched from
+     * firestore, and older pages load as the list is scrolled to the bottom.
      * if there are none, a simple message is shown instead of the list.
      */
     private void loadNotifications() {
-        db.collection("notifications")
-                .whereEqualTo("userId", entrantId)
-                .orderBy("dateCreated", Query.Direction.DESCENDING)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    notificationList.clear();
-
-                    for (DocumentSnapshot doc : querySnapshot) {
-                        Notification notif = doc.toObject(Notification.class);
-                        if (notif != null) {
-                            notif.setId(doc.getId());
-                            notificationList.add(notif);
-                        }
-                    }
-
-                    adapter.updateData(notificationList);
-
-                    if (notificationList.isEmpty()) {
-                        tvNoNotifications.setVisibility(View.VISIBLE);
-                    } else {
-                        tvNoNotifications.setVisibility(View.GONE);
-                    }
-                })
-                .addOnFailureListener(e ->
-                        Toast.makeText(this,
-                                "failed to load notifications: " + e.getMessage(),
-                                Toast.LENGTH_SHORT).show()
-                );
+        notificationFeed = new NotificationFeed(entrantId,
+                db.collection(DatabaseConstants.COLLECTION_NOTIFICATIONS_NAME),
+                LocalDatabase.getInstance(this));
+        notificationFeed.getNotificationsLiveData().observe(this, notifications -> {
+            notificationList.clear();
+            notificationList.addAll(notifications);
+            adapter.updateData(notificationList);
+
+            if (notificationList.isEmpty()) {
+                tvNoNotifications.setVisibility(View.VISIBLE);
+            } else {
+                tvNoNotifications.setVisibility(View.GONE);
+            }
+        });
+
+        rvNotifications.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (layoutManager != null && notificationFeed.hasMore()
+                        && layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - 5) {
+                    notificationFeed.loadMore();
+                }
+            }
+        });
+
+        notificationFeed.open();
     }
 }
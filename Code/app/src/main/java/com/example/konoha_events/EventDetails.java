@@ -28,26 +28,21 @@ import androidx.appcompat.widget.Toolbar;
 import com.bumptech.glide.Glide;
 import com.google.firebase.firestore.DocumentReference;
 
-import java.util.ArrayList;
 import java.util.Date;
 
 import constants.DatabaseConstants;
 import constants.IntentConstants;
-import interfaces.OnWaitingListArrayListCallback;
 import models.EventModel;
-import models.OnWaitingListModel;
+import services.EntrantCsvExporter;
 import services.FirebaseService;
+import util.ImageUtil;
 import util.ModelUtil;
 import util.ViewUtil;
 
-import android.os.Environment;
 import androidx.core.content.FileProvider;
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Locale;
-import interfaces.UserModelArrayListCallback;
 
 /**
  * Activity displaying details about events. This view is used by organizers and adminstrators.
@@ -86,6 +81,7 @@ public class EventDetails extends AppCompatActivity {
     // 🔹 New: geolocation toggle + map button
     private Switch geolocationSwitch;
     private Button viewEntrantLocationsMapButton;
+    private EntrantCsvExporter csvExporter;
 
     public enum SEND_NOTIFICATION_OPTIONS {
         EVERYONE(null),
@@ -206,11 +202,16 @@ public class EventDetails extends AppCompatActivity {
                     isGeolocationEnabledTextView.setText("Geolocation Enabled: No");
 
                     drawFromWaitlistButton.setOnClickListener(vv -> {
-                        fbs.selectUsersForEvent(eventModel.getId(), numberPicker.getValue());
+                        drawFromWaitlistButton.setEnabled(false);
+                        fbs.selectUsersForEvent(eventModel.getId(), numberPicker.getValue(), null,
+                                succeeded -> {
+                                    drawFromWaitlistButton.setEnabled(true);
+                                    Toast.makeText(this,
+                                            succeeded ? "Draw complete" : "Draw failed, please try again",
+                                            Toast.LENGTH_SHORT).show();
+                                });
                     });
-                    Glide.with(this)
-                            .load(eventModel.getImageBitmap())
-                            .into(posterImageView);
+                    ImageUtil.loadInto(posterImageView, eventModel, 0);
                 })
                 .addOnFailureListener((e) -> Log.i(tag,
                         String.format("Didn't find or doesn't exist event %s", eventId)));
@@ -219,51 +220,25 @@ public class EventDetails extends AppCompatActivity {
         numberPicker.setMaxValue(0);
         numberPicker.setValue(0);
 
-        fbs.getOnWaitingListsOfEvent(eventId, new OnWaitingListArrayListCallback() {
-            @Override
-            public void onCompleted(ArrayList<OnWaitingListModel> onWaitingListModels) {
-                Log.i(tag, "Successfully got on waiting list models for event ");
-                int waitingCount = 0;
-                int selectedCount = 0;
-                int acceptedCount = 0;
-                int declinedCount = 0;
-                int cancelledCount = 0;
-                int total = onWaitingListModels.size();
-                for (OnWaitingListModel owm : onWaitingListModels) {
-                    switch (owm.getStatus()) {
-                        case WAITING:
-                            waitingCount++;
-                            break;
-                        case SELECTED:
-                            selectedCount++;
-                            break;
-                        case ACCEPTED:
-                            acceptedCount++;
-                            break;
-                        case DECLINED:
-                            declinedCount++;
-                            break;
-                        case CANCELLED:
-                            cancelledCount++;
-                            break;
-                        default:
-                            Log.e(tag, "Unknown status in on waiting list model: " + owm.getStatus());
-                            break;
-                    }
-                }
-
-                displayTotals(total);
-                displayWaiting(waitingCount);
-                displaySelected(selectedCount);
-                displayAccepted(acceptedCount);
-                displayDeclined(declinedCount);
-                displayCancelled(cancelledCount);
-
-                numberPicker.setMinValue(0);
-                numberPicker.setMaxValue(waitingCount);
-                numberPicker.setValue(0);
-                numberPicker.setWrapSelectorWheel(true);
+        fbs.getStatusCountsOfEvent(eventId, counts -> {
+            if (counts == null) {
+                Log.e(tag, "Failed to count on waiting list models for event " + eventId);
+                return;
             }
+            Log.i(tag, "Successfully counted on waiting list models for event ");
+            int waitingCount = counts.getCount(DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING);
+
+            displayTotals(counts.getTotal());
+            displayWaiting(waitingCount);
+            displaySelected(counts.getCount(DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED));
+            displayAccepted(counts.getCount(DatabaseConstants.ON_WAITING_LIST_STATUS.ACCEPTED));
+            displayDeclined(counts.getCount(DatabaseConstants.ON_WAITING_LIST_STATUS.DECLINED));
+            displayCancelled(counts.getCount(DatabaseConstants.ON_WAITING_LIST_STATUS.CANCELLED));
+
+            numberPicker.setMinValue(0);
+            numberPicker.setMaxValue(waitingCount);
+            numberPicker.setValue(0);
+            numberPicker.setWrapSelectorWheel(true);
         });
 
         viewEntrantsButton.setOnClickListener(v -> {
@@ -390,123 +365,80 @@ public class EventDetails extends AppCompatActivity {
     }
 
     /**
-     * Export all entrants to a CSV file with their status
+     * Export all entrants to a CSV file with their status.
+     * Entrants are streamed into the file a page at a time, the dialog shows the progress and can
+     * cancel the export.
      */
     private void exportAllEntrantsToCSV() {
         if (eventId == null) {
             android.widget.Toast.makeText(this, "Event ID not loaded", android.widget.Toast.LENGTH_SHORT).show();
             return;
         }
-
-        android.widget.Toast.makeText(this, "Generating CSV file...", android.widget.Toast.LENGTH_SHORT).show();
-
-        fbs.getOnWaitingListsOfEvent(eventId, new OnWaitingListArrayListCallback() {
-            @Override
-            public void onCompleted(ArrayList<OnWaitingListModel> onWaitingListModels) {
-                if (onWaitingListModels.isEmpty()) {
-                    android.widget.Toast.makeText(EventDetails.this,
-                            "No entrants to export",
-                            android.widget.Toast.LENGTH_SHORT).show();
-                    return;
-                }
-
-                fetchUsersAndCreateCSV(onWaitingListModels);
-            }
-        });
-    }
-
-    private void fetchUsersAndCreateCSV(ArrayList<OnWaitingListModel> onWaitingListModels) {
-        ArrayList<EntrantWithStatus> entrantsWithStatus = new ArrayList<>();
-        final int totalEntrants = onWaitingListModels.size();
-        final int[] fetchedCount = {0};
-
-        for (OnWaitingListModel waitingListEntry : onWaitingListModels) {
-            String userId = waitingListEntry.getUserId();
-            DatabaseConstants.ON_WAITING_LIST_STATUS status = waitingListEntry.getStatus();
-
-            fbs.getUserDocumentReference(userId)
-                    .get()
-                    .addOnSuccessListener(userSnapshot -> {
-                        if (userSnapshot.exists()) {
-                            models.UserModel user = ModelUtil.toUserModel(userSnapshot);
-                            entrantsWithStatus.add(new EntrantWithStatus(user, status));
-                        }
-
-                        fetchedCount[0]++;
-
-                        if (fetchedCount[0] == totalEntrants) {
-                            File csvFile = createCSVFile(entrantsWithStatus);
-                            if (csvFile != null) {
-                                shareCSVFile(csvFile, entrantsWithStatus.size());
-                            } else {
-                                android.widget.Toast.makeText(EventDetails.this,
-                                        "Failed to create CSV file",
-                                        android.widget.Toast.LENGTH_SHORT).show();
-                            }
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(tag, "Failed to fetch user: " + userId, e);
-                        fetchedCount[0]++;
-
-                        if (fetchedCount[0] == totalEntrants) {
-                            File csvFile = createCSVFile(entrantsWithStatus);
-                            if (csvFile != null) {
-                                shareCSVFile(csvFile, entrantsWithStatus.size());
-                            }
-                        }
-                    });
+        if (csvExporter != null) {
+            android.widget.Toast.makeText(this, "Export already in progress", android.widget.Toast.LENGTH_SHORT).show();
+            return;
         }
-    }
-
-    private File createCSVFile(ArrayList<EntrantWithStatus> entrantsWithStatus) {
-        try {
-            String eventTitle = eventModel != null ?
-                    eventModel.getEventTitle().replaceAll("[^a-zA-Z0-9]", "_") :
-                    "event";
-            String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault())
-                    .format(new Date());
-            String filename = String.format("%s_all_entrants_%s.csv", eventTitle, timestamp);
-
-            File csvFile = new File(getCacheDir(), filename);
-            FileWriter writer = new FileWriter(csvFile);
 
-            writer.append("User ID,Full Name,Status\n");
-
-            for (EntrantWithStatus entrant : entrantsWithStatus) {
-                models.UserModel user = entrant.user;
-                String status = entrant.status.toString();
-
-                writer.append(escapeCSV(user.getId())).append(",");
-                writer.append(escapeCSV(user.getFullName())).append(",");
-                writer.append(escapeCSV(status)).append("\n");
-            }
-
-            writer.flush();
-            writer.close();
-
-            Log.i(tag, "CSV file created successfully: " + csvFile.getAbsolutePath());
-            return csvFile;
+        csvExporter = fbs.createEntrantCsvExporter();
+        EntrantCsvExporter exporter = csvExporter;
+        AlertDialog progressDialog = new AlertDialog.Builder(this)
+                .setTitle("Exporting Entrants")
+                .setMessage("Generating CSV file...")
+                .setCancelable(false)
+                .setNegativeButton("Cancel", (dialog, which) -> exporter.cancel())
+                .show();
+
+        exporter.export(eventId, makeCSVFile(),
+                (exported, total) -> progressDialog.setMessage(
+                        String.format(Locale.getDefault(), "Processed %d of %d entrants...", exported, total)),
+                (csvFile, exportedCount, missingUserIds) -> {
+                    csvExporter = null;
+                    if (isFinishing() || isDestroyed()) {
+                        return;
+                    }
+                    progressDialog.dismiss();
 
-        } catch (IOException e) {
-            Log.e(tag, "Failed to create CSV file", e);
-            return null;
-        }
+                    if (exporter.isCancelled()) {
+                        return;
+                    }
+                    if (csvFile == null) {
+                        android.widget.Toast.makeText(EventDetails.this,
+                                "Failed to create CSV file",
+                                android.widget.Toast.LENGTH_SHORT).show();
+                    } else if (exportedCount == 0) {
+                        csvFile.delete();
+                        android.widget.Toast.makeText(EventDetails.this,
+                                "No entrants to export",
+                                android.widget.Toast.LENGTH_SHORT).show();
+                    } else {
+                        Log.i(tag, "CSV file created successfully: " + csvFile.getAbsolutePath());
+                        shareCSVFile(csvFile, exportedCount, missingUserIds.size());
+                    }
+                });
     }
 
-    private String escapeCSV(String value) {
-        if (value == null) {
-            return "";
-        }
+    /**
+     * @return The file in the cache directory a new export of this event is written to
+     */
+    private File makeCSVFile() {
+        String eventTitle = eventModel != null && eventModel.getEventTitle() != null ?
+                eventModel.getEventTitle().replaceAll("[^a-zA-Z0-9]", "_") :
+                "event";
+        String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault())
+                .format(new Date());
+        String filename = String.format("%s_all_entrants_%s.csv", eventTitle, timestamp);
+        return new File(getCacheDir(), filename);
+    }
 
-        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
-            return "\"" + value.replace("\"", "\"\"") + "\"";
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (csvExporter != null) {
+            csvExporter.cancel();
         }
-
-        return value;
     }
 
-    private void shareCSVFile(File csvFile, int entrantCount) {
+    private void shareCSVFile(File csvFile, int entrantCount, int missingCount) {
         try {
             Uri fileUri = FileProvider.getUriForFile(
                     this,
@@ -517,7 +449,10 @@ public class EventDetails extends AppCompatActivity {
             // Show dialog with options to View or Share
             AlertDialog.Builder builder = new AlertDialog.Builder(this);
             builder.setTitle("CSV Export Complete");
-            builder.setMessage(entrantCount + " entrants exported successfully.\n\nWhat would you like to do?");
+            String skipped = missingCount == 0 ? "" :
+                    "\n" + missingCount + " entrants were left out, their profile no longer exists.";
+            builder.setMessage(entrantCount + " entrants exported successfully." + skipped
+                    + "\n\nWhat would you like to do?");
 
             // View button
             builder.setPositiveButton("View File", (dialog, which) -> {
@@ -577,14 +512,4 @@ public class EventDetails extends AppCompatActivity {
                     android.widget.Toast.LENGTH_LONG).show();
         }
     }
-
-    private static class EntrantWithStatus {
-        models.UserModel user;
-        DatabaseConstants.ON_WAITING_LIST_STATUS status;
-
-        EntrantWithStatus(models.UserModel user, DatabaseConstants.ON_WAITING_LIST_STATUS status) {
-            this.user = user;
-            this.status = status;
-        }
-    }
 }
@@ -1,6 +1,5 @@
 package com.example.konoha_events;
 
-import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Bundle;
 import android.view.View;
@@ -12,8 +11,6 @@ import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.google.firebase.firestore.DocumentSnapshot;
 
 import java.text.SimpleDateFormat;
@@ -25,6 +22,7 @@ import constants.IntentConstants;
 import models.EventModel;
 import models.OnWaitingListModel;
 import services.FirebaseService;
+import util.ImageUtil;
 import util.ModelUtil;
 
 /**
@@ -67,6 +65,23 @@ public class EventDetailsActivity extends AppCompatActivity {
         observeWaitlistChanges();
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // The waitlist count needs every row of the event, not just the user's own
+        if (eventId != null && !eventId.isEmpty()) {
+            fbs.acquireWaitlistOfEvent(eventId);
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (eventId != null && !eventId.isEmpty()) {
+            fbs.releaseWaitlistOfEvent(eventId);
+        }
+    }
+
     /**
      * Initialize all view components
      */
@@ -122,14 +137,7 @@ public class EventDetailsActivity extends AppCompatActivity {
             if (waitlistModels == null) return;
 
             // Count users on the waitlist for this event
-            int count = 0;
-            for (OnWaitingListModel model : waitlistModels) {
-                if (model != null && eventId.equals(model.getEventId())) {
-                    count++;
-                }
-            }
-
-            currentWaitlistCount = count;
+            currentWaitlistCount = fbs.getWaitlistIndex().getEntryCount(eventId);
             updateWaitlistCountDisplay();
             updateWaitlistButton();
         });
@@ -265,26 +273,19 @@ public class EventDetailsActivity extends AppCompatActivity {
         }
 
         // Load event poster if available
-        if (currentEvent.getImageBitmap() != null) {
-            loadEventImage(currentEvent.getImageBitmap());
+        if (currentEvent.hasImage()) {
+            loadEventImage();
         } else {
             eventPoster.setVisibility(View.GONE);
         }
     }
 
     /**
-     * Load event image using Glide
+     * Load event image, decoded at the size of the poster view
      */
-    private void loadEventImage(Bitmap imageBitmap) {
+    private void loadEventImage() {
         eventPoster.setVisibility(View.VISIBLE);
-
-        Glide.with(this)
-                .load(imageBitmap)
-                .centerCrop()
-                .placeholder(R.drawable.ic_launcher_background)
-                .error(R.drawable.ic_launcher_background)
-                .diskCacheStrategy(DiskCacheStrategy.ALL)
-                .into(eventPoster);
+        ImageUtil.loadInto(eventPoster, currentEvent, R.drawable.ic_launcher_background);
     }
 
     /**
@@ -18,9 +18,9 @@ import java.util.ArrayList;
 import constants.DatabaseConstants;
 import constants.IntentConstants;
 import interfaces.OnWaitingListArrayListCallback;
-import interfaces.UserModelArrayListCallback;
 import models.OnWaitingListModel;
 import models.UserModel;
+import services.EventEntrantsView;
 import services.FirebaseService;
 import util.ViewUtil;
 import views.UserAdminDashboardView;
@@ -43,6 +43,10 @@ public class EventEntrantDetails extends AppCompatActivity {
     private UserAdminDashboardView userAdminDashboardView;
     private String eventId;
     private TextView userTypeTitleText;
+    // Entrants of the event joined with their users, filtered by the selected status
+    private EventEntrantsView eventEntrantsView;
+    private DatabaseConstants.ON_WAITING_LIST_STATUS displayedStatus =
+            DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -69,6 +73,10 @@ public class EventEntrantDetails extends AppCompatActivity {
         userAdminDashboardView = new UserAdminDashboardView(this, entrantUserModels, eventId);
         entrantDetailsListView.setAdapter(userAdminDashboardView);
 
+        eventEntrantsView = fbs.createEventEntrantsView(eventId);
+        eventEntrantsView.getEntriesLiveData().observe(this, entries -> showEntrants());
+        eventEntrantsView.start();
+
         materialButtonToggleGroup.addOnButtonCheckedListener((view, id, isChecked) -> {
             if (!isChecked) return;
 
@@ -94,15 +102,30 @@ public class EventEntrantDetails extends AppCompatActivity {
         userTypeTitleText.setText("Waiting Entrants");
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        fbs.acquireWaitlistOfEvent(eventId);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        fbs.releaseWaitlistOfEvent(eventId);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        eventEntrantsView.stop();
+    }
+
     private void displayEntrantsOfStatus(DatabaseConstants.ON_WAITING_LIST_STATUS status) {
-        fbs.getUsersOfEventWithStatus(eventId, status, new UserModelArrayListCallback() {
-            @Override
-            public void onCompleted(ArrayList<UserModel> userModels) {
-                Log.i(tag, "Received details: " + userModels.toString());
-                entrantUserModels.clear();
-                entrantUserModels.addAll(userModels);
-                userAdminDashboardView.notifyDataSetChanged();
-            }
-        });
+        displayedStatus = status;
+        showEntrants();
+    }
+
+    private void showEntrants() {
+        userAdminDashboardView.setEntries(eventEntrantsView.getEntries(displayedStatus));
     }
 }
@@ -0,0 +1,33 @@
+package com.example.konoha_events;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import services.EventPageRepository;
+
+/**
+ * Scroll listener that loads the pages of an EventPageRepository around the visible rows of a
+ * list.
+ */
+public class EventPageScrollListener extends RecyclerView.OnScrollListener {
+    private final EventPageRepository repository;
+
+    public EventPageScrollListener(@NonNull EventPageRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager)) {
+            return;
+        }
+        LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        if (repository.isNearEnd(lastVisible, layoutManager.getItemCount())) {
+            repository.loadNext();
+        } else if (repository.isNearStart(layoutManager.findFirstVisibleItemPosition())) {
+            repository.loadPrevious();
+        }
+    }
+}
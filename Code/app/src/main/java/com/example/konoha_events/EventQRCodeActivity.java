@@ -2,6 +2,7 @@ package com.example.konoha_events;
 
 import android.content.Intent;
 import android.graphics.Bitmap;
+import android.graphics.Color;
 import android.net.Uri;
 import android.os.Bundle;
 import android.provider.MediaStore;
@@ -106,14 +107,19 @@ public class EventQRCodeActivity extends AppCompatActivity {
      * Generate and display the QR code
      */
     private void generateAndDisplayQRCode() {
-        // Generate QR code bitmap from event ID using the standard format
-        qrCodeBitmap = util.QRCodeUtil.generateQRCodeBitmapFromEventId(eventId, 800);
-
-        if (qrCodeBitmap != null) {
-            qrCodeImageView.setImageBitmap(qrCodeBitmap);
-        } else {
-            Toast.makeText(this, "Failed to generate QR code", Toast.LENGTH_SHORT).show();
-        }
+        // Load the QR code of the event ID in the standard format, rendered only the first time
+        util.QRCodeUtil.loadQRCodeBitmap(util.QRCodeUtil.generateQRCodeData(eventId), 800,
+                Color.BLACK, Color.WHITE, bitmap -> {
+                    if (isFinishing() || isDestroyed()) {
+                        return;
+                    }
+                    qrCodeBitmap = bitmap;
+                    if (qrCodeBitmap != null) {
+                        qrCodeImageView.setImageBitmap(qrCodeBitmap);
+                    } else {
+                        Toast.makeText(this, "Failed to generate QR code", Toast.LENGTH_SHORT).show();
+                    }
+                });
     }
 
     /**
@@ -1,7 +1,5 @@
 package com.example.konoha_events;
-import com.bumptech.glide.Glide;
 
-import android.graphics.Bitmap;
 import android.net.Uri;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -12,20 +10,23 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 import models.EventModel;
+import util.ImageUtil;
+import util.StableIds;
 /**
  * Adapter used to display a list of events for the entrant.
  * Each row shows event information, an optional image,
  * a primary action button, and an info button for details.
  */
-public class EventsAdapter extends RecyclerView.Adapter<EventsAdapter.EventViewHolder> {
+public class EventsAdapter extends ListAdapter<EventModel, EventsAdapter.EventViewHolder> {
     /**
      * Callback for events triggered from each row.
      */
@@ -44,7 +45,24 @@ public class EventsAdapter extends RecyclerView.Adapter<EventsAdapter.EventViewH
         void onQrClick(EventModel event);
     }
 
-    private final List<EventModel> items = new ArrayList<>();
+    /**
+     * Compares events by ID, and by the fields shown in a row, so only changed rows are rebound.
+     */
+    static final DiffUtil.ItemCallback<EventModel> DIFF_CALLBACK = new DiffUtil.ItemCallback<EventModel>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull EventModel oldItem, @NonNull EventModel newItem) {
+            return oldItem.getId().equals(newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull EventModel oldItem, @NonNull EventModel newItem) {
+            return Objects.equals(oldItem.getEventTitle(), newItem.getEventTitle())
+                    && Objects.equals(oldItem.getDescription(), newItem.getDescription())
+                    && Objects.equals(oldItem.getRegistrationDeadline(), newItem.getRegistrationDeadline())
+                    && Objects.equals(oldItem.getImageData(), newItem.getImageData());
+        }
+    };
+
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("MMM d, yyyy", Locale.getDefault());
     private String primaryButtonLabel = "Join Waitlist";
     /**
@@ -62,17 +80,9 @@ public class EventsAdapter extends RecyclerView.Adapter<EventsAdapter.EventViewH
      * @param callback The object that handles click events for each row.
      */
     public EventsAdapter(Callback callback) {
+        super(DIFF_CALLBACK);
         this.callback = callback;
-    }
-    /**
-     * Replaces the current event list with a new one.
-     *
-     * @param newItems The new list of events to display.
-     */
-    public void submitList(List<EventModel> newItems) {
-        items.clear();
-        if (newItems != null) items.addAll(newItems);
-        notifyDataSetChanged();
+        setHasStableIds(true);
     }
     /**
      * Inflates the XML layout for a single event row.
@@ -96,7 +106,7 @@ public class EventsAdapter extends RecyclerView.Adapter<EventsAdapter.EventViewH
      */
     @Override
     public void onBindViewHolder(@NonNull EventViewHolder h, int position) {
-        EventModel e = items.get(position);
+        EventModel e = getItem(position);
 
         h.title.setText(e.getEventTitle() == null ? "" : e.getEventTitle());
         h.description.setText(e.getDescription() == null ? "" : e.getDescription());
@@ -105,18 +115,8 @@ public class EventsAdapter extends RecyclerView.Adapter<EventsAdapter.EventViewH
         } else {
             h.deadline.setText("Registration always open");
         }
-        //Image uploading, some pictures are working. Not super familiar with glide so this can change if we need it to.
-        Bitmap img = e.getImageBitmap();
-        if (img != null) {
-            Glide.with(h.image.getContext())
-                    .load(img)
-                    .placeholder(R.drawable.ic_launcher_background)
-                    .error(R.drawable.ic_launcher_background)
-                    .into(h.image);
-        } else {
-            //set to default placeholder, can also change this I picked at random.
-            h.image.setImageResource(R.drawable.ic_launcher_background);
-        }
+        //Poster is decoded at the thumbnail size and cached, falls back to the default placeholder.
+        ImageUtil.loadInto(h.image, e, R.drawable.ic_launcher_background);
 
         //Set button text to join button, important for allowing the MyEvent view to change it to leave waitlist
         h.joinButton.setText(primaryButtonLabel);
@@ -130,10 +130,12 @@ public class EventsAdapter extends RecyclerView.Adapter<EventsAdapter.EventViewH
     }
 
     /**
-     * @return The number of events shown in the list.
+     * @return A stable ID for the event at the position, so rows keep their views across updates.
      */
     @Override
-    public int getItemCount() { return items.size(); }
+    public long getItemId(int position) {
+        return StableIds.of(getItem(position).getId());
+    }
     /**
      * Holds references to views inside a single event row.
      */
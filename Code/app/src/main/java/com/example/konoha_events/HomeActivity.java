@@ -8,6 +8,8 @@ import android.widget.Button;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.konoha_events.auth.SessionStore;
+
 import constants.DatabaseConstants;
 import constants.IntentConstants;
 import services.FirebaseService;
@@ -57,6 +59,18 @@ public class HomeActivity extends AppCompatActivity {
         organizerButton.setOnClickListener(roleClickListener);
         adminButton.setOnClickListener(roleClickListener);
 
+        // On launch, a user with a session saved on the device is sent on to their home screen
+        // through LoginActivity, which doesn't wait for the database
+        if (savedInstanceState == null && Intent.ACTION_MAIN.equals(getIntent().getAction())) {
+            SessionStore.Session session = SessionStore.getOrNull(this);
+            if (session != null) {
+                Intent intent = new Intent(this, LoginActivity.class);
+                intent.putExtra(IntentConstants.INTENT_ROLE_NAME, session.getUserType());
+                intent.putExtra(IntentConstants.INTENT_RESUME_SESSION, true);
+                startActivity(intent);
+            }
+        }
+
 
         continueButton.setOnClickListener(v -> {
             if (selectedRole == null) {
@@ -89,6 +103,19 @@ public class HomeActivity extends AppCompatActivity {
         });
     }
     private void init() {
-        FirebaseService.init();
+        FirebaseService.init(getApplicationContext());
+    }
+
+    /**
+     * Forgets the session saved on the device and the data of the user, and goes back to the role
+     * selection, so the next launch asks for a login again.
+     */
+    public static void signOut(Activity activity) {
+        FirebaseService.firebaseService.signOut();
+        SessionStore.clear(activity);
+        Intent intent = new Intent(activity, HomeActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        activity.startActivity(intent);
+        activity.finish();
     }
 }
@@ -1,6 +1,7 @@
 package com.example.konoha_events;
 
 import android.Manifest;
+import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.location.Location;
@@ -14,6 +15,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 
 import com.example.konoha_events.auth.EntrantDeviceIdStore;
+import com.example.konoha_events.auth.SessionStore;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.tasks.OnSuccessListener;
@@ -39,6 +41,8 @@ import services.FirebaseService;
  *         associated with their user account so future device-based logins work.</li>
  *     <li>Captures precise location of entrant upon login, stores the location with
  *          with userid along with latitude and longitude</li>
+ *     <li>On launch, users with a session saved on the device go straight to their home
+ *         screen, the session is checked against the database in the background.</li>
  * </ul>
  */
 
@@ -75,6 +79,16 @@ public class LoginActivity extends AppCompatActivity {
         selectedRole = (DatabaseConstants.USER_TYPE) getIntent()
                 .getSerializableExtra(IntentConstants.INTENT_ROLE_NAME);
 
+        // On launch, HomeActivity sends a user who already logged in on this device straight to
+        // their home screen, without waiting for a login query. Opening the login screen from
+        // the role selection always asks for a login.
+        SessionStore.Session session = getIntent().getBooleanExtra(IntentConstants.INTENT_RESUME_SESSION, false)
+                ? SessionStore.getOrNull(this) : null;
+        if (session != null && session.getUserType() == selectedRole) {
+            resumeSession(session);
+            return;
+        }
+
         // US 01.07.01 - Device-based identification for entrants
         // ------------------------------------------------------
         // If the user selected "Entrant" on the previous screen, we try to log them in
@@ -87,6 +101,7 @@ public class LoginActivity extends AppCompatActivity {
 
             fbs.loginWithDeviceId(deviceId, succeeded -> {
                 if (succeeded) {
+                    SessionStore.save(this, fbs.getCurrentUserId(), DatabaseConstants.USER_TYPE.ENTRANT);
                     // Device matches an existing entrant → go straight to entrant dashboard.
                     fetchAndUploadLocation(deviceId);
                     Intent i = new Intent(LoginActivity.this, EntrantActivity.class);
@@ -114,6 +129,9 @@ public class LoginActivity extends AppCompatActivity {
             }
 
             fbs.login(username, password, userType -> {
+                if (userType != DatabaseConstants.USER_TYPE.NULL) {
+                    SessionStore.save(this, fbs.getCurrentUserId(), userType);
+                }
                 switch (userType) {
                     case ADMINISTRATOR:
                         Intent intent = new Intent(this, AdminActivity.class);
@@ -162,6 +180,48 @@ public class LoginActivity extends AppCompatActivity {
         );
     }
 
+    /**
+     * Logs in the user of the session saved on the device and opens their home screen right
+     * away. The session is checked in the background, if the user was deleted or changed role
+     * the session is dropped and the app goes back to the role selection. Administrator sessions
+     * aren't extended by the check, they expire MAX_SESSION_AGE_MS after the login.
+     */
+    private void resumeSession(SessionStore.Session session) {
+        fbs.restoreSession(session.getUserId(), session.getUserType());
+
+        Context appContext = getApplicationContext();
+        fbs.validateSession(session.getUserId(), userType -> {
+            if (userType == session.getUserType()) {
+                if (userType != DatabaseConstants.USER_TYPE.ADMINISTRATOR) {
+                    SessionStore.markValidated(appContext);
+                }
+                return;
+            }
+            SessionStore.clear(appContext);
+            Toast.makeText(appContext, "Your session has expired, please sign in again",
+                    Toast.LENGTH_LONG).show();
+            Intent intent = new Intent(appContext, HomeActivity.class);
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+            appContext.startActivity(intent);
+        });
+
+        Intent intent;
+        switch (session.getUserType()) {
+            case ADMINISTRATOR:
+                intent = new Intent(this, AdminActivity.class);
+                break;
+            case ORGANIZER:
+                intent = new Intent(this, OrganizerActivity.class);
+                break;
+            default:
+                fetchAndUploadLocation(EntrantDeviceIdStore.getOrCreateId(this));
+                intent = new Intent(this, EntrantActivity.class);
+                break;
+        }
+        startActivity(intent);
+        finish();
+    }
+
     /**
      * Fetches the device's last known location and uploads it to Firestore
      * in the "entrants" collection, keyed by deviceId.
@@ -36,6 +36,20 @@ public class Notification {
      */
     public Notification() { }
 
+    /**
+     * constructor used when the fields are read one by one, like from the on-device copy,
+     * instead of through firestore's data mapping.
+     */
+    public Notification(String id, String userId, String eventId, String notificationType,
+                        String message, Timestamp dateCreated) {
+        this.id = id;
+        this.userId = userId;
+        this.eventId = eventId;
+        this.notificationType = notificationType;
+        this.message = message;
+        this.dateCreated = dateCreated;
+    }
+
     // getters (kept short and simple to match the rest of the app)
 
     public String getId() { return id; }
@@ -6,11 +6,17 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
+
+import util.StableIds;
 
 /**
  * adapter for showing a list of entrant notifications inside a recyclerview.
@@ -20,10 +26,25 @@ import java.util.Locale;
  * - the main message body
  * - the time it was created
  */
-public class NotificationsAdapter extends RecyclerView.Adapter<NotificationsAdapter.NotificationViewHolder> {
+public class NotificationsAdapter extends ListAdapter<Notification, NotificationsAdapter.NotificationViewHolder> {
+
+    /**
+     * compares notifications by id, and by what a row shows, so the diff runs off the main
+     * thread and only changed rows get rebound
+     */
+    static final DiffUtil.ItemCallback<Notification> DIFF_CALLBACK = new DiffUtil.ItemCallback<Notification>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Notification oldItem, @NonNull Notification newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
 
-    /** the current list of notifications we want to show */
-    private List<Notification> notifications;
+        @Override
+        public boolean areContentsTheSame(@NonNull Notification oldItem, @NonNull Notification newItem) {
+            return Objects.equals(oldItem.getNotificationType(), newItem.getNotificationType())
+                    && Objects.equals(oldItem.getMessage(), newItem.getMessage())
+                    && Objects.equals(oldItem.getDateCreated(), newItem.getDateCreated());
+        }
+    };
 
     /** simple formatter used to turn the timestamp into something readable */
     private final SimpleDateFormat sdf =
@@ -35,7 +56,9 @@ public class NotificationsAdapter extends RecyclerView.Adapter<NotificationsAdap
      * @param notifications the list to start with
      */
     public NotificationsAdapter(List<Notification> notifications) {
-        this.notifications = notifications;
+        super(DIFF_CALLBACK);
+        setHasStableIds(true);
+        updateData(notifications);
     }
 
     /**
@@ -54,7 +77,7 @@ public class NotificationsAdapter extends RecyclerView.Adapter<NotificationsAdap
      */
     @Override
     public void onBindViewHolder(@NonNull NotificationViewHolder holder, int position) {
-        Notification notif = notifications.get(position);
+        Notification notif = getItem(position);
 
         // quick title using its type
         String title = notif.getNotificationType();
@@ -76,20 +99,20 @@ public class NotificationsAdapter extends RecyclerView.Adapter<NotificationsAdap
     }
 
     /**
-     * @return how many notifications are currently stored in the adapter
+     * @return a stable id for the notification at the position
      */
     @Override
-    public int getItemCount() {
-        return notifications.size();
+    public long getItemId(int position) {
+        String id = getItem(position).getId();
+        return StableIds.of(id == null ? "" : id);
     }
 
     /**
-     * replaces the old list with a new one and refreshes the view.
-     * simple enough, nothing fancy.
+     * replaces the old list with a new one. the list is copied, since callers refill the same
+     * list and the diff needs the old and new lists to be different objects.
      */
     public void updateData(List<Notification> newList) {
-        this.notifications = newList;
-        notifyDataSetChanged();
+        submitList(newList == null ? null : new ArrayList<>(newList));
     }
 
     /**
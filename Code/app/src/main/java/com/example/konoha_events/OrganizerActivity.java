@@ -34,6 +34,7 @@ public class OrganizerActivity extends AppCompatActivity {
     private Button createEventButton;
     private Button viewEntrantLocationsButton;
     private Button manageEventsButton;
+    private Button signOutButton;
     private FirebaseService fbs;
     private String deviceId;
 
@@ -50,6 +51,7 @@ public class OrganizerActivity extends AppCompatActivity {
         initializeViews();
         setupCreateEventButton();
         setupManageEventButton();
+        signOutButton.setOnClickListener(v -> HomeActivity.signOut(this));
 //        setupViewEntrantLocationsButton();
     }
 
@@ -61,6 +63,7 @@ public class OrganizerActivity extends AppCompatActivity {
         createEventButton = findViewById(R.id.createEventButton);
 //        viewEntrantLocationsButton = findViewById(R.id.btnViewEntrantLocations);
         manageEventsButton = findViewById(R.id.activity_organizer_create_event_button);
+        signOutButton = findViewById(R.id.signOutButton);
     }
 
     /**
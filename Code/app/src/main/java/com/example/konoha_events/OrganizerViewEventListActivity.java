@@ -46,5 +46,8 @@ public class OrganizerViewEventListActivity extends AppCompatActivity {
 
         eventAdminDashboardView = new EventAdminDashboardView(this, organizerData, this.getClass());
         listView.setAdapter(eventAdminDashboardView);
+        // Rebind the rows whose entrant counts changed
+        fbs.getEntrantCountCache().getInvalidatedLiveData().observe(this,
+                eventIds -> eventAdminDashboardView.notifyDataSetChanged());
     }
 }
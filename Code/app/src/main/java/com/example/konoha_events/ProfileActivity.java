@@ -12,6 +12,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.konoha_events.auth.SessionStore;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 
@@ -30,7 +31,7 @@ public class ProfileActivity extends AppCompatActivity {
     public static final String EXTRA_USER_ID = "EXTRA_USER_ID";
 
     private EditText fullName, email, phone;
-    private Button save, delete;
+    private Button save, delete, signOut;
     private ImageButton back;
 
     private DocumentReference userRef;
@@ -45,6 +46,7 @@ public class ProfileActivity extends AppCompatActivity {
         phone    = findViewById(R.id.editTextPhone);
         save     = findViewById(R.id.buttonSave);
         delete   = findViewById(R.id.buttonDelete);
+        signOut  = findViewById(R.id.buttonSignOut);
         back     = findViewById(R.id.back_button);
 
 
@@ -70,6 +72,7 @@ public class ProfileActivity extends AppCompatActivity {
 
         save.setOnClickListener(v -> save());
         delete.setOnClickListener(v -> delete());
+        signOut.setOnClickListener(v -> HomeActivity.signOut(this));
         back.setOnClickListener(v -> finish());
     }
     //Fill the editText boxes to show the current users information. Not specified in
@@ -128,14 +131,19 @@ public class ProfileActivity extends AppCompatActivity {
      * After deletion, the user is sent back to the HomeActivity.
      */
     private void delete() {
-        userRef.delete()
-                .addOnSuccessListener(v -> { //success, return to home screen
-                    Toast.makeText(this, "Profile deleted", Toast.LENGTH_SHORT).show();
-                    Intent intent = new Intent(ProfileActivity.this, HomeActivity.class);
-                    startActivity(intent);
-                    finish();
-                })
-                .addOnFailureListener(e ->
-                        Toast.makeText(this, "Failed to delete profile", Toast.LENGTH_SHORT).show());
+        // goes through FirebaseService so the deletion is recorded for the integrity sweep
+        FirebaseService.firebaseService.deleteUser(userRef.getId(), succeeded -> {
+            if (!succeeded) {
+                Toast.makeText(this, "Failed to delete profile", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            //success, return to home screen
+            Toast.makeText(this, "Profile deleted", Toast.LENGTH_SHORT).show();
+            FirebaseService.firebaseService.signOut();
+            SessionStore.clear(this);
+            Intent intent = new Intent(ProfileActivity.this, HomeActivity.class);
+            startActivity(intent);
+            finish();
+        });
     }
 }
@@ -4,7 +4,9 @@ import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.util.Log;
+import android.util.Size;
 import android.widget.Button;
 import android.widget.Toast;
 
@@ -14,6 +16,8 @@ import androidx.camera.core.CameraSelector;
 import androidx.camera.core.ImageAnalysis;
 import androidx.camera.core.ImageProxy;
 import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
 import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.camera.view.PreviewView;
 import androidx.core.app.ActivityCompat;
@@ -31,6 +35,8 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import constants.IntentConstants;
+import util.QRCodeUtil;
+import util.QRScanPipeline;
 
 /**
  * QRScannerActivity
@@ -43,12 +49,15 @@ public class QRScannerActivity extends AppCompatActivity {
 
     private static final String TAG = "QRScannerActivity";
     private static final int CAMERA_PERMISSION_REQUEST_CODE = 100;
+    // Largest frame size passed to the analyzer, enough for a QR code held at arm's length
+    private static final Size ANALYSIS_RESOLUTION = new Size(1280, 720);
 
     private PreviewView previewView;
     private Button backButton;
     private ExecutorService cameraExecutor;
     private BarcodeScanner barcodeScanner;
-    private boolean isScanning = true;
+    private final QRScanPipeline scanPipeline = new QRScanPipeline();
+    private volatile boolean isScanning = true;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -135,7 +144,12 @@ public class QRScannerActivity extends AppCompatActivity {
         preview.setSurfaceProvider(previewView.getSurfaceProvider());
 
         // Image analysis for QR code scanning
+        ResolutionSelector resolutionSelector = new ResolutionSelector.Builder()
+                .setResolutionStrategy(new ResolutionStrategy(ANALYSIS_RESOLUTION,
+                        ResolutionStrategy.FALLBACK_RULE_CLOSEST_LOWER_THEN_HIGHER))
+                .build();
         ImageAnalysis imageAnalysis = new ImageAnalysis.Builder()
+                .setResolutionSelector(resolutionSelector)
                 .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
                 .build();
 
@@ -157,42 +171,63 @@ public class QRScannerActivity extends AppCompatActivity {
     }
 
     /**
-     * Analyze images for QR codes
+     * Analyze images for QR codes.
+     * Frames are throttled by the scan pipeline, and only the center of a frame is passed to the
+     * detector. The frame is closed once the detector is done, so frames are never analyzed
+     * concurrently.
      */
     private void analyzeImage(@NonNull ImageProxy imageProxy) {
-        if (!isScanning) {
+        long startedAt = SystemClock.elapsedRealtime();
+        if (!isScanning || !scanPipeline.shouldAnalyze(startedAt)) {
             imageProxy.close();
             return;
         }
 
-        @androidx.camera.core.ExperimentalGetImage
-        android.media.Image mediaImage = imageProxy.getImage();
-
-        if (mediaImage != null) {
-            InputImage image = InputImage.fromMediaImage(mediaImage,
-                    imageProxy.getImageInfo().getRotationDegrees());
-
-            barcodeScanner.process(image)
-                    .addOnSuccessListener(barcodes -> {
-                        for (Barcode barcode : barcodes) {
-                            if (barcode.getFormat() == Barcode.FORMAT_QR_CODE) {
-                                String scannedData = barcode.getRawValue();
-                                if (scannedData != null && !scannedData.isEmpty()) {
-                                    onQRCodeScanned(scannedData);
-                                    break;
-                                }
-                            }
+        ImageProxy.PlaneProxy luminance = imageProxy.getPlanes()[0];
+        int[] region = scanPipeline.getRegion(imageProxy.getWidth(), imageProxy.getHeight());
+        byte[] regionData = QRScanPipeline.cropLuminance(luminance.getBuffer(),
+                luminance.getRowStride(), region);
+        InputImage image = InputImage.fromByteArray(regionData, region[2], region[3],
+                imageProxy.getImageInfo().getRotationDegrees(), InputImage.IMAGE_FORMAT_NV21);
+
+        barcodeScanner.process(image)
+                .addOnSuccessListener(barcodes -> {
+                    String scannedData = null;
+                    for (Barcode barcode : barcodes) {
+                        String rawValue = barcode.getRawValue();
+                        if (rawValue == null || rawValue.isEmpty()) {
+                            continue;
                         }
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Barcode scanning failed", e);
-                    })
-                    .addOnCompleteListener(task -> {
-                        imageProxy.close();
-                    });
-        } else {
-            imageProxy.close();
-        }
+                        // Stop at the first event QR code, other codes are only used if there
+                        // is no event QR code in the frame
+                        if (QRCodeUtil.isEventQRCodeData(rawValue)) {
+                            scannedData = rawValue;
+                            break;
+                        }
+                        if (scannedData == null) {
+                            scannedData = rawValue;
+                        }
+                    }
+                    if (scannedData != null) {
+                        scanPipeline.onDetection(SystemClock.elapsedRealtime());
+                        onQRCodeScanned(scannedData);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Barcode scanning failed", e);
+                })
+                .addOnCompleteListener(task -> {
+                    scanPipeline.onFrameAnalyzed(SystemClock.elapsedRealtime() - startedAt);
+                    imageProxy.close();
+                });
+    }
+
+    /**
+     * @return The scan pipeline, with the scan latency metrics of this scanner
+     */
+    @NonNull
+    public QRScanPipeline getScanPipeline() {
+        return scanPipeline;
     }
 
     /**
@@ -202,10 +237,14 @@ public class QRScannerActivity extends AppCompatActivity {
         if (!isScanning) return;
 
         isScanning = false; // Prevent multiple scans
+        Log.i(TAG, String.format("QR code detected after %d ms, detector latency %d ms, "
+                        + "%d frames analyzed, %d skipped",
+                scanPipeline.getTimeToFirstDetectionMs(), scanPipeline.getAverageLatencyMs(),
+                scanPipeline.getFramesAnalyzed(), scanPipeline.getFramesSkipped()));
 
         runOnUiThread(() -> {
             // Extract event ID from the QR code data (format: konoha://event/{eventId})
-            String eventId = util.QRCodeUtil.extractEventId(scannedData);
+            String eventId = QRCodeUtil.extractEventId(scannedData);
 
             if (eventId != null && !eventId.isEmpty()) {
                 Toast.makeText(this, "QR Code detected!", Toast.LENGTH_SHORT).show();
@@ -235,6 +274,7 @@ public class QRScannerActivity extends AppCompatActivity {
     protected void onResume() {
         super.onResume();
         isScanning = true; // Re-enable scanning when returning to this activity
+        scanPipeline.start(SystemClock.elapsedRealtime());
     }
 
     @Override
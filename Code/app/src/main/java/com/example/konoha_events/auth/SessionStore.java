@@ -0,0 +1,75 @@
+package com.example.konoha_events.auth;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import constants.DatabaseConstants;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Keeps the logged in user on the device, so the app can open the right home screen on launch
+ * without waiting for the login query. The session is checked against the database again in the
+ * background, see FirebaseService.validateSession.
+ */
+public class SessionStore {
+    private static final String PREFS = "session_prefs";
+    private static final String KEY_USER_ID = "user_id";
+    private static final String KEY_USER_TYPE = "user_type";
+    private static final String KEY_LAST_VALIDATED = "last_validated";
+    // sessions not confirmed by the database for this long go through the login screen again
+    public static final long MAX_SESSION_AGE_MS = 30L * 24 * 60 * 60 * 1000;
+
+    // saves the user that just logged in, as validated now
+    public static void save(Context ctx, String userId, DatabaseConstants.USER_TYPE userType) {
+        prefs(ctx).edit()
+                .putString(KEY_USER_ID, userId)
+                .putString(KEY_USER_TYPE, userType.name())
+                .putLong(KEY_LAST_VALIDATED, System.currentTimeMillis())
+                .apply();
+    }
+
+    // records that the database confirmed the saved session
+    public static void markValidated(Context ctx) {
+        prefs(ctx).edit().putLong(KEY_LAST_VALIDATED, System.currentTimeMillis()).apply();
+    }
+
+    // gets the saved session, or NULL if there is none or it is too old
+    public static Session getOrNull(Context ctx) {
+        SharedPreferences sp = prefs(ctx);
+        String userId = sp.getString(KEY_USER_ID, null);
+        String userType = sp.getString(KEY_USER_TYPE, null);
+        long lastValidated = sp.getLong(KEY_LAST_VALIDATED, 0);
+        if (userId == null || userId.isEmpty() || userType == null
+                || System.currentTimeMillis() - lastValidated > MAX_SESSION_AGE_MS) {
+            return null;
+        }
+
+        try {
+            return new Session(userId, DatabaseConstants.USER_TYPE.valueOf(userType), lastValidated);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // forgets the saved session, the next launch goes through the login screen
+    public static void clear(Context ctx) {
+        prefs(ctx).edit().clear().apply();
+    }
+
+    private static SharedPreferences prefs(Context ctx) {
+        return ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * The user saved on the device, and when the database last confirmed it.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Session {
+        private final String userId;
+        private final DatabaseConstants.USER_TYPE userType;
+        // milliseconds since the epoch
+        private final long lastValidated;
+    }
+}
@@ -21,16 +21,29 @@ public class DatabaseConstants {
     public static final String COLLECTION_USERS_PHONE_FIELD     = "phone";
     public static final String COLLECTION_USERS_USER_TYPE_FIELD = "userType";
     public static final String COLLECTION_USERS_DEVICE_ID_FIELD = "deviceId";
+    public static final String COLLECTION_USERS_NOTIFICATIONS_OPT_OUT_FIELD = "notificationsOptOut";
     public static final String COLLECTION_ON_WAITING_LIST_NAME = "onWaitingList";
     public static final String COLLECTION_ON_WAITING_LIST_STATUS_FIELD = "status";
     public static final String COLLECTION_ON_WAITING_LIST_USER_ID_FIELD = "userId";
     public static final String COLLECTION_ON_WAITING_LIST_EVENT_ID_FIELD = "eventId";
+    public static final String COLLECTION_ON_WAITING_LIST_DATE_MODIFIED_FIELD = "dateModified";
     public static final String COLLECTION_NOTIFICATIONS_NAME = "notifications";
     public static final String COLLECTION_NOTIFICATIONS_USER_ID_FIELD = "userId";
     public static final String COLLECTION_NOTIFICATIONS_EVENT_ID_FIELD = "eventId";
     public static final String COLLECTION_NOTIFICATIONS_MESSAGE_FIELD = "message";
     public static final String COLLECTION_NOTIFICATIONS_TYPE_FIELD = "notificationType";
     public static final String COLLECTION_NOTIFICATIONS_DATE_CREATED_FIELD = "dateCreated";
+    public static final String COLLECTION_DELETIONS_NAME = "deletions";
+    public static final String COLLECTION_DELETIONS_TYPE_FIELD = "type";
+    public static final String COLLECTION_DELETIONS_REFERENCE_ID_FIELD = "referenceId";
+    public static final String COLLECTION_DELETIONS_DATE_DELETED_FIELD = "dateDeleted";
+    public static final String DELETION_TYPE_USER = "user";
+    public static final String DELETION_TYPE_EVENT = "event";
+    public static final String COLLECTION_MAINTENANCE_NAME = "maintenance";
+    public static final String MAINTENANCE_INTEGRITY_SWEEP_DOCUMENT = "integritySweep";
+    public static final String MAINTENANCE_SWEEP_STARTED_FIELD = "sweepStarted";
+    public static final String MAINTENANCE_LAST_SWEEP_FIELD = "lastSweep";
+    public static final String MAINTENANCE_LAST_FULL_SWEEP_FIELD = "lastFullSweep";
 
     /**
      * Enum defining the type of user used in the UserModel.
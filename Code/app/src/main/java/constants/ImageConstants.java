@@ -0,0 +1,70 @@
+package constants;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Class for storing image related constants.
+ */
+public class ImageConstants {
+    public static final String CONTENT_TYPE_JPEG = "image/jpeg";
+    public static final String CONTENT_TYPE_WEBP = "image/webp";
+
+    /**
+     * Enum defining the sizes each uploaded image is stored at. Each rendition is bounded by its
+     * longest edge in pixels, and views load the smallest rendition that covers their size.
+     */
+    public enum IMAGE_RENDITION {
+        THUMBNAIL(256, 75, CONTENT_TYPE_WEBP), // List rows and other small previews
+        CARD(1080, 80, CONTENT_TYPE_WEBP), // Posters shown across the width of the screen
+        FULL(2048, 85, CONTENT_TYPE_JPEG); // Largest stored size, its hash identifies the image
+
+        private final int maxEdge;
+        private final int quality;
+        private final String contentType;
+
+        IMAGE_RENDITION(int maxEdge, int quality, String contentType) {
+            this.maxEdge = maxEdge;
+            this.quality = quality;
+            this.contentType = contentType;
+        }
+
+        public int getMaxEdge() {
+            return maxEdge;
+        }
+
+        public int getQuality() {
+            return quality;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * @param contentHash Hash of the FULL rendition of the image
+         * @return Key the rendition of the image is stored under
+         */
+        @NonNull
+        public String getKey(@NonNull String contentHash) {
+            return this == FULL ? contentHash : contentHash + "_" + name().toLowerCase();
+        }
+
+        /**
+         * Picks the smallest rendition that covers a view of the given size in pixels. Pass 0 for
+         * either dimension to get the FULL rendition.
+         */
+        @NonNull
+        public static IMAGE_RENDITION forSize(int reqWidth, int reqHeight) {
+            if (reqWidth <= 0 || reqHeight <= 0) {
+                return FULL;
+            }
+            int reqEdge = Math.max(reqWidth, reqHeight);
+            for (IMAGE_RENDITION rendition : values()) {
+                if (rendition.maxEdge >= reqEdge) {
+                    return rendition;
+                }
+            }
+            return FULL;
+        }
+    }
+}
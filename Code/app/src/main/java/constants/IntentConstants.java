@@ -5,6 +5,7 @@ package constants;
  */
 public class IntentConstants {
     public static final String INTENT_ROLE_NAME = "role";
+    public static final String INTENT_RESUME_SESSION = "resume_session";
     public static final String INTENT_EVENT_ID = "event_id";
     public static final String INTENT_DEVICE_ID = "device_id";
     public static final String INTENT_VIEW_EVENT_CALLER_TYPE = "callerType";
@@ -0,0 +1,47 @@
+package constants;
+
+/**
+ * Class for storing constants of the on-device database.
+ */
+public class LocalDatabaseConstants {
+    public static final String DATABASE_NAME = "konoha_local.db";
+    public static final int DATABASE_VERSION = 2;
+
+    public static final String TABLE_NOTIFICATIONS_NAME = "notifications";
+    public static final String TABLE_NOTIFICATIONS_ID_COLUMN = "id";
+    public static final String TABLE_NOTIFICATIONS_USER_ID_COLUMN = "userId";
+    public static final String TABLE_NOTIFICATIONS_EVENT_ID_COLUMN = "eventId";
+    public static final String TABLE_NOTIFICATIONS_TYPE_COLUMN = "notificationType";
+    public static final String TABLE_NOTIFICATIONS_MESSAGE_COLUMN = "message";
+    // Nanoseconds since the epoch, so the Firestore timestamp round trips exactly
+    public static final String TABLE_NOTIFICATIONS_DATE_CREATED_COLUMN = "dateCreated";
+
+    public static final String TABLE_EVENTS_NAME = "events";
+    public static final String TABLE_EVENTS_ID_COLUMN = "id";
+    public static final String TABLE_EVENTS_ORGANIZER_ID_COLUMN = "organizerId";
+    public static final String TABLE_EVENTS_TITLE_COLUMN = "eventTitle";
+    public static final String TABLE_EVENTS_DESCRIPTION_COLUMN = "description";
+    public static final String TABLE_EVENTS_DEVICE_ID_COLUMN = "deviceId";
+    // Reference to the poster, see ImageRefUtil
+    public static final String TABLE_EVENTS_IMAGE_DATA_COLUMN = "imageData";
+    public static final String TABLE_EVENTS_QR_CODE_DATA_COLUMN = "qrCodeData";
+    // Milliseconds since the epoch
+    public static final String TABLE_EVENTS_REGISTRATION_DEADLINE_COLUMN = "registrationDeadline";
+    public static final String TABLE_EVENTS_ENTRANT_LIMIT_COLUMN = "entrantLimit";
+    // Time the row was last confirmed by the server, in milliseconds since the epoch
+    public static final String TABLE_EVENTS_SYNCED_AT_COLUMN = "syncedAt";
+
+    public static final String TABLE_ON_WAITING_LIST_NAME = "onWaitingList";
+    public static final String TABLE_ON_WAITING_LIST_ID_COLUMN = "id";
+    public static final String TABLE_ON_WAITING_LIST_USER_ID_COLUMN = "userId";
+    public static final String TABLE_ON_WAITING_LIST_EVENT_ID_COLUMN = "eventId";
+    public static final String TABLE_ON_WAITING_LIST_STATUS_COLUMN = "status";
+    // Time the row was last confirmed by the server, in milliseconds since the epoch
+    public static final String TABLE_ON_WAITING_LIST_SYNCED_AT_COLUMN = "syncedAt";
+
+    // Watermarks of the queries mirrored on the device
+    public static final String TABLE_SYNC_STATE_NAME = "syncState";
+    public static final String TABLE_SYNC_STATE_QUERY_KEY_COLUMN = "queryKey";
+    // Time every row matching the query was last confirmed by the server
+    public static final String TABLE_SYNC_STATE_SYNCED_AT_COLUMN = "syncedAt";
+}
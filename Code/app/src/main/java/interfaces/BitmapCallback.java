@@ -0,0 +1,10 @@
+package interfaces;
+
+import android.graphics.Bitmap;
+
+/**
+ * Simple interface for a Bitmap callback.
+ */
+public interface BitmapCallback {
+    void onCompleted(Bitmap bitmap);
+}
@@ -0,0 +1,8 @@
+package interfaces;
+
+/**
+ * Simple interface for a callback with the bytes of a blob.
+ */
+public interface BlobCallback {
+    void onCompleted(byte[] data);
+}
@@ -0,0 +1,25 @@
+package interfaces;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Interface for a store of binary blobs keyed by a string, such as Firebase Storage or a
+ * directory on the device.
+ */
+public interface BlobStore {
+    /**
+     * Checks whether a blob is stored under the key.
+     */
+    void contains(@NonNull String key, @NonNull BooleanCallback callback);
+
+    /**
+     * Stores a blob under the key, replacing any blob already stored under it.
+     */
+    void put(@NonNull String key, @NonNull byte[] data, @NonNull String contentType,
+             @NonNull BooleanCallback callback);
+
+    /**
+     * Reads the blob stored under the key, the callback receives null if there is none.
+     */
+    void get(@NonNull String key, @NonNull BlobCallback callback);
+}
@@ -0,0 +1,10 @@
+package interfaces;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Simple interface for a callback with a count, null if counting failed.
+ */
+public interface CountCallback {
+    void onCompleted(@Nullable Integer count);
+}
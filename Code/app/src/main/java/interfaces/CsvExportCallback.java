@@ -0,0 +1,16 @@
+package interfaces;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Simple interface for the result of a CSV export.
+ */
+public interface CsvExportCallback {
+    /**
+     * @param csvFile        The written file, or null if the export failed or was cancelled
+     * @param exportedCount  Number of rows written to the file
+     * @param missingUserIds IDs of the entrants left out because their user no longer exists
+     */
+    void onCompleted(File csvFile, int exportedCount, List<String> missingUserIds);
+}
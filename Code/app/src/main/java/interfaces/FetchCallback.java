@@ -0,0 +1,15 @@
+package interfaces;
+
+import java.util.ArrayList;
+
+/**
+ * Callback of a fetch split into several queries, with the models that were found and whether
+ * every query succeeded.
+ */
+public interface FetchCallback<T> {
+    /**
+     * @param models   The models that were found
+     * @param complete false if a query failed, in which case models it would have found are missing
+     */
+    void onCompleted(ArrayList<T> models, boolean complete);
+}
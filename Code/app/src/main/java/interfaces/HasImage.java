@@ -8,7 +8,10 @@ import android.graphics.Bitmap;
  */
 public interface HasImage {
     String getId();
+    String getImageData();
+    boolean hasImage();
     Bitmap getImageBitmap();
+    Bitmap getImageBitmap(int reqWidth, int reqHeight);
     String getImageContext();
     String getUploaderId();
 }
@@ -0,0 +1,8 @@
+package interfaces;
+
+/**
+ * Simple interface for a callback with the reference of a stored image.
+ */
+public interface ImageRefCallback {
+    void onCompleted(String imageRef);
+}
@@ -0,0 +1,10 @@
+package interfaces;
+
+import models.ModelChangeSet;
+
+/**
+ * Simple interface for listening to the changes applied to a ModelStore.
+ */
+public interface ModelChangeListener<T> {
+    void onChanged(ModelChangeSet<T> changes);
+}
@@ -0,0 +1,10 @@
+package interfaces;
+
+import java.util.ArrayList;
+
+/**
+ * Simple interface for a callback with a list of models of any type.
+ */
+public interface ModelListCallback<T> {
+    void onCompleted(ArrayList<T> models);
+}
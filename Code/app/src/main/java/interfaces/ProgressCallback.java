@@ -0,0 +1,8 @@
+package interfaces;
+
+/**
+ * Simple interface for reporting the progress of a long running operation.
+ */
+public interface ProgressCallback {
+    void onProgress(int completed, int total);
+}
@@ -0,0 +1,22 @@
+package interfaces;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+/**
+ * Simple interface for keeping a copy of the documents matching a query, fed by the snapshots the
+ * server confirmed.
+ */
+public interface QueryMirror<T> {
+    /**
+     * Called with every document matching the query, the first time the server answers.
+     */
+    void onSynced(@NonNull List<T> models);
+
+    /**
+     * Called with the documents that changed in the following snapshots from the server.
+     * @param removedIds IDs of the documents that were deleted or no longer match the query
+     */
+    void onChanged(@NonNull List<T> changed, @NonNull List<String> removedIds);
+}
@@ -0,0 +1,10 @@
+package interfaces;
+
+import models.WaitlistStatusCounts;
+
+/**
+ * Simple interface for a WaitlistStatusCounts callback.
+ */
+public interface WaitlistStatusCountsCallback {
+    void onCompleted(WaitlistStatusCounts waitlistStatusCounts);
+}
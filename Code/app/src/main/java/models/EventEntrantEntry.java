@@ -0,0 +1,22 @@
+package models;
+
+import androidx.annotation.Nullable;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Model representing an entrant on the waiting list of an event: the waiting list row joined
+ * with the user it belongs to. Entries are replaced rather than modified when the row or the
+ * user changes.
+ */
+@Getter
+@AllArgsConstructor
+public class EventEntrantEntry {
+    @NonNull
+    private OnWaitingListModel onWaitingList;
+    // Null until the user has been loaded, or if it was deleted
+    @Nullable
+    private UserModel user;
+}
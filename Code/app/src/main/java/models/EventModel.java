@@ -5,6 +5,8 @@ import android.graphics.Bitmap;
 import androidx.annotation.Nullable;
 
 import interfaces.HasImage;
+import util.BitmapCache;
+import util.ImageRefUtil;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.AllArgsConstructor;
@@ -30,9 +32,9 @@ public class EventModel implements HasImage {
     @Nullable
     private String deviceId;
 
-    // Images
+    // Images. Reference to the poster, see ImageRefUtil. Only resolved and decoded when displayed
     @Nullable
-    private Bitmap imageBitmap;
+    private String imageData;
 
     // QR Code data - stores the unique identifier for the event
     @Nullable
@@ -86,4 +88,40 @@ public class EventModel implements HasImage {
     public String getImageContext() {
         return "Event Image";
     }
+
+    /**
+     * @return true if the event has a poster image
+     */
+    @Override
+    public boolean hasImage() {
+        return imageData != null && !imageData.isEmpty();
+    }
+
+    /**
+     * Decodes the poster at full size. Prefer getImageBitmap(int, int) when displaying it.
+     * @return The poster bitmap, or null if the event has no poster
+     */
+    @Nullable
+    @Override
+    public Bitmap getImageBitmap() {
+        return getImageBitmap(0, 0);
+    }
+
+    /**
+     * Decodes the poster for display at the given size. Decoded posters are kept in the shared
+     * BitmapCache, so only the first call for a given size pays for decoding. Posters in the
+     * ImageStore have to be downloaded first. Decoding runs on the calling thread, so views should
+     * use ImageUtil.loadInto, which decodes in the background.
+     * @param reqWidth  Width the poster will be displayed at in pixels
+     * @param reqHeight Height the poster will be displayed at in pixels
+     * @return The poster bitmap, or null if the event has no poster or it isn't loaded yet
+     */
+    @Nullable
+    @Override
+    public Bitmap getImageBitmap(int reqWidth, int reqHeight) {
+        if (ImageRefUtil.isInline(imageData)) {
+            return BitmapCache.getBitmap(id, imageData, reqWidth, reqHeight);
+        }
+        return imageData == null ? null : BitmapCache.getCached(imageData, reqWidth, reqHeight);
+    }
 }
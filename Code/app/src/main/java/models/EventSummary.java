@@ -0,0 +1,31 @@
+package models;
+
+import androidx.annotation.Nullable;
+
+import java.util.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Model holding the fields of an event shown in lists that only name the event, without the
+ * poster and other data of the full EventModel.
+ */
+@Getter
+@AllArgsConstructor
+public class EventSummary {
+    @NonNull
+    private String id;
+    @Nullable
+    private String eventTitle;
+    @Nullable
+    private String description;
+    @Nullable
+    private Date registrationDeadline;
+
+    public static EventSummary of(@NonNull EventModel event) {
+        return new EventSummary(event.getId(), event.getEventTitle(), event.getDescription(),
+                event.getRegistrationDeadline());
+    }
+}
@@ -0,0 +1,33 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Model describing one batch of changes applied to a ModelStore.
+ * Added and modified hold the new models, removed holds the models as they were before removal.
+ *
+ * @param <T> The type of model that changed
+ */
+@Getter
+public class ModelChangeSet<T> {
+    private final List<T> added = new ArrayList<>();
+    private final List<T> modified = new ArrayList<>();
+    private final List<T> removed = new ArrayList<>();
+
+    /**
+     * @return true if no models were added, modified or removed
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && modified.isEmpty() && removed.isEmpty();
+    }
+
+    /**
+     * @return the total number of models touched by this change set
+     */
+    public int size() {
+        return added.size() + modified.size() + removed.size();
+    }
+}
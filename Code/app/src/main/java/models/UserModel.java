@@ -31,4 +31,13 @@ public class UserModel {
     private String fullName;
     @Nullable
     private String phoneNumber;
+    @Nullable
+    private Boolean notificationsOptOut;
+
+    /**
+     * @return true if the user turned off notifications
+     */
+    public boolean isOptedOutOfNotifications() {
+        return notificationsOptOut != null && notificationsOptOut;
+    }
 }
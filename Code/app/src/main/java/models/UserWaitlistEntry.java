@@ -0,0 +1,27 @@
+package models;
+
+import androidx.annotation.Nullable;
+
+import constants.DatabaseConstants;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Model representing the status of a user on the waiting list of one event, joined with the
+ * event itself. Entries are replaced rather than modified when the row or the event changes.
+ */
+@Getter
+@AllArgsConstructor
+public class UserWaitlistEntry {
+    @NonNull
+    private String eventId;
+    // ID of the onWaitingList row the status comes from
+    @NonNull
+    private String rowId;
+    @NonNull
+    private DatabaseConstants.ON_WAITING_LIST_STATUS status;
+    // Null until the event has been loaded, or if it was deleted
+    @Nullable
+    private EventModel event;
+}
@@ -0,0 +1,34 @@
+package models;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import constants.DatabaseConstants;
+import lombok.Getter;
+
+/**
+ * Model holding the number of waiting list rows of an event, in total and per status.
+ */
+@Getter
+public class WaitlistStatusCounts {
+    private final String eventId;
+    private final int total;
+    private final Map<DatabaseConstants.ON_WAITING_LIST_STATUS, Integer> counts;
+
+    public WaitlistStatusCounts(String eventId,
+                                int total,
+                                Map<DatabaseConstants.ON_WAITING_LIST_STATUS, Integer> counts) {
+        this.eventId = eventId;
+        this.total = total;
+        this.counts = new EnumMap<>(DatabaseConstants.ON_WAITING_LIST_STATUS.class);
+        this.counts.putAll(counts);
+    }
+
+    /**
+     * @return Number of rows with the given status, 0 if there are none
+     */
+    public int getCount(DatabaseConstants.ON_WAITING_LIST_STATUS status) {
+        Integer count = counts.get(status);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,142 @@
+package services;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import interfaces.BooleanCallback;
+import interfaces.ProgressCallback;
+
+/**
+ * Groups many Firestore writes into as few WriteBatches as possible.
+ * Writes are added to the current batch until it reaches the Firestore limit of 500 operations,
+ * then a new batch is started. Each batch is applied atomically, and all batches are committed
+ * in parallel by commit. A writer is meant to be used once.
+ */
+public class BatchWriter {
+    private static final String LOG_TAG = "[BatchWriter]";
+    public static final int MAX_OPERATIONS_PER_BATCH = 500;
+
+    private final FirebaseFirestore db;
+    private final List<WriteBatch> batches = new ArrayList<>();
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private WriteBatch currentBatch;
+    private int currentBatchSize = 0;
+    private int operationCount = 0;
+
+    public BatchWriter(@NonNull FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Makes sure the next operations land in the same batch, so writes that belong together
+     * are applied atomically. Starts a new batch if the current one can't hold them.
+     * @param operations Number of operations about to be added, at most 500
+     */
+    public BatchWriter reserve(int operations) {
+        if (currentBatch != null && currentBatchSize + operations > MAX_OPERATIONS_PER_BATCH) {
+            closeCurrentBatch();
+        }
+        return this;
+    }
+
+    public BatchWriter set(@NonNull DocumentReference documentReference, @NonNull Map<String, Object> data) {
+        nextBatch().set(documentReference, data);
+        return this;
+    }
+
+    public BatchWriter update(@NonNull DocumentReference documentReference, @NonNull String field, @Nullable Object value) {
+        nextBatch().update(documentReference, field, value);
+        return this;
+    }
+
+    public BatchWriter update(@NonNull DocumentReference documentReference, @NonNull Map<String, Object> data) {
+        nextBatch().update(documentReference, data);
+        return this;
+    }
+
+    public BatchWriter delete(@NonNull DocumentReference documentReference) {
+        nextBatch().delete(documentReference);
+        return this;
+    }
+
+    /**
+     * @return Number of operations added so far
+     */
+    public int getOperationCount() {
+        return operationCount;
+    }
+
+    /**
+     * Commits every batch in parallel.
+     * @param progressCallback Optional, called with the number of operations written as each batch
+     *                         succeeds
+     * @param callback         Called once when every batch has finished, with true if they all
+     *                         succeeded
+     */
+    public void commit(@Nullable ProgressCallback progressCallback, @NonNull BooleanCallback callback) {
+        closeCurrentBatch();
+        if (batches.isEmpty()) {
+            callback.onCompleted(true);
+            return;
+        }
+
+        int total = operationCount;
+        int[] finishedBatches = {0};
+        int[] writtenOperations = {0};
+        boolean[] allSucceeded = {true};
+        for (int i = 0; i < batches.size(); i++) {
+            int batchSize = batchSizes.get(i);
+            batches.get(i).commit().addOnCompleteListener(task -> {
+                if (task.isSuccessful()) {
+                    writtenOperations[0] += batchSize;
+                    if (progressCallback != null) {
+                        progressCallback.onProgress(writtenOperations[0], total);
+                    }
+                } else {
+                    allSucceeded[0] = false;
+                    Log.e(LOG_TAG, String.format("Failed to commit batch of %d operations", batchSize),
+                            task.getException());
+                }
+
+                finishedBatches[0]++;
+                if (finishedBatches[0] == batches.size()) {
+                    Log.i(LOG_TAG, String.format("Committed %d/%d operations in %d batches",
+                            writtenOperations[0], total, batches.size()));
+                    callback.onCompleted(allSucceeded[0]);
+                }
+            });
+        }
+    }
+
+    private WriteBatch nextBatch() {
+        if (currentBatch != null && currentBatchSize >= MAX_OPERATIONS_PER_BATCH) {
+            closeCurrentBatch();
+        }
+        if (currentBatch == null) {
+            currentBatch = db.batch();
+        }
+        currentBatchSize++;
+        operationCount++;
+        return currentBatch;
+    }
+
+    private void closeCurrentBatch() {
+        if (currentBatch == null) {
+            return;
+        }
+        batches.add(currentBatch);
+        batchSizes.add(currentBatchSize);
+        currentBatch = null;
+        currentBatchSize = 0;
+    }
+}
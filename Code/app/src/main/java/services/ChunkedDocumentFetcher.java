@@ -0,0 +1,145 @@
+package services;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import interfaces.FetchCallback;
+
+/**
+ * Fetches many documents of a collection by ID with as few queries as possible.
+ * IDs are split into chunks of the Firestore limit for "in" queries, the chunks are queried in
+ * parallel, and the callback is called exactly once with the models in the order of the
+ * requested IDs. Documents that don't exist, fail to convert, or belong to a chunk whose query
+ * failed are left out of the result. A failed chunk is reported to the callback, so callers can
+ * tell a missing document apart from one that couldn't be read.
+ */
+public class ChunkedDocumentFetcher {
+    private static final String LOG_TAG = "[ChunkedDocumentFetcher]";
+    // Firestore allows at most 30 values in an "in" filter
+    public static final int MAX_IDS_PER_QUERY = 30;
+
+    /**
+     * @param collection Collection to fetch the documents from
+     * @param ids        IDs of the documents, duplicates are fetched once
+     * @param converter  Converts a document into a model
+     * @param callback   Called once with the models in the order of the IDs, and whether every
+     *                   chunk was read
+     * @param <T>        The type of model
+     */
+    public static <T> void fetch(@NonNull CollectionReference collection,
+                                 @NonNull List<String> ids,
+                                 @NonNull Function<DocumentSnapshot, T> converter,
+                                 @NonNull FetchCallback<T> callback) {
+        List<String> uniqueIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        uniqueIds.remove(null);
+        if (uniqueIds.isEmpty()) {
+            callback.onCompleted(new ArrayList<>(), true);
+            return;
+        }
+
+        List<List<String>> chunks = chunk(uniqueIds, MAX_IDS_PER_QUERY);
+        Map<String, T> modelsById = new HashMap<>();
+        int[] finishedChunks = {0};
+        boolean[] complete = {true};
+        for (List<String> chunk : chunks) {
+            collection.whereIn(FieldPath.documentId(), chunk)
+                    .get()
+                    .addOnCompleteListener(task -> {
+                        if (task.isSuccessful() && task.getResult() != null) {
+                            for (DocumentSnapshot documentSnapshot : task.getResult().getDocuments()) {
+                                try {
+                                    modelsById.put(documentSnapshot.getId(), converter.apply(documentSnapshot));
+                                } catch (Exception e) {
+                                    Log.w(LOG_TAG, String.format("Skipping malformed document %s/%s",
+                                            collection.getId(), documentSnapshot.getId()), e);
+                                }
+                            }
+                        } else {
+                            complete[0] = false;
+                            Log.e(LOG_TAG, String.format("Failed to fetch %d documents of %s",
+                                    chunk.size(), collection.getId()), task.getException());
+                        }
+
+                        finishedChunks[0]++;
+                        if (finishedChunks[0] == chunks.size()) {
+                            ArrayList<T> models = new ArrayList<>();
+                            for (String id : uniqueIds) {
+                                T model = modelsById.get(id);
+                                if (model != null) {
+                                    models.add(model);
+                                }
+                            }
+                            callback.onCompleted(models, complete[0]);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Fetches every document of a query whose field matches any of the given values, with one
+     * "in" query per chunk of values run in parallel.
+     * @param query    Query to filter, usually a collection
+     * @param field    Field to match the values against
+     * @param values   Values to match, duplicates are queried once
+     * @param callback Called once with every matching document, in no particular order, and
+     *                 whether every chunk was read
+     */
+    public static void fetchByField(@NonNull Query query,
+                                    @NonNull String field,
+                                    @NonNull List<String> values,
+                                    @NonNull FetchCallback<DocumentSnapshot> callback) {
+        List<String> uniqueValues = new ArrayList<>(new LinkedHashSet<>(values));
+        uniqueValues.remove(null);
+        if (uniqueValues.isEmpty()) {
+            callback.onCompleted(new ArrayList<>(), true);
+            return;
+        }
+
+        List<List<String>> chunks = chunk(uniqueValues, MAX_IDS_PER_QUERY);
+        ArrayList<DocumentSnapshot> documents = new ArrayList<>();
+        int[] finishedChunks = {0};
+        boolean[] complete = {true};
+        for (List<String> chunk : chunks) {
+            query.whereIn(field, chunk)
+                    .get()
+                    .addOnCompleteListener(task -> {
+                        if (task.isSuccessful() && task.getResult() != null) {
+                            documents.addAll(task.getResult().getDocuments());
+                        } else {
+                            complete[0] = false;
+                            Log.e(LOG_TAG, String.format("Failed to fetch documents by %s for %d values",
+                                    field, chunk.size()), task.getException());
+                        }
+
+                        finishedChunks[0]++;
+                        if (finishedChunks[0] == chunks.size()) {
+                            callback.onCompleted(documents, complete[0]);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Splits a list into consecutive chunks of at most the given size.
+     */
+    public static <T> List<List<T>> chunk(@NonNull List<T> items, int chunkSize) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += chunkSize) {
+            chunks.add(new ArrayList<>(items.subList(i, Math.min(i + chunkSize, items.size()))));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,561 @@
+package services;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import constants.DatabaseConstants;
+import interfaces.BooleanCallback;
+import interfaces.FetchCallback;
+import util.ModelUtil;
+
+/**
+ * Background job that keeps the onWaitingList and notifications collections consistent.
+ * Removes rows that reference deleted users or events, and duplicate onWaitingList rows for the
+ * same event and user (the row with the smallest ID is kept). Statuses stored with a legacy or
+ * lowercase spelling, or not stored at all, are rewritten with the name of the status they are
+ * read as, so queries by status find every row.
+ *
+ * Collections are read a page at a time with cursors, references are checked in bulk with chunked
+ * "in" queries, and deletes are written in batches. A watermark in the maintenance collection
+ * records when the last sweep started, so later sweeps only examine rows changed since then plus
+ * rows referencing users and events deleted since then. A full sweep still runs once a week as a
+ * safety net for rows written without a modification date.
+ *
+ * Existence of users and events is only decided from the server, and the sweep stops at the first
+ * failed read, including a failed chunk of a bulk lookup, so rows are never deleted because of an
+ * incomplete answer.
+ */
+public class DatabaseIntegritySweeper {
+    private static final String LOG_TAG = "[DatabaseIntegritySweeper]";
+    public static final int PAGE_SIZE = 200;
+    public static final long MIN_SWEEP_INTERVAL_MILLIS = 6 * 60 * 60 * 1000L;
+    public static final long FULL_SWEEP_INTERVAL_MILLIS = 7 * 24 * 60 * 60 * 1000L;
+    // A started sweep that hasn't finished within this long is assumed to have been interrupted
+    public static final long SWEEP_TIMEOUT_MILLIS = 60 * 60 * 1000L;
+
+    private final CollectionReference users;
+    private final CollectionReference events;
+    private final CollectionReference onWaitingList;
+    private final CollectionReference notifications;
+    private final CollectionReference deletions;
+    private final DocumentReference sweepDocument;
+
+    // Reference checks already done during this sweep
+    private final Set<String> existingUserIds = new HashSet<>();
+    private final Set<String> missingUserIds = new HashSet<>();
+    private final Set<String> existingEventIds = new HashSet<>();
+    private final Set<String> missingEventIds = new HashSet<>();
+    private final Set<String> duplicateCheckedUserIds = new HashSet<>();
+
+    private Timestamp sweepStarted;
+    @Nullable
+    private Timestamp since;
+    private boolean failed = false;
+    private int deletedCount = 0;
+
+    /**
+     * Handles one page of documents, and calls next once it is done with it.
+     */
+    private interface PageHandler {
+        void onPage(List<DocumentSnapshot> page, Runnable next);
+    }
+
+    public DatabaseIntegritySweeper(@NonNull FirebaseFirestore db) {
+        users = db.collection(DatabaseConstants.COLLECTION_USERS_NAME);
+        events = db.collection(DatabaseConstants.COLLECTION_EVENTS_NAME);
+        onWaitingList = db.collection(DatabaseConstants.COLLECTION_ON_WAITING_LIST_NAME);
+        notifications = db.collection(DatabaseConstants.COLLECTION_NOTIFICATIONS_NAME);
+        deletions = db.collection(DatabaseConstants.COLLECTION_DELETIONS_NAME);
+        sweepDocument = db.collection(DatabaseConstants.COLLECTION_MAINTENANCE_NAME)
+                .document(DatabaseConstants.MAINTENANCE_INTEGRITY_SWEEP_DOCUMENT);
+    }
+
+    /**
+     * Runs a sweep unless one started within the last MIN_SWEEP_INTERVAL_MILLIS, or another device
+     * is still running one. Checking costs a single document read, so this is cheap to call on
+     * every app start.
+     * @param callback Called once with true if the sweep was skipped or completed without errors
+     */
+    public void runIfDue(@NonNull BooleanCallback callback) {
+        sweepDocument.get()
+                .addOnSuccessListener(doc -> {
+                    Timestamp lastSweep = doc.getTimestamp(DatabaseConstants.MAINTENANCE_LAST_SWEEP_FIELD);
+                    if (lastSweep != null
+                            && System.currentTimeMillis() - lastSweep.toDate().getTime() < MIN_SWEEP_INTERVAL_MILLIS) {
+                        Log.i(LOG_TAG, "Skipping integrity sweep, last one was at " + lastSweep.toDate());
+                        callback.onCompleted(true);
+                        return;
+                    }
+
+                    // A sweep that started after the last one finished is still running
+                    Timestamp started = doc.getTimestamp(DatabaseConstants.MAINTENANCE_SWEEP_STARTED_FIELD);
+                    if (started != null
+                            && (lastSweep == null || started.compareTo(lastSweep) > 0)
+                            && System.currentTimeMillis() - started.toDate().getTime() < SWEEP_TIMEOUT_MILLIS) {
+                        Log.i(LOG_TAG, "Skipping integrity sweep, one is running since " + started.toDate());
+                        callback.onCompleted(true);
+                        return;
+                    }
+                    run(callback);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(LOG_TAG, "Failed to read integrity sweep watermark", e);
+                    callback.onCompleted(false);
+                });
+    }
+
+    /**
+     * Runs a sweep now.
+     * @param callback Called once with true if the sweep completed without errors
+     */
+    public void run(@NonNull BooleanCallback callback) {
+        // Stamp the start time with the server clock, rows are compared against server timestamps
+        Map<String, Object> started = new HashMap<>();
+        started.put(DatabaseConstants.MAINTENANCE_SWEEP_STARTED_FIELD, FieldValue.serverTimestamp());
+        sweepDocument.set(started, SetOptions.merge())
+                .continueWithTask(task -> sweepDocument.get())
+                .addOnSuccessListener(doc -> {
+                    sweepStarted = doc.getTimestamp(DatabaseConstants.MAINTENANCE_SWEEP_STARTED_FIELD);
+                    Timestamp lastSweep = doc.getTimestamp(DatabaseConstants.MAINTENANCE_LAST_SWEEP_FIELD);
+                    Timestamp lastFullSweep = doc.getTimestamp(DatabaseConstants.MAINTENANCE_LAST_FULL_SWEEP_FIELD);
+                    if (sweepStarted == null) {
+                        sweepStarted = Timestamp.now();
+                    }
+
+                    boolean full = lastSweep == null || lastFullSweep == null
+                            || sweepStarted.toDate().getTime() - lastFullSweep.toDate().getTime()
+                            > FULL_SWEEP_INTERVAL_MILLIS;
+                    since = full ? null : lastSweep;
+                    Log.i(LOG_TAG, full ? "Starting full integrity sweep"
+                            : "Starting integrity sweep of changes since " + lastSweep.toDate());
+
+                    sweepDeletions(() ->
+                            sweepOnWaitingList(() ->
+                                    sweepNotifications(() ->
+                                            finish(full, callback))));
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(LOG_TAG, "Failed to start integrity sweep", e);
+                    callback.onCompleted(false);
+                });
+    }
+
+    /**
+     * Deletes the rows that reference users and events deleted since the last sweep. Rows don't
+     * change when what they reference is deleted, so the incremental sweep wouldn't see them.
+     */
+    private void sweepDeletions(@NonNull Runnable next) {
+        if (since == null) {
+            // A full sweep checks every reference anyway
+            next.run();
+            return;
+        }
+
+        Query query = deletions
+                .whereGreaterThan(DatabaseConstants.COLLECTION_DELETIONS_DATE_DELETED_FIELD, since)
+                .orderBy(DatabaseConstants.COLLECTION_DELETIONS_DATE_DELETED_FIELD);
+        forEachPage(query, (page, nextPage) -> {
+            List<String> deletedUserIds = new ArrayList<>();
+            List<String> deletedEventIds = new ArrayList<>();
+            for (DocumentSnapshot doc : page) {
+                String referenceId = doc.getString(DatabaseConstants.COLLECTION_DELETIONS_REFERENCE_ID_FIELD);
+                String type = doc.getString(DatabaseConstants.COLLECTION_DELETIONS_TYPE_FIELD);
+                if (referenceId == null) {
+                    continue;
+                }
+                if (DatabaseConstants.DELETION_TYPE_USER.equals(type)) {
+                    deletedUserIds.add(referenceId);
+                } else if (DatabaseConstants.DELETION_TYPE_EVENT.equals(type)) {
+                    deletedEventIds.add(referenceId);
+                }
+            }
+
+            List<DocumentSnapshot> orphans = Collections.synchronizedList(new ArrayList<>());
+            int[] pending = {4};
+            Runnable onFetched = () -> {
+                pending[0]--;
+                if (pending[0] == 0) {
+                    deleteAll(orphans, nextPage);
+                }
+            };
+            FetchCallback<DocumentSnapshot> onOrphansFetched = (docs, complete) -> {
+                if (!complete) {
+                    // Orphans of the failed chunk would be missed, keep the deletion records and
+                    // the old watermark so the next sweep processes them again
+                    failed = true;
+                }
+                orphans.addAll(docs);
+                onFetched.run();
+            };
+            ChunkedDocumentFetcher.fetchByField(onWaitingList,
+                    DatabaseConstants.COLLECTION_ON_WAITING_LIST_USER_ID_FIELD, deletedUserIds, onOrphansFetched);
+            ChunkedDocumentFetcher.fetchByField(onWaitingList,
+                    DatabaseConstants.COLLECTION_ON_WAITING_LIST_EVENT_ID_FIELD, deletedEventIds, onOrphansFetched);
+            ChunkedDocumentFetcher.fetchByField(notifications,
+                    DatabaseConstants.COLLECTION_NOTIFICATIONS_USER_ID_FIELD, deletedUserIds, onOrphansFetched);
+            ChunkedDocumentFetcher.fetchByField(notifications,
+                    DatabaseConstants.COLLECTION_NOTIFICATIONS_EVENT_ID_FIELD, deletedEventIds, onOrphansFetched);
+        }, next);
+    }
+
+    /**
+     * Deletes onWaitingList rows whose user or event no longer exists, and duplicate rows, and
+     * normalizes the status of the rows that are kept.
+     */
+    private void sweepOnWaitingList(@NonNull Runnable next) {
+        Query query = changedSince(onWaitingList, DatabaseConstants.COLLECTION_ON_WAITING_LIST_DATE_MODIFIED_FIELD);
+        forEachPage(query, (page, nextPage) -> {
+            List<String> userIds = new ArrayList<>();
+            List<String> eventIds = new ArrayList<>();
+            for (DocumentSnapshot doc : page) {
+                userIds.add(doc.getString(DatabaseConstants.COLLECTION_ON_WAITING_LIST_USER_ID_FIELD));
+                eventIds.add(doc.getString(DatabaseConstants.COLLECTION_ON_WAITING_LIST_EVENT_ID_FIELD));
+            }
+
+            resolveReferences(userIds, eventIds, () -> {
+                if (failed) {
+                    nextPage.run();
+                    return;
+                }
+                List<DocumentSnapshot> toDelete = new ArrayList<>();
+                List<DocumentSnapshot> toKeep = new ArrayList<>();
+                List<String> usersToCheck = new ArrayList<>();
+                for (DocumentSnapshot doc : page) {
+                    String userId = doc.getString(DatabaseConstants.COLLECTION_ON_WAITING_LIST_USER_ID_FIELD);
+                    String eventId = doc.getString(DatabaseConstants.COLLECTION_ON_WAITING_LIST_EVENT_ID_FIELD);
+                    if (isOrphan(userId, eventId)) {
+                        toDelete.add(doc);
+                        continue;
+                    }
+                    toKeep.add(doc);
+                    if (duplicateCheckedUserIds.add(userId)) {
+                        usersToCheck.add(userId);
+                    }
+                }
+
+                // Load every row of the users on this page to find duplicates across pages
+                ChunkedDocumentFetcher.fetchByField(onWaitingList,
+                        DatabaseConstants.COLLECTION_ON_WAITING_LIST_USER_ID_FIELD, usersToCheck, (rows, complete) -> {
+                            if (complete) {
+                                toDelete.addAll(findDuplicates(rows));
+                            } else {
+                                // Duplicates can't be told apart without every row, the sweep is
+                                // aborted after this page and its watermark isn't advanced
+                                failed = true;
+                            }
+                            // Updating a deleted row would fail the whole batch
+                            Set<String> deletedPaths = new HashSet<>();
+                            for (DocumentSnapshot doc : toDelete) {
+                                deletedPaths.add(doc.getReference().getPath());
+                            }
+                            List<DocumentSnapshot> kept = new ArrayList<>();
+                            for (DocumentSnapshot doc : toKeep) {
+                                if (!deletedPaths.contains(doc.getReference().getPath())) {
+                                    kept.add(doc);
+                                }
+                            }
+                            deleteAll(toDelete, () -> normalizeStatuses(kept, nextPage));
+                        });
+            });
+        }, next);
+    }
+
+    /**
+     * Deletes notifications whose user or event no longer exists.
+     */
+    private void sweepNotifications(@NonNull Runnable next) {
+        Query query = changedSince(notifications, DatabaseConstants.COLLECTION_NOTIFICATIONS_DATE_CREATED_FIELD);
+        forEachPage(query, (page, nextPage) -> {
+            List<String> userIds = new ArrayList<>();
+            List<String> eventIds = new ArrayList<>();
+            for (DocumentSnapshot doc : page) {
+                userIds.add(doc.getString(DatabaseConstants.COLLECTION_NOTIFICATIONS_USER_ID_FIELD));
+                eventIds.add(doc.getString(DatabaseConstants.COLLECTION_NOTIFICATIONS_EVENT_ID_FIELD));
+            }
+
+            resolveReferences(userIds, eventIds, () -> {
+                if (failed) {
+                    nextPage.run();
+                    return;
+                }
+                List<DocumentSnapshot> toDelete = new ArrayList<>();
+                for (DocumentSnapshot doc : page) {
+                    if (isOrphan(doc.getString(DatabaseConstants.COLLECTION_NOTIFICATIONS_USER_ID_FIELD),
+                            doc.getString(DatabaseConstants.COLLECTION_NOTIFICATIONS_EVENT_ID_FIELD))) {
+                        toDelete.add(doc);
+                    }
+                }
+                deleteAll(toDelete, nextPage);
+            });
+        }, next);
+    }
+
+    /**
+     * Records the watermark if the sweep succeeded, and clears the deletion records it covered.
+     */
+    private void finish(boolean full, @NonNull BooleanCallback callback) {
+        Log.i(LOG_TAG, String.format("Integrity sweep finished, deleted %d documents, failed=%s",
+                deletedCount, failed));
+        if (failed) {
+            // Keep the old watermark so the next sweep looks at these changes again
+            callback.onCompleted(false);
+            return;
+        }
+
+        Map<String, Object> watermark = new HashMap<>();
+        watermark.put(DatabaseConstants.MAINTENANCE_LAST_SWEEP_FIELD, sweepStarted);
+        if (full) {
+            watermark.put(DatabaseConstants.MAINTENANCE_LAST_FULL_SWEEP_FIELD, sweepStarted);
+        }
+        sweepDocument.set(watermark, SetOptions.merge())
+                .addOnCompleteListener(task -> {
+                    if (!task.isSuccessful()) {
+                        Log.e(LOG_TAG, "Failed to record integrity sweep watermark", task.getException());
+                    }
+                    callback.onCompleted(task.isSuccessful());
+                });
+
+        purgeProcessedDeletions();
+    }
+
+    /**
+     * Deletes the deletion records covered by this sweep, a batch at a time until a batch comes
+     * back smaller than the limit.
+     */
+    private void purgeProcessedDeletions() {
+        Query processedDeletions = deletions
+                .whereLessThanOrEqualTo(DatabaseConstants.COLLECTION_DELETIONS_DATE_DELETED_FIELD, sweepStarted)
+                .limit(BatchWriter.MAX_OPERATIONS_PER_BATCH);
+        processedDeletions.get()
+                .addOnSuccessListener(qs -> {
+                    List<DocumentSnapshot> batch = qs.getDocuments();
+                    deleteAll(batch, () -> {
+                        // Stop on a failed delete, the same records would be read again
+                        if (!failed && batch.size() == BatchWriter.MAX_OPERATIONS_PER_BATCH) {
+                            purgeProcessedDeletions();
+                        }
+                    });
+                })
+                .addOnFailureListener(e -> Log.e(LOG_TAG, "Failed to purge deletion records", e));
+    }
+
+    /**
+     * @return Query over the whole collection for a full sweep, or over the documents whose date
+     * field is after the watermark for an incremental one
+     */
+    private Query changedSince(@NonNull CollectionReference collection, @NonNull String dateField) {
+        if (since == null) {
+            return collection.orderBy(FieldPath.documentId());
+        }
+        return collection.whereGreaterThan(dateField, since).orderBy(dateField);
+    }
+
+    /**
+     * Reads a query a page at a time, waiting for each page to be handled before reading the next.
+     */
+    private void forEachPage(@NonNull Query query, @NonNull PageHandler handler, @NonNull Runnable onDone) {
+        if (failed) {
+            // An earlier step failed, the sweep is aborted
+            onDone.run();
+            return;
+        }
+        readPage(query, null, handler, onDone);
+    }
+
+    private void readPage(@NonNull Query query,
+                          @Nullable DocumentSnapshot lastDocument,
+                          @NonNull PageHandler handler,
+                          @NonNull Runnable onDone) {
+        Query pageQuery = lastDocument == null
+                ? query.limit(PAGE_SIZE)
+                : query.startAfter(lastDocument).limit(PAGE_SIZE);
+        pageQuery.get()
+                .addOnSuccessListener(qs -> {
+                    List<DocumentSnapshot> page = qs.getDocuments();
+                    if (page.isEmpty()) {
+                        onDone.run();
+                        return;
+                    }
+                    handler.onPage(page, () -> {
+                        if (failed || page.size() < PAGE_SIZE) {
+                            onDone.run();
+                        } else {
+                            readPage(query, page.get(page.size() - 1), handler, onDone);
+                        }
+                    });
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(LOG_TAG, "Failed to read page during integrity sweep", e);
+                    failed = true;
+                    onDone.run();
+                });
+    }
+
+    /**
+     * Checks which of the given users and events exist, fetching only IDs not checked yet.
+     */
+    private void resolveReferences(@NonNull List<String> userIds,
+                                   @NonNull List<String> eventIds,
+                                   @NonNull Runnable next) {
+        List<String> unknownUserIds = unknown(userIds, existingUserIds, missingUserIds);
+        List<String> unknownEventIds = unknown(eventIds, existingEventIds, missingEventIds);
+        int[] pending = {2};
+        Runnable onResolved = () -> {
+            pending[0]--;
+            if (pending[0] == 0) {
+                next.run();
+            }
+        };
+        resolveExisting(users, unknownUserIds, existingUserIds, missingUserIds, onResolved);
+        resolveExisting(events, unknownEventIds, existingEventIds, missingEventIds, onResolved);
+    }
+
+    private void resolveExisting(@NonNull CollectionReference collection,
+                                 @NonNull List<String> ids,
+                                 @NonNull Set<String> existing,
+                                 @NonNull Set<String> missing,
+                                 @NonNull Runnable next) {
+        if (ids.isEmpty()) {
+            next.run();
+            return;
+        }
+        List<List<String>> chunks = ChunkedDocumentFetcher.chunk(ids, ChunkedDocumentFetcher.MAX_IDS_PER_QUERY);
+        int[] finishedChunks = {0};
+        for (List<String> chunk : chunks) {
+            // Only the server can tell that a document doesn't exist, the cache may just not have it
+            collection.whereIn(FieldPath.documentId(), chunk)
+                    .get(Source.SERVER)
+                    .addOnCompleteListener(task -> {
+                        if (task.isSuccessful() && task.getResult() != null) {
+                            Set<String> found = new HashSet<>();
+                            for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                                found.add(doc.getId());
+                            }
+                            for (String id : chunk) {
+                                (found.contains(id) ? existing : missing).add(id);
+                            }
+                        } else {
+                            // The IDs stay unknown and the sweep is aborted, nothing is deleted on
+                            // a failed read
+                            Log.e(LOG_TAG, "Failed to check references in " + collection.getId(),
+                                    task.getException());
+                            failed = true;
+                        }
+
+                        finishedChunks[0]++;
+                        if (finishedChunks[0] == chunks.size()) {
+                            next.run();
+                        }
+                    });
+        }
+    }
+
+    private static List<String> unknown(@NonNull List<String> ids,
+                                        @NonNull Set<String> existing,
+                                        @NonNull Set<String> missing) {
+        List<String> unknown = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            if (id != null && !existing.contains(id) && !missing.contains(id)) {
+                unknown.add(id);
+            }
+        }
+        return unknown;
+    }
+
+    private boolean isOrphan(@Nullable String userId, @Nullable String eventId) {
+        return userId == null || eventId == null
+                || missingUserIds.contains(userId) || missingEventIds.contains(eventId);
+    }
+
+    /**
+     * @return Every row but the one with the smallest ID of each (eventId, userId) pair
+     */
+    private static List<DocumentSnapshot> findDuplicates(@NonNull List<DocumentSnapshot> rows) {
+        Map<String, DocumentSnapshot> keptByPair = new HashMap<>();
+        List<DocumentSnapshot> duplicates = new ArrayList<>();
+        for (DocumentSnapshot row : rows) {
+            String key = row.getString(DatabaseConstants.COLLECTION_ON_WAITING_LIST_EVENT_ID_FIELD)
+                    + "_" + row.getString(DatabaseConstants.COLLECTION_ON_WAITING_LIST_USER_ID_FIELD);
+            DocumentSnapshot kept = keptByPair.get(key);
+            if (kept == null) {
+                keptByPair.put(key, row);
+            } else if (row.getId().compareTo(kept.getId()) < 0) {
+                duplicates.add(kept);
+                keptByPair.put(key, row);
+            } else {
+                duplicates.add(row);
+            }
+        }
+        return duplicates;
+    }
+
+    /**
+     * Rewrites the statuses that aren't stored as the name of the status they are read as.
+     * Status queries match every known spelling, but a row without a status can't be matched at
+     * all until it is rewritten here. The modification date is left alone, the row itself didn't
+     * change.
+     */
+    private void normalizeStatuses(@NonNull List<DocumentSnapshot> rows, @NonNull Runnable next) {
+        BatchWriter batchWriter = new BatchWriter(onWaitingList.getFirestore());
+        for (DocumentSnapshot row : rows) {
+            String stored = row.getString(DatabaseConstants.COLLECTION_ON_WAITING_LIST_STATUS_FIELD);
+            String normalized = ModelUtil.parseOnWaitingListStatus(stored).name();
+            if (!normalized.equals(stored)) {
+                batchWriter.update(row.getReference(),
+                        DatabaseConstants.COLLECTION_ON_WAITING_LIST_STATUS_FIELD, normalized);
+            }
+        }
+        if (batchWriter.getOperationCount() == 0) {
+            next.run();
+            return;
+        }
+        Log.i(LOG_TAG, String.format("Normalizing the status of %d rows", batchWriter.getOperationCount()));
+        batchWriter.commit(null, succeeded -> {
+            if (!succeeded) {
+                failed = true;
+            }
+            next.run();
+        });
+    }
+
+    private void deleteAll(@NonNull List<DocumentSnapshot> documents, @NonNull Runnable next) {
+        BatchWriter batchWriter = new BatchWriter(onWaitingList.getFirestore());
+        Set<String> deletedPaths = new HashSet<>();
+        for (DocumentSnapshot doc : documents) {
+            if (deletedPaths.add(doc.getReference().getPath())) {
+                batchWriter.delete(doc.getReference());
+            }
+        }
+        int count = batchWriter.getOperationCount();
+        batchWriter.commit(null, succeeded -> {
+            if (succeeded) {
+                deletedCount += count;
+            } else {
+                failed = true;
+            }
+            next.run();
+        });
+    }
+}
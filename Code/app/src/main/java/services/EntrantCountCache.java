@@ -0,0 +1,157 @@
+package services;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+import interfaces.CountCallback;
+import interfaces.ModelChangeListener;
+import models.ModelChangeSet;
+import models.OnWaitingListModel;
+
+/**
+ * Shared cache of the number of entrants on the waiting list of each event, so list rows showing
+ * the count don't query the database every time they are bound. Counts are loaded with
+ * aggregation queries, and requests for an event whose count is already loading wait for that
+ * query instead of starting another one. A count is dropped when a waiting list row of its event
+ * is added or removed, and loaded again the next time it is asked for. Organizers don't listen to
+ * the waiting lists, and entrants join from their own devices, so counts also expire after
+ * MAX_AGE_MS.
+ */
+public class EntrantCountCache implements ModelChangeListener<OnWaitingListModel> {
+    // Time a loaded count is kept
+    public static final long MAX_AGE_MS = 60_000;
+
+    // Counts the waiting list rows of an event
+    private final BiConsumer<String, CountCallback> counter;
+    private final LongSupplier clock;
+
+    private final Map<String, Integer> counts = new HashMap<>();
+    // Event ID -> time its count was loaded
+    private final Map<String, Long> loadedAt = new HashMap<>();
+    private final Map<String, List<CountCallback>> pending = new HashMap<>();
+    // Events whose count changed while it was loading, the loaded count isn't kept for them
+    private final Set<String> invalidatedWhileLoading = new HashSet<>();
+    private MutableLiveData<Set<String>> invalidatedLiveData;
+
+    public EntrantCountCache(@NonNull BiConsumer<String, CountCallback> counter) {
+        this(counter, System::currentTimeMillis);
+    }
+
+    // Constructor for tests, ages are measured with the given clock in milliseconds
+    EntrantCountCache(@NonNull BiConsumer<String, CountCallback> counter, @NonNull LongSupplier clock) {
+        this.counter = counter;
+        this.clock = clock;
+    }
+
+    @Override
+    public void onChanged(ModelChangeSet<OnWaitingListModel> changes) {
+        Set<String> eventIds = new HashSet<>();
+        for (OnWaitingListModel row : changes.getAdded()) {
+            eventIds.add(row.getEventId());
+        }
+        for (OnWaitingListModel row : changes.getRemoved()) {
+            eventIds.add(row.getEventId());
+        }
+        invalidate(eventIds);
+    }
+
+    /**
+     * @return The cached count of the event, or null if it isn't loaded or expired
+     */
+    @Nullable
+    public synchronized Integer getCached(@NonNull String eventId) {
+        Long loaded = loadedAt.get(eventId);
+        if (loaded != null && clock.getAsLong() - loaded >= MAX_AGE_MS) {
+            counts.remove(eventId);
+            loadedAt.remove(eventId);
+        }
+        return counts.get(eventId);
+    }
+
+    /**
+     * Gets the count of an event, from the cache if it is loaded.
+     * @param callback Called with the count, right away if it is cached, or with null if counting
+     *                 failed so the caller can stop waiting for it
+     */
+    public void load(@NonNull String eventId, @NonNull CountCallback callback) {
+        synchronized (this) {
+            Integer cached = getCached(eventId);
+            if (cached == null) {
+                List<CountCallback> callbacks = pending.get(eventId);
+                if (callbacks != null) {
+                    callbacks.add(callback);
+                    return;
+                }
+                callbacks = new ArrayList<>();
+                callbacks.add(callback);
+                pending.put(eventId, callbacks);
+            } else {
+                callback.onCompleted(cached);
+                return;
+            }
+        }
+
+        counter.accept(eventId, count -> {
+            List<CountCallback> callbacks;
+            synchronized (this) {
+                callbacks = pending.remove(eventId);
+                // Cleared even when counting failed, or the next count of the event would be dropped
+                boolean invalidated = invalidatedWhileLoading.remove(eventId);
+                if (count != null && !invalidated) {
+                    counts.put(eventId, count);
+                    loadedAt.put(eventId, clock.getAsLong());
+                }
+            }
+            if (callbacks != null) {
+                for (CountCallback waiting : callbacks) {
+                    waiting.onCompleted(count);
+                }
+            }
+        });
+    }
+
+    /**
+     * Drops the counts of the events, see getInvalidatedLiveData. Called for changes the
+     * waiting list listeners may not see, like the writes of organizers.
+     */
+    public void invalidate(@NonNull Set<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        MutableLiveData<Set<String>> liveData;
+        synchronized (this) {
+            for (String eventId : eventIds) {
+                counts.remove(eventId);
+                loadedAt.remove(eventId);
+                if (pending.containsKey(eventId)) {
+                    invalidatedWhileLoading.add(eventId);
+                }
+            }
+            liveData = invalidatedLiveData;
+        }
+        if (liveData != null) {
+            liveData.postValue(eventIds);
+        }
+    }
+
+    /**
+     * @return The IDs of the events whose counts were last dropped, so lists can bind their rows
+     * again
+     */
+    public synchronized MutableLiveData<Set<String>> getInvalidatedLiveData() {
+        if (invalidatedLiveData == null) {
+            invalidatedLiveData = new MutableLiveData<>();
+        }
+        return invalidatedLiveData;
+    }
+}
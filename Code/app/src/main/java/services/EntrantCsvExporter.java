@@ -0,0 +1,245 @@
+package services;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.Query;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import constants.DatabaseConstants;
+import interfaces.CsvExportCallback;
+import interfaces.ProgressCallback;
+import models.OnWaitingListModel;
+import models.UserModel;
+import util.ModelUtil;
+
+/**
+ * Streams the entrants of an event into a CSV file.
+ * Waiting list rows are read a page at a time, the users of each page are resolved with chunked
+ * queries, and the page is appended to the file before the next one is requested, so memory use
+ * is bounded by the page size rather than by the number of entrants. File writes happen on a
+ * background thread, callbacks are delivered on the main thread. An exporter runs one export.
+ *
+ * The export fails if the users of a page can't all be read. Entrants whose user no longer exists
+ * are left out of the file and reported to the callback.
+ */
+public class EntrantCsvExporter {
+    private static final String LOG_TAG = "[EntrantCsvExporter]";
+    public static final int PAGE_SIZE = 300;
+
+    private final CollectionReference onWaitingList;
+    private final CollectionReference users;
+    private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private volatile boolean cancelled = false;
+    private BufferedWriter writer;
+    private File csvFile;
+    private int total = 0;
+    private int processedCount = 0;
+    private int exportedCount = 0;
+    private final ArrayList<String> missingUserIds = new ArrayList<>();
+
+    public EntrantCsvExporter(@NonNull CollectionReference onWaitingList,
+                              @NonNull CollectionReference users) {
+        this.onWaitingList = onWaitingList;
+        this.users = users;
+    }
+
+    /**
+     * Writes every entrant of the event with their status to the file.
+     * @param eventId          ID of the event
+     * @param csvFile          File to write, it is overwritten
+     * @param progressCallback Optional, called after each page with the rows processed so far
+     * @param callback         Called once with the file, or with null if the export failed or
+     *                         was cancelled, and the IDs of the users that no longer exist
+     */
+    public void export(@NonNull String eventId,
+                       @NonNull File csvFile,
+                       @Nullable ProgressCallback progressCallback,
+                       @NonNull CsvExportCallback callback) {
+        this.csvFile = csvFile;
+        Query eventQuery = onWaitingList
+                .whereEqualTo(DatabaseConstants.COLLECTION_ON_WAITING_LIST_EVENT_ID_FIELD, eventId)
+                .orderBy(FieldPath.documentId());
+
+        eventQuery.count().get(AggregateSource.SERVER).addOnCompleteListener(countTask -> {
+            if (countTask.isSuccessful()) {
+                total = (int) countTask.getResult().getCount();
+            }
+            writeExecutor.execute(() -> {
+                try {
+                    writer = new BufferedWriter(new FileWriter(csvFile));
+                    writer.write("User ID,Full Name,Status\n");
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "Failed to open CSV file", e);
+                    finish(false, callback);
+                    return;
+                }
+                requestPage(eventQuery, null, progressCallback, callback);
+            });
+        });
+    }
+
+    /**
+     * Stops the export after the page currently being processed and deletes the partial file.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void requestPage(@NonNull Query eventQuery,
+                             @Nullable DocumentSnapshot lastDocument,
+                             @Nullable ProgressCallback progressCallback,
+                             @NonNull CsvExportCallback callback) {
+        if (cancelled) {
+            finish(false, callback);
+            return;
+        }
+
+        Query pageQuery = lastDocument == null
+                ? eventQuery.limit(PAGE_SIZE)
+                : eventQuery.startAfter(lastDocument).limit(PAGE_SIZE);
+        pageQuery.get().addOnCompleteListener(pageTask -> {
+            if (!pageTask.isSuccessful() || pageTask.getResult() == null) {
+                Log.e(LOG_TAG, "Failed to fetch page of entrants", pageTask.getException());
+                writeExecutor.execute(() -> finish(false, callback));
+                return;
+            }
+
+            List<DocumentSnapshot> documents = pageTask.getResult().getDocuments();
+            List<OnWaitingListModel> rows = new ArrayList<>();
+            List<String> userIds = new ArrayList<>();
+            for (DocumentSnapshot documentSnapshot : documents) {
+                try {
+                    OnWaitingListModel row = ModelUtil.toOnWaitingListModel(documentSnapshot);
+                    rows.add(row);
+                    userIds.add(row.getUserId());
+                } catch (Exception e) {
+                    Log.w(LOG_TAG, "Skipping malformed onWaitingList " + documentSnapshot.getId(), e);
+                }
+            }
+
+            ChunkedDocumentFetcher.fetch(users, userIds, ModelUtil::toUserModel,
+                    (userModels, complete) -> {
+                        if (!complete) {
+                            // Leaving those entrants out would look like a successful export
+                            Log.e(LOG_TAG, "Failed to fetch the users of a page of entrants");
+                            writeExecutor.execute(() -> finish(false, callback));
+                            return;
+                        }
+                        Map<String, UserModel> usersById = new HashMap<>();
+                        for (UserModel userModel : userModels) {
+                            usersById.put(userModel.getId(), userModel);
+                        }
+
+                        writeExecutor.execute(() -> {
+                            try {
+                                writePage(rows, usersById);
+                            } catch (IOException e) {
+                                Log.e(LOG_TAG, "Failed to write CSV page", e);
+                                finish(false, callback);
+                                return;
+                            }
+
+                            processedCount += documents.size();
+                            if (progressCallback != null) {
+                                int processed = processedCount;
+                                int expected = Math.max(total, processed);
+                                mainHandler.post(() -> progressCallback.onProgress(processed, expected));
+                            }
+
+                            if (documents.size() < PAGE_SIZE) {
+                                finish(true, callback);
+                            } else {
+                                requestPage(eventQuery, documents.get(documents.size() - 1),
+                                        progressCallback, callback);
+                            }
+                        });
+                    });
+        });
+    }
+
+    private void writePage(List<OnWaitingListModel> rows, Map<String, UserModel> usersById) throws IOException {
+        for (OnWaitingListModel row : rows) {
+            UserModel user = usersById.get(row.getUserId());
+            if (user == null) {
+                missingUserIds.add(row.getUserId());
+                continue;
+            }
+            writer.write(escapeCSV(user.getId()));
+            writer.write(",");
+            writer.write(escapeCSV(user.getFullName()));
+            writer.write(",");
+            writer.write(escapeCSV(row.getStatus().toString()));
+            writer.write("\n");
+            exportedCount++;
+        }
+    }
+
+    /**
+     * Closes the file and reports the result, always runs on the write thread.
+     */
+    private void finish(boolean succeeded, @NonNull CsvExportCallback callback) {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                Log.e(LOG_TAG, "Failed to close CSV file", e);
+                succeeded = false;
+            }
+        }
+        if (!succeeded || cancelled) {
+            if (csvFile != null && csvFile.exists() && !csvFile.delete()) {
+                Log.w(LOG_TAG, "Failed to delete partial CSV file " + csvFile.getAbsolutePath());
+            }
+        }
+
+        File result = succeeded && !cancelled ? csvFile : null;
+        int exported = exportedCount;
+        ArrayList<String> missing = new ArrayList<>(missingUserIds);
+        Log.i(LOG_TAG, String.format("Export finished, %d entrants written, cancelled=%s", exported, cancelled));
+        if (!missing.isEmpty()) {
+            Log.w(LOG_TAG, "Entrants left out of the export, their user no longer exists: " + missing);
+        }
+        mainHandler.post(() -> callback.onCompleted(result, exported, missing));
+        writeExecutor.shutdown();
+    }
+
+    /**
+     * Escapes a value for a CSV cell, quoting it if it holds a comma, quote or newline.
+     */
+    public static String escapeCSV(@Nullable String value) {
+        if (value == null) {
+            return "";
+        }
+
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+
+        return value;
+    }
+}
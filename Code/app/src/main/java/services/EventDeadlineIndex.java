@@ -0,0 +1,126 @@
+package services;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import interfaces.ModelChangeListener;
+import models.EventModel;
+import models.ModelChangeSet;
+
+/**
+ * Index of the events sorted by registration deadline, kept in sync with the events ModelStore.
+ * Date range lookups only visit the events in the range instead of checking the deadline of
+ * every event. Events without a deadline are left out of the index.
+ */
+public class EventDeadlineIndex implements ModelChangeListener<EventModel> {
+    // Deadline in milliseconds -> IDs of the events with that deadline
+    private final TreeMap<Long, Set<String>> eventIdsByDeadline = new TreeMap<>();
+    private final Map<String, Long> deadlinesByEvent = new HashMap<>();
+
+    @Override
+    public synchronized void onChanged(ModelChangeSet<EventModel> changes) {
+        for (EventModel removed : changes.getRemoved()) {
+            unindex(removed.getId());
+        }
+        for (EventModel added : changes.getAdded()) {
+            unindex(added.getId());
+            index(added);
+        }
+        for (EventModel modified : changes.getModified()) {
+            unindex(modified.getId());
+            index(modified);
+        }
+    }
+
+    /**
+     * @param from Earliest deadline to include, or null for no lower bound
+     * @param to   Deadline to stop before, or null for no upper bound
+     * @return IDs of the events with a deadline in the range, earliest deadline first
+     */
+    public synchronized List<String> getEventIdsBetween(@Nullable Date from, @Nullable Date to) {
+        NavigableMap<Long, Set<String>> range = eventIdsByDeadline;
+        if (from != null && to != null) {
+            if (!from.before(to)) {
+                return new ArrayList<>();
+            }
+            range = eventIdsByDeadline.subMap(from.getTime(), true, to.getTime(), false);
+        } else if (from != null) {
+            range = eventIdsByDeadline.tailMap(from.getTime(), true);
+        } else if (to != null) {
+            range = eventIdsByDeadline.headMap(to.getTime(), false);
+        }
+
+        List<String> eventIds = new ArrayList<>();
+        for (Set<String> ids : range.values()) {
+            eventIds.addAll(ids);
+        }
+        return eventIds;
+    }
+
+    /**
+     * @param now  Current time
+     * @param days Number of days from now
+     * @return IDs of the events whose registration closes within the given number of days,
+     * closing soonest first
+     */
+    public List<String> getEventIdsClosingWithin(@NonNull Date now, int days) {
+        return getEventIdsBetween(now, new Date(now.getTime() + TimeUnit.DAYS.toMillis(days)));
+    }
+
+    /**
+     * @return true if the event has a deadline in the range, see getEventIdsBetween
+     */
+    public synchronized boolean isDeadlineBetween(@NonNull String eventId,
+                                                  @Nullable Date from, @Nullable Date to) {
+        Long deadline = deadlinesByEvent.get(eventId);
+        if (deadline == null) {
+            return false;
+        }
+        return (from == null || deadline >= from.getTime())
+                && (to == null || deadline < to.getTime());
+    }
+
+    public synchronized int size() {
+        return deadlinesByEvent.size();
+    }
+
+    private void index(@NonNull EventModel event) {
+        if (event.getRegistrationDeadline() == null) {
+            return;
+        }
+        long deadline = event.getRegistrationDeadline().getTime();
+        deadlinesByEvent.put(event.getId(), deadline);
+        Set<String> ids = eventIdsByDeadline.get(deadline);
+        if (ids == null) {
+            ids = new LinkedHashSet<>();
+            eventIdsByDeadline.put(deadline, ids);
+        }
+        ids.add(event.getId());
+    }
+
+    private void unindex(@NonNull String eventId) {
+        Long deadline = deadlinesByEvent.remove(eventId);
+        if (deadline == null) {
+            return;
+        }
+        Set<String> ids = eventIdsByDeadline.get(deadline);
+        if (ids == null) {
+            return;
+        }
+        ids.remove(eventId);
+        if (ids.isEmpty()) {
+            eventIdsByDeadline.remove(deadline);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package services;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import constants.DatabaseConstants;
+import interfaces.ModelChangeListener;
+import interfaces.ModelListCallback;
+import models.EventEntrantEntry;
+import models.ModelChangeSet;
+import models.OnWaitingListModel;
+import models.UserModel;
+
+/**
+ * Materialized view of the entrants of a single event: each waiting list row of the event joined
+ * with its user. Users are loaded once, in bulk, and status changes are applied from the deltas
+ * of the onWaitingList store, so showing or scrolling the entrant list doesn't query the database.
+ */
+public class EventEntrantsView {
+    private final String eventId;
+    private final WaitlistIndex waitlistIndex;
+    private final ModelStore<OnWaitingListModel> onWaitingListStore;
+    // Loads users by ID
+    private final BiConsumer<List<String>, ModelListCallback<UserModel>> userLoader;
+
+    // Row ID -> entry, in the order the rows were first seen
+    private final Map<String, EventEntrantEntry> entriesByRow = new LinkedHashMap<>();
+    private final Map<String, UserModel> usersById = new LinkedHashMap<>();
+    private final Set<String> requestedUserIds = new HashSet<>();
+    private MutableLiveData<ArrayList<EventEntrantEntry>> entriesLiveData;
+
+    private final ModelChangeListener<OnWaitingListModel> waitlistListener = this::onWaitlistChanged;
+
+    /**
+     * @param waitlistIndex Index of the onWaitingList rows, must be registered on the store
+     *                      before the view is started so it is updated first
+     */
+    public EventEntrantsView(@NonNull String eventId,
+                             @NonNull WaitlistIndex waitlistIndex,
+                             @NonNull ModelStore<OnWaitingListModel> onWaitingListStore,
+                             @NonNull BiConsumer<List<String>, ModelListCallback<UserModel>> userLoader) {
+        this.eventId = eventId;
+        this.waitlistIndex = waitlistIndex;
+        this.onWaitingListStore = onWaitingListStore;
+        this.userLoader = userLoader;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    /**
+     * Builds the view from the rows of the event and starts following the store.
+     */
+    public void start() {
+        synchronized (this) {
+            for (OnWaitingListModel row : waitlistIndex.getEntriesOfEvent(eventId)) {
+                putEntry(row);
+            }
+        }
+        onWaitingListStore.addChangeListener(waitlistListener);
+        loadMissingUsers();
+        publish();
+    }
+
+    /**
+     * Stops following the store.
+     */
+    public void stop() {
+        onWaitingListStore.removeChangeListener(waitlistListener);
+    }
+
+    /**
+     * @return Every entry of the event. Posted again whenever an entry changes.
+     */
+    public synchronized MutableLiveData<ArrayList<EventEntrantEntry>> getEntriesLiveData() {
+        if (entriesLiveData == null) {
+            entriesLiveData = new MutableLiveData<>(new ArrayList<>(entriesByRow.values()));
+        }
+        return entriesLiveData;
+    }
+
+    /**
+     * @param status Status of the entries to include, or null for every entry
+     * @return The entries with the status whose user has been loaded
+     */
+    public synchronized ArrayList<EventEntrantEntry> getEntries(
+            @Nullable DatabaseConstants.ON_WAITING_LIST_STATUS status) {
+        ArrayList<EventEntrantEntry> entries = new ArrayList<>();
+        for (EventEntrantEntry entry : entriesByRow.values()) {
+            if (entry.getUser() != null
+                    && (status == null || entry.getOnWaitingList().getStatus() == status)) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private void onWaitlistChanged(ModelChangeSet<OnWaitingListModel> changes) {
+        boolean changed = false;
+        synchronized (this) {
+            for (OnWaitingListModel row : changes.getRemoved()) {
+                changed |= entriesByRow.remove(row.getId()) != null;
+            }
+            for (OnWaitingListModel row : changes.getAdded()) {
+                changed |= eventId.equals(row.getEventId()) && putEntry(row);
+            }
+            for (OnWaitingListModel row : changes.getModified()) {
+                changed |= eventId.equals(row.getEventId()) && putEntry(row);
+            }
+        }
+        if (changed) {
+            loadMissingUsers();
+            publish();
+        }
+    }
+
+    /**
+     * Joins a row with its user, if the user was already loaded.
+     * @return true if the entry changed
+     */
+    private boolean putEntry(@NonNull OnWaitingListModel row) {
+        EventEntrantEntry previous = entriesByRow.get(row.getId());
+        if (previous != null && previous.getOnWaitingList().getStatus() == row.getStatus()
+                && previous.getOnWaitingList().getUserId().equals(row.getUserId())) {
+            return false;
+        }
+        entriesByRow.put(row.getId(), new EventEntrantEntry(row, usersById.get(row.getUserId())));
+        return true;
+    }
+
+    /**
+     * Loads the users of entries that haven't been loaded yet. A user is requested once at a time,
+     * and if it isn't returned, for instance because its chunk failed, it is requested again on
+     * the next change of the waiting list.
+     */
+    private void loadMissingUsers() {
+        List<String> missingIds = new ArrayList<>();
+        synchronized (this) {
+            for (EventEntrantEntry entry : entriesByRow.values()) {
+                String userId = entry.getOnWaitingList().getUserId();
+                if (entry.getUser() == null && requestedUserIds.add(userId)) {
+                    missingIds.add(userId);
+                }
+            }
+        }
+        if (missingIds.isEmpty()) {
+            return;
+        }
+
+        userLoader.accept(missingIds, users -> {
+            synchronized (this) {
+                for (UserModel user : users) {
+                    usersById.put(user.getId(), user);
+                }
+                for (String userId : missingIds) {
+                    if (!usersById.containsKey(userId)) {
+                        requestedUserIds.remove(userId);
+                    }
+                }
+                for (Map.Entry<String, EventEntrantEntry> entry : entriesByRow.entrySet()) {
+                    OnWaitingListModel row = entry.getValue().getOnWaitingList();
+                    if (entry.getValue().getUser() == null) {
+                        entry.setValue(new EventEntrantEntry(row, usersById.get(row.getUserId())));
+                    }
+                }
+            }
+            publish();
+        });
+    }
+
+    private void publish() {
+        MutableLiveData<ArrayList<EventEntrantEntry>> liveData;
+        ArrayList<EventEntrantEntry> entries;
+        synchronized (this) {
+            liveData = entriesLiveData;
+            entries = new ArrayList<>(entriesByRow.values());
+        }
+        if (liveData != null) {
+            liveData.postValue(entries);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package services;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import constants.DatabaseConstants;
+import lombok.Getter;
+import models.EventModel;
+import util.ModelUtil;
+
+/**
+ * Pages through the events ordered by registration deadline, instead of listening to the whole
+ * events collection. Pages are loaded with startAfter and endBefore cursors as the list is
+ * scrolled, and only a bounded window of pages is kept in memory, so startup time and memory use
+ * don't depend on the number of events in the system.
+ * With a LocalMirror, the first page is kept on the device and shown from there on a cold start
+ * until its query returns.
+ * Must be used from the main thread, which is also where the page queries complete.
+ */
+public class EventPageRepository {
+    private static final String LOG_TAG = "[EventPageRepository]";
+    public static final int PAGE_SIZE = 25;
+    // Number of pages kept in memory, the page furthest from the scrolling direction is dropped
+    public static final int MAX_PAGES_IN_WINDOW = 5;
+    // Number of rows from either end of the window at which the next page is loaded
+    public static final int PREFETCH_DISTANCE = 8;
+
+    private final CollectionReference events;
+    @Nullable
+    private final LocalMirror localMirror;
+    // Events of the pages currently in the window, in deadline order
+    @Getter
+    private final MutableLiveData<ArrayList<EventModel>> eventsLiveData = new MutableLiveData<>();
+    private final ArrayDeque<Page> pages = new ArrayDeque<>();
+
+    @Nullable
+    private Date minDeadline;
+    @Getter
+    private boolean loading = false;
+    private boolean reachedEnd = false;
+    // Number of pages dropped from the start of the window that can be loaded again
+    private int droppedPages = 0;
+    // Incremented whenever the window is reset, so pages of an earlier query are ignored
+    private int generation = 0;
+    // Whether the server answered the query of the first page since the window was reset
+    private boolean firstPageLoaded = false;
+
+    public EventPageRepository(@NonNull CollectionReference events) {
+        this(events, null);
+    }
+
+    /**
+     * @param localMirror Keeps the first page on the device, or null to always load from the
+     *                    database
+     */
+    public EventPageRepository(@NonNull CollectionReference events, @Nullable LocalMirror localMirror) {
+        this.events = events;
+        this.localMirror = localMirror;
+    }
+
+    /**
+     * Only pages through events whose registration deadline is on or after the given date.
+     * Reloads the window from the first page.
+     * @param minDeadline Earliest deadline to include, or null to include every event
+     */
+    public void setMinDeadline(@Nullable Date minDeadline) {
+        this.minDeadline = minDeadline;
+        refresh();
+    }
+
+    /**
+     * Drops the window and loads the first page again.
+     */
+    public void refresh() {
+        generation++;
+        pages.clear();
+        loading = false;
+        reachedEnd = false;
+        droppedPages = 0;
+        firstPageLoaded = false;
+        loadNext();
+        restoreFirstPage();
+    }
+
+    /**
+     * Shows the events kept on the device until the first page is loaded from the database.
+     */
+    private void restoreFirstPage() {
+        if (localMirror == null) {
+            return;
+        }
+        int restoreGeneration = generation;
+        localMirror.getEventsByDeadline(minDeadline, PAGE_SIZE, localEvents -> {
+            if (restoreGeneration != generation || firstPageLoaded || localEvents.isEmpty()) {
+                return;
+            }
+            Log.i(LOG_TAG, String.format("Showing %d events kept on the device", localEvents.size()));
+            eventsLiveData.setValue(localEvents);
+        });
+    }
+
+    /**
+     * @return true if there are events after the window that haven't been loaded
+     */
+    public boolean hasMore() {
+        return !reachedEnd;
+    }
+
+    /**
+     * Loads the page after the window, unless a page is already loading.
+     */
+    public void loadNext() {
+        if (loading || reachedEnd) {
+            return;
+        }
+        Query query = buildQuery();
+        if (!pages.isEmpty()) {
+            query = query.startAfter(pages.getLast().last);
+        }
+        load(query.limit(PAGE_SIZE), false);
+    }
+
+    /**
+     * Loads the page before the window again if it was dropped, unless a page is already loading.
+     */
+    public void loadPrevious() {
+        if (loading || droppedPages == 0 || pages.isEmpty()) {
+            return;
+        }
+        load(buildQuery().endBefore(pages.getFirst().first).limitToLast(PAGE_SIZE), true);
+    }
+
+    /**
+     * @param position  Position of the last visible row
+     * @param itemCount Number of rows in the list, which may show only some of the loaded events
+     * @return true if the row is close enough to the end of the list to load the next page
+     */
+    public boolean isNearEnd(int position, int itemCount) {
+        return position >= itemCount - PREFETCH_DISTANCE;
+    }
+
+    /**
+     * @param position Position of the first visible row
+     * @return true if the row is close enough to the start of the list to load the previous page
+     */
+    public boolean isNearStart(int position) {
+        return position >= 0 && position <= PREFETCH_DISTANCE;
+    }
+
+    private Query buildQuery() {
+        Query query = events;
+        if (minDeadline != null) {
+            query = query.whereGreaterThanOrEqualTo(
+                    DatabaseConstants.COLLECTION_EVENTS_REGISTRATION_DEADLINE_FIELD,
+                    new Timestamp(minDeadline));
+        }
+        // Ordering by ID as well keeps the cursors stable for events with the same deadline
+        return query
+                .orderBy(DatabaseConstants.COLLECTION_EVENTS_REGISTRATION_DEADLINE_FIELD)
+                .orderBy(FieldPath.documentId());
+    }
+
+    private void load(@NonNull Query query, boolean before) {
+        int loadGeneration = generation;
+        loading = true;
+        query.get()
+                .addOnSuccessListener(snapshot -> {
+                    if (loadGeneration != generation) {
+                        return;
+                    }
+                    loading = false;
+                    List<DocumentSnapshot> documents = snapshot.getDocuments();
+                    boolean firstPage = !before && pages.isEmpty();
+                    if (before) {
+                        addBefore(documents);
+                    } else {
+                        addAfter(documents);
+                    }
+                    if (firstPage) {
+                        firstPageLoaded = true;
+                        keepFirstPage();
+                    }
+                    publish();
+                })
+                .addOnFailureListener(e -> {
+                    if (loadGeneration != generation) {
+                        return;
+                    }
+                    loading = false;
+                    Log.e(LOG_TAG, "Failed to load a page of events", e);
+                });
+    }
+
+    private void addAfter(@NonNull List<DocumentSnapshot> documents) {
+        if (documents.size() < PAGE_SIZE) {
+            reachedEnd = true;
+        }
+        if (documents.isEmpty()) {
+            return;
+        }
+        pages.addLast(new Page(documents));
+        if (pages.size() > MAX_PAGES_IN_WINDOW) {
+            pages.removeFirst();
+            droppedPages++;
+        }
+    }
+
+    private void addBefore(@NonNull List<DocumentSnapshot> documents) {
+        if (documents.isEmpty()) {
+            droppedPages = 0;
+            return;
+        }
+        // Events may have been added or removed since the pages were dropped
+        droppedPages = documents.size() < PAGE_SIZE ? 0 : Math.max(0, droppedPages - 1);
+        pages.addFirst(new Page(documents));
+        if (pages.size() > MAX_PAGES_IN_WINDOW) {
+            pages.removeLast();
+            reachedEnd = false;
+        }
+    }
+
+    /**
+     * Keeps the first page on the device for the next cold start.
+     */
+    private void keepFirstPage() {
+        if (localMirror == null || pages.isEmpty()) {
+            return;
+        }
+        List<EventModel> firstPage = pages.getFirst().events;
+        List<String> ids = new ArrayList<>();
+        for (EventModel event : firstPage) {
+            ids.add(event.getId());
+        }
+        localMirror.putEvents(ids, firstPage);
+    }
+
+    private void publish() {
+        ArrayList<EventModel> window = new ArrayList<>();
+        for (Page page : pages) {
+            window.addAll(page.events);
+        }
+        eventsLiveData.setValue(window);
+    }
+
+    /**
+     * Page of events, with the snapshots used as cursors for the neighbouring pages.
+     */
+    private static class Page {
+        private final List<EventModel> events = new ArrayList<>();
+        private final DocumentSnapshot first;
+        private final DocumentSnapshot last;
+
+        private Page(@NonNull List<DocumentSnapshot> documents) {
+            for (DocumentSnapshot document : documents) {
+                events.add(ModelUtil.toEventModel(document));
+            }
+            first = documents.get(0);
+            last = documents.get(documents.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package services;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import interfaces.ModelChangeListener;
+import models.EventModel;
+import models.ModelChangeSet;
+
+/**
+ * Inverted index of the words in event titles and descriptions, kept in sync with the events
+ * ModelStore. Words are lowercased and stripped of accents, and kept sorted so every word
+ * starting with a search term is found with a single range lookup instead of scanning the text
+ * of every event.
+ */
+public class EventSearchIndex implements ModelChangeListener<EventModel> {
+    private static final int TITLE_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    // Bonus for a search term matching a whole word rather than just its start
+    private static final int EXACT_MATCH_BONUS = 1;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Word -> event ID -> weight of the word in the event
+    private final TreeMap<String, Map<String, Integer>> postings = new TreeMap<>();
+    // Event ID -> words indexed for the event, so the event can be removed from the postings
+    private final Map<String, Set<String>> wordsByEvent = new HashMap<>();
+
+    @Override
+    public synchronized void onChanged(ModelChangeSet<EventModel> changes) {
+        for (EventModel removed : changes.getRemoved()) {
+            unindex(removed.getId());
+        }
+        for (EventModel added : changes.getAdded()) {
+            unindex(added.getId());
+            index(added);
+        }
+        for (EventModel modified : changes.getModified()) {
+            unindex(modified.getId());
+            index(modified);
+        }
+    }
+
+    /**
+     * Finds the events matching every word of a query, where a query word matches any indexed
+     * word that starts with it.
+     * @param query Text entered by the user
+     * @return IDs of the matching events, best matches first. Matches in the title rank above
+     * matches in the description. Empty if the query has no words.
+     */
+    public synchronized List<String> search(@Nullable String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<String, Integer> scores = null;
+        for (String term : new HashSet<>(terms)) {
+            Map<String, Integer> termScores = scoreTerm(term);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                for (Map.Entry<String, Integer> entry : scores.entrySet()) {
+                    entry.setValue(entry.getValue() + termScores.get(entry.getKey()));
+                }
+            }
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort((a, b) -> {
+            int byScore = Integer.compare(b.getValue(), a.getValue());
+            return byScore != 0 ? byScore : a.getKey().compareTo(b.getKey());
+        });
+        List<String> eventIds = new ArrayList<>(ranked.size());
+        for (Map.Entry<String, Integer> entry : ranked) {
+            eventIds.add(entry.getKey());
+        }
+        return eventIds;
+    }
+
+    public synchronized int size() {
+        return wordsByEvent.size();
+    }
+
+    /**
+     * @return Score of every event with a word starting with the term
+     */
+    private Map<String, Integer> scoreTerm(@NonNull String term) {
+        Map<String, Integer> scores = new HashMap<>();
+        // Every word starting with the term sorts between the term and the term followed by the
+        // largest character
+        for (Map.Entry<String, Map<String, Integer>> word
+                : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+            int bonus = word.getKey().equals(term) ? EXACT_MATCH_BONUS : 0;
+            for (Map.Entry<String, Integer> posting : word.getValue().entrySet()) {
+                int score = posting.getValue() + bonus;
+                Integer best = scores.get(posting.getKey());
+                if (best == null || score > best) {
+                    scores.put(posting.getKey(), score);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void index(@NonNull EventModel event) {
+        Map<String, Integer> weights = new HashMap<>();
+        addWords(weights, event.getDescription(), DESCRIPTION_WEIGHT);
+        addWords(weights, event.getEventTitle(), TITLE_WEIGHT);
+        if (weights.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            Map<String, Integer> eventWeights = postings.get(entry.getKey());
+            if (eventWeights == null) {
+                eventWeights = new HashMap<>();
+                postings.put(entry.getKey(), eventWeights);
+            }
+            eventWeights.put(event.getId(), entry.getValue());
+        }
+        wordsByEvent.put(event.getId(), new HashSet<>(weights.keySet()));
+    }
+
+    private void unindex(@NonNull String eventId) {
+        Set<String> words = wordsByEvent.remove(eventId);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            Map<String, Integer> eventWeights = postings.get(word);
+            if (eventWeights == null) {
+                continue;
+            }
+            eventWeights.remove(eventId);
+            if (eventWeights.isEmpty()) {
+                postings.remove(word);
+            }
+        }
+    }
+
+    /**
+     * Keeps the highest weight of each word, so a word in both the title and the description
+     * counts as a title match.
+     */
+    private static void addWords(Map<String, Integer> weights, @Nullable String text, int weight) {
+        for (String word : tokenize(text)) {
+            Integer current = weights.get(word);
+            if (current == null || weight > current) {
+                weights.put(word, weight);
+            }
+        }
+    }
+
+    /**
+     * Splits text into lowercase words without accents.
+     */
+    static List<String> tokenize(@Nullable String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return words;
+        }
+
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD);
+        normalized = DIACRITICS.matcher(normalized).replaceAll("").toLowerCase(Locale.ROOT);
+        for (String word : NON_WORD.split(normalized)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,105 @@
+package services;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import interfaces.ModelChangeListener;
+import interfaces.ModelListCallback;
+import models.EventModel;
+import models.EventSummary;
+import models.ModelChangeSet;
+
+/**
+ * Shared cache of event summaries, bounded by count and evicting the least recently used first.
+ * Summaries that aren't cached are loaded together, in chunked "in" queries, so a screen naming
+ * many events waits for one round trip instead of reading every event document on its own.
+ * Kept up to date from the deltas of the events store.
+ */
+public class EventSummaryLoader implements ModelChangeListener<EventModel> {
+    public static final int MAX_CACHED_SUMMARIES = 500;
+
+    // Access ordered, so the eldest entry is the least recently used
+    private final Map<String, EventSummary> cache =
+            new LinkedHashMap<String, EventSummary>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, EventSummary> eldest) {
+                    return size() > MAX_CACHED_SUMMARIES;
+                }
+            };
+    // Loads events by ID
+    private final BiConsumer<List<String>, ModelListCallback<EventModel>> eventLoader;
+
+    public EventSummaryLoader(@NonNull BiConsumer<List<String>, ModelListCallback<EventModel>> eventLoader) {
+        this.eventLoader = eventLoader;
+    }
+
+    @Override
+    public synchronized void onChanged(ModelChangeSet<EventModel> changes) {
+        for (EventModel event : changes.getAdded()) {
+            cache.put(event.getId(), EventSummary.of(event));
+        }
+        for (EventModel event : changes.getModified()) {
+            cache.put(event.getId(), EventSummary.of(event));
+        }
+        for (EventModel event : changes.getRemoved()) {
+            cache.remove(event.getId());
+        }
+    }
+
+    /**
+     * @return The cached summary of the event, or null if it hasn't been loaded
+     */
+    @Nullable
+    public synchronized EventSummary getCached(@NonNull String eventId) {
+        return cache.get(eventId);
+    }
+
+    /**
+     * Gets the summaries of many events, loading the ones that aren't cached in bulk.
+     * @param eventIds IDs of the events, duplicates are loaded once
+     * @param callback Called once with the summaries of the events that exist, in the order of
+     *                 the IDs. Called right away if every summary is cached.
+     */
+    public void load(@NonNull List<String> eventIds,
+                     @NonNull ModelListCallback<EventSummary> callback) {
+        List<String> missingIds = new ArrayList<>();
+        synchronized (this) {
+            for (String eventId : new LinkedHashSet<>(eventIds)) {
+                if (cache.get(eventId) == null) {
+                    missingIds.add(eventId);
+                }
+            }
+        }
+        if (missingIds.isEmpty()) {
+            callback.onCompleted(collect(eventIds));
+            return;
+        }
+
+        eventLoader.accept(missingIds, events -> {
+            synchronized (this) {
+                for (EventModel event : events) {
+                    cache.put(event.getId(), EventSummary.of(event));
+                }
+            }
+            callback.onCompleted(collect(eventIds));
+        });
+    }
+
+    private synchronized ArrayList<EventSummary> collect(@NonNull List<String> eventIds) {
+        ArrayList<EventSummary> summaries = new ArrayList<>();
+        for (String eventId : new LinkedHashSet<>(eventIds)) {
+            EventSummary summary = cache.get(eventId);
+            if (summary != null) {
+                summaries.add(summary);
+            }
+        }
+        return summaries;
+    }
+}
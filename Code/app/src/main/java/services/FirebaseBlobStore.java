@@ -0,0 +1,73 @@
+package services;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+
+import interfaces.BlobCallback;
+import interfaces.BlobStore;
+import interfaces.BooleanCallback;
+
+/**
+ * BlobStore backed by Firebase Storage, blobs are stored under the "blobs/" folder.
+ */
+public class FirebaseBlobStore implements BlobStore {
+    private static final String LOG_TAG = "[FirebaseBlobStore]";
+    private static final String FOLDER = "blobs/";
+    // Posters are resized before upload, anything bigger than this is not an image we wrote
+    public static final long MAX_BLOB_BYTES = 10 * 1024 * 1024;
+
+    private StorageReference root;
+
+    private synchronized StorageReference refOf(@NonNull String key) {
+        // Resolved lazily so the store can be created before Firebase is needed
+        if (root == null) {
+            root = FirebaseStorage.getInstance().getReference();
+        }
+        return root.child(FOLDER + key);
+    }
+
+    @Override
+    public void contains(@NonNull String key, @NonNull BooleanCallback callback) {
+        refOf(key).getMetadata()
+                .addOnSuccessListener(metadata -> callback.onCompleted(true))
+                .addOnFailureListener(e -> {
+                    if (!(e instanceof StorageException)
+                            || ((StorageException) e).getErrorCode() != StorageException.ERROR_OBJECT_NOT_FOUND) {
+                        Log.w(LOG_TAG, "Failed to check blob " + key, e);
+                    }
+                    callback.onCompleted(false);
+                });
+    }
+
+    @Override
+    public void put(@NonNull String key, @NonNull byte[] data, @NonNull String contentType,
+                    @NonNull BooleanCallback callback) {
+        StorageMetadata metadata = new StorageMetadata.Builder()
+                .setContentType(contentType)
+                // Blobs are addressed by content, so they never change once written
+                .setCacheControl("public, max-age=31536000, immutable")
+                .build();
+        refOf(key).putBytes(data, metadata)
+                .addOnSuccessListener(taskSnapshot -> callback.onCompleted(true))
+                .addOnFailureListener(e -> {
+                    Log.e(LOG_TAG, "Failed to upload blob " + key, e);
+                    callback.onCompleted(false);
+                });
+    }
+
+    @Override
+    public void get(@NonNull String key, @NonNull BlobCallback callback) {
+        refOf(key).getBytes(MAX_BLOB_BYTES)
+                .addOnSuccessListener(callback::onCompleted)
+                .addOnFailureListener(e -> {
+                    Log.e(LOG_TAG, "Failed to download blob " + key, e);
+                    callback.onCompleted(null);
+                });
+    }
+}
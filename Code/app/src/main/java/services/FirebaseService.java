@@ -1,6 +1,8 @@
 package services;
 
+import android.app.Application;
 import android.content.ContentResolver;
+import android.content.Context;
 import android.graphics.Bitmap;
 import android.net.Uri;
 import android.provider.MediaStore;
@@ -11,36 +13,51 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.lifecycle.MutableLiveData;
 
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import constants.DatabaseConstants;
 import interfaces.BooleanCallback;
+import interfaces.CountCallback;
+import interfaces.ModelListCallback;
 import interfaces.OnWaitingListArrayListCallback;
 import interfaces.OnWaitingListCallback;
+import interfaces.ProgressCallback;
+import interfaces.QueryMirror;
 import interfaces.UserModelArrayListCallback;
 import interfaces.UserTypeCallback;
+import interfaces.WaitlistStatusCountsCallback;
 import lombok.Data;
 import lombok.Getter;
 import models.EventModel;
 import models.NotificationModel;
 import models.OnWaitingListModel;
 import models.UserModel;
-import util.ConversionUtil;
+import models.WaitlistStatusCounts;
 import util.ModelUtil;
 import util.QRCodeUtil;
 
@@ -49,6 +66,8 @@ import util.QRCodeUtil;
  */
 public class FirebaseService {
     private final String LOG_TAG = "[FirebaseService]";
+    private static final String IMAGE_CACHE_DIRECTORY = "blobs";
+    private static final String QR_CODE_CACHE_DIRECTORY = "qr_codes";
     public static FirebaseService firebaseService;
     private final CollectionReference events;
     private final CollectionReference users;
@@ -63,14 +82,66 @@ public class FirebaseService {
     private final MutableLiveData<ArrayList<OnWaitingListModel>> onWaitingListLiveData;
     @Getter
     private final MutableLiveData<ArrayList<NotificationModel>> notificationsLiveData;
+
+    // Keyed copies of the collections, kept up to date from the snapshot listener deltas
+    @Getter
+    private final ModelStore<EventModel> eventsStore;
+    @Getter
+    private final ModelStore<UserModel> usersStore;
+    @Getter
+    private final ModelStore<OnWaitingListModel> onWaitingListStore;
+    @Getter
+    private final ModelStore<NotificationModel> notificationsStore;
+    // Lookups of the onWaitingList rows by event and user, kept in sync with onWaitingListStore
+    @Getter
+    private final WaitlistIndex waitlistIndex;
+    // Number of entrants of each event, dropped when rows of the event are added or removed
+    @Getter
+    private final EntrantCountCache entrantCountCache;
+    // Titles and other summary fields of events, for lists that only name the events
+    @Getter
+    private final EventSummaryLoader eventSummaryLoader;
+    // Opt out preferences of users, so notifications don't read every recipient's document
+    @Getter
+    private final NotificationPreferenceCache notificationPreferenceCache;
+    // Content addressed storage of the event posters, event documents only keep the reference
+    @Getter
+    private final ImageStore imageStore;
+    // Reference counted listeners on the queries the screens need, see acquireRoleSubscriptions
+    @Getter
+    private final SubscriptionManager subscriptionManager = new SubscriptionManager();
+    private RoleSubscriptionCallbacks roleSubscriptionCallbacks;
+    // Copies of the waiting lists and events of entrants kept on the device, set by init(Context)
+    private LocalMirror localMirror;
     @Getter
     private DatabaseConstants.USER_TYPE loggedInUserType;
+    // Waiting lists of the logged in user joined with their events, created when first needed
+    private UserWaitlistView userWaitlistView;
 
     // Initializes the FirebaseService singleton instance, must be called before using the instance
     public static void init() {
         firebaseService = new FirebaseService();
     }
 
+    // Initializes the singleton, keeps downloaded images and QR codes in the cache directory of the app,
+    // mirrors the data of entrants on the device and listens to the data of the logged in user's role
+    // while the app is in the foreground
+    public static void init(@NonNull Context context) {
+        Application application = (Application) context.getApplicationContext();
+        if (firebaseService != null && firebaseService.roleSubscriptionCallbacks != null) {
+            application.unregisterActivityLifecycleCallbacks(firebaseService.roleSubscriptionCallbacks);
+        }
+        init();
+        firebaseService.imageStore.setCache(
+                new LocalBlobStore(new File(context.getCacheDir(), IMAGE_CACHE_DIRECTORY)));
+        QRCodeUtil.setDiskCache(
+                new LocalBlobStore(new File(context.getCacheDir(), QR_CODE_CACHE_DIRECTORY)));
+        firebaseService.localMirror = new LocalMirror(LocalDatabase.getInstance(context),
+                firebaseService.subscriptionManager);
+        firebaseService.roleSubscriptionCallbacks = new RoleSubscriptionCallbacks(firebaseService);
+        application.registerActivityLifecycleCallbacks(firebaseService.roleSubscriptionCallbacks);
+    }
+
     @Getter
     private String currentUserId;
 
@@ -87,7 +158,20 @@ public class FirebaseService {
         onWaitingListLiveData = new MutableLiveData<>();
         notificationsLiveData = new MutableLiveData<>();
 
-        setupListeners();
+        eventsStore = new ModelStore<>(eventsLiveData);
+        usersStore = new ModelStore<>(usersLiveData);
+        onWaitingListStore = new ModelStore<>(onWaitingListLiveData);
+        notificationsStore = new ModelStore<>(notificationsLiveData);
+
+        waitlistIndex = new WaitlistIndex();
+        onWaitingListStore.addChangeListener(waitlistIndex);
+        notificationPreferenceCache = new NotificationPreferenceCache(users);
+        usersStore.addChangeListener(notificationPreferenceCache);
+        eventSummaryLoader = new EventSummaryLoader(this::getEvents);
+        eventsStore.addChangeListener(eventSummaryLoader);
+        entrantCountCache = new EntrantCountCache(this::countEntrantsOfEvent);
+        onWaitingListStore.addChangeListener(entrantCountCache);
+        imageStore = new ImageStore(new FirebaseBlobStore());
 
         cleanDatabase();
     }
@@ -111,82 +195,33 @@ public class FirebaseService {
 
         this.notifications = notifications;
         this.notificationsLiveData = notificationsLiveData;
+
+        this.eventsStore = new ModelStore<>(eventsLiveData);
+        this.usersStore = new ModelStore<>(usersLiveData);
+        this.onWaitingListStore = new ModelStore<>(onWaitingListLiveData);
+        this.notificationsStore = new ModelStore<>(notificationsLiveData);
+
+        this.waitlistIndex = new WaitlistIndex();
+        this.onWaitingListStore.addChangeListener(this.waitlistIndex);
+        this.notificationPreferenceCache = new NotificationPreferenceCache(users);
+        this.usersStore.addChangeListener(this.notificationPreferenceCache);
+        this.eventSummaryLoader = new EventSummaryLoader(this::getEvents);
+        this.eventsStore.addChangeListener(this.eventSummaryLoader);
+        this.entrantCountCache = new EntrantCountCache(this::countEntrantsOfEvent);
+        this.onWaitingListStore.addChangeListener(this.entrantCountCache);
+        this.imageStore = new ImageStore(new FirebaseBlobStore());
     }
 
     /**
      * Startup function to ensure that the database data is valid. Added to fix duplicate onWaitingList
      * statuses/references to deleted users. If other DB issues occur from delets add other cleanups here.
+     * The work is done by the DatabaseIntegritySweeper in the background, and only runs when the last
+     * sweep is old enough. Each sweep only examines the rows changed since the previous one.
      */
     public void cleanDatabase() {
         try {
-            onWaitingList
-                    .get()
-                    .addOnSuccessListener(qs -> {
-                        List<DocumentSnapshot> onWaitingListDocuments = qs.getDocuments();
-                        Map<String, String> uniquePairs = new HashMap<>();
-                        for (DocumentSnapshot ds : onWaitingListDocuments) {
-                            OnWaitingListModel onWaitingListModel = ModelUtil.toOnWaitingListModel(ds);
-
-                            // Check and remove duplicate entries for eventId and userId pairs
-                            String key = onWaitingListModel.getEventId() + "_" + onWaitingListModel.getUserId();
-                            if (uniquePairs.containsKey(key)) {
-                                deleteOnWaitingList(onWaitingListModel.getId());
-                                continue;
-                            }
-                            uniquePairs.put(key, onWaitingListModel.getId());
-
-                            // Check that referenced users exist
-                            users.document(onWaitingListModel.getUserId())
-                                    .get()
-                                    .addOnSuccessListener(userSnapshot -> {
-                                        if (!userSnapshot.exists()) {
-                                            deleteOnWaitingList(onWaitingListModel.getId());
-                                        }
-                                    })
-                                    .addOnFailureListener(e -> {
-                                        Log.e(LOG_TAG, "Failed to get onWaitingList data for cleaning.", e);
-                                    });
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(LOG_TAG, "Failed to get onWaitingList data for cleaning.");
-                    });
-
-            notifications
-                    .get()
-                    .addOnSuccessListener(qs -> {
-                        List<DocumentSnapshot> notificationDocuments = qs.getDocuments();
-                        for (DocumentSnapshot ds : notificationDocuments) {
-                            NotificationModel notificationModel = ModelUtil.toNotificationModel(ds);
-
-                            // Check that referenced users exist
-                            users.document(notificationModel.getUserId())
-                                    .get()
-                                    .addOnSuccessListener(userSnapshot -> {
-                                        if (!userSnapshot.exists()) {
-                                            deleteNotification(notificationModel.getId());
-                                        }
-                                    })
-                                    .addOnFailureListener(e -> {
-                                        Log.e(LOG_TAG, "Failed to get notification data for cleaning.", e);
-                                    });
-
-                            // Check that referenced events exist
-                            events.document(notificationModel.getEventId())
-                                    .get()
-                                    .addOnSuccessListener(eventSnapshot -> {
-                                        if (!eventSnapshot.exists()) {
-                                            deleteNotification(notificationModel.getId());
-                                        }
-                                    })
-                                    .addOnFailureListener(e -> {
-                                        Log.e(LOG_TAG, "Failed to get event data for cleaning.", e);
-                                    });
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(LOG_TAG, "Failed to get notification data for cleaning.");
-                    });
+            new DatabaseIntegritySweeper(onWaitingList.getFirestore())
+                    .runIfDue(succeeded -> Log.i(LOG_TAG, "Database integrity check done, succeeded=" + succeeded));
         } catch (Exception e) {
             Log.e(LOG_TAG, String.format("Error while cleaning database. Exception: %s", e));
         }
@@ -285,6 +320,7 @@ public class FirebaseService {
 
                     Log.i(LOG_TAG,
                             String.format("Successfully logged in user %s, password %s, with user type %s", username, password, userTypeStr));
+                    restoreLocalData();
                     userTypeCallback.onCompleted(loggedInUserType);
                 })
                 .addOnFailureListener((e) -> Log.i(LOG_TAG,
@@ -341,6 +377,7 @@ public class FirebaseService {
                     Log.i(LOG_TAG,
                             "Device login succeeded for user " + currentUserId
                                     + " (deviceId=" + deviceId + ")");
+                    restoreLocalData();
                     callback.onCompleted(true);
                 })
                 .addOnFailureListener(e -> {
@@ -350,17 +387,102 @@ public class FirebaseService {
                 });
     }
 
+    /**
+     * Logs in the user of a session saved on the device, without going to the database. The
+     * session should be checked with validateSession afterwards.
+     * @param userId   ID of the user of the session
+     * @param userType User type of the user of the session
+     */
+    public void restoreSession(@NonNull String userId, @NonNull DatabaseConstants.USER_TYPE userType) {
+        currentUserId = userId;
+        loggedInUserType = userType;
+        Log.i(LOG_TAG, String.format("Restored session of user %s with user type %s", userId, userType));
+        restoreLocalData();
+    }
+
+    /**
+     * Logs the current user out. Detaches every listener, forgets the logged in user and empties
+     * the stores and the copies kept on the device, so the next user starts without the data of
+     * this one.
+     */
+    public synchronized void signOut() {
+        if (roleSubscriptionCallbacks != null) {
+            roleSubscriptionCallbacks.releaseAll();
+        }
+        subscriptionManager.detachAll();
+        currentUserId = null;
+        loggedInUserType = null;
+        if (userWaitlistView != null) {
+            userWaitlistView.stop();
+            userWaitlistView = null;
+        }
+
+        eventsStore.clear();
+        eventsStore.commit();
+        usersStore.clear();
+        usersStore.commit();
+        onWaitingListStore.clear();
+        onWaitingListStore.commit();
+        notificationsStore.clear();
+        notificationsStore.commit();
+        if (localMirror != null) {
+            localMirror.clear();
+        }
+        Log.i(LOG_TAG, "Signed out");
+    }
+
+    /**
+     * Checks that the user of a session saved on the device still exists. The callback is not
+     * called if the database can't be reached, so an offline session is kept.
+     * @param userId           ID of the user of the session
+     * @param userTypeCallback Called with the current user type of the user, or NULL if the user
+     *                         no longer exists
+     */
+    public void validateSession(@NonNull String userId, @NonNull UserTypeCallback userTypeCallback) {
+        users.document(userId)
+                .get()
+                .addOnSuccessListener(doc -> {
+                    String userTypeStr = doc.exists()
+                            ? doc.getString(DatabaseConstants.COLLECTION_USERS_USER_TYPE_FIELD) : null;
+                    DatabaseConstants.USER_TYPE userType = DatabaseConstants.USER_TYPE.NULL;
+                    if (userTypeStr != null) {
+                        try {
+                            userType = DatabaseConstants.USER_TYPE.valueOf(userTypeStr);
+                        } catch (IllegalArgumentException e) {
+                            Log.w(LOG_TAG, "Invalid userType for session: " + userTypeStr);
+                        }
+                    }
+                    userTypeCallback.onCompleted(userType);
+                })
+                .addOnFailureListener(e -> Log.i(LOG_TAG,
+                        String.format("Failed to validate session of user %s: %s", userId, e)));
+    }
+
     /**
      * Deletes a user with the given user ID from the database.
      * @param userId    The ID of the user to be deleted
      */
     public void deleteUser(@NonNull String userId) {
+        deleteUser(userId, succeeded -> {});
+    }
+
+    /**
+     * Deletes a user with the given user ID from the database.
+     * @param userId    The ID of the user to be deleted
+     * @param callback  Called with true if the user was deleted
+     */
+    public void deleteUser(@NonNull String userId, @NonNull BooleanCallback callback) {
         users.document(userId)
                 .delete()
-                .addOnSuccessListener((v) -> Log.i(LOG_TAG,
-                        String.format("Deleted user %s successfully", userId)))
-                .addOnFailureListener((e) -> Log.i(LOG_TAG,
-                        String.format("Didn't find or failed to delete user %s", userId)));
+                .addOnSuccessListener((v) -> {
+                    Log.i(LOG_TAG, String.format("Deleted user %s successfully", userId));
+                    recordDeletion(DatabaseConstants.DELETION_TYPE_USER, userId);
+                    callback.onCompleted(true);
+                })
+                .addOnFailureListener((e) -> {
+                    Log.i(LOG_TAG, String.format("Didn't find or failed to delete user %s", userId));
+                    callback.onCompleted(false);
+                });
     }
 
     /**
@@ -390,27 +512,27 @@ public class FirebaseService {
                             @NonNull String organizerId,
                             boolean geolocationRequired,
                             ContentResolver contentResolver) {
-        String base64ImageString;
-        try {
-            base64ImageString = ConversionUtil.convertUriToBase64(imageUri, contentResolver);
-        } catch (Exception e) {
-            base64ImageString = null;
-        }
-
         Map<String, Object> eventData = new HashMap<>();
         eventData.put(DatabaseConstants.COLLECTION_USERS_DEVICE_ID_FIELD, deviceId);
         eventData.put(DatabaseConstants.COLLECTION_EVENTS_ORGANIZER_ID_FIELD, organizerId);
         eventData.put(DatabaseConstants.COLLECTION_EVENTS_TITLE_FIELD, eventTitle);
-        eventData.put(DatabaseConstants.COLLECTION_EVENTS_IMAGE_DATA_FIELD, base64ImageString);
+        // The poster reference is set once the poster is stored
+        eventData.put(DatabaseConstants.COLLECTION_EVENTS_IMAGE_DATA_FIELD, null);
         eventData.put(DatabaseConstants.COLLECTION_EVENTS_ENTRANT_LIMIT_FIELD, entrantLimit);
         eventData.put(DatabaseConstants.COLLECTION_EVENTS_REGISTRATION_DEADLINE_FIELD, new Timestamp(registrationDeadline));
         eventData.put(DatabaseConstants.COLLECTION_EVENTS_DESCRIPTION_FIELD, description);
         eventData.put("geolocationRequired", geolocationRequired);
 
-        events.add(eventData)
-                .addOnSuccessListener((documentReference) -> {
-                    String eventId = documentReference.getId();
+        // The ID is picked up front so the poster is read right away, while the screen that
+        // picked it still holds the permission to read it
+        DocumentReference documentReference = events.document();
+        String eventId = documentReference.getId();
+        if (imageUri != null) {
+            storeEventImage(eventId, imageUri, contentResolver);
+        }
 
+        documentReference.set(eventData)
+                .addOnSuccessListener((unused) -> {
                     // Generate unique QR code data for this event
                     String qrCodeData = QRCodeUtil.generateQRCodeData(eventId);
 
@@ -430,7 +552,9 @@ public class FirebaseService {
      * Uploads an event poster image to Firebase Storage (US 02.04.01)
      * @param eventId The ID of the event
      * @param imageUri The URI of the image to upload
+     * @deprecated Stores the poster per event rather than by content, use updateEventImage
      */
+    @Deprecated
     public void uploadEventImage(@NonNull String eventId, @NonNull Uri imageUri) {
         FirebaseStorage storage = FirebaseStorage.getInstance();
         StorageReference storageRef = storage.getReference();
@@ -454,49 +578,33 @@ public class FirebaseService {
                         Log.e(LOG_TAG, "Failed to upload event poster", e));
     }
 
+    /**
+     * Gets the users on the waiting list of an event with the given status.
+     * The users are fetched in bulk, a few "in" queries instead of one read per entrant.
+     * @param eventId  ID of the event
+     * @param status   Status of the waiting list rows to include
+     * @param callback Called once with the users, in the order of their waiting list rows
+     */
     public void getUsersOfEventWithStatus(@NonNull String eventId,
                                           @NonNull DatabaseConstants.ON_WAITING_LIST_STATUS status,
                                           @NonNull UserModelArrayListCallback callback) {
-        Log.i("[FirebaseService]", String.format("Called getusers of event with status %s", status));
+        Log.i(LOG_TAG, String.format("Called getusers of event with status %s", status));
         onWaitingList
                 .whereEqualTo(DatabaseConstants.COLLECTION_ON_WAITING_LIST_EVENT_ID_FIELD,
                         eventId)
-                .whereEqualTo(DatabaseConstants.COLLECTION_ON_WAITING_LIST_STATUS_FIELD,
-                        status.name())
+                .whereIn(DatabaseConstants.COLLECTION_ON_WAITING_LIST_STATUS_FIELD,
+                        ModelUtil.getStoredStatusValues(status))
                 .get()
                 .addOnSuccessListener((v) -> {
-                    ArrayList<UserModel> userModels = new ArrayList<>();
-
-                    int size = v.getDocuments().size();
-                    AtomicReference<Integer> count = new AtomicReference<>(0);
+                    ArrayList<String> userIds = new ArrayList<>();
                     for (DocumentSnapshot documentSnapshot : v.getDocuments()) {
-                        OnWaitingListModel onWaitingListModel = ModelUtil.toOnWaitingListModel(documentSnapshot);
-                        String userId = onWaitingListModel.getUserId();
-
-                        users.document(userId)
-                                .get()
-                                .addOnSuccessListener(userDoc -> {
-                                    if (userDoc != null) {
-                                        try {
-                                            UserModel userModel = ModelUtil.toUserModel(userDoc);
-                                            userModels.add(userModel);
-                                            count.updateAndGet(v1 -> v1 + 1);
-                                            if (count.get() == size) {
-                                                callback.onCompleted(userModels);
-                                            }
-                                        } catch (Exception e) {
-                                            Log.w(LOG_TAG,
-                                                    String.format("Failed to get userId: %s for onWaitingListModel: %s",
-                                                            onWaitingListModel.getUserId(),
-                                                            onWaitingListModel.getId()));
-                                        }
-                                    }
-                                })
-                                .addOnFailureListener(doc -> {
-                                    count.updateAndGet(v1 -> v1 + 1);
-                                });
+                        String userId = documentSnapshot.getString(
+                                DatabaseConstants.COLLECTION_ON_WAITING_LIST_USER_ID_FIELD);
+                        if (userId != null) {
+                            userIds.add(userId);
+                        }
                     }
-                    callback.onCompleted(userModels);
+                    getUsers(userIds, callback::onCompleted);
                 })
                 .addOnFailureListener(e -> {
                     Log.e(LOG_TAG,
@@ -508,6 +616,92 @@ public class FirebaseService {
 
     }
 
+    /**
+     * Fetches many users by ID in chunked "in" queries.
+     * @param userIds  IDs of the users, duplicates are fetched once
+     * @param callback Called once with the users that exist, in the order of the IDs
+     */
+    public void getUsers(@NonNull List<String> userIds,
+                         @NonNull ModelListCallback<UserModel> callback) {
+        ChunkedDocumentFetcher.fetch(users, userIds, ModelUtil::toUserModel,
+                (models, complete) -> callback.onCompleted(models));
+    }
+
+    /**
+     * @return The view of the waiting lists of the logged in user, or null if no user is logged in
+     */
+    @Nullable
+    public synchronized UserWaitlistView getUserWaitlistView() {
+        if (currentUserId == null) {
+            return null;
+        }
+        if (userWaitlistView == null || !userWaitlistView.getUserId().equals(currentUserId)) {
+            if (userWaitlistView != null) {
+                userWaitlistView.stop();
+            }
+            userWaitlistView = new UserWaitlistView(currentUserId, waitlistIndex,
+                    onWaitingListStore, eventsStore, this::loadWaitlistEvents);
+            userWaitlistView.start();
+        }
+        return userWaitlistView;
+    }
+
+    /**
+     * Loads the events of the waiting list view, from the device first if they are kept there,
+     * then from the database. The callback is called a second time if events were on the device.
+     */
+    private void loadWaitlistEvents(@NonNull List<String> eventIds,
+                                    @NonNull ModelListCallback<EventModel> callback) {
+        LocalMirror mirror = localMirror;
+        if (mirror == null) {
+            getEvents(eventIds, callback);
+            return;
+        }
+        mirror.getEvents(eventIds, localEvents -> {
+            if (!localEvents.isEmpty()) {
+                callback.onCompleted(localEvents);
+            }
+            getEvents(eventIds, events -> {
+                mirror.putEvents(eventIds, events);
+                callback.onCompleted(events);
+            });
+        });
+    }
+
+    /**
+     * Shows the waiting list of the logged in entrant that was kept on the device until the
+     * listeners catch up, see LocalMirror.
+     */
+    public void restoreLocalData() {
+        if (localMirror == null || currentUserId == null
+                || loggedInUserType != DatabaseConstants.USER_TYPE.ENTRANT) {
+            return;
+        }
+        localMirror.restoreWaitlistOfUser(getWaitlistOfUserKey(currentUserId), currentUserId,
+                onWaitingListStore);
+    }
+
+    /**
+     * Creates a view of the entrants of an event joined with their users. The view must be
+     * started, and the waiting list of the event acquired with acquireWaitlistOfEvent, for it to
+     * be filled in.
+     * @param eventId ID of the event
+     */
+    public EventEntrantsView createEventEntrantsView(@NonNull String eventId) {
+        return new EventEntrantsView(eventId, waitlistIndex, onWaitingListStore, this::getUsers);
+    }
+
+    /**
+     * Fetches many events by ID in chunked "in" queries.
+     * @param eventIds IDs of the events, duplicates are fetched once
+     * @param callback Called once with the events that exist, in the order of the IDs
+     */
+    public void getEvents(@NonNull List<String> eventIds,
+                          @NonNull ModelListCallback<EventModel> callback) {
+        ChunkedDocumentFetcher.fetch(events, eventIds, ModelUtil::toEventModel,
+                (models, complete) -> callback.onCompleted(models));
+    }
+
     /**
      * runs the "lottery" for a given event by selecting some entrants from the waitlist.
      * only entrants with status waiting are considered. selected users are marked as
@@ -519,96 +713,172 @@ public class FirebaseService {
      */
     public void selectUsersForEvent(@NonNull String eventId,
                                     int count) {
-        getOnWaitingListsOfEvent(eventId, new OnWaitingListArrayListCallback() {
-            @Override
-            public void onCompleted(ArrayList<OnWaitingListModel> onWaitingListModels) {
-                ArrayList<OnWaitingListModel> waitingWaitingListModels = new ArrayList<>();
-                for (OnWaitingListModel model : onWaitingListModels) {
-                    if (model.getStatus() == DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING) {
-                        waitingWaitingListModels.add(model);
+        selectUsersForEvent(eventId, count, null, succeeded -> {});
+    }
+
+    /**
+     * runs the "lottery" for a given event, see selectUsersForEvent(String, int).
+     * status updates and notifications are written in WriteBatches of up to 500 operations
+     * instead of one round trip each. the status update of an entrant and their notification
+     * always land in the same batch, so an entrant is never selected without being told.
+     * users who opted out of notifications still get their status updated, opt outs are
+     * checked with the notification preference cache.
+     *
+     * @param eventId          id of the event whose waitlist we are drawing from
+     * @param count            number of entrants we want to select (if there are that many)
+     * @param progressCallback optional, called as batches are written
+     * @param callback         called once when the whole draw has been written
+     */
+    public void selectUsersForEvent(@NonNull String eventId,
+                                    int count,
+                                    @Nullable ProgressCallback progressCallback,
+                                    @NonNull BooleanCallback callback) {
+        onWaitingList
+                .whereEqualTo(DatabaseConstants.COLLECTION_ON_WAITING_LIST_EVENT_ID_FIELD, eventId)
+                .whereIn(DatabaseConstants.COLLECTION_ON_WAITING_LIST_STATUS_FIELD,
+                        ModelUtil.getStoredStatusValues(DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING))
+                .get()
+                .addOnSuccessListener(query -> {
+                    ArrayList<OnWaitingListModel> waitingWaitingListModels = new ArrayList<>();
+                    for (DocumentSnapshot documentSnapshot : query.getDocuments()) {
+                        waitingWaitingListModels.add(ModelUtil.toOnWaitingListModel(documentSnapshot));
                     }
-                }
 
-                int waitingCount = waitingWaitingListModels.size();
-                if (waitingCount == 0) {
-                    // nothing to do if no one is waiting
-                    return;
-                }
+                    if (waitingWaitingListModels.isEmpty()) {
+                        // nothing to do if no one is waiting
+                        callback.onCompleted(true);
+                        return;
+                    }
 
-                // track user ids that end up selected so we don't send them a loser notification too
-                java.util.HashSet<String> selectedUserIds = new java.util.HashSet<>();
+                    // shuffle so the selection is random
+                    Collections.shuffle(waitingWaitingListModels);
+                    int selectedCount = Math.min(Math.max(count, 0), waitingWaitingListModels.size());
 
-                // case 1: we can select everyone (or more than everyone, which just means all)
-                if (count >= waitingCount) {
+                    ArrayList<String> userIds = new ArrayList<>();
                     for (OnWaitingListModel model : waitingWaitingListModels) {
-                        selectedUserIds.add(model.getUserId());
-
-                        updateStatusOfOnWaitingList(
-                                model.getId(),
-                                DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED,
-                                succeeded -> { /* nothing extra needed here */ });
-
-                        createNotification(
-                                model.getEventId(),
-                                model.getUserId(),
-                                "You've been selected! Please sign up.",
-                                DatabaseConstants.NOTIFICATION_TYPE.USER_SELECTED
-                        );
+                        userIds.add(model.getUserId());
                     }
-                    return;
-                }
-
-                // case 2: more people waiting than we can select
-                // shuffle so the selection is random
-                java.util.Collections.shuffle(waitingWaitingListModels);
-
-                // first, pick winners
-                for (int i = 0; i < count; i++) {
-                    OnWaitingListModel model = waitingWaitingListModels.get(i);
-                    selectedUserIds.add(model.getUserId());
-
-                    updateStatusOfOnWaitingList(
-                            model.getId(),
-                            DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED,
-                            succeeded -> { /* optional: log or handle errors */ });
-
-                    createNotification(
-                            model.getEventId(),
-                            model.getUserId(),
-                            "You've been selected! Please sign up.",
-                            DatabaseConstants.NOTIFICATION_TYPE.USER_SELECTED
-                    );
-                }
+                    notificationPreferenceCache.filterRecipients(userIds, recipients ->
+                            writeDraw(eventId, waitingWaitingListModels, selectedCount,
+                                    new HashSet<>(recipients), progressCallback, callback));
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(LOG_TAG, String.format("Failed to get waiting entrants of event %s", eventId), e);
+                    callback.onCompleted(false);
+                });
+    }
 
-                // then, notify non-selected users (but only if they weren't picked already)
-                for (int i = count; i < waitingWaitingListModels.size(); i++) {
-                    OnWaitingListModel model = waitingWaitingListModels.get(i);
+    /**
+     * Writes the result of a lottery draw in batches. Once written, the entrant count of the
+     * event is dropped and the selected rows held by the onWaitingList store are updated, so the
+     * organizer dashboard and the views of the event show the draw.
+     * @param shuffledModels Waiting rows in random order, the first selectedCount are selected
+     * @param recipientIds   Users that want notifications
+     */
+    private void writeDraw(@NonNull String eventId,
+                           @NonNull List<OnWaitingListModel> shuffledModels,
+                           int selectedCount,
+                           @NonNull HashSet<String> recipientIds,
+                           @Nullable ProgressCallback progressCallback,
+                           @NonNull BooleanCallback callback) {
+        // track user ids that were notified so duplicate waitlist entries
+        // don't get both a win and a lose notification
+        HashSet<String> notifiedUserIds = new HashSet<>();
+        BatchWriter batchWriter = new BatchWriter(onWaitingList.getFirestore());
+
+        // first, pick winners
+        for (int i = 0; i < selectedCount; i++) {
+            OnWaitingListModel model = shuffledModels.get(i);
+            batchWriter.reserve(2);
+            Map<String, Object> statusUpdate = new HashMap<>();
+            statusUpdate.put(DatabaseConstants.COLLECTION_ON_WAITING_LIST_STATUS_FIELD,
+                    DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED.name());
+            statusUpdate.put(DatabaseConstants.COLLECTION_ON_WAITING_LIST_DATE_MODIFIED_FIELD,
+                    FieldValue.serverTimestamp());
+            batchWriter.update(onWaitingList.document(model.getId()), statusUpdate);
+            if (notifiedUserIds.add(model.getUserId()) && recipientIds.contains(model.getUserId())) {
+                batchWriter.set(notifications.document(), buildNotificationData(
+                        eventId,
+                        model.getUserId(),
+                        "You've been selected! Please sign up.",
+                        DatabaseConstants.NOTIFICATION_TYPE.USER_SELECTED));
+            }
+        }
 
-                    if (selectedUserIds.contains(model.getUserId())) {
-                        // if a user somehow has duplicate waitlist entries, don't send both win and lose
-                        continue;
-                    }
+        // then, notify non-selected users (but only if they weren't picked already)
+        for (int i = selectedCount; i < shuffledModels.size(); i++) {
+            OnWaitingListModel model = shuffledModels.get(i);
+            if (!notifiedUserIds.add(model.getUserId()) || !recipientIds.contains(model.getUserId())) {
+                continue;
+            }
+            batchWriter.set(notifications.document(), buildNotificationData(
+                    eventId,
+                    model.getUserId(),
+                    "You were not selected to participate in this event this time.",
+                    DatabaseConstants.NOTIFICATION_TYPE.INFO));
+        }
 
-                    createNotification(
-                            model.getEventId(),
-                            model.getUserId(),
-                            "You were not selected to participate in this event this time.",
-                            DatabaseConstants.NOTIFICATION_TYPE.INFO
-                    );
-                }
+        Log.i(LOG_TAG, String.format("Drawing %d of %d entrants for event %s in %d writes",
+                selectedCount, shuffledModels.size(), eventId, batchWriter.getOperationCount()));
+        batchWriter.commit(progressCallback, succeeded -> {
+            // Earlier batches may have been written even if a later one failed
+            invalidateEntrantCount(eventId);
+            if (succeeded) {
+                applySelectionToStore(shuffledModels.subList(0, selectedCount));
             }
+            callback.onCompleted(succeeded);
         });
     }
 
+    /**
+     * Marks the selected rows held by the onWaitingList store as selected, without waiting for
+     * a listener, as organizers don't listen to the waiting list of every event. Rows the store
+     * doesn't hold are left to the queries that will match them.
+     */
+    private void applySelectionToStore(@NonNull List<OnWaitingListModel> selectedModels) {
+        for (OnWaitingListModel model : selectedModels) {
+            if (onWaitingListStore.contains(model.getId())) {
+                onWaitingListStore.put(model.getId(), OnWaitingListModel.builder()
+                        .id(model.getId())
+                        .status(DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED)
+                        .userId(model.getUserId())
+                        .eventId(model.getEventId())
+                        .build());
+            }
+        }
+        onWaitingListStore.commit();
+    }
 
-
+    /**
+     * Builds the data of a notification document. The creation date is set by the server, as
+     * NotificationFeed only listens for notifications newer than the ones it has, and the clock of
+     * the sending device may be behind.
+     */
+    private Map<String, Object> buildNotificationData(@NonNull String eventId,
+                                                      @NonNull String userId,
+                                                      @NonNull String message,
+                                                      @NonNull DatabaseConstants.NOTIFICATION_TYPE type) {
+        Map<String, Object> notificationData = new HashMap<>();
+        notificationData.put(DatabaseConstants.COLLECTION_NOTIFICATIONS_EVENT_ID_FIELD, eventId);
+        notificationData.put(DatabaseConstants.COLLECTION_NOTIFICATIONS_USER_ID_FIELD, userId);
+        notificationData.put(DatabaseConstants.COLLECTION_NOTIFICATIONS_MESSAGE_FIELD, message);
+        notificationData.put(DatabaseConstants.COLLECTION_NOTIFICATIONS_TYPE_FIELD, type.name());
+        notificationData.put(DatabaseConstants.COLLECTION_NOTIFICATIONS_DATE_CREATED_FIELD,
+                FieldValue.serverTimestamp());
+        return notificationData;
+    }
 
     public void updateStatusOfOnWaitingList(@NonNull String onWaitingListId,
                                             @NonNull DatabaseConstants.ON_WAITING_LIST_STATUS status,
                                             @NonNull BooleanCallback callback) {
+        OnWaitingListModel row = onWaitingListStore.get(onWaitingListId);
         onWaitingList.document(onWaitingListId)
-                .update(DatabaseConstants.COLLECTION_ON_WAITING_LIST_STATUS_FIELD, status)
+                .update(DatabaseConstants.COLLECTION_ON_WAITING_LIST_STATUS_FIELD, status,
+                        DatabaseConstants.COLLECTION_ON_WAITING_LIST_DATE_MODIFIED_FIELD, FieldValue.serverTimestamp())
                 .addOnSuccessListener(v -> {
+                    if (row != null) {
+                        invalidateEntrantCount(row.getEventId());
+                    }
                     callback.onCompleted(true);
                     Log.i(LOG_TAG,
                             String.format("Successfully updated status of onWaitingList model %s", onWaitingListId));
@@ -642,6 +912,100 @@ public class FirebaseService {
                 });
     }
 
+    /**
+     * Counts the waiting list rows of an event with a count() aggregation query, so no waiting
+     * list documents are downloaded. Use the entrantCountCache for counts shown in lists.
+     * @param eventId  ID of the event
+     * @param callback Called once with the count, or with null if the query failed
+     */
+    public void countEntrantsOfEvent(@NonNull String eventId, @NonNull CountCallback callback) {
+        onWaitingList
+                .whereEqualTo(DatabaseConstants.COLLECTION_ON_WAITING_LIST_EVENT_ID_FIELD, eventId)
+                .count()
+                .get(AggregateSource.SERVER)
+                .addOnSuccessListener(snapshot -> callback.onCompleted((int) snapshot.getCount()))
+                .addOnFailureListener(e -> {
+                    Log.e(LOG_TAG, String.format("Failed to count onWaitingList models of event %s", eventId), e);
+                    callback.onCompleted(null);
+                });
+    }
+
+    /**
+     * Drops the cached entrant count of an event after a write to its waiting list, the
+     * waiting list listeners of organizers don't cover every event.
+     */
+    private void invalidateEntrantCount(@NonNull String eventId) {
+        entrantCountCache.invalidate(Collections.singleton(eventId));
+    }
+
+    /**
+     * Counts the waiting list rows of an event in total and per status with count() aggregation
+     * queries, run in parallel, so no waiting list documents are downloaded. Each status is
+     * counted over every spelling it may be stored as, see ModelUtil.getStoredStatusValues. Rows
+     * without a status or with an unknown one can't be matched by a query, they are read as
+     * WAITING, so WAITING is counted as the rows left over once the other statuses are counted.
+     * That way the counts always add up to the total.
+     * @param eventId  ID of the event
+     * @param callback Called once with the counts, or with null if any of the queries failed
+     */
+    public void getStatusCountsOfEvent(@NonNull String eventId,
+                                       @NonNull WaitlistStatusCountsCallback callback) {
+        Query eventQuery = onWaitingList
+                .whereEqualTo(DatabaseConstants.COLLECTION_ON_WAITING_LIST_EVENT_ID_FIELD, eventId);
+
+        List<DatabaseConstants.ON_WAITING_LIST_STATUS> statuses = new ArrayList<>();
+        List<Task<AggregateQuerySnapshot>> countTasks = new ArrayList<>();
+        countTasks.add(eventQuery.count().get(AggregateSource.SERVER));
+        for (DatabaseConstants.ON_WAITING_LIST_STATUS status : DatabaseConstants.ON_WAITING_LIST_STATUS.values()) {
+            if (status == DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING) {
+                continue;
+            }
+            statuses.add(status);
+            countTasks.add(eventQuery
+                    .whereIn(DatabaseConstants.COLLECTION_ON_WAITING_LIST_STATUS_FIELD,
+                            ModelUtil.getStoredStatusValues(status))
+                    .count()
+                    .get(AggregateSource.SERVER));
+        }
+
+        Tasks.whenAllComplete(countTasks).addOnCompleteListener(v -> {
+            for (Task<AggregateQuerySnapshot> countTask : countTasks) {
+                if (!countTask.isSuccessful()) {
+                    Log.e(LOG_TAG, String.format("Failed to count onWaitingList models of event %s", eventId),
+                            countTask.getException());
+                    callback.onCompleted(null);
+                    return;
+                }
+            }
+
+            int total = (int) countTasks.get(0).getResult().getCount();
+            int waiting = total;
+            Map<DatabaseConstants.ON_WAITING_LIST_STATUS, Integer> counts = new HashMap<>();
+            for (int i = 0; i < statuses.size(); i++) {
+                int count = (int) countTasks.get(i + 1).getResult().getCount();
+                counts.put(statuses.get(i), count);
+                waiting -= count;
+            }
+            counts.put(DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING, Math.max(waiting, 0));
+            callback.onCompleted(new WaitlistStatusCounts(eventId, total, counts));
+        });
+    }
+
+    /**
+     * @return A new repository for paging through the events by registration deadline, whose
+     * first page is shown from the device on a cold start
+     */
+    public EventPageRepository createEventPageRepository() {
+        return new EventPageRepository(events, localMirror);
+    }
+
+    /**
+     * @return A new exporter for streaming the entrants of an event into a CSV file
+     */
+    public EntrantCsvExporter createEntrantCsvExporter() {
+        return new EntrantCsvExporter(onWaitingList, users);
+    }
+
     public void getOnWaitingList(@NonNull String eventId,
                                  @NonNull String userId,
                                  @NonNull OnWaitingListCallback callback) {
@@ -673,12 +1037,30 @@ public class FirebaseService {
     public void deleteEvent(@NonNull String eventId) {
         events.document(eventId)
                 .delete()
-                .addOnSuccessListener((v) -> Log.i(LOG_TAG,
-                        String.format("Deleted event %s successfully", eventId)))
+                .addOnSuccessListener((v) -> {
+                    Log.i(LOG_TAG, String.format("Deleted event %s successfully", eventId));
+                    recordDeletion(DatabaseConstants.DELETION_TYPE_EVENT, eventId);
+                })
                 .addOnFailureListener((e) -> Log.i(LOG_TAG,
                         String.format("Didn't find or failed to delete event %s", eventId)));
     }
 
+    /**
+     * Records that a user or event was deleted, so the next integrity sweep removes the rows that
+     * still reference it without scanning every row.
+     * @param type        DELETION_TYPE_USER or DELETION_TYPE_EVENT
+     * @param referenceId ID of the deleted document
+     */
+    private void recordDeletion(@NonNull String type, @NonNull String referenceId) {
+        Map<String, Object> deletionData = new HashMap<>();
+        deletionData.put(DatabaseConstants.COLLECTION_DELETIONS_TYPE_FIELD, type);
+        deletionData.put(DatabaseConstants.COLLECTION_DELETIONS_REFERENCE_ID_FIELD, referenceId);
+        deletionData.put(DatabaseConstants.COLLECTION_DELETIONS_DATE_DELETED_FIELD, FieldValue.serverTimestamp());
+        users.getFirestore().collection(DatabaseConstants.COLLECTION_DELETIONS_NAME)
+                .add(deletionData)
+                .addOnFailureListener(e -> Log.e(LOG_TAG, "Failed to record deletion of " + referenceId, e));
+    }
+
     /**
      * Sets the image url of the event with the given ID to null effectively deleting it.
      * @param eventId The ID of the event to delete the image
@@ -697,10 +1079,15 @@ public class FirebaseService {
      * @param onWaitingListId    The ID of the on waiting list entry to be deleted
      */
     public void deleteOnWaitingList(@NonNull String onWaitingListId) {
+        OnWaitingListModel row = onWaitingListStore.get(onWaitingListId);
         onWaitingList.document(onWaitingListId)
                 .delete()
-                .addOnSuccessListener((v) -> Log.i(LOG_TAG,
-                        String.format("Deleted on waiting list %s successfully", onWaitingListId)))
+                .addOnSuccessListener((v) -> {
+                    Log.i(LOG_TAG, String.format("Deleted on waiting list %s successfully", onWaitingListId));
+                    if (row != null) {
+                        invalidateEntrantCount(row.getEventId());
+                    }
+                })
                 .addOnFailureListener((e) -> Log.i(LOG_TAG,
                         String.format("Didn't find or failed to delete on waiting list %s", onWaitingListId)));
     }
@@ -728,45 +1115,38 @@ public class FirebaseService {
                                    @NonNull String userId,
                                    @NonNull String message,
                                    @NonNull DatabaseConstants.NOTIFICATION_TYPE type) {
+        ArrayList<String> userIds = new ArrayList<>();
+        userIds.add(userId);
+        createNotifications(eventId, userIds, message, type, succeeded -> {});
+    }
 
-        // first check if this user has opted out of notifications
-        users.document(userId)
-                .get()
-                .addOnSuccessListener(userDoc -> {
-                    Boolean optOut = userDoc.getBoolean("notificationsOptOut");
-                    if (optOut != null && optOut) {
-                        Log.i(LOG_TAG,
-                                "user " + userId + " opted out of notifications, skipping create");
-                        return;
-                    }
+    /**
+     * creates the same notification for many users at once. opt outs are filtered with the
+     * notification preference cache, so users whose preference is known aren't read again, and
+     * the notifications are written in batches of up to 500.
+     *
+     * @param eventId  id of the event the notifications are related to
+     * @param userIds  ids of the users who should receive the notification, duplicates are removed
+     * @param message  text content that will be shown to the users
+     * @param type     simple enum label describing what kind of notification this is
+     * @param callback called once when every notification has been written
+     */
+    public void createNotifications(@NonNull String eventId,
+                                    @NonNull List<String> userIds,
+                                    @NonNull String message,
+                                    @NonNull DatabaseConstants.NOTIFICATION_TYPE type,
+                                    @NonNull BooleanCallback callback) {
+        notificationPreferenceCache.filterRecipients(userIds, recipients -> {
+            BatchWriter batchWriter = new BatchWriter(notifications.getFirestore());
+            for (String userId : recipients) {
+                batchWriter.set(notifications.document(),
+                        buildNotificationData(eventId, userId, message, type));
+            }
 
-                    // build the notification data to be stored in firestore
-                    Map<String, Object> notificationData = new HashMap<>();
-                    notificationData.put(
-                            DatabaseConstants.COLLECTION_NOTIFICATIONS_EVENT_ID_FIELD, eventId);
-                    notificationData.put(
-                            DatabaseConstants.COLLECTION_NOTIFICATIONS_USER_ID_FIELD, userId);
-                    notificationData.put(
-                            DatabaseConstants.COLLECTION_NOTIFICATIONS_MESSAGE_FIELD, message);
-                    notificationData.put(
-                            DatabaseConstants.COLLECTION_NOTIFICATIONS_TYPE_FIELD, type.name());
-                    notificationData.put(
-                            DatabaseConstants.COLLECTION_NOTIFICATIONS_DATE_CREATED_FIELD,
-                            new Timestamp(new Date()));
-
-                    notifications.add(notificationData)
-                            .addOnSuccessListener(v ->
-                                    Log.i(LOG_TAG,
-                                            "created notification for user " + userId))
-                            .addOnFailureListener(e ->
-                                    Log.i(LOG_TAG,
-                                            "failed to create notification for user " + userId, e));
-                })
-                .addOnFailureListener(e -> {
-                    // if we can't even read the user doc, just log and give up
-                    Log.e(LOG_TAG,
-                            "failed to read user for notificationsOptOut, userId=" + userId, e);
-                });
+            Log.i(LOG_TAG, String.format("Creating notifications for %d of %d users of event %s",
+                    recipients.size(), userIds.size(), eventId));
+            batchWriter.commit(null, callback);
+        });
     }
 
     public void createNotificationForUsersOfStatusOfEvent(@NonNull String eventId,
@@ -775,18 +1155,13 @@ public class FirebaseService {
                                                         @NonNull DatabaseConstants.NOTIFICATION_TYPE type) {
         onWaitingList
                 .whereEqualTo(DatabaseConstants.COLLECTION_ON_WAITING_LIST_EVENT_ID_FIELD, eventId)
-                .whereEqualTo(DatabaseConstants.COLLECTION_ON_WAITING_LIST_STATUS_FIELD, onWaitingListStatus.name())
+                .whereIn(DatabaseConstants.COLLECTION_ON_WAITING_LIST_STATUS_FIELD,
+                        ModelUtil.getStoredStatusValues(onWaitingListStatus))
                 .get()
                 .addOnSuccessListener(query -> {
-                    for (DocumentSnapshot doc : query) {
-                        String userId = doc.getString("userId");
-                        if (userId != null) {
-                            createNotification(eventId, userId, message, type);
-                        }
-                    }
-
-                    Log.i(LOG_TAG, "Created notifications for "
-                            + query.size() + " users of status " + onWaitingListStatus);
+                    createNotifications(eventId, getUserIds(query), message, type, succeeded ->
+                            Log.i(LOG_TAG, "Created notifications for "
+                                    + query.size() + " users of status " + onWaitingListStatus));
                 })
                 .addOnFailureListener(e ->
                         Log.e(LOG_TAG, "Failed to query waiting list for event " + eventId, e)
@@ -800,21 +1175,29 @@ public class FirebaseService {
                 .whereEqualTo(DatabaseConstants.COLLECTION_ON_WAITING_LIST_EVENT_ID_FIELD, eventId)
                 .get()
                 .addOnSuccessListener(query -> {
-                    for (DocumentSnapshot doc : query) {
-                        String userId = doc.getString("userId");
-                        if (userId != null) {
-                            createNotification(eventId, userId, message, type);
-                        }
-                    }
-
-                    Log.i(LOG_TAG, "Created notifications for "
-                            + query.size() + " users of event " + eventId);
+                    createNotifications(eventId, getUserIds(query), message, type, succeeded ->
+                            Log.i(LOG_TAG, "Created notifications for "
+                                    + query.size() + " users of event " + eventId));
                 })
                 .addOnFailureListener(e ->
                         Log.e(LOG_TAG, "Failed to query waiting list for event " + eventId, e)
                 );
     }
 
+    /**
+     * @return The user IDs of the waiting list rows of a query
+     */
+    private ArrayList<String> getUserIds(@NonNull QuerySnapshot onWaitingListQuery) {
+        ArrayList<String> userIds = new ArrayList<>();
+        for (DocumentSnapshot doc : onWaitingListQuery) {
+            String userId = doc.getString(DatabaseConstants.COLLECTION_ON_WAITING_LIST_USER_ID_FIELD);
+            if (userId != null) {
+                userIds.add(userId);
+            }
+        }
+        return userIds;
+    }
+
     /**
      * Updates the image data of an event with the given event ID in the database. Can be used to
      * both update and remove the image data of an event.
@@ -824,76 +1207,144 @@ public class FirebaseService {
      * @param contentResolver
      */
     public void updateEventImage(@NonNull String eventId, @Nullable Uri imageData, ContentResolver contentResolver) {
-        String base64String;
-        try {
-            base64String = ConversionUtil.convertUriToBase64(imageData, contentResolver);
-        } catch (Exception e) {
-            Log.e(LOG_TAG, "Error processing selected image: " + e.getMessage());
+        if (imageData == null) {
+            setEventImageRef(eventId, null);
             return;
         }
 
+        storeEventImage(eventId, imageData, contentResolver);
+    }
+
+    /**
+     * Stores a poster in the ImageStore and points the event at it. The renditions are encoded
+     * in the background, and identical posters are only uploaded once.
+     */
+    private void storeEventImage(@NonNull String eventId, @NonNull Uri imageUri,
+                                 ContentResolver contentResolver) {
+        imageStore.storeImage(imageUri, contentResolver, imageRef -> {
+            if (imageRef == null) {
+                Log.e(LOG_TAG, String.format("Failed to store image of event %s", eventId));
+                return;
+            }
+            setEventImageRef(eventId, imageRef);
+        });
+    }
+
+    private void setEventImageRef(@NonNull String eventId, @Nullable String imageRef) {
         events.document(eventId)
-                .update(DatabaseConstants.COLLECTION_EVENTS_IMAGE_DATA_FIELD, base64String)
+                .update(DatabaseConstants.COLLECTION_EVENTS_IMAGE_DATA_FIELD, imageRef)
                 .addOnSuccessListener((v) -> {
-                    if (imageData == null) {
+                    if (imageRef == null) {
                         Log.i(LOG_TAG,
                                 String.format("Removed event image of event %s successfully", eventId));
+                    } else {
+                        Log.i(LOG_TAG,
+                                String.format("Updated event image of event %s successfully", eventId));
                     }
-                    Log.i(LOG_TAG,
-                            String.format("Updated event image of event %s successfully", eventId));
                 })
                 .addOnFailureListener((e) -> Log.i(LOG_TAG,
                         String.format("Didn't find or failed to update image of event %s", eventId)));
     }
 
     /**
-     * Sets up the listeners for the collections in the database. Whenever a change in the db occurs,
-     * the data will get updated.
+     * Listens to the documents the role of the logged in user needs. Entrants get their own user
+     * document and waiting list rows, organizers their own user document and events, and
+     * administrators every collection. Entrant notifications are paged in by NotificationFeed.
+     * Screens needing more acquire it themselves, see acquireWaitlistOfEvent. The waiting list
+     * rows of entrants are also mirrored on the device, see restoreLocalData.
+     * @return Keys of the acquired queries, to be passed to releaseSubscriptions. Empty if no
+     * user is logged in.
      */
-    private void setupListeners() {
-        events.addSnapshotListener((data, error) -> {
-            if (data != null) {
-                ArrayList<EventModel> eventModels = new ArrayList<>();
-                for (DocumentSnapshot documentSnapshot : data.getDocuments()) {
-                    EventModel eventModel = ModelUtil.toEventModel(documentSnapshot);
-                    eventModels.add(eventModel);
-                }
-                eventsLiveData.postValue(eventModels);
-            }
-        });
+    public List<String> acquireRoleSubscriptions() {
+        List<String> keys = new ArrayList<>();
+        if (currentUserId == null || loggedInUserType == null) {
+            return keys;
+        }
 
-        users.addSnapshotListener((data, error) -> {
-            if (data != null) {
-                ArrayList<UserModel> userModels = new ArrayList<>();
-                for (DocumentSnapshot documentSnapshot : data.getDocuments()) {
-                    UserModel userModel = ModelUtil.toUserModel(documentSnapshot);
-                    userModels.add(userModel);
-                }
-                usersLiveData.postValue(userModels);
-            }
-        });
+        String userId = currentUserId;
+        switch (loggedInUserType) {
+            case ENTRANT:
+                acquireCurrentUser(keys, userId);
+                String waitlistKey = getWaitlistOfUserKey(userId);
+                acquire(keys, waitlistKey,
+                        onWaitingList.whereEqualTo(
+                                DatabaseConstants.COLLECTION_ON_WAITING_LIST_USER_ID_FIELD, userId),
+                        onWaitingListStore, ModelUtil::toOnWaitingListModel,
+                        localMirror == null ? null
+                                : localMirror.getWaitlistOfUserMirror(waitlistKey, userId, onWaitingListStore));
+                break;
+            case ORGANIZER:
+                acquireCurrentUser(keys, userId);
+                acquire(keys, DatabaseConstants.COLLECTION_EVENTS_NAME + "/organizer/" + userId,
+                        events.whereEqualTo(
+                                DatabaseConstants.COLLECTION_EVENTS_ORGANIZER_ID_FIELD, userId),
+                        eventsStore, ModelUtil::toEventModel);
+                break;
+            case ADMINISTRATOR:
+                acquire(keys, DatabaseConstants.COLLECTION_EVENTS_NAME,
+                        events, eventsStore, ModelUtil::toEventModel);
+                acquire(keys, DatabaseConstants.COLLECTION_USERS_NAME,
+                        users, usersStore, ModelUtil::toUserModel);
+                acquire(keys, DatabaseConstants.COLLECTION_ON_WAITING_LIST_NAME,
+                        onWaitingList, onWaitingListStore, ModelUtil::toOnWaitingListModel);
+                acquire(keys, DatabaseConstants.COLLECTION_NOTIFICATIONS_NAME,
+                        notifications, notificationsStore, ModelUtil::toNotificationModel);
+                break;
+        }
+        return keys;
+    }
 
-        onWaitingList.addSnapshotListener((data, error) -> {
-            if (data != null) {
-                ArrayList<OnWaitingListModel> onWaitingListModels = new ArrayList<>();
-                for (DocumentSnapshot documentSnapshot : data.getDocuments()) {
-                    OnWaitingListModel onWaitingListModel = ModelUtil.toOnWaitingListModel(documentSnapshot);
-                    onWaitingListModels.add(onWaitingListModel);
-                }
-                onWaitingListLiveData.postValue(onWaitingListModels);
-            }
-        });
+    /**
+     * Releases queries acquired with acquireRoleSubscriptions.
+     */
+    public void releaseSubscriptions(@NonNull List<String> keys) {
+        for (String key : keys) {
+            subscriptionManager.release(key);
+        }
+    }
 
-        notifications.addSnapshotListener((data, error) -> {
-            if (data != null) {
-                ArrayList<NotificationModel> notificationModels = new ArrayList<>();
-                for (DocumentSnapshot documentSnapshot : data.getDocuments()) {
-                    NotificationModel notificationModel = ModelUtil.toNotificationModel(documentSnapshot);
-                    notificationModels.add(notificationModel);
-                }
-                notificationsLiveData.postValue(notificationModels);
-            }
-        });
+    /**
+     * Listens to the waiting list rows of an event. Must be matched by a call to
+     * releaseWaitlistOfEvent.
+     * @param eventId ID of the event
+     */
+    public void acquireWaitlistOfEvent(@NonNull String eventId) {
+        subscriptionManager.acquire(getWaitlistOfEventKey(eventId),
+                onWaitingList.whereEqualTo(
+                        DatabaseConstants.COLLECTION_ON_WAITING_LIST_EVENT_ID_FIELD, eventId),
+                onWaitingListStore, ModelUtil::toOnWaitingListModel);
+    }
+
+    public void releaseWaitlistOfEvent(@NonNull String eventId) {
+        subscriptionManager.release(getWaitlistOfEventKey(eventId));
+    }
+
+    private String getWaitlistOfEventKey(@NonNull String eventId) {
+        return DatabaseConstants.COLLECTION_ON_WAITING_LIST_NAME + "/event/" + eventId;
+    }
+
+    private String getWaitlistOfUserKey(@NonNull String userId) {
+        return DatabaseConstants.COLLECTION_ON_WAITING_LIST_NAME + "/user/" + userId;
+    }
+
+    private void acquireCurrentUser(@NonNull List<String> keys, @NonNull String userId) {
+        acquire(keys, DatabaseConstants.COLLECTION_USERS_NAME + "/" + userId,
+                users.whereEqualTo(FieldPath.documentId(), userId),
+                usersStore, ModelUtil::toUserModel);
+    }
+
+    private <T> void acquire(@NonNull List<String> keys, @NonNull String key, @NonNull Query query,
+                             @NonNull ModelStore<T> store,
+                             @NonNull Function<DocumentSnapshot, T> converter) {
+        acquire(keys, key, query, store, converter, null);
+    }
+
+    private <T> void acquire(@NonNull List<String> keys, @NonNull String key, @NonNull Query query,
+                             @NonNull ModelStore<T> store,
+                             @NonNull Function<DocumentSnapshot, T> converter,
+                             @Nullable QueryMirror<T> mirror) {
+        subscriptionManager.acquire(key, query, store, converter, mirror);
+        keys.add(key);
     }
 
     /**
@@ -907,9 +1358,13 @@ public class FirebaseService {
         data.put(DatabaseConstants.COLLECTION_ON_WAITING_LIST_USER_ID_FIELD, userId);
         data.put(DatabaseConstants.COLLECTION_ON_WAITING_LIST_STATUS_FIELD,
                 DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING.name());
+        data.put(DatabaseConstants.COLLECTION_ON_WAITING_LIST_DATE_MODIFIED_FIELD, FieldValue.serverTimestamp());
 
         onWaitingList.add(data)
-                .addOnSuccessListener(ref -> Log.i(LOG_TAG, "Joined waiting list: " + ref.getId()))
+                .addOnSuccessListener(ref -> {
+                    Log.i(LOG_TAG, "Joined waiting list: " + ref.getId());
+                    invalidateEntrantCount(eventId);
+                })
                 .addOnFailureListener(e -> Log.e(LOG_TAG, "Failed to join waiting list", e));
     }
     /**
@@ -929,7 +1384,10 @@ public class FirebaseService {
                     }
                     for (DocumentSnapshot doc : qs.getDocuments()) {
                         doc.getReference().delete()
-                                .addOnSuccessListener(v -> Log.i(LOG_TAG, "Removed waitlist entry: " + doc.getId()))
+                                .addOnSuccessListener(v -> {
+                                    Log.i(LOG_TAG, "Removed waitlist entry: " + doc.getId());
+                                    invalidateEntrantCount(eventId);
+                                })
                                 .addOnFailureListener(e -> Log.e(LOG_TAG, "Failed to remove waitlist entry: " + doc.getId(), e));
                     }
                 })
@@ -944,22 +1402,14 @@ public class FirebaseService {
      * the entrant without asking for credentials again.</p>
      *
      * @param deviceId newly generated device id to associate with {@link #currentUserId}
-     * Looks up the user's existing waitlist entry for the given event
+     * Looks up the user's existing waitlist entry for the given event in the waitlist index
      * @param eventId ID of the event
      * @param userId ID of the user
      * @return The matching waitlist row or null if none exists
      */
     public OnWaitingListModel getExistingWaitlistEntry(String eventId, String userId) {
-        List<OnWaitingListModel> rows = getOnWaitingListLiveData().getValue();
-        if (rows == null) return null;
-
-        for (OnWaitingListModel r : rows) {
-            if (r == null) continue;
-            if (eventId.equals(r.getEventId()) && userId.equals(r.getUserId())) {
-                return r;
-            }
-        }
-        return null;
+        if (eventId == null || userId == null) return null;
+        return waitlistIndex.getEntry(eventId, userId);
     }
 
     /**
@@ -0,0 +1,309 @@
+package services;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import constants.ImageConstants;
+
+import interfaces.BitmapCallback;
+import interfaces.BlobCallback;
+import interfaces.BlobStore;
+import interfaces.BooleanCallback;
+import interfaces.ImageRefCallback;
+import util.BitmapCache;
+import util.ConversionUtil;
+import util.HashUtil;
+import util.ImageRefUtil;
+
+/**
+ * Content addressed store for images such as event posters.
+ * Images are stored in a BlobStore under the SHA-256 of their FULL rendition, next to their
+ * smaller renditions, and documents only keep the short "blob:<hash>" reference. Storing an image
+ * that is already stored skips the upload.
+ * Downloaded images are kept in an on-device BlobStore so each one is downloaded once, and
+ * decoding happens off the main thread.
+ */
+public class ImageStore {
+    private static final String LOG_TAG = "[ImageStore]";
+
+    private final BlobStore remote;
+    @Nullable
+    private BlobStore cache;
+    private final ExecutorService ioExecutor = Executors.newFixedThreadPool(2);
+    private Handler mainHandler;
+    // Callbacks waiting on a load already in progress, keyed by reference and size
+    private final Map<String, List<BitmapCallback>> pendingLoads = new HashMap<>();
+
+    public ImageStore(@NonNull BlobStore remote) {
+        this.remote = remote;
+    }
+
+    /**
+     * Sets the on-device store downloaded images are kept in.
+     */
+    public synchronized void setCache(@Nullable BlobStore cache) {
+        this.cache = cache;
+    }
+
+    @Nullable
+    private synchronized BlobStore getCache() {
+        return cache;
+    }
+
+    /**
+     * Reads an image and stores every rendition of it like storeImage(Map, ImageRefCallback).
+     * Decoding and encoding the renditions takes too long for the main thread, so it runs on the
+     * IO executor.
+     * @param uri             URI of the image
+     * @param contentResolver Resolver used to read the image
+     * @param callback        Called with the reference of the image, or null if it couldn't be
+     *                        read or uploaded
+     */
+    public void storeImage(@NonNull Uri uri, @NonNull ContentResolver contentResolver,
+                           @NonNull ImageRefCallback callback) {
+        ioExecutor.execute(() -> {
+            Map<ImageConstants.IMAGE_RENDITION, byte[]> renditions;
+            try {
+                renditions = ConversionUtil.convertUriToRenditions(uri, contentResolver);
+            } catch (Exception e) {
+                Log.e(LOG_TAG, "Failed to read image " + uri, e);
+                callback.onCompleted(null);
+                return;
+            }
+            storeImage(renditions, callback);
+        });
+    }
+
+    /**
+     * Stores every rendition of an image, uploading them only if no identical image is stored
+     * yet. The FULL rendition is uploaded last, so once it exists the smaller ones do as well.
+     * @param renditions Encoded bytes of each rendition, must contain the FULL rendition
+     * @param callback   Called with the reference of the image, or null if the upload failed
+     */
+    public void storeImage(@NonNull Map<ImageConstants.IMAGE_RENDITION, byte[]> renditions,
+                           @NonNull ImageRefCallback callback) {
+        byte[] fullData = renditions.get(ImageConstants.IMAGE_RENDITION.FULL);
+        if (fullData == null) {
+            throw new IllegalArgumentException("The FULL rendition of the image is required");
+        }
+        String contentHash = HashUtil.sha256Hex(fullData);
+        String imageRef = ImageRefUtil.toBlobRef(contentHash);
+
+        BlobStore localCache = getCache();
+        if (localCache != null) {
+            ioExecutor.execute(() -> {
+                for (Map.Entry<ImageConstants.IMAGE_RENDITION, byte[]> entry : renditions.entrySet()) {
+                    localCache.put(entry.getKey().getKey(contentHash), entry.getValue(),
+                            entry.getKey().getContentType(), succeeded -> {});
+                }
+            });
+        }
+
+        String fullKey = ImageConstants.IMAGE_RENDITION.FULL.getKey(contentHash);
+        remote.contains(fullKey, exists -> {
+            if (exists) {
+                Log.i(LOG_TAG, "Image already stored, skipping upload of " + imageRef);
+                callback.onCompleted(imageRef);
+                return;
+            }
+
+            List<ImageConstants.IMAGE_RENDITION> smaller = new ArrayList<>(renditions.keySet());
+            smaller.remove(ImageConstants.IMAGE_RENDITION.FULL);
+            putAll(contentHash, renditions, smaller, succeeded -> {
+                if (!succeeded) {
+                    callback.onCompleted(null);
+                    return;
+                }
+                remote.put(fullKey, fullData, ImageConstants.IMAGE_RENDITION.FULL.getContentType(),
+                        fullSucceeded -> callback.onCompleted(fullSucceeded ? imageRef : null));
+            });
+        });
+    }
+
+    /**
+     * Uploads the given renditions in parallel.
+     * @param callback Called once with true if every upload succeeded
+     */
+    private void putAll(@NonNull String contentHash,
+                        @NonNull Map<ImageConstants.IMAGE_RENDITION, byte[]> renditions,
+                        @NonNull List<ImageConstants.IMAGE_RENDITION> toPut,
+                        @NonNull BooleanCallback callback) {
+        if (toPut.isEmpty()) {
+            callback.onCompleted(true);
+            return;
+        }
+
+        AtomicInteger remaining = new AtomicInteger(toPut.size());
+        AtomicBoolean allSucceeded = new AtomicBoolean(true);
+        for (ImageConstants.IMAGE_RENDITION rendition : toPut) {
+            remote.put(rendition.getKey(contentHash), renditions.get(rendition), rendition.getContentType(),
+                    succeeded -> {
+                        if (!succeeded) {
+                            allSucceeded.set(false);
+                        }
+                        if (remaining.decrementAndGet() == 0) {
+                            callback.onCompleted(allSucceeded.get());
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Reads the bytes of a rendition of a stored image, from the device if it was downloaded
+     * before. Images stored without the smaller renditions fall back to the FULL rendition.
+     * @param blobRef   Reference returned by storeImage
+     * @param rendition Rendition of the image to read
+     * @param callback  Called with the bytes, or null if the image couldn't be read
+     */
+    public void loadBytes(@NonNull String blobRef, @NonNull ImageConstants.IMAGE_RENDITION rendition,
+                          @NonNull BlobCallback callback) {
+        String contentHash = ImageRefUtil.getContentHash(blobRef);
+        String key = rendition.getKey(contentHash);
+        BlobCallback remoteCallback = data -> {
+            if (data == null && rendition != ImageConstants.IMAGE_RENDITION.FULL) {
+                loadBytes(blobRef, ImageConstants.IMAGE_RENDITION.FULL, callback);
+                return;
+            }
+            callback.onCompleted(data);
+        };
+
+        BlobStore localCache = getCache();
+        if (localCache == null) {
+            remote.get(key, remoteCallback);
+            return;
+        }
+
+        ioExecutor.execute(() -> localCache.get(key, cached -> {
+            if (cached != null) {
+                callback.onCompleted(cached);
+                return;
+            }
+            remote.get(key, data -> {
+                if (data != null) {
+                    ioExecutor.execute(() -> localCache.put(key, data, rendition.getContentType(), succeeded -> {}));
+                }
+                remoteCallback.onCompleted(data);
+            });
+        }));
+    }
+
+    /**
+     * Loads a stored image decoded for display at the given size, from the smallest rendition
+     * that covers it. Concurrent requests for the same image and size share one load.
+     * @param blobRef  Reference returned by storeImage
+     * @param callback Called on the main thread with the bitmap, or null if it couldn't be loaded
+     */
+    public void loadBitmap(@NonNull String blobRef, int reqWidth, int reqHeight,
+                           @NonNull BitmapCallback callback) {
+        Bitmap cached = BitmapCache.getCached(blobRef, reqWidth, reqHeight);
+        if (cached != null) {
+            callback.onCompleted(cached);
+            return;
+        }
+
+        String loadKey = blobRef + "@" + reqWidth + "x" + reqHeight;
+        synchronized (pendingLoads) {
+            List<BitmapCallback> waiting = pendingLoads.get(loadKey);
+            if (waiting != null) {
+                waiting.add(callback);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            pendingLoads.put(loadKey, waiting);
+        }
+
+        ImageConstants.IMAGE_RENDITION rendition = ImageConstants.IMAGE_RENDITION.forSize(reqWidth, reqHeight);
+        loadBytes(blobRef, rendition, data -> ioExecutor.execute(() -> {
+            Bitmap bitmap = null;
+            if (data != null) {
+                bitmap = BitmapCache.decodeSampledBitmap(data, reqWidth, reqHeight);
+            }
+            if (bitmap != null) {
+                BitmapCache.put(blobRef, reqWidth, reqHeight, bitmap);
+            } else {
+                Log.w(LOG_TAG, "Failed to load image " + blobRef);
+            }
+
+            Bitmap result = bitmap;
+            getMainHandler().post(() -> {
+                List<BitmapCallback> waiting;
+                synchronized (pendingLoads) {
+                    waiting = pendingLoads.remove(loadKey);
+                }
+                if (waiting != null) {
+                    for (BitmapCallback waitingCallback : waiting) {
+                        waitingCallback.onCompleted(result);
+                    }
+                }
+            });
+        }));
+    }
+
+    /**
+     * Decodes an image stored inline as Base64 off the main thread, for display at the given size.
+     * Concurrent requests for the same image and size share one decode.
+     * @param ownerId   ID of the model the image belongs to
+     * @param imageData Base64 string of the encoded image
+     * @param callback  Called on the main thread with the bitmap, or null if it couldn't be decoded
+     */
+    public void loadInlineBitmap(@NonNull String ownerId, @NonNull String imageData,
+                                 int reqWidth, int reqHeight, @NonNull BitmapCallback callback) {
+        Bitmap cached = BitmapCache.getCached(ownerId, imageData, reqWidth, reqHeight);
+        if (cached != null) {
+            callback.onCompleted(cached);
+            return;
+        }
+
+        String loadKey = ownerId + ":" + imageData.length() + ":" + imageData.hashCode()
+                + "@" + reqWidth + "x" + reqHeight;
+        synchronized (pendingLoads) {
+            List<BitmapCallback> waiting = pendingLoads.get(loadKey);
+            if (waiting != null) {
+                waiting.add(callback);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            pendingLoads.put(loadKey, waiting);
+        }
+
+        ioExecutor.execute(() -> {
+            Bitmap bitmap = BitmapCache.getBitmap(ownerId, imageData, reqWidth, reqHeight);
+            getMainHandler().post(() -> {
+                List<BitmapCallback> waiting;
+                synchronized (pendingLoads) {
+                    waiting = pendingLoads.remove(loadKey);
+                }
+                if (waiting != null) {
+                    for (BitmapCallback waitingCallback : waiting) {
+                        waitingCallback.onCompleted(bitmap);
+                    }
+                }
+            });
+        });
+    }
+
+    private synchronized Handler getMainHandler() {
+        if (mainHandler == null) {
+            mainHandler = new Handler(Looper.getMainLooper());
+        }
+        return mainHandler;
+    }
+}
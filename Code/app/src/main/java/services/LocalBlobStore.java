@@ -0,0 +1,88 @@
+package services;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import interfaces.BlobCallback;
+import interfaces.BlobStore;
+import interfaces.BooleanCallback;
+
+/**
+ * BlobStore backed by a directory on the device. Used as the on-device cache of the ImageStore,
+ * and can stand in for Firebase Storage when running without it. Callbacks are called before the
+ * methods return.
+ */
+public class LocalBlobStore implements BlobStore {
+    private static final String LOG_TAG = "[LocalBlobStore]";
+
+    private final File directory;
+
+    public LocalBlobStore(@NonNull File directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public void contains(@NonNull String key, @NonNull BooleanCallback callback) {
+        callback.onCompleted(fileOf(key).isFile());
+    }
+
+    @Override
+    public void put(@NonNull String key, @NonNull byte[] data, @NonNull String contentType,
+                    @NonNull BooleanCallback callback) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Log.e(LOG_TAG, "Failed to create blob directory " + directory.getAbsolutePath());
+            callback.onCompleted(false);
+            return;
+        }
+
+        // Write to a temporary file first so readers never see a partial blob
+        File file = fileOf(key);
+        File tempFile = new File(directory, file.getName() + ".tmp");
+        try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
+            outputStream.write(data);
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Failed to write blob " + key, e);
+            tempFile.delete();
+            callback.onCompleted(false);
+            return;
+        }
+        callback.onCompleted(tempFile.renameTo(file));
+    }
+
+    @Override
+    public void get(@NonNull String key, @NonNull BlobCallback callback) {
+        File file = fileOf(key);
+        if (!file.isFile()) {
+            callback.onCompleted(null);
+            return;
+        }
+
+        byte[] data = new byte[(int) file.length()];
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            int offset = 0;
+            while (offset < data.length) {
+                int read = inputStream.read(data, offset, data.length - offset);
+                if (read < 0) {
+                    break;
+                }
+                offset += read;
+            }
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Failed to read blob " + key, e);
+            callback.onCompleted(null);
+            return;
+        }
+        callback.onCompleted(data);
+    }
+
+    private File fileOf(@NonNull String key) {
+        // Keys are content hashes, but don't let anything else escape the directory
+        return new File(directory, key.replaceAll("[^a-zA-Z0-9._-]", "_"));
+    }
+}
@@ -0,0 +1,116 @@
+package services;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import constants.LocalDatabaseConstants;
+
+/**
+ * On-device SQLite database keeping copies of database documents across app restarts, so screens
+ * can show what was already downloaded before going to the network. Notifications are kept by
+ * NotificationFeed, events and waiting list rows by LocalMirror. Everything in it can be
+ * downloaded again, so upgrades drop the tables instead of migrating them.
+ * Reads and writes should be run with runInBackground.
+ */
+public class LocalDatabase extends SQLiteOpenHelper {
+    private static LocalDatabase instance;
+    // Single thread, so writes are applied in the order they were queued
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    public static synchronized LocalDatabase getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new LocalDatabase(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Runs disk work off the main thread.
+     */
+    public static void runInBackground(@NonNull Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Deletes everything kept on the device, for example when the user signs out.
+     */
+    public void clear() {
+        runInBackground(() -> {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                db.delete(LocalDatabaseConstants.TABLE_NOTIFICATIONS_NAME, null, null);
+                db.delete(LocalDatabaseConstants.TABLE_EVENTS_NAME, null, null);
+                db.delete(LocalDatabaseConstants.TABLE_ON_WAITING_LIST_NAME, null, null);
+                db.delete(LocalDatabaseConstants.TABLE_SYNC_STATE_NAME, null, null);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    private LocalDatabase(@NonNull Context context) {
+        super(context, LocalDatabaseConstants.DATABASE_NAME, null,
+                LocalDatabaseConstants.DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + LocalDatabaseConstants.TABLE_NOTIFICATIONS_NAME + " ("
+                + LocalDatabaseConstants.TABLE_NOTIFICATIONS_ID_COLUMN + " TEXT PRIMARY KEY, "
+                + LocalDatabaseConstants.TABLE_NOTIFICATIONS_USER_ID_COLUMN + " TEXT NOT NULL, "
+                + LocalDatabaseConstants.TABLE_NOTIFICATIONS_EVENT_ID_COLUMN + " TEXT, "
+                + LocalDatabaseConstants.TABLE_NOTIFICATIONS_TYPE_COLUMN + " TEXT, "
+                + LocalDatabaseConstants.TABLE_NOTIFICATIONS_MESSAGE_COLUMN + " TEXT, "
+                + LocalDatabaseConstants.TABLE_NOTIFICATIONS_DATE_CREATED_COLUMN + " INTEGER NOT NULL)");
+        // Notifications are read a page at a time per user, newest first
+        db.execSQL("CREATE INDEX notifications_user_date ON "
+                + LocalDatabaseConstants.TABLE_NOTIFICATIONS_NAME + " ("
+                + LocalDatabaseConstants.TABLE_NOTIFICATIONS_USER_ID_COLUMN + ", "
+                + LocalDatabaseConstants.TABLE_NOTIFICATIONS_DATE_CREATED_COLUMN + " DESC)");
+
+        db.execSQL("CREATE TABLE " + LocalDatabaseConstants.TABLE_EVENTS_NAME + " ("
+                + LocalDatabaseConstants.TABLE_EVENTS_ID_COLUMN + " TEXT PRIMARY KEY, "
+                + LocalDatabaseConstants.TABLE_EVENTS_ORGANIZER_ID_COLUMN + " TEXT NOT NULL, "
+                + LocalDatabaseConstants.TABLE_EVENTS_TITLE_COLUMN + " TEXT, "
+                + LocalDatabaseConstants.TABLE_EVENTS_DESCRIPTION_COLUMN + " TEXT, "
+                + LocalDatabaseConstants.TABLE_EVENTS_DEVICE_ID_COLUMN + " TEXT, "
+                + LocalDatabaseConstants.TABLE_EVENTS_IMAGE_DATA_COLUMN + " TEXT, "
+                + LocalDatabaseConstants.TABLE_EVENTS_QR_CODE_DATA_COLUMN + " TEXT, "
+                + LocalDatabaseConstants.TABLE_EVENTS_REGISTRATION_DEADLINE_COLUMN + " INTEGER, "
+                + LocalDatabaseConstants.TABLE_EVENTS_ENTRANT_LIMIT_COLUMN + " INTEGER, "
+                + LocalDatabaseConstants.TABLE_EVENTS_SYNCED_AT_COLUMN + " INTEGER NOT NULL)");
+
+        db.execSQL("CREATE TABLE " + LocalDatabaseConstants.TABLE_ON_WAITING_LIST_NAME + " ("
+                + LocalDatabaseConstants.TABLE_ON_WAITING_LIST_ID_COLUMN + " TEXT PRIMARY KEY, "
+                + LocalDatabaseConstants.TABLE_ON_WAITING_LIST_USER_ID_COLUMN + " TEXT NOT NULL, "
+                + LocalDatabaseConstants.TABLE_ON_WAITING_LIST_EVENT_ID_COLUMN + " TEXT NOT NULL, "
+                + LocalDatabaseConstants.TABLE_ON_WAITING_LIST_STATUS_COLUMN + " TEXT NOT NULL, "
+                + LocalDatabaseConstants.TABLE_ON_WAITING_LIST_SYNCED_AT_COLUMN + " INTEGER NOT NULL)");
+        // Rows are read and reconciled per user, stale rows by the time they were confirmed
+        db.execSQL("CREATE INDEX onWaitingList_user_synced ON "
+                + LocalDatabaseConstants.TABLE_ON_WAITING_LIST_NAME + " ("
+                + LocalDatabaseConstants.TABLE_ON_WAITING_LIST_USER_ID_COLUMN + ", "
+                + LocalDatabaseConstants.TABLE_ON_WAITING_LIST_SYNCED_AT_COLUMN + ")");
+
+        db.execSQL("CREATE TABLE " + LocalDatabaseConstants.TABLE_SYNC_STATE_NAME + " ("
+                + LocalDatabaseConstants.TABLE_SYNC_STATE_QUERY_KEY_COLUMN + " TEXT PRIMARY KEY, "
+                + LocalDatabaseConstants.TABLE_SYNC_STATE_SYNCED_AT_COLUMN + " INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + LocalDatabaseConstants.TABLE_NOTIFICATIONS_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + LocalDatabaseConstants.TABLE_EVENTS_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + LocalDatabaseConstants.TABLE_ON_WAITING_LIST_NAME);
+        db.execSQL("DROP TABLE IF EXISTS " + LocalDatabaseConstants.TABLE_SYNC_STATE_NAME);
+        onCreate(db);
+    }
+}
@@ -0,0 +1,398 @@
+package services;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import constants.DatabaseConstants;
+import constants.LocalDatabaseConstants;
+import interfaces.ModelListCallback;
+import interfaces.QueryMirror;
+import models.EventModel;
+import models.OnWaitingListModel;
+
+/**
+ * Copies of the waiting list rows and events of entrants kept in the LocalDatabase, so their
+ * screens can be filled in from the device on a cold start while the listeners catch up.
+ * The rows of a user are mirrored from the snapshots of their query: the first snapshot from the
+ * server replaces every row of the user and sets the watermark of the query, the following ones
+ * only write the rows that changed. Rows are only restored once their query has a watermark, so
+ * a partial waiting list is never shown, and go through the SubscriptionManager so the ones the
+ * server no longer has are removed once it answers. Events are mirrored from the fetches of the
+ * waiting list view and from the first page of the events list, which is shown from the device
+ * until its query returns. User documents are left out, as they hold passwords.
+ * Must be used from the main thread, which is also where the snapshot listeners are called.
+ */
+public class LocalMirror {
+    private static final String LOG_TAG = "[LocalMirror]";
+    // Stays below the limit of bound arguments of SQLite
+    private static final int MAX_IDS_PER_STATEMENT = 500;
+
+    private final LocalDatabase localDatabase;
+    private final SubscriptionManager subscriptionManager;
+    // Query key -> mirror of the waiting list rows of a user
+    private final Map<String, WaitlistOfUserMirror> waitlistMirrors = new HashMap<>();
+    private Handler handler;
+
+    public LocalMirror(@NonNull LocalDatabase localDatabase,
+                       @NonNull SubscriptionManager subscriptionManager) {
+        this.localDatabase = localDatabase;
+        this.subscriptionManager = subscriptionManager;
+    }
+
+    /**
+     * @param queryKey Key the query of the rows of the user is acquired with
+     * @param store    Store the query feeds
+     * @return The mirror to acquire the query of the rows of the user with
+     */
+    @NonNull
+    public QueryMirror<OnWaitingListModel> getWaitlistOfUserMirror(@NonNull String queryKey,
+                                                                   @NonNull String userId,
+                                                                   @NonNull ModelStore<OnWaitingListModel> store) {
+        return getOrCreateWaitlistMirror(queryKey, userId, store);
+    }
+
+    /**
+     * Puts the rows of the user kept on the device in the store, unless the server already
+     * answered the query. Rows the server doesn't confirm are taken out of the store again once
+     * it does, see SubscriptionManager.restore.
+     */
+    public void restoreWaitlistOfUser(@NonNull String queryKey, @NonNull String userId,
+                                      @NonNull ModelStore<OnWaitingListModel> store) {
+        getOrCreateWaitlistMirror(queryKey, userId, store).restore();
+    }
+
+    /**
+     * Forgets the mirrored queries and deletes everything kept on the device, so the next user
+     * doesn't see the rows of the previous one.
+     */
+    public void clear() {
+        waitlistMirrors.clear();
+        localDatabase.clear();
+    }
+
+    @NonNull
+    private WaitlistOfUserMirror getOrCreateWaitlistMirror(@NonNull String queryKey,
+                                                           @NonNull String userId,
+                                                           @NonNull ModelStore<OnWaitingListModel> store) {
+        WaitlistOfUserMirror mirror = waitlistMirrors.get(queryKey);
+        if (mirror == null) {
+            mirror = new WaitlistOfUserMirror(queryKey, userId, store);
+            waitlistMirrors.put(queryKey, mirror);
+        }
+        return mirror;
+    }
+
+    /**
+     * Reads the events kept on the device.
+     * @param callback Called from a background thread with the events found
+     */
+    public void getEvents(@NonNull List<String> eventIds,
+                          @NonNull ModelListCallback<EventModel> callback) {
+        List<String> ids = new ArrayList<>(new HashSet<>(eventIds));
+        LocalDatabase.runInBackground(() -> {
+            ArrayList<EventModel> events = new ArrayList<>();
+            try {
+                SQLiteDatabase db = localDatabase.getReadableDatabase();
+                for (int start = 0; start < ids.size(); start += MAX_IDS_PER_STATEMENT) {
+                    List<String> chunk = ids.subList(start,
+                            Math.min(ids.size(), start + MAX_IDS_PER_STATEMENT));
+                    try (Cursor cursor = db.query(LocalDatabaseConstants.TABLE_EVENTS_NAME, null,
+                            LocalDatabaseConstants.TABLE_EVENTS_ID_COLUMN + " IN ("
+                                    + placeholders(chunk.size()) + ")",
+                            chunk.toArray(new String[0]), null, null, null)) {
+                        while (cursor.moveToNext()) {
+                            events.add(readEvent(cursor));
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                Log.e(LOG_TAG, "Failed to read the events kept on the device", e);
+            }
+            callback.onCompleted(events);
+        });
+    }
+
+    /**
+     * Reads the events kept on the device in the order of the events list, see
+     * EventPageRepository.
+     * @param minDeadline Earliest registration deadline to include, or null to include every event
+     * @param limit       Maximum number of events to read
+     * @param callback    Called on the main thread with the events found
+     */
+    public void getEventsByDeadline(@Nullable Date minDeadline, int limit,
+                                    @NonNull ModelListCallback<EventModel> callback) {
+        LocalDatabase.runInBackground(() -> {
+            ArrayList<EventModel> events = new ArrayList<>();
+            String deadlineColumn = LocalDatabaseConstants.TABLE_EVENTS_REGISTRATION_DEADLINE_COLUMN;
+            String selection = deadlineColumn + " IS NOT NULL";
+            String[] selectionArgs = null;
+            if (minDeadline != null) {
+                selection += " AND " + deadlineColumn + " >= ?";
+                selectionArgs = new String[]{String.valueOf(minDeadline.getTime())};
+            }
+            try (Cursor cursor = localDatabase.getReadableDatabase().query(
+                    LocalDatabaseConstants.TABLE_EVENTS_NAME, null, selection, selectionArgs, null, null,
+                    deadlineColumn + ", " + LocalDatabaseConstants.TABLE_EVENTS_ID_COLUMN,
+                    String.valueOf(limit))) {
+                while (cursor.moveToNext()) {
+                    events.add(readEvent(cursor));
+                }
+            } catch (Exception e) {
+                Log.e(LOG_TAG, "Failed to read the events kept on the device", e);
+                events.clear();
+            }
+            getHandler().post(() -> callback.onCompleted(events));
+        });
+    }
+
+    /**
+     * Keeps downloaded events on the device, and deletes the requested events that no longer
+     * exist.
+     * @param requestedIds IDs the events were fetched with
+     * @param events       The events that were found
+     */
+    public void putEvents(@NonNull List<String> requestedIds, @NonNull List<EventModel> events) {
+        Set<String> missingIds = new HashSet<>(requestedIds);
+        for (EventModel event : events) {
+            missingIds.remove(event.getId());
+        }
+        List<EventModel> found = new ArrayList<>(events);
+        long syncedAt = System.currentTimeMillis();
+        LocalDatabase.runInBackground(() -> {
+            SQLiteDatabase db = localDatabase.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (EventModel event : found) {
+                    db.insertWithOnConflict(LocalDatabaseConstants.TABLE_EVENTS_NAME, null,
+                            toValues(event, syncedAt), SQLiteDatabase.CONFLICT_REPLACE);
+                }
+                for (String id : missingIds) {
+                    db.delete(LocalDatabaseConstants.TABLE_EVENTS_NAME,
+                            LocalDatabaseConstants.TABLE_EVENTS_ID_COLUMN + " = ?",
+                            new String[]{id});
+                }
+                db.setTransactionSuccessful();
+            } catch (Exception e) {
+                Log.e(LOG_TAG, "Failed to keep events on the device", e);
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    @NonNull
+    private static String placeholders(int count) {
+        return TextUtils.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    @NonNull
+    private static ContentValues toValues(@NonNull EventModel event, long syncedAt) {
+        ContentValues values = new ContentValues();
+        values.put(LocalDatabaseConstants.TABLE_EVENTS_ID_COLUMN, event.getId());
+        values.put(LocalDatabaseConstants.TABLE_EVENTS_ORGANIZER_ID_COLUMN, event.getOrganizerId());
+        values.put(LocalDatabaseConstants.TABLE_EVENTS_TITLE_COLUMN, event.getEventTitle());
+        values.put(LocalDatabaseConstants.TABLE_EVENTS_DESCRIPTION_COLUMN, event.getDescription());
+        values.put(LocalDatabaseConstants.TABLE_EVENTS_DEVICE_ID_COLUMN, event.getDeviceId());
+        values.put(LocalDatabaseConstants.TABLE_EVENTS_IMAGE_DATA_COLUMN, event.getImageData());
+        values.put(LocalDatabaseConstants.TABLE_EVENTS_QR_CODE_DATA_COLUMN, event.getQrCodeData());
+        values.put(LocalDatabaseConstants.TABLE_EVENTS_REGISTRATION_DEADLINE_COLUMN,
+                event.getRegistrationDeadline() == null ? null : event.getRegistrationDeadline().getTime());
+        values.put(LocalDatabaseConstants.TABLE_EVENTS_ENTRANT_LIMIT_COLUMN, event.getEntrantLimit());
+        values.put(LocalDatabaseConstants.TABLE_EVENTS_SYNCED_AT_COLUMN, syncedAt);
+        return values;
+    }
+
+    @NonNull
+    private static EventModel readEvent(@NonNull Cursor cursor) {
+        int deadlineColumn = cursor.getColumnIndexOrThrow(
+                LocalDatabaseConstants.TABLE_EVENTS_REGISTRATION_DEADLINE_COLUMN);
+        int limitColumn = cursor.getColumnIndexOrThrow(
+                LocalDatabaseConstants.TABLE_EVENTS_ENTRANT_LIMIT_COLUMN);
+        return EventModel.builder()
+                .id(getString(cursor, LocalDatabaseConstants.TABLE_EVENTS_ID_COLUMN))
+                .organizerId(getString(cursor, LocalDatabaseConstants.TABLE_EVENTS_ORGANIZER_ID_COLUMN))
+                .eventTitle(getString(cursor, LocalDatabaseConstants.TABLE_EVENTS_TITLE_COLUMN))
+                .description(getString(cursor, LocalDatabaseConstants.TABLE_EVENTS_DESCRIPTION_COLUMN))
+                .deviceId(getString(cursor, LocalDatabaseConstants.TABLE_EVENTS_DEVICE_ID_COLUMN))
+                .imageData(getString(cursor, LocalDatabaseConstants.TABLE_EVENTS_IMAGE_DATA_COLUMN))
+                .qrCodeData(getString(cursor, LocalDatabaseConstants.TABLE_EVENTS_QR_CODE_DATA_COLUMN))
+                .registrationDeadline(cursor.isNull(deadlineColumn)
+                        ? null : new Date(cursor.getLong(deadlineColumn)))
+                .entrantLimit(cursor.isNull(limitColumn) ? null : cursor.getInt(limitColumn))
+                .build();
+    }
+
+    @Nullable
+    private static String getString(@NonNull Cursor cursor, @NonNull String column) {
+        return cursor.getString(cursor.getColumnIndexOrThrow(column));
+    }
+
+    private Handler getHandler() {
+        if (handler == null) {
+            handler = new Handler(Looper.getMainLooper());
+        }
+        return handler;
+    }
+
+    /**
+     * Mirror of the query of the waiting list rows of one user.
+     */
+    private class WaitlistOfUserMirror implements QueryMirror<OnWaitingListModel> {
+        private final String queryKey;
+        private final String userId;
+        private final ModelStore<OnWaitingListModel> store;
+        private boolean synced = false;
+        private boolean restoreStarted = false;
+
+        private WaitlistOfUserMirror(@NonNull String queryKey, @NonNull String userId,
+                                     @NonNull ModelStore<OnWaitingListModel> store) {
+            this.queryKey = queryKey;
+            this.userId = userId;
+            this.store = store;
+        }
+
+        @Override
+        public void onSynced(@NonNull List<OnWaitingListModel> models) {
+            synced = true;
+            List<OnWaitingListModel> rows = new ArrayList<>(models);
+            long syncedAt = System.currentTimeMillis();
+            LocalDatabase.runInBackground(() -> write(rows, Collections.emptyList(), syncedAt, true));
+        }
+
+        @Override
+        public void onChanged(@NonNull List<OnWaitingListModel> changed,
+                              @NonNull List<String> removedIds) {
+            List<OnWaitingListModel> rows = new ArrayList<>(changed);
+            List<String> ids = new ArrayList<>(removedIds);
+            long syncedAt = System.currentTimeMillis();
+            LocalDatabase.runInBackground(() -> write(rows, ids, syncedAt, false));
+        }
+
+        private void restore() {
+            if (synced || restoreStarted) {
+                return;
+            }
+            restoreStarted = true;
+            LocalDatabase.runInBackground(() -> {
+                Long watermark = readWatermark();
+                if (watermark == null) {
+                    return;
+                }
+                List<OnWaitingListModel> rows = readRows();
+                Map<String, OnWaitingListModel> rowsById = new HashMap<>();
+                for (OnWaitingListModel row : rows) {
+                    rowsById.put(row.getId(), row);
+                }
+                getHandler().post(() -> {
+                    if (synced) {
+                        return;
+                    }
+                    subscriptionManager.restore(queryKey, store, rowsById);
+                    Log.i(LOG_TAG, String.format("Restored %d rows of %s, synced %d ms ago",
+                            rows.size(), queryKey, System.currentTimeMillis() - watermark));
+                });
+            });
+        }
+
+        /**
+         * Writes the rows and moves the watermark of the query to syncedAt.
+         * @param complete Whether the rows are every row of the user, older rows are deleted
+         */
+        private void write(@NonNull List<OnWaitingListModel> rows, @NonNull List<String> removedIds,
+                           long syncedAt, boolean complete) {
+            SQLiteDatabase db = localDatabase.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (OnWaitingListModel row : rows) {
+                    ContentValues values = new ContentValues();
+                    values.put(LocalDatabaseConstants.TABLE_ON_WAITING_LIST_ID_COLUMN, row.getId());
+                    values.put(LocalDatabaseConstants.TABLE_ON_WAITING_LIST_USER_ID_COLUMN, row.getUserId());
+                    values.put(LocalDatabaseConstants.TABLE_ON_WAITING_LIST_EVENT_ID_COLUMN, row.getEventId());
+                    values.put(LocalDatabaseConstants.TABLE_ON_WAITING_LIST_STATUS_COLUMN, row.getStatus().name());
+                    values.put(LocalDatabaseConstants.TABLE_ON_WAITING_LIST_SYNCED_AT_COLUMN, syncedAt);
+                    db.insertWithOnConflict(LocalDatabaseConstants.TABLE_ON_WAITING_LIST_NAME, null,
+                            values, SQLiteDatabase.CONFLICT_REPLACE);
+                }
+                for (String id : removedIds) {
+                    db.delete(LocalDatabaseConstants.TABLE_ON_WAITING_LIST_NAME,
+                            LocalDatabaseConstants.TABLE_ON_WAITING_LIST_ID_COLUMN + " = ?",
+                            new String[]{id});
+                }
+                if (complete) {
+                    db.delete(LocalDatabaseConstants.TABLE_ON_WAITING_LIST_NAME,
+                            LocalDatabaseConstants.TABLE_ON_WAITING_LIST_USER_ID_COLUMN + " = ? AND "
+                                    + LocalDatabaseConstants.TABLE_ON_WAITING_LIST_SYNCED_AT_COLUMN + " < ?",
+                            new String[]{userId, String.valueOf(syncedAt)});
+                }
+                ContentValues watermark = new ContentValues();
+                watermark.put(LocalDatabaseConstants.TABLE_SYNC_STATE_QUERY_KEY_COLUMN, queryKey);
+                watermark.put(LocalDatabaseConstants.TABLE_SYNC_STATE_SYNCED_AT_COLUMN, syncedAt);
+                db.insertWithOnConflict(LocalDatabaseConstants.TABLE_SYNC_STATE_NAME, null,
+                        watermark, SQLiteDatabase.CONFLICT_REPLACE);
+                db.setTransactionSuccessful();
+            } catch (Exception e) {
+                Log.e(LOG_TAG, String.format("Failed to keep the rows of %s on the device", queryKey), e);
+            } finally {
+                db.endTransaction();
+            }
+        }
+
+        /**
+         * @return Time the rows of the query were last confirmed by the server, or null if they
+         * never were
+         */
+        @Nullable
+        private Long readWatermark() {
+            try (Cursor cursor = localDatabase.getReadableDatabase().query(
+                    LocalDatabaseConstants.TABLE_SYNC_STATE_NAME,
+                    new String[]{LocalDatabaseConstants.TABLE_SYNC_STATE_SYNCED_AT_COLUMN},
+                    LocalDatabaseConstants.TABLE_SYNC_STATE_QUERY_KEY_COLUMN + " = ?",
+                    new String[]{queryKey}, null, null, null)) {
+                return cursor.moveToFirst() ? cursor.getLong(0) : null;
+            } catch (Exception e) {
+                Log.e(LOG_TAG, String.format("Failed to read the watermark of %s", queryKey), e);
+                return null;
+            }
+        }
+
+        @NonNull
+        private List<OnWaitingListModel> readRows() {
+            List<OnWaitingListModel> rows = new ArrayList<>();
+            try (Cursor cursor = localDatabase.getReadableDatabase().query(
+                    LocalDatabaseConstants.TABLE_ON_WAITING_LIST_NAME, null,
+                    LocalDatabaseConstants.TABLE_ON_WAITING_LIST_USER_ID_COLUMN + " = ?",
+                    new String[]{userId}, null, null, null)) {
+                while (cursor.moveToNext()) {
+                    rows.add(OnWaitingListModel.builder()
+                            .id(getString(cursor, LocalDatabaseConstants.TABLE_ON_WAITING_LIST_ID_COLUMN))
+                            .userId(userId)
+                            .eventId(getString(cursor, LocalDatabaseConstants.TABLE_ON_WAITING_LIST_EVENT_ID_COLUMN))
+                            .status(DatabaseConstants.ON_WAITING_LIST_STATUS.valueOf(
+                                    getString(cursor, LocalDatabaseConstants.TABLE_ON_WAITING_LIST_STATUS_COLUMN)))
+                            .build());
+                }
+            } catch (Exception e) {
+                Log.e(LOG_TAG, String.format("Failed to read the rows of %s", queryKey), e);
+                rows.clear();
+            }
+            return rows;
+        }
+    }
+}
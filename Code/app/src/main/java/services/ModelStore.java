@@ -0,0 +1,136 @@
+package services;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import interfaces.ModelChangeListener;
+import models.ModelChangeSet;
+
+/**
+ * Keyed in-memory copy of a database collection.
+ * Snapshot listeners stage the document changes they receive with put/remove and then commit
+ * them, so only the changed documents are converted into models. Committing notifies the change
+ * listeners with just the delta and posts the full view to the LiveData the store was created with.
+ * The full view is copied once per commit, and only for stores that have a LiveData.
+ *
+ * @param <T> The type of model held by the store
+ */
+public class ModelStore<T> {
+    private final Map<String, T> models = new LinkedHashMap<>();
+    private final List<ModelChangeListener<T>> changeListeners = new CopyOnWriteArrayList<>();
+    private final MutableLiveData<ArrayList<T>> liveData;
+    private ModelChangeSet<T> pendingChanges = new ModelChangeSet<>();
+    private boolean published = false;
+
+    public ModelStore(@Nullable MutableLiveData<ArrayList<T>> liveData) {
+        this.liveData = liveData;
+    }
+
+    /**
+     * Stages an added or modified model. Nothing is published until commit is called.
+     * @param id    The document ID of the model
+     * @param model The new model
+     */
+    public synchronized void put(@NonNull String id, @NonNull T model) {
+        T previous = models.put(id, model);
+        if (previous == null) {
+            pendingChanges.getAdded().add(model);
+        } else {
+            pendingChanges.getModified().add(model);
+        }
+    }
+
+    /**
+     * Stages the removal of a model. Nothing is published until commit is called.
+     * @param id The document ID of the model
+     */
+    public synchronized void remove(@NonNull String id) {
+        T previous = models.remove(id);
+        if (previous != null) {
+            pendingChanges.getRemoved().add(previous);
+        }
+    }
+
+    /**
+     * Stages the removal of every model. Nothing is published until commit is called.
+     */
+    public synchronized void clear() {
+        pendingChanges.getRemoved().addAll(models.values());
+        models.clear();
+    }
+
+    /**
+     * Publishes every staged change. Change listeners receive only the delta, the LiveData
+     * receives the full view. The first commit always publishes, even when empty, so observers
+     * can tell an empty collection apart from one that hasn't loaded yet.
+     * @return The changes that were published
+     */
+    public ModelChangeSet<T> commit() {
+        ModelChangeSet<T> changes;
+        ArrayList<T> view;
+        synchronized (this) {
+            changes = pendingChanges;
+            pendingChanges = new ModelChangeSet<>();
+            if (changes.isEmpty() && published) {
+                return changes;
+            }
+            published = true;
+            // Stores without LiveData are only read through their change listeners and get, so
+            // they skip copying every model on each commit
+            view = liveData == null ? null : new ArrayList<>(models.values());
+        }
+
+        if (!changes.isEmpty()) {
+            for (ModelChangeListener<T> listener : changeListeners) {
+                listener.onChanged(changes);
+            }
+        }
+        if (view != null) {
+            liveData.postValue(view);
+        }
+        return changes;
+    }
+
+    /**
+     * @param id The document ID of the model
+     * @return The model with the given ID, or null if the store doesn't hold it
+     */
+    @Nullable
+    public synchronized T get(@NonNull String id) {
+        return models.get(id);
+    }
+
+    /**
+     * @return A copy of every model currently held by the store
+     */
+    public synchronized ArrayList<T> getAll() {
+        return new ArrayList<>(models.values());
+    }
+
+    public synchronized boolean contains(@NonNull String id) {
+        return models.containsKey(id);
+    }
+
+    public synchronized int size() {
+        return models.size();
+    }
+
+    /**
+     * Registers a listener that receives every committed change set. Listeners are called on the
+     * thread that commits, which is the main thread for snapshot listeners.
+     */
+    public void addChangeListener(@NonNull ModelChangeListener<T> listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(@NonNull ModelChangeListener<T> listener) {
+        changeListeners.remove(listener);
+    }
+}
@@ -0,0 +1,420 @@
+package services;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.konoha_events.Notification;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.Source;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import constants.DatabaseConstants;
+import constants.LocalDatabaseConstants;
+
+/**
+ * paged feed of the notifications of one entrant, newest first.
+ * notifications that were already downloaded are kept on the device, so opening the feed shows
+ * them right away and only asks firestore for the ones created since the newest one kept.
+ * older notifications are read a page at a time as the list scrolls, from the device first and
+ * then from firestore once the device copy runs out.
+ * the listener only covers notifications newer than the ones kept, so every page read from the
+ * device is also checked against the server, and notifications deleted there in the meantime are
+ * dropped from the feed and from the device.
+ * must be used from the main thread.
+ */
+public class NotificationFeed {
+    private static final String LOG_TAG = "[NotificationFeed]";
+    public static final int PAGE_SIZE = 25;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final String userId;
+    private final CollectionReference notifications;
+    private final LocalDatabase localDatabase;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /** notifications shown so far, newest first, posted whenever they change */
+    private final MutableLiveData<ArrayList<Notification>> notificationsLiveData = new MutableLiveData<>();
+    private final Map<String, Notification> shown = new LinkedHashMap<>();
+
+    @Nullable
+    private ListenerRegistration newNotificationsListener;
+    private boolean loading = false;
+    // the device copy has no notifications older than the ones shown
+    private boolean localExhausted = false;
+    private boolean reachedEnd = false;
+    private boolean closed = false;
+
+    public NotificationFeed(@NonNull String userId,
+                            @NonNull CollectionReference notifications,
+                            @NonNull LocalDatabase localDatabase) {
+        this.userId = userId;
+        this.notifications = notifications;
+        this.localDatabase = localDatabase;
+    }
+
+    public MutableLiveData<ArrayList<Notification>> getNotificationsLiveData() {
+        return notificationsLiveData;
+    }
+
+    /**
+     * shows the newest page kept on the device, then listens for notifications created after it.
+     * if nothing is kept yet, the newest page is downloaded first.
+     */
+    public void open() {
+        loading = true;
+        LocalDatabase.runInBackground(() -> {
+            List<Notification> page = readLocalPage(null);
+            mainHandler.post(() -> {
+                if (closed) {
+                    return;
+                }
+                loading = false;
+                if (page.isEmpty()) {
+                    localExhausted = true;
+                    loadRemotePage(true);
+                    return;
+                }
+                localExhausted = page.size() < PAGE_SIZE;
+                addAll(page);
+                publish();
+                listenForNewNotifications(page.get(0).getDateCreated());
+                dropDeletedOnServer(page);
+            });
+        });
+    }
+
+    /**
+     * stops listening for new notifications.
+     */
+    public void close() {
+        closed = true;
+        if (newNotificationsListener != null) {
+            newNotificationsListener.remove();
+            newNotificationsListener = null;
+        }
+    }
+
+    /**
+     * @return true if there may be notifications older than the ones shown
+     */
+    public boolean hasMore() {
+        return !reachedEnd;
+    }
+
+    /**
+     * shows the page of notifications older than the ones shown, unless a page is already loading.
+     */
+    public void loadMore() {
+        if (loading || reachedEnd || closed) {
+            return;
+        }
+        if (localExhausted) {
+            loadRemotePage(false);
+            return;
+        }
+
+        loading = true;
+        Timestamp before = getOldestShown();
+        LocalDatabase.runInBackground(() -> {
+            List<Notification> page = readLocalPage(before);
+            mainHandler.post(() -> {
+                if (closed) {
+                    return;
+                }
+                loading = false;
+                localExhausted = page.size() < PAGE_SIZE;
+                addAll(page);
+                publish();
+                dropDeletedOnServer(page);
+                if (page.isEmpty()) {
+                    loadMore();
+                }
+            });
+        });
+    }
+
+    /**
+     * downloads the page older than the ones shown and keeps it on the device.
+     *
+     * @param first true for the newest page, which also starts listening for new notifications
+     */
+    private void loadRemotePage(boolean first) {
+        loading = true;
+        Query query = notifications
+                .whereEqualTo(DatabaseConstants.COLLECTION_NOTIFICATIONS_USER_ID_FIELD, userId)
+                .orderBy(DatabaseConstants.COLLECTION_NOTIFICATIONS_DATE_CREATED_FIELD,
+                        Query.Direction.DESCENDING);
+        Timestamp before = getOldestShown();
+        if (!first && before != null) {
+            query = query.startAfter(before);
+        }
+        query.limit(PAGE_SIZE)
+                .get()
+                .addOnSuccessListener(snapshot -> {
+                    if (closed) {
+                        return;
+                    }
+                    loading = false;
+                    List<Notification> page = new ArrayList<>();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        page.add(toNotification(doc));
+                    }
+                    reachedEnd = page.size() < PAGE_SIZE;
+                    writeLocal(page);
+                    addAll(page);
+                    publish();
+                    if (first) {
+                        listenForNewNotifications(page.isEmpty() ? null : page.get(0).getDateCreated());
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    loading = false;
+                    Log.e(LOG_TAG, "failed to load a page of notifications", e);
+                    // still show what is kept on the device
+                    publish();
+                });
+    }
+
+    /**
+     * listens only to the notifications created after the newest one already shown.
+     *
+     * @param after date of the newest notification shown, or null if there are none
+     */
+    private void listenForNewNotifications(@Nullable Timestamp after) {
+        Query query = notifications
+                .whereEqualTo(DatabaseConstants.COLLECTION_NOTIFICATIONS_USER_ID_FIELD, userId);
+        if (after != null) {
+            query = query.whereGreaterThan(
+                    DatabaseConstants.COLLECTION_NOTIFICATIONS_DATE_CREATED_FIELD, after);
+        }
+        newNotificationsListener = query.addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                Log.e(LOG_TAG, "new notifications listener failed", error);
+            }
+            if (snapshot == null || closed) {
+                return;
+            }
+
+            List<Notification> added = new ArrayList<>();
+            List<String> removedIds = new ArrayList<>();
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    removedIds.add(change.getDocument().getId());
+                } else {
+                    added.add(toNotification(change.getDocument()));
+                }
+            }
+            if (added.isEmpty() && removedIds.isEmpty()) {
+                return;
+            }
+
+            writeLocal(added);
+            deleteLocal(removedIds);
+            for (String id : removedIds) {
+                shown.remove(id);
+            }
+            addAll(added);
+            publish();
+        });
+    }
+
+    /**
+     * asks the server which notifications of a page read from the device still exist, and drops
+     * the rest from the feed and from the device.
+     * only an answer from the server counts, if it can't be reached the page is left as it is.
+     *
+     * @param page notifications read from the device
+     */
+    private void dropDeletedOnServer(@NonNull List<Notification> page) {
+        List<String> ids = new ArrayList<>();
+        for (Notification notification : page) {
+            ids.add(notification.getId());
+        }
+        List<List<String>> chunks =
+                ChunkedDocumentFetcher.chunk(ids, ChunkedDocumentFetcher.MAX_IDS_PER_QUERY);
+        for (List<String> chunk : chunks) {
+            notifications.whereIn(FieldPath.documentId(), chunk)
+                    .get(Source.SERVER)
+                    .addOnSuccessListener(snapshot -> {
+                        if (closed) {
+                            return;
+                        }
+                        Set<String> existing = new HashSet<>();
+                        for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                            existing.add(doc.getId());
+                        }
+                        List<String> deleted = new ArrayList<>();
+                        for (String id : chunk) {
+                            if (!existing.contains(id)) {
+                                deleted.add(id);
+                            }
+                        }
+                        if (deleted.isEmpty()) {
+                            return;
+                        }
+                        deleteLocal(deleted);
+                        for (String id : deleted) {
+                            shown.remove(id);
+                        }
+                        publish();
+                    })
+                    .addOnFailureListener(e ->
+                            Log.w(LOG_TAG, "couldn't check kept notifications against the server", e));
+        }
+    }
+
+    /** adds notifications to the shown ones, keeping them newest first */
+    private void addAll(@NonNull List<Notification> page) {
+        for (Notification notification : page) {
+            shown.put(notification.getId(), notification);
+        }
+        List<Notification> sorted = new ArrayList<>(shown.values());
+        sorted.sort((a, b) -> Long.compare(toNanos(b.getDateCreated()), toNanos(a.getDateCreated())));
+        shown.clear();
+        for (Notification notification : sorted) {
+            shown.put(notification.getId(), notification);
+        }
+    }
+
+    private void publish() {
+        notificationsLiveData.setValue(new ArrayList<>(shown.values()));
+    }
+
+    @Nullable
+    private Timestamp getOldestShown() {
+        Timestamp oldest = null;
+        for (Notification notification : shown.values()) {
+            oldest = notification.getDateCreated();
+        }
+        return oldest;
+    }
+
+    /**
+     * reads a page of the notifications kept on the device, newest first.
+     *
+     * @param before only read notifications created before this date, or null for the newest
+     */
+    private List<Notification> readLocalPage(@Nullable Timestamp before) {
+        List<Notification> page = new ArrayList<>();
+        String selection = LocalDatabaseConstants.TABLE_NOTIFICATIONS_USER_ID_COLUMN + " = ?";
+        String[] selectionArgs = new String[]{userId};
+        if (before != null) {
+            selection += " AND " + LocalDatabaseConstants.TABLE_NOTIFICATIONS_DATE_CREATED_COLUMN + " < ?";
+            selectionArgs = new String[]{userId, String.valueOf(toNanos(before))};
+        }
+
+        try (Cursor cursor = localDatabase.getReadableDatabase().query(
+                LocalDatabaseConstants.TABLE_NOTIFICATIONS_NAME, null, selection, selectionArgs,
+                null, null,
+                LocalDatabaseConstants.TABLE_NOTIFICATIONS_DATE_CREATED_COLUMN + " DESC",
+                String.valueOf(PAGE_SIZE))) {
+            while (cursor.moveToNext()) {
+                long nanos = cursor.getLong(cursor.getColumnIndexOrThrow(
+                        LocalDatabaseConstants.TABLE_NOTIFICATIONS_DATE_CREATED_COLUMN));
+                page.add(new Notification(
+                        cursor.getString(cursor.getColumnIndexOrThrow(
+                                LocalDatabaseConstants.TABLE_NOTIFICATIONS_ID_COLUMN)),
+                        userId,
+                        cursor.getString(cursor.getColumnIndexOrThrow(
+                                LocalDatabaseConstants.TABLE_NOTIFICATIONS_EVENT_ID_COLUMN)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(
+                                LocalDatabaseConstants.TABLE_NOTIFICATIONS_TYPE_COLUMN)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(
+                                LocalDatabaseConstants.TABLE_NOTIFICATIONS_MESSAGE_COLUMN)),
+                        new Timestamp(Math.floorDiv(nanos, NANOS_PER_SECOND),
+                                (int) Math.floorMod(nanos, NANOS_PER_SECOND))));
+            }
+        } catch (Exception e) {
+            Log.e(LOG_TAG, "failed to read the notifications kept on the device", e);
+        }
+        return page;
+    }
+
+    private void writeLocal(@NonNull List<Notification> page) {
+        if (page.isEmpty()) {
+            return;
+        }
+        List<Notification> copy = new ArrayList<>(page);
+        LocalDatabase.runInBackground(() -> {
+            SQLiteDatabase db = localDatabase.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (Notification notification : copy) {
+                    ContentValues values = new ContentValues();
+                    values.put(LocalDatabaseConstants.TABLE_NOTIFICATIONS_ID_COLUMN, notification.getId());
+                    values.put(LocalDatabaseConstants.TABLE_NOTIFICATIONS_USER_ID_COLUMN, userId);
+                    values.put(LocalDatabaseConstants.TABLE_NOTIFICATIONS_EVENT_ID_COLUMN, notification.getEventId());
+                    values.put(LocalDatabaseConstants.TABLE_NOTIFICATIONS_TYPE_COLUMN, notification.getNotificationType());
+                    values.put(LocalDatabaseConstants.TABLE_NOTIFICATIONS_MESSAGE_COLUMN, notification.getMessage());
+                    values.put(LocalDatabaseConstants.TABLE_NOTIFICATIONS_DATE_CREATED_COLUMN,
+                            toNanos(notification.getDateCreated()));
+                    db.insertWithOnConflict(LocalDatabaseConstants.TABLE_NOTIFICATIONS_NAME, null,
+                            values, SQLiteDatabase.CONFLICT_REPLACE);
+                }
+                db.setTransactionSuccessful();
+            } catch (Exception e) {
+                Log.e(LOG_TAG, "failed to keep notifications on the device", e);
+            } finally {
+                db.endTransaction();
+            }
+        });
+    }
+
+    private void deleteLocal(@NonNull List<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<String> copy = new ArrayList<>(ids);
+        LocalDatabase.runInBackground(() -> {
+            SQLiteDatabase db = localDatabase.getWritableDatabase();
+            for (String id : copy) {
+                db.delete(LocalDatabaseConstants.TABLE_NOTIFICATIONS_NAME,
+                        LocalDatabaseConstants.TABLE_NOTIFICATIONS_ID_COLUMN + " = ?",
+                        new String[]{id});
+            }
+        });
+    }
+
+    /**
+     * reads the fields of a notification document directly, instead of mapping it through
+     * reflection with toObject.
+     */
+    private static Notification toNotification(@NonNull DocumentSnapshot doc) {
+        return new Notification(
+                doc.getId(),
+                doc.getString(DatabaseConstants.COLLECTION_NOTIFICATIONS_USER_ID_FIELD),
+                doc.getString(DatabaseConstants.COLLECTION_NOTIFICATIONS_EVENT_ID_FIELD),
+                doc.getString(DatabaseConstants.COLLECTION_NOTIFICATIONS_TYPE_FIELD),
+                doc.getString(DatabaseConstants.COLLECTION_NOTIFICATIONS_MESSAGE_FIELD),
+                // pending writes of the server timestamp have no value yet
+                doc.getTimestamp(DatabaseConstants.COLLECTION_NOTIFICATIONS_DATE_CREATED_FIELD,
+                        DocumentSnapshot.ServerTimestampBehavior.ESTIMATE));
+    }
+
+    private static long toNanos(@Nullable Timestamp timestamp) {
+        if (timestamp == null) {
+            return 0;
+        }
+        return timestamp.getSeconds() * NANOS_PER_SECOND + timestamp.getNanoseconds();
+    }
+}
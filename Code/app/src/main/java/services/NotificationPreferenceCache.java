@@ -0,0 +1,152 @@
+package services;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import constants.DatabaseConstants;
+import interfaces.ModelChangeListener;
+import interfaces.ModelListCallback;
+import models.ModelChangeSet;
+import models.UserModel;
+
+/**
+ * Cache of the notification opt out preference of users.
+ * Preferences come from the changes of the users ModelStore, or are fetched in bulk when needed,
+ * so sending notifications doesn't read the user document of every recipient. Every preference
+ * expires TTL_MILLIS after it was last received, because the users listener may be detached
+ * while the cache is still in use and would then miss an opt out. Users whose document doesn't
+ * exist or couldn't be read are left out of the recipients.
+ */
+public class NotificationPreferenceCache implements ModelChangeListener<UserModel> {
+    private static final String LOG_TAG = "[NotificationPreferenceCache]";
+    public static final long TTL_MILLIS = 5 * 60 * 1000;
+
+    private final CollectionReference users;
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private static class Entry {
+        private final boolean optedOut;
+        private final long expiresAt;
+
+        private Entry(boolean optedOut, long expiresAt) {
+            this.optedOut = optedOut;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public NotificationPreferenceCache(@NonNull CollectionReference users) {
+        this(users, System::currentTimeMillis);
+    }
+
+    // Constructor for tests, expiry is measured with the given clock in milliseconds
+    NotificationPreferenceCache(@Nullable CollectionReference users, @NonNull LongSupplier clock) {
+        this.users = users;
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized void onChanged(ModelChangeSet<UserModel> changes) {
+        long expiresAt = clock.getAsLong() + TTL_MILLIS;
+        for (UserModel added : changes.getAdded()) {
+            entries.put(added.getId(), new Entry(added.isOptedOutOfNotifications(), expiresAt));
+        }
+        for (UserModel modified : changes.getModified()) {
+            entries.put(modified.getId(), new Entry(modified.isOptedOutOfNotifications(), expiresAt));
+        }
+        for (UserModel removed : changes.getRemoved()) {
+            entries.remove(removed.getId());
+        }
+    }
+
+    /**
+     * @return true or false if the preference of the user is cached, null if it has to be fetched
+     */
+    @Nullable
+    public synchronized Boolean isOptedOut(@NonNull String userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= clock.getAsLong()) {
+            entries.remove(userId);
+            return null;
+        }
+        return entry.optedOut;
+    }
+
+    /**
+     * Records a preference the app just wrote, so it applies before the listener catches up.
+     */
+    public synchronized void put(@NonNull String userId, boolean optedOut) {
+        entries.put(userId, new Entry(optedOut, clock.getAsLong() + TTL_MILLIS));
+    }
+
+    /**
+     * Filters a list of users down to the ones that want notifications. Cached preferences are
+     * used as is, the rest are fetched together in chunked queries. Users whose preference
+     * couldn't be fetched are left out, and aren't cached so the next call tries again.
+     * @param userIds  IDs of the possible recipients, duplicates are removed
+     * @param callback Called once with the IDs of the recipients, in the order given
+     */
+    public void filterRecipients(@NonNull List<String> userIds,
+                                 @NonNull ModelListCallback<String> callback) {
+        List<String> uniqueIds = new ArrayList<>(new LinkedHashSet<>(userIds));
+        uniqueIds.remove(null);
+
+        List<String> unknownIds = new ArrayList<>();
+        synchronized (this) {
+            for (String userId : uniqueIds) {
+                if (isOptedOut(userId) == null) {
+                    unknownIds.add(userId);
+                }
+            }
+        }
+
+        if (unknownIds.isEmpty()) {
+            callback.onCompleted(collectRecipients(uniqueIds));
+            return;
+        }
+
+        ChunkedDocumentFetcher.fetch(users, unknownIds, documentSnapshot -> documentSnapshot,
+                (documents, complete) -> {
+                    long expiresAt = clock.getAsLong() + TTL_MILLIS;
+                    synchronized (this) {
+                        for (DocumentSnapshot document : documents) {
+                            Boolean optOut = document.getBoolean(
+                                    DatabaseConstants.COLLECTION_USERS_NOTIFICATIONS_OPT_OUT_FIELD);
+                            entries.put(document.getId(), new Entry(optOut != null && optOut, expiresAt));
+                        }
+                    }
+                    if (documents.size() < unknownIds.size()) {
+                        Log.w(LOG_TAG, String.format("Couldn't read the preference of %d of %d users, "
+                                + "complete=%s, skipping them", unknownIds.size() - documents.size(),
+                                unknownIds.size(), complete));
+                    }
+                    callback.onCompleted(collectRecipients(uniqueIds));
+                });
+    }
+
+    private synchronized ArrayList<String> collectRecipients(List<String> userIds) {
+        ArrayList<String> recipients = new ArrayList<>();
+        for (String userId : userIds) {
+            // Users that don't exist or couldn't be read have no preference and are left out
+            if (Boolean.FALSE.equals(isOptedOut(userId))) {
+                recipients.add(userId);
+            }
+        }
+        return recipients;
+    }
+}
@@ -0,0 +1,77 @@
+package services;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the listeners needed by the logged in user's role while any activity of the app is
+ * started. Each started activity acquires the role's queries and releases them when it stops, so
+ * the listeners are detached once the app has been in the background for a while.
+ */
+public class RoleSubscriptionCallbacks implements Application.ActivityLifecycleCallbacks {
+    private final FirebaseService firebaseService;
+    // Keys acquired by each started activity, the role may change while an activity is started
+    private final Map<Activity, List<String>> keysByActivity = new HashMap<>();
+
+    public RoleSubscriptionCallbacks(@NonNull FirebaseService firebaseService) {
+        this.firebaseService = firebaseService;
+    }
+
+    @Override
+    public void onActivityStarted(@NonNull Activity activity) {
+        releaseKeysOf(activity);
+        keysByActivity.put(activity, firebaseService.acquireRoleSubscriptions());
+    }
+
+    @Override
+    public void onActivityStopped(@NonNull Activity activity) {
+        releaseKeysOf(activity);
+    }
+
+    @Override
+    public void onActivityDestroyed(@NonNull Activity activity) {
+        releaseKeysOf(activity);
+    }
+
+    /**
+     * Releases the queries held by every started activity, for example when the user signs out.
+     * Activities started afterwards acquire the queries of the new role.
+     */
+    public void releaseAll() {
+        for (Activity activity : new ArrayList<>(keysByActivity.keySet())) {
+            releaseKeysOf(activity);
+        }
+    }
+
+    @Override
+    public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+    }
+
+    @Override
+    public void onActivityResumed(@NonNull Activity activity) {
+    }
+
+    @Override
+    public void onActivityPaused(@NonNull Activity activity) {
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+    }
+
+    private void releaseKeysOf(@NonNull Activity activity) {
+        List<String> keys = keysByActivity.remove(activity);
+        if (keys != null) {
+            firebaseService.releaseSubscriptions(keys);
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package services;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import interfaces.QueryMirror;
+
+/**
+ * Reference counted snapshot listeners on database queries, feeding the ModelStores.
+ * Screens acquire the queries they need under a key and release them when they stop, so a query
+ * shared by several activities is only listened to once. A query that is no longer acquired is
+ * detached after a short delay, so switching between activities doesn't restart its listener.
+ * Several queries can feed the same store, a document is only removed from the store once no
+ * attached query matches it anymore. Detaching a query doesn't remove its documents, as the views
+ * built on the store would take that for deletions. They are kept as stale documents of the query
+ * instead, and the ones it no longer matches are removed once it is acquired again. They are not
+ * evicted on a timer: an eviction would reach the views as a deletion, and screens coming back to
+ * a query rely on its old documents showing until the listener answers. Their number is bounded
+ * by the documents of the queries acquired during the session, and they are forgotten on sign out,
+ * see detachAll.
+ * A query can also be mirrored, for example on the device, with the snapshots that come from the
+ * server. Documents restored from such a copy are held as stale documents of the query too, until
+ * the server answers it.
+ * Must be used from the main thread, which is also where the snapshot listeners are called.
+ */
+public class SubscriptionManager {
+    private static final String LOG_TAG = "[SubscriptionManager]";
+    // Time a query stays attached after its last release
+    public static final long IDLE_DETACH_DELAY_MS = 30_000;
+
+    private final Map<String, Subscription<?>> subscriptions = new HashMap<>();
+    // Store -> document ID -> number of attached queries matching the document
+    private final Map<ModelStore<?>, Map<String, Integer>> documentCounts = new HashMap<>();
+    // Query key -> documents kept in the store after the query was detached
+    private final Map<String, StaleDocuments> staleDocuments = new HashMap<>();
+    private Handler handler;
+
+    public SubscriptionManager() {
+    }
+
+    // Constructor for tests, delayed detaches are posted to the given handler
+    SubscriptionManager(@NonNull Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Listens to a query under the given key, unless it is already being listened to.
+     * Every call must be matched by a call to release with the same key.
+     * @param key       Identifies the query, queries with the same key are considered equal
+     * @param query     The query to listen to
+     * @param store     The store receiving the documents matching the query
+     * @param converter Converts a document into its model
+     */
+    public <T> void acquire(@NonNull String key, @NonNull Query query,
+                            @NonNull ModelStore<T> store,
+                            @NonNull Function<DocumentSnapshot, T> converter) {
+        acquire(key, query, store, converter, null);
+    }
+
+    /**
+     * See acquire, the mirror is only used if the query isn't already being listened to.
+     * @param mirror Receives the documents from the snapshots confirmed by the server
+     */
+    public <T> void acquire(@NonNull String key, @NonNull Query query,
+                            @NonNull ModelStore<T> store,
+                            @NonNull Function<DocumentSnapshot, T> converter,
+                            @Nullable QueryMirror<T> mirror) {
+        Subscription<?> subscription = subscriptions.get(key);
+        if (subscription == null) {
+            Subscription<T> created = new Subscription<>(key, store, converter, mirror);
+            StaleDocuments stale = staleDocuments.remove(key);
+            if (stale != null) {
+                created.staleIds.addAll(stale.documentIds);
+            }
+            // Metadata changes are included so the listener hears when the server confirms a
+            // snapshot that came from the cache, even if no document changed
+            created.registration = query.addSnapshotListener(MetadataChanges.INCLUDE, (data, error) -> {
+                if (error != null) {
+                    Log.e(LOG_TAG, String.format("Listener of %s failed", key), error);
+                }
+                if (data != null && subscriptions.get(key) == created) {
+                    applyDocumentChanges(created, data);
+                }
+            });
+            subscriptions.put(key, created);
+            subscription = created;
+            Log.i(LOG_TAG, String.format("Attached %s", key));
+        } else if (subscription.pendingDetach != null) {
+            getHandler().removeCallbacks(subscription.pendingDetach);
+            subscription.pendingDetach = null;
+        }
+        subscription.references++;
+    }
+
+    /**
+     * Releases a query acquired with the given key. The query is detached after
+     * IDLE_DETACH_DELAY_MS if nothing acquires it again in the meantime.
+     */
+    public void release(@NonNull String key) {
+        Subscription<?> subscription = subscriptions.get(key);
+        if (subscription == null || subscription.references == 0) {
+            Log.w(LOG_TAG, String.format("Released %s more times than it was acquired", key));
+            return;
+        }
+        subscription.references--;
+        if (subscription.references == 0) {
+            subscription.pendingDetach = () -> detach(subscription);
+            getHandler().postDelayed(subscription.pendingDetach, IDLE_DETACH_DELAY_MS);
+        }
+    }
+
+    /**
+     * Puts documents kept outside of the database, for example on the device, in the store as
+     * stale documents of the query under the key. Documents already in the store are left as they
+     * are, and nothing is restored once the server answered the query. The restored documents the
+     * first snapshot from the server doesn't match are removed again, unless another query
+     * matches them.
+     * @param key    Key the query is or will be acquired with
+     * @param store  The store the query feeds
+     * @param models The documents to restore, by ID
+     */
+    public <T> void restore(@NonNull String key, @NonNull ModelStore<T> store,
+                            @NonNull Map<String, T> models) {
+        Subscription<?> subscription = subscriptions.get(key);
+        Set<String> staleIds;
+        if (subscription != null) {
+            if (subscription.synced || subscription.store != store) {
+                return;
+            }
+            staleIds = subscription.staleIds;
+        } else {
+            StaleDocuments stale = staleDocuments.get(key);
+            if (stale == null) {
+                stale = new StaleDocuments(store);
+                staleDocuments.put(key, stale);
+            } else if (stale.store != store) {
+                return;
+            }
+            staleIds = stale.documentIds;
+        }
+
+        for (Map.Entry<String, T> model : models.entrySet()) {
+            if (!store.contains(model.getKey())) {
+                store.put(model.getKey(), model.getValue());
+                staleIds.add(model.getKey());
+            }
+        }
+        store.commit();
+    }
+
+    /**
+     * Detaches every query right away and forgets the documents they matched, for example when
+     * the user signs out. The documents are left in the stores, the caller clears them.
+     * Keys acquired before are no longer held, releasing them afterwards only logs a warning.
+     */
+    public void detachAll() {
+        for (Subscription<?> subscription : subscriptions.values()) {
+            if (subscription.pendingDetach != null) {
+                getHandler().removeCallbacks(subscription.pendingDetach);
+            }
+            subscription.registration.remove();
+        }
+        subscriptions.clear();
+        documentCounts.clear();
+        staleDocuments.clear();
+        Log.i(LOG_TAG, "Detached every query");
+    }
+
+    /**
+     * @return true if a listener is attached for the key, even if it is waiting to be detached
+     */
+    public boolean isAttached(@NonNull String key) {
+        return subscriptions.containsKey(key);
+    }
+
+    private <T> void detach(@NonNull Subscription<T> subscription) {
+        if (subscriptions.get(subscription.key) != subscription) {
+            return;
+        }
+        subscriptions.remove(subscription.key);
+        subscription.registration.remove();
+        // Documents no other attached query matches stay in the store as stale documents
+        StaleDocuments stale = new StaleDocuments(subscription.store);
+        stale.documentIds.addAll(subscription.staleIds);
+        for (String documentId : subscription.documentIds) {
+            if (dropReference(subscription.store, documentId)) {
+                stale.documentIds.add(documentId);
+            }
+        }
+        subscription.documentIds.clear();
+        if (!stale.documentIds.isEmpty()) {
+            staleDocuments.put(subscription.key, stale);
+        }
+        Log.i(LOG_TAG, String.format("Detached %s", subscription.key));
+    }
+
+    /**
+     * Applies the document changes of a snapshot to the store of the subscription and commits
+     * them, then passes them to the mirror of the subscription if they come from the server.
+     * Documents that fail to convert are logged and skipped instead of failing the whole
+     * snapshot.
+     */
+    private <T> void applyDocumentChanges(@NonNull Subscription<T> subscription,
+                                          @NonNull QuerySnapshot data) {
+        List<T> changed = new ArrayList<>();
+        List<String> removedIds = new ArrayList<>();
+        for (DocumentChange change : data.getDocumentChanges()) {
+            DocumentSnapshot documentSnapshot = change.getDocument();
+            String documentId = documentSnapshot.getId();
+            switch (change.getType()) {
+                case ADDED:
+                case MODIFIED:
+                    T model;
+                    try {
+                        model = subscription.converter.apply(documentSnapshot);
+                    } catch (Exception e) {
+                        Log.w(LOG_TAG, String.format("Failed to convert document %s, skipping it",
+                                documentId), e);
+                        break;
+                    }
+                    if (subscription.documentIds.add(documentId)) {
+                        reference(subscription.store, documentId);
+                    }
+                    subscription.store.put(documentId, model);
+                    changed.add(model);
+                    break;
+                case REMOVED:
+                    // The document was deleted or no longer matches the query
+                    if (subscription.documentIds.remove(documentId)) {
+                        unreference(subscription.store, documentId);
+                    }
+                    removedIds.add(documentId);
+                    break;
+            }
+        }
+        boolean fromServer = !data.getMetadata().isFromCache();
+        boolean firstFromServer = fromServer && !subscription.synced;
+        if (firstFromServer) {
+            subscription.synced = true;
+            // The cache may not hold every document of the query, only the server can tell
+            // which stale documents it no longer matches
+            removeUnmatchedStaleDocuments(subscription);
+        }
+        subscription.store.commit();
+
+        if (subscription.mirror == null || !fromServer) {
+            return;
+        }
+        if (firstFromServer) {
+            // Snapshots only hold the changes since the previous one, which may have come from
+            // the cache, so the first one from the server is mirrored in full
+            List<T> models = new ArrayList<>();
+            for (String documentId : subscription.documentIds) {
+                T model = subscription.store.get(documentId);
+                if (model != null) {
+                    models.add(model);
+                }
+            }
+            subscription.mirror.onSynced(models);
+        } else if (!changed.isEmpty() || !removedIds.isEmpty()) {
+            subscription.mirror.onChanged(changed, removedIds);
+        }
+    }
+
+    /**
+     * Removes the stale documents of the query that the first snapshot from the server doesn't
+     * match, unless another query still holds them.
+     */
+    private void removeUnmatchedStaleDocuments(@NonNull Subscription<?> subscription) {
+        Map<String, Integer> counts = documentCounts.get(subscription.store);
+        for (String documentId : subscription.staleIds) {
+            if (subscription.documentIds.contains(documentId)
+                    || (counts != null && counts.containsKey(documentId))
+                    || isStaleElsewhere(subscription.store, documentId)) {
+                continue;
+            }
+            subscription.store.remove(documentId);
+        }
+        subscription.staleIds.clear();
+    }
+
+    private boolean isStaleElsewhere(@NonNull ModelStore<?> store, @NonNull String documentId) {
+        for (StaleDocuments stale : staleDocuments.values()) {
+            if (stale.store == store && stale.documentIds.contains(documentId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void reference(@NonNull ModelStore<?> store, @NonNull String documentId) {
+        Map<String, Integer> counts = documentCounts.get(store);
+        if (counts == null) {
+            counts = new HashMap<>();
+            documentCounts.put(store, counts);
+        }
+        Integer count = counts.get(documentId);
+        counts.put(documentId, count == null ? 1 : count + 1);
+    }
+
+    /**
+     * Removes the document from the store once no attached query matches it.
+     */
+    private void unreference(@NonNull ModelStore<?> store, @NonNull String documentId) {
+        if (dropReference(store, documentId)) {
+            store.remove(documentId);
+        }
+    }
+
+    /**
+     * Drops one reference to the document.
+     * @return true if no attached query matches the document anymore
+     */
+    private boolean dropReference(@NonNull ModelStore<?> store, @NonNull String documentId) {
+        Map<String, Integer> counts = documentCounts.get(store);
+        Integer count = counts == null ? null : counts.get(documentId);
+        if (count == null || count <= 1) {
+            if (counts != null) {
+                counts.remove(documentId);
+            }
+            return true;
+        }
+        counts.put(documentId, count - 1);
+        return false;
+    }
+
+    private Handler getHandler() {
+        if (handler == null) {
+            handler = new Handler(Looper.getMainLooper());
+        }
+        return handler;
+    }
+
+    /**
+     * A query listened to under a key, with the documents it currently matches.
+     */
+    private static class Subscription<T> {
+        private final String key;
+        private final ModelStore<T> store;
+        private final Function<DocumentSnapshot, T> converter;
+        private final QueryMirror<T> mirror;
+        private final Set<String> documentIds = new HashSet<>();
+        // Documents kept from the previous listener of the query or restored, until the first
+        // snapshot from the server
+        private final Set<String> staleIds = new HashSet<>();
+        private ListenerRegistration registration;
+        private Runnable pendingDetach;
+        private int references = 0;
+        // Whether a snapshot from the server was applied
+        private boolean synced = false;
+
+        private Subscription(@NonNull String key, @NonNull ModelStore<T> store,
+                             @NonNull Function<DocumentSnapshot, T> converter,
+                             @Nullable QueryMirror<T> mirror) {
+            this.key = key;
+            this.store = store;
+            this.converter = converter;
+            this.mirror = mirror;
+        }
+    }
+
+    /**
+     * Documents of a detached or not yet acquired query that were kept in the store.
+     */
+    private static class StaleDocuments {
+        private final ModelStore<?> store;
+        private final Set<String> documentIds = new HashSet<>();
+
+        private StaleDocuments(@NonNull ModelStore<?> store) {
+            this.store = store;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package services;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import interfaces.ModelChangeListener;
+import interfaces.ModelListCallback;
+import models.EventModel;
+import models.ModelChangeSet;
+import models.OnWaitingListModel;
+import models.UserWaitlistEntry;
+
+/**
+ * Materialized view of the waiting lists of a single user: the status of the user for each event
+ * they are on the waiting list of, joined with the event. The view is updated from the deltas of
+ * the onWaitingList and events stores, so each change only touches the entries it affects instead
+ * of re-joining every waitlist row against every event.
+ * The view keeps the events it joined, the events store only updates them. Events leave the store
+ * whenever its listeners are detached, so a removal from the store doesn't clear them.
+ */
+public class UserWaitlistView {
+    private final String userId;
+    private final WaitlistIndex waitlistIndex;
+    private final ModelStore<OnWaitingListModel> onWaitingListStore;
+    private final ModelStore<EventModel> eventsStore;
+    // Loads events that aren't in the events store yet, by ID. May call back more than once, for
+    // example with the copies kept on the device before the downloaded ones
+    private final BiConsumer<List<String>, ModelListCallback<EventModel>> eventLoader;
+
+    private final Map<String, UserWaitlistEntry> entriesByEvent = new LinkedHashMap<>();
+    // IDs of the events loaded with the eventLoader, forgotten when their entry is removed so
+    // they are loaded again if the entry comes back
+    private final Set<String> requestedEventIds = new HashSet<>();
+    private MutableLiveData<ArrayList<UserWaitlistEntry>> entriesLiveData;
+
+    private final ModelChangeListener<OnWaitingListModel> waitlistListener = this::onWaitlistChanged;
+    private final ModelChangeListener<EventModel> eventListener = this::onEventsChanged;
+
+    /**
+     * @param waitlistIndex Index of the onWaitingList rows, must be registered on the store
+     *                      before the view is started so it is updated first
+     */
+    public UserWaitlistView(@NonNull String userId,
+                            @NonNull WaitlistIndex waitlistIndex,
+                            @NonNull ModelStore<OnWaitingListModel> onWaitingListStore,
+                            @NonNull ModelStore<EventModel> eventsStore,
+                            @NonNull BiConsumer<List<String>, ModelListCallback<EventModel>> eventLoader) {
+        this.userId = userId;
+        this.waitlistIndex = waitlistIndex;
+        this.onWaitingListStore = onWaitingListStore;
+        this.eventsStore = eventsStore;
+        this.eventLoader = eventLoader;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * Builds the view from the rows of the user and starts following the stores.
+     */
+    public void start() {
+        synchronized (this) {
+            for (OnWaitingListModel row : waitlistIndex.getEntriesOfUser(userId)) {
+                refreshEntry(row.getEventId());
+            }
+        }
+        onWaitingListStore.addChangeListener(waitlistListener);
+        eventsStore.addChangeListener(eventListener);
+        loadMissingEvents();
+        publish();
+    }
+
+    /**
+     * Stops following the stores.
+     */
+    public void stop() {
+        onWaitingListStore.removeChangeListener(waitlistListener);
+        eventsStore.removeChangeListener(eventListener);
+    }
+
+    /**
+     * @return The entries of the user, in the order they were first seen. Posted again whenever
+     * an entry changes.
+     */
+    public synchronized MutableLiveData<ArrayList<UserWaitlistEntry>> getEntriesLiveData() {
+        if (entriesLiveData == null) {
+            entriesLiveData = new MutableLiveData<>(new ArrayList<>(entriesByEvent.values()));
+        }
+        return entriesLiveData;
+    }
+
+    /**
+     * @return A copy of the current entries of the user
+     */
+    public synchronized ArrayList<UserWaitlistEntry> getEntries() {
+        return new ArrayList<>(entriesByEvent.values());
+    }
+
+    private void onWaitlistChanged(ModelChangeSet<OnWaitingListModel> changes) {
+        boolean changed = false;
+        synchronized (this) {
+            for (OnWaitingListModel row : changes.getRemoved()) {
+                changed |= userId.equals(row.getUserId()) && refreshEntry(row.getEventId());
+            }
+            for (OnWaitingListModel row : changes.getAdded()) {
+                changed |= userId.equals(row.getUserId()) && refreshEntry(row.getEventId());
+            }
+            for (OnWaitingListModel row : changes.getModified()) {
+                changed |= userId.equals(row.getUserId()) && refreshEntry(row.getEventId());
+            }
+        }
+        if (changed) {
+            loadMissingEvents();
+            publish();
+        }
+    }
+
+    private void onEventsChanged(ModelChangeSet<EventModel> changes) {
+        boolean changed = false;
+        synchronized (this) {
+            for (EventModel event : changes.getAdded()) {
+                changed |= setEvent(event.getId(), event);
+            }
+            for (EventModel event : changes.getModified()) {
+                changed |= setEvent(event.getId(), event);
+            }
+        }
+        if (changed) {
+            publish();
+        }
+    }
+
+    /**
+     * Rebuilds the entry of an event from the waitlist row of the user, keeping the event it
+     * was already joined with.
+     * @return true if the entry changed
+     */
+    private boolean refreshEntry(@NonNull String eventId) {
+        OnWaitingListModel row = waitlistIndex.getEntry(eventId, userId);
+        UserWaitlistEntry previous = entriesByEvent.get(eventId);
+        if (row == null) {
+            requestedEventIds.remove(eventId);
+            return entriesByEvent.remove(eventId) != null;
+        }
+        if (previous != null && previous.getRowId().equals(row.getId())
+                && previous.getStatus() == row.getStatus()) {
+            return false;
+        }
+
+        EventModel event = previous != null ? previous.getEvent() : eventsStore.get(eventId);
+        entriesByEvent.put(eventId, new UserWaitlistEntry(eventId, row.getId(), row.getStatus(), event));
+        return true;
+    }
+
+    /**
+     * @return true if the event belongs to an entry of the user
+     */
+    private boolean setEvent(@NonNull String eventId, @NonNull EventModel event) {
+        UserWaitlistEntry previous = entriesByEvent.get(eventId);
+        if (previous == null) {
+            return false;
+        }
+        entriesByEvent.put(eventId,
+                new UserWaitlistEntry(eventId, previous.getRowId(), previous.getStatus(), event));
+        return true;
+    }
+
+    /**
+     * Loads the events of entries that weren't in the events store. An event is only requested
+     * again if its load didn't return it, or its entry was removed in the meantime.
+     */
+    private void loadMissingEvents() {
+        List<String> missingIds = new ArrayList<>();
+        synchronized (this) {
+            for (UserWaitlistEntry entry : entriesByEvent.values()) {
+                if (entry.getEvent() == null && requestedEventIds.add(entry.getEventId())) {
+                    missingIds.add(entry.getEventId());
+                }
+            }
+        }
+        if (missingIds.isEmpty()) {
+            return;
+        }
+
+        eventLoader.accept(missingIds, events -> {
+            boolean changed = false;
+            synchronized (this) {
+                for (EventModel event : events) {
+                    // Events that made it into the store since are kept up to date from there
+                    UserWaitlistEntry entry = entriesByEvent.get(event.getId());
+                    if (entry != null && !eventsStore.contains(event.getId())) {
+                        changed |= setEvent(event.getId(), event);
+                    }
+                }
+                for (String eventId : missingIds) {
+                    UserWaitlistEntry entry = entriesByEvent.get(eventId);
+                    if (entry == null || entry.getEvent() == null) {
+                        requestedEventIds.remove(eventId);
+                    }
+                }
+            }
+            if (changed) {
+                publish();
+            }
+        });
+    }
+
+    private void publish() {
+        MutableLiveData<ArrayList<UserWaitlistEntry>> liveData;
+        ArrayList<UserWaitlistEntry> entries;
+        synchronized (this) {
+            liveData = entriesLiveData;
+            entries = new ArrayList<>(entriesByEvent.values());
+        }
+        if (liveData != null) {
+            liveData.postValue(entries);
+        }
+    }
+}
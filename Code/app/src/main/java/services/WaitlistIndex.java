@@ -0,0 +1,194 @@
+package services;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import constants.DatabaseConstants;
+import interfaces.ModelChangeListener;
+import models.ModelChangeSet;
+import models.OnWaitingListModel;
+
+/**
+ * Indexes of the onWaitingList rows, kept in sync with the onWaitingList ModelStore.
+ * Rows are indexed by (eventId, userId), by eventId and by userId, and the number of rows of each
+ * status is tracked per event, so lookups don't need to scan every row in the system.
+ * The database can briefly hold duplicate rows for the same pair, in that case the row with the
+ * smallest ID is returned for the pair, which is the row the integrity sweep keeps.
+ */
+public class WaitlistIndex implements ModelChangeListener<OnWaitingListModel> {
+    private final Map<String, OnWaitingListModel> rowsById = new HashMap<>();
+    private final Map<String, Set<String>> rowIdsByPair = new HashMap<>();
+    private final Map<String, Set<String>> rowIdsByEvent = new HashMap<>();
+    private final Map<String, Set<String>> rowIdsByUser = new HashMap<>();
+    private final Map<String, EnumMap<DatabaseConstants.ON_WAITING_LIST_STATUS, Integer>> statusCountsByEvent
+            = new HashMap<>();
+
+    @Override
+    public synchronized void onChanged(ModelChangeSet<OnWaitingListModel> changes) {
+        for (OnWaitingListModel removed : changes.getRemoved()) {
+            unindex(removed.getId());
+        }
+        for (OnWaitingListModel added : changes.getAdded()) {
+            unindex(added.getId());
+            index(added);
+        }
+        for (OnWaitingListModel modified : changes.getModified()) {
+            unindex(modified.getId());
+            index(modified);
+        }
+    }
+
+    /**
+     * @param eventId ID of the event
+     * @param userId  ID of the user
+     * @return The waitlist row of the user for the event, or null if there is none
+     */
+    @Nullable
+    public synchronized OnWaitingListModel getEntry(@NonNull String eventId, @NonNull String userId) {
+        Set<String> rowIds = rowIdsByPair.get(makePairKey(eventId, userId));
+        if (rowIds == null || rowIds.isEmpty()) {
+            return null;
+        }
+        // Duplicates are rare, so the set almost always holds a single ID
+        String keptId = null;
+        for (String rowId : rowIds) {
+            if (keptId == null || rowId.compareTo(keptId) < 0) {
+                keptId = rowId;
+            }
+        }
+        return rowsById.get(keptId);
+    }
+
+    /**
+     * @return Every waitlist row of the event
+     */
+    public synchronized ArrayList<OnWaitingListModel> getEntriesOfEvent(@NonNull String eventId) {
+        return collect(rowIdsByEvent.get(eventId));
+    }
+
+    /**
+     * @return Every waitlist row of the user
+     */
+    public synchronized ArrayList<OnWaitingListModel> getEntriesOfUser(@NonNull String userId) {
+        return collect(rowIdsByUser.get(userId));
+    }
+
+    /**
+     * @return Number of waitlist rows of the event, whatever their status
+     */
+    public synchronized int getEntryCount(@NonNull String eventId) {
+        Set<String> rowIds = rowIdsByEvent.get(eventId);
+        return rowIds == null ? 0 : rowIds.size();
+    }
+
+    /**
+     * @return Number of waitlist rows of the event with the given status
+     */
+    public synchronized int getStatusCount(@NonNull String eventId,
+                                           @NonNull DatabaseConstants.ON_WAITING_LIST_STATUS status) {
+        EnumMap<DatabaseConstants.ON_WAITING_LIST_STATUS, Integer> counts = statusCountsByEvent.get(eventId);
+        if (counts == null) {
+            return 0;
+        }
+        Integer count = counts.get(status);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * @return Copy of the number of waitlist rows of the event per status, statuses without rows
+     * are left out
+     */
+    public synchronized Map<DatabaseConstants.ON_WAITING_LIST_STATUS, Integer> getStatusCounts(@NonNull String eventId) {
+        EnumMap<DatabaseConstants.ON_WAITING_LIST_STATUS, Integer> counts = statusCountsByEvent.get(eventId);
+        if (counts == null) {
+            return Collections.emptyMap();
+        }
+        return new EnumMap<>(counts);
+    }
+
+    public synchronized int size() {
+        return rowsById.size();
+    }
+
+    private void index(OnWaitingListModel row) {
+        rowsById.put(row.getId(), row);
+        addTo(rowIdsByPair, makePairKey(row.getEventId(), row.getUserId()), row.getId());
+        addTo(rowIdsByEvent, row.getEventId(), row.getId());
+        addTo(rowIdsByUser, row.getUserId(), row.getId());
+
+        EnumMap<DatabaseConstants.ON_WAITING_LIST_STATUS, Integer> counts = statusCountsByEvent.get(row.getEventId());
+        if (counts == null) {
+            counts = new EnumMap<>(DatabaseConstants.ON_WAITING_LIST_STATUS.class);
+            statusCountsByEvent.put(row.getEventId(), counts);
+        }
+        Integer count = counts.get(row.getStatus());
+        counts.put(row.getStatus(), count == null ? 1 : count + 1);
+    }
+
+    private void unindex(String rowId) {
+        OnWaitingListModel row = rowsById.remove(rowId);
+        if (row == null) {
+            return;
+        }
+        removeFrom(rowIdsByPair, makePairKey(row.getEventId(), row.getUserId()), rowId);
+        removeFrom(rowIdsByEvent, row.getEventId(), rowId);
+        removeFrom(rowIdsByUser, row.getUserId(), rowId);
+
+        EnumMap<DatabaseConstants.ON_WAITING_LIST_STATUS, Integer> counts = statusCountsByEvent.get(row.getEventId());
+        if (counts == null) {
+            return;
+        }
+        Integer count = counts.get(row.getStatus());
+        if (count == null || count <= 1) {
+            counts.remove(row.getStatus());
+        } else {
+            counts.put(row.getStatus(), count - 1);
+        }
+        if (counts.isEmpty()) {
+            statusCountsByEvent.remove(row.getEventId());
+        }
+    }
+
+    private ArrayList<OnWaitingListModel> collect(@Nullable Set<String> rowIds) {
+        ArrayList<OnWaitingListModel> rows = new ArrayList<>();
+        if (rowIds == null) {
+            return rows;
+        }
+        for (String rowId : rowIds) {
+            rows.add(rowsById.get(rowId));
+        }
+        return rows;
+    }
+
+    private static void addTo(Map<String, Set<String>> index, String key, String rowId) {
+        Set<String> rowIds = index.get(key);
+        if (rowIds == null) {
+            rowIds = new LinkedHashSet<>();
+            index.put(key, rowIds);
+        }
+        rowIds.add(rowId);
+    }
+
+    private static void removeFrom(Map<String, Set<String>> index, String key, String rowId) {
+        Set<String> rowIds = index.get(key);
+        if (rowIds == null) {
+            return;
+        }
+        rowIds.remove(rowId);
+        if (rowIds.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static String makePairKey(String eventId, String userId) {
+        return eventId + "/" + userId;
+    }
+}
@@ -0,0 +1,165 @@
+package util;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Base64;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Shared, size bounded cache of decoded images.
+ * Images are stored in the models as encoded data and only decoded here the first time they are
+ * displayed, at the size they are displayed at. The cache is bounded by the byte size of the
+ * decoded bitmaps rather than by their count, and evicts the least recently used ones first.
+ */
+public class BitmapCache {
+    private static final String TAG = "[BitmapCache]";
+    // Use an eighth of the memory available to the app for decoded images
+    private static final int MAX_CACHE_BYTES = (int) Math.min(
+            Runtime.getRuntime().maxMemory() / 8, Integer.MAX_VALUE);
+
+    private static LruCache<String, Bitmap> cache;
+
+    /**
+     * Returns the decoded bitmap of the given Base64 image data, decoding and caching it if needed.
+     * The bitmap is subsampled so it is no smaller than the requested size, pass 0 for either
+     * dimension to decode at full size.
+     *
+     * @param ownerId    ID of the model the image belongs to, used to key the cache
+     * @param imageData  Base64 string of the encoded image
+     * @param reqWidth   Width the image will be displayed at in pixels
+     * @param reqHeight  Height the image will be displayed at in pixels
+     * @return The decoded bitmap, or null if there is no data or it could not be decoded
+     */
+    @Nullable
+    public static Bitmap getBitmap(@NonNull String ownerId, @Nullable String imageData,
+                                   int reqWidth, int reqHeight) {
+        if (imageData == null || imageData.isEmpty()) {
+            return null;
+        }
+
+        String key = makeKey(ownerId, imageData, reqWidth, reqHeight);
+        Bitmap cached = getCache().get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Bitmap bitmap;
+        try {
+            byte[] decodedBytes = Base64.decode(imageData, Base64.DEFAULT);
+            bitmap = decodeSampledBitmap(decodedBytes, reqWidth, reqHeight);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to decode image data", e);
+            return null;
+        }
+
+        if (bitmap != null) {
+            getCache().put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Returns the bitmap of Base64 image data if it was decoded earlier at the given size, without
+     * decoding anything. Cheap enough to call on the main thread.
+     * @param ownerId    ID of the model the image belongs to
+     * @param imageData  Base64 string of the encoded image
+     * @return The cached bitmap, or null if the image hasn't been decoded at this size
+     */
+    @Nullable
+    public static Bitmap getCached(@NonNull String ownerId, @Nullable String imageData,
+                                   int reqWidth, int reqHeight) {
+        if (imageData == null || imageData.isEmpty()) {
+            return null;
+        }
+        return getCache().get(makeKey(ownerId, imageData, reqWidth, reqHeight));
+    }
+
+    /**
+     * Returns a bitmap decoded earlier for an image reference, without decoding anything.
+     * @param imageRef  Reference of the image, such as a blob reference
+     * @return The cached bitmap, or null if the image hasn't been decoded at this size
+     */
+    @Nullable
+    public static Bitmap getCached(@NonNull String imageRef, int reqWidth, int reqHeight) {
+        return getCache().get(imageRef + "@" + reqWidth + "x" + reqHeight);
+    }
+
+    /**
+     * Caches a bitmap decoded for an image reference at the given size.
+     */
+    public static void put(@NonNull String imageRef, int reqWidth, int reqHeight, @NonNull Bitmap bitmap) {
+        getCache().put(imageRef + "@" + reqWidth + "x" + reqHeight, bitmap);
+    }
+
+    /**
+     * Removes every decoded bitmap from the cache.
+     */
+    public static void clear() {
+        getCache().evictAll();
+    }
+
+    /**
+     * Creates the cache the first time an image is actually decoded, so models without images
+     * never touch it.
+     */
+    private static synchronized LruCache<String, Bitmap> getCache() {
+        if (cache == null) {
+            cache = new LruCache<String, Bitmap>(MAX_CACHE_BYTES) {
+                @Override
+                protected int sizeOf(String key, Bitmap bitmap) {
+                    return bitmap.getByteCount();
+                }
+            };
+        }
+        return cache;
+    }
+
+    /**
+     * Decodes encoded image bytes, subsampling by the largest power of two that keeps the image
+     * at least as large as the requested size.
+     */
+    @Nullable
+    public static Bitmap decodeSampledBitmap(@NonNull byte[] bytes, int reqWidth, int reqHeight) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+
+        options.inSampleSize = calculateInSampleSize(
+                options.outWidth, options.outHeight, reqWidth, reqHeight);
+        options.inJustDecodeBounds = false;
+        return BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+    }
+
+    /**
+     * Calculates the power of two sample size used to decode an image of the given size so that
+     * it is still at least as large as the requested size.
+     *
+     * @return The sample size, 1 means no subsampling
+     */
+    public static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int inSampleSize = 1;
+        if (reqWidth <= 0 || reqHeight <= 0) {
+            return inSampleSize;
+        }
+
+        while ((width / (inSampleSize * 2)) >= reqWidth
+                && (height / (inSampleSize * 2)) >= reqHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * Builds the cache key of an image at a given size. The String hash code is computed once per
+     * string instance, so repeated lookups for the same model don't rehash the image data.
+     */
+    private static String makeKey(@NonNull String ownerId, @NonNull String imageData,
+                                  int reqWidth, int reqHeight) {
+        return ownerId + ":" + imageData.length() + ":" + imageData.hashCode()
+                + "@" + reqWidth + "x" + reqHeight;
+    }
+}
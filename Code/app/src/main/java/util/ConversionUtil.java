@@ -2,28 +2,106 @@ package util;
 
 import android.content.ContentResolver;
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
 import android.net.Uri;
-import android.provider.MediaStore;
-import android.util.Base64;
+import android.os.Build;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+
+import constants.ImageConstants;
 
 /**
  * Class containing helpers for conversions to unique formats.
  */
 public class ConversionUtil {
-    public static String convertUriToBase64(Uri uri, ContentResolver contentResolver) throws IOException {
-        String base64String;
+    /**
+     * Reads an image and encodes every rendition of it. The image is subsampled while it is
+     * decoded, so the full resolution bitmap is never held in memory, and each rendition is
+     * scaled down from the same decoded bitmap.
+     * @param uri             URI of the image
+     * @param contentResolver Resolver used to read the image
+     * @return The encoded bytes of each rendition
+     */
+    public static EnumMap<ImageConstants.IMAGE_RENDITION, byte[]> convertUriToRenditions(
+            Uri uri, ContentResolver contentResolver) throws IOException {
+        Bitmap source = decodeSampledUri(uri, contentResolver,
+                ImageConstants.IMAGE_RENDITION.FULL.getMaxEdge());
+
+        EnumMap<ImageConstants.IMAGE_RENDITION, byte[]> renditions =
+                new EnumMap<>(ImageConstants.IMAGE_RENDITION.class);
+        for (ImageConstants.IMAGE_RENDITION rendition : ImageConstants.IMAGE_RENDITION.values()) {
+            Bitmap scaled = scaleToFit(source, rendition.getMaxEdge());
+            renditions.put(rendition, compress(scaled, rendition));
+            if (scaled != source) {
+                scaled.recycle();
+            }
+        }
+        source.recycle();
+        return renditions;
+    }
+
+    /**
+     * Decodes an image subsampled by the largest power of two that keeps its longest edge at
+     * least maxEdge pixels long.
+     */
+    private static Bitmap decodeSampledUri(Uri uri, ContentResolver contentResolver, int maxEdge)
+            throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream inputStream = contentResolver.openInputStream(uri)) {
+            BitmapFactory.decodeStream(inputStream, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Failed to read the size of image " + uri);
+        }
+
+        int longestEdge = Math.max(options.outWidth, options.outHeight);
+        int reqWidth = Math.max(1, (int) ((long) options.outWidth * maxEdge / longestEdge));
+        int reqHeight = Math.max(1, (int) ((long) options.outHeight * maxEdge / longestEdge));
+        options.inSampleSize = BitmapCache.calculateInSampleSize(
+                options.outWidth, options.outHeight, reqWidth, reqHeight);
+        options.inJustDecodeBounds = false;
 
         Bitmap bitmap;
-        bitmap = MediaStore.Images.Media.getBitmap(contentResolver, uri);
+        try (InputStream inputStream = contentResolver.openInputStream(uri)) {
+            bitmap = BitmapFactory.decodeStream(inputStream, null, options);
+        }
+        if (bitmap == null) {
+            throw new IOException("Failed to decode image " + uri);
+        }
+        return bitmap;
+    }
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, 100, outputStream);
-        byte[] imageBytes = outputStream.toByteArray();
-        base64String = Base64.encodeToString(imageBytes, Base64.DEFAULT);
+    /**
+     * Scales a bitmap down so its longest edge is at most maxEdge pixels long.
+     * @return The scaled bitmap, or the bitmap itself if it is already small enough
+     */
+    private static Bitmap scaleToFit(Bitmap bitmap, int maxEdge) {
+        int longestEdge = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (longestEdge <= maxEdge) {
+            return bitmap;
+        }
+        float scale = (float) maxEdge / longestEdge;
+        return Bitmap.createScaledBitmap(bitmap,
+                Math.max(1, Math.round(bitmap.getWidth() * scale)),
+                Math.max(1, Math.round(bitmap.getHeight() * scale)),
+                true);
+    }
 
-        return base64String;
+    @SuppressWarnings("deprecation")
+    private static byte[] compress(Bitmap bitmap, ImageConstants.IMAGE_RENDITION rendition) {
+        Bitmap.CompressFormat format = Bitmap.CompressFormat.JPEG;
+        if (ImageConstants.CONTENT_TYPE_WEBP.equals(rendition.getContentType())) {
+            format = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                    ? Bitmap.CompressFormat.WEBP_LOSSY
+                    : Bitmap.CompressFormat.WEBP;
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        bitmap.compress(format, rendition.getQuality(), outputStream);
+        return outputStream.toByteArray();
     }
 }
@@ -0,0 +1,45 @@
+package util;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Contains helpers for the image references stored in the image field of events.
+ * A reference is one of:
+ * - "blob:" followed by the SHA-256 of the image, for images in the ImageStore
+ * - an http(s) URL, for images uploaded to a fixed Storage path by older versions
+ * - the Base64 encoded image itself, for images stored inline by older versions
+ */
+public class ImageRefUtil {
+    public static final String BLOB_PREFIX = "blob:";
+
+    /**
+     * @return The reference of a blob with the given content hash
+     */
+    public static String toBlobRef(@NonNull String contentHash) {
+        return BLOB_PREFIX + contentHash;
+    }
+
+    public static boolean isBlobRef(@Nullable String imageRef) {
+        return imageRef != null && imageRef.startsWith(BLOB_PREFIX);
+    }
+
+    /**
+     * @return The content hash of a blob reference
+     */
+    public static String getContentHash(@NonNull String blobRef) {
+        return blobRef.substring(BLOB_PREFIX.length());
+    }
+
+    public static boolean isUrl(@Nullable String imageRef) {
+        return imageRef != null
+                && (imageRef.startsWith("https://") || imageRef.startsWith("http://"));
+    }
+
+    /**
+     * @return true if the reference is an image stored inline as Base64
+     */
+    public static boolean isInline(@Nullable String imageRef) {
+        return imageRef != null && !imageRef.isEmpty() && !isBlobRef(imageRef) && !isUrl(imageRef);
+    }
+}
@@ -0,0 +1,124 @@
+package util;
+
+import android.graphics.Bitmap;
+import android.util.DisplayMetrics;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Glide;
+import com.example.konoha_events.R;
+
+import interfaces.HasImage;
+import services.FirebaseService;
+
+/**
+ * Contains helpers for displaying the images of models in views.
+ */
+public class ImageUtil {
+    /**
+     * Displays the image of a model in an ImageView. The image is decoded at the size of the view
+     * rather than at full size, and reused from the BitmapCache on later binds. Images are
+     * decoded or downloaded in the background, the placeholder is shown meanwhile.
+     *
+     * @param imageView      The view to display the image in
+     * @param hasImage       The model whose image should be displayed
+     * @param placeholderRes Drawable shown when there is no image, or 0 to clear the view
+     * @return true if the model had an image that was displayed or is being loaded
+     */
+    public static boolean loadInto(@NonNull ImageView imageView,
+                                   @Nullable HasImage hasImage,
+                                   @DrawableRes int placeholderRes) {
+        String imageRef = hasImage != null && hasImage.hasImage() ? hasImage.getImageData() : null;
+        // Recycled views may still have a load of their previous image in flight
+        imageView.setTag(R.id.image_request_ref, imageRef);
+
+        if (ImageRefUtil.isUrl(imageRef)) {
+            int[] size = getTargetSize(imageView);
+            Glide.with(imageView)
+                    .load(imageRef)
+                    .override(size[0], size[1])
+                    .placeholder(placeholderRes)
+                    .into(imageView);
+            return true;
+        }
+        Glide.with(imageView).clear(imageView);
+
+        if (ImageRefUtil.isBlobRef(imageRef)) {
+            int[] size = getTargetSize(imageView);
+            Bitmap cached = BitmapCache.getCached(imageRef, size[0], size[1]);
+            if (cached != null) {
+                imageView.setImageBitmap(cached);
+                return true;
+            }
+
+            showPlaceholder(imageView, placeholderRes);
+            FirebaseService.firebaseService.getImageStore().loadBitmap(imageRef, size[0], size[1], bitmap -> {
+                if (bitmap != null && imageRef.equals(imageView.getTag(R.id.image_request_ref))) {
+                    imageView.setImageBitmap(bitmap);
+                }
+            });
+            return true;
+        }
+
+        if (ImageRefUtil.isInline(imageRef)) {
+            int[] size = getTargetSize(imageView);
+            Bitmap cached = BitmapCache.getCached(hasImage.getId(), imageRef, size[0], size[1]);
+            if (cached != null) {
+                imageView.setImageBitmap(cached);
+                return true;
+            }
+
+            // Decoding Base64 posters takes long enough to drop frames while scrolling
+            showPlaceholder(imageView, placeholderRes);
+            FirebaseService.firebaseService.getImageStore().loadInlineBitmap(
+                    hasImage.getId(), imageRef, size[0], size[1], bitmap -> {
+                        if (bitmap != null && imageRef.equals(imageView.getTag(R.id.image_request_ref))) {
+                            imageView.setImageBitmap(bitmap);
+                        }
+                    });
+            return true;
+        }
+
+        showPlaceholder(imageView, placeholderRes);
+        return false;
+    }
+
+    private static void showPlaceholder(@NonNull ImageView imageView, @DrawableRes int placeholderRes) {
+        if (placeholderRes != 0) {
+            imageView.setImageResource(placeholderRes);
+        } else {
+            imageView.setImageDrawable(null);
+        }
+    }
+
+    /**
+     * Works out the pixel size an image should be decoded at for a view. Uses the measured size if
+     * the view has been laid out, then its fixed layout size, then the screen width.
+     * @return Array of {width, height}
+     */
+    public static int[] getTargetSize(@NonNull ImageView imageView) {
+        int width = imageView.getWidth();
+        int height = imageView.getHeight();
+
+        ViewGroup.LayoutParams layoutParams = imageView.getLayoutParams();
+        if (width <= 0 && layoutParams != null && layoutParams.width > 0) {
+            width = layoutParams.width;
+        }
+        if (height <= 0 && layoutParams != null && layoutParams.height > 0) {
+            height = layoutParams.height;
+        }
+
+        DisplayMetrics displayMetrics = imageView.getResources().getDisplayMetrics();
+        if (width <= 0) {
+            width = displayMetrics.widthPixels;
+        }
+        if (height <= 0) {
+            height = width;
+        }
+        return new int[]{width, height};
+    }
+}
@@ -1,15 +1,15 @@
 package util;
 
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.util.Base64;
 import android.util.Log;
 
 import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.DocumentSnapshot;
 
 import java.sql.Time;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 
 import constants.DatabaseConstants;
@@ -29,17 +29,8 @@ public class ModelUtil {
      * @return  EventModel built from the documentSnapshot
      */
         public static EventModel toEventModel(DocumentSnapshot documentSnapshot) {
-            // Get the bitmap from base64 string of image
+            // Keep the base64 string of the image as is, it is only decoded when displayed
             String imageDataString = documentSnapshot.getString(DatabaseConstants.COLLECTION_EVENTS_IMAGE_DATA_FIELD);
-            Bitmap imageBitmap = null;
-            if (imageDataString != null && !imageDataString.isEmpty()) {
-                try {
-                    byte[] decodedBytes = Base64.decode(imageDataString, Base64.DEFAULT);
-                    imageBitmap = BitmapFactory.decodeByteArray(decodedBytes, 0, decodedBytes.length);
-                } catch (Exception e) {
-                    Log.e(ModelUtil.TAG, "Failed to decode image data for event ID: " + documentSnapshot.getId());
-                }
-            }
 
             Long entrantLimitLong = documentSnapshot.getLong(DatabaseConstants.COLLECTION_EVENTS_ENTRANT_LIMIT_FIELD);
             Integer entrantLimit = entrantLimitLong != null ? entrantLimitLong.intValue() : null;
@@ -57,7 +48,7 @@ public class ModelUtil {
                     .id(documentSnapshot.getId())
                     .organizerId(Objects.requireNonNull(
                             documentSnapshot.getString(DatabaseConstants.COLLECTION_EVENTS_ORGANIZER_ID_FIELD)))
-                    .imageBitmap(imageBitmap)
+                    .imageData(imageDataString)
                     .eventTitle(documentSnapshot.getString(DatabaseConstants.COLLECTION_EVENTS_TITLE_FIELD))
                     .description(documentSnapshot.getString(DatabaseConstants.COLLECTION_EVENTS_DESCRIPTION_FIELD))
                     .deviceId(documentSnapshot.getString(DatabaseConstants.COLLECTION_USERS_DEVICE_ID_FIELD))
@@ -86,6 +77,8 @@ public class ModelUtil {
                 .userType(DatabaseConstants.USER_TYPE.valueOf(
                         documentSnapshot.getString(DatabaseConstants.COLLECTION_USERS_USER_TYPE_FIELD)))
                 .deviceId(documentSnapshot.getString(DatabaseConstants.COLLECTION_USERS_DEVICE_ID_FIELD))
+                .notificationsOptOut(
+                        documentSnapshot.getBoolean(DatabaseConstants.COLLECTION_USERS_NOTIFICATIONS_OPT_OUT_FIELD))
                 .build();
     }
 
@@ -112,7 +105,10 @@ public class ModelUtil {
     }
 
     public static NotificationModel toNotificationModel(DocumentSnapshot documentSnapshot) {
-        Timestamp timestamp = documentSnapshot.getTimestamp(DatabaseConstants.COLLECTION_NOTIFICATIONS_DATE_CREATED_FIELD);
+        // The creation date is set by the server, writes it hasn't confirmed yet use an estimate
+        Timestamp timestamp = documentSnapshot.getTimestamp(
+                DatabaseConstants.COLLECTION_NOTIFICATIONS_DATE_CREATED_FIELD,
+                DocumentSnapshot.ServerTimestampBehavior.ESTIMATE);
         Date dateCreated = timestamp != null ? timestamp.toDate() : null;
 
         return NotificationModel.builder()
@@ -129,7 +125,53 @@ public class ModelUtil {
                 .build();
     }
 
-    private static DatabaseConstants.ON_WAITING_LIST_STATUS parseOnWaitingListStatus(String value) {
+    /**
+     * Values a status may be stored as: its name in upper, lower and capitalized case, and the
+     * legacy one letter codes. Query the status field with whereIn over these to match the rows
+     * that are read as the status. Rows without a status, or with an unknown one, are read as
+     * WAITING but can't be matched by a query.
+     * @param status The status
+     * @return Every stored spelling of the status
+     */
+    public static List<String> getStoredStatusValues(DatabaseConstants.ON_WAITING_LIST_STATUS status) {
+        String name = status.name();
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        List<String> values = new ArrayList<>();
+        values.add(name);
+        values.add(lowerName);
+        values.add(name.charAt(0) + lowerName.substring(1));
+        String code = getLegacyStatusCode(status);
+        if (code != null) {
+            values.add(code);
+            values.add(code.toUpperCase(Locale.ROOT));
+        }
+        return values;
+    }
+
+    private static String getLegacyStatusCode(DatabaseConstants.ON_WAITING_LIST_STATUS status) {
+        switch (status) {
+            case WAITING:
+                return "p";
+            case ACCEPTED:
+                return "a";
+            case DECLINED:
+                return "d";
+            case CANCELLED:
+                return "c";
+            case NULL:
+                return "n";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Reads a stored status, legacy codes and lowercase names included. Rows without a status or
+     * with an unknown one are read as WAITING.
+     * @param value The stored status, may be null
+     * @return The status
+     */
+    public static DatabaseConstants.ON_WAITING_LIST_STATUS parseOnWaitingListStatus(String value) {
         if (value == null) {
             return DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING;
         }
@@ -150,7 +192,11 @@ public class ModelUtil {
                 case "n":
                     return DatabaseConstants.ON_WAITING_LIST_STATUS.NULL;
                 default:
-                    return DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING;
+                    try {
+                        return DatabaseConstants.ON_WAITING_LIST_STATUS.valueOf(value.toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException unknown) {
+                        return DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING;
+                    }
             }
         }
     }
@@ -1,21 +1,51 @@
 package util;
 
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
 import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.WriterException;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import interfaces.BitmapCallback;
+import interfaces.BlobStore;
+
 /**
  * QRCodeUtil
  * ----------------------
- * Utility class for generating QR code data and bitmap images
+ * Utility class for generating QR code data and bitmap images.
+ * Codes are encoded at one pixel per module and scaled up into a pixel buffer a row at a time.
+ * Rendered bitmaps are kept in the BitmapCache, and as PNGs in a disk cache when one is set.
  */
 public class QRCodeUtil {
+    private static final String LOG_TAG = "[QRCodeUtil]";
+    private static final String CONTENT_TYPE_PNG = "image/png";
+    private static final ExecutorService renderExecutor = Executors.newSingleThreadExecutor();
+    private static Handler mainHandler;
+    @Nullable
+    private static BlobStore diskCache;
+
+    /**
+     * Sets where rendered QR codes are kept across app restarts, or null to only keep them in
+     * memory.
+     */
+    public static synchronized void setDiskCache(@Nullable BlobStore cache) {
+        diskCache = cache;
+    }
 
     /**
      * Generates unique QR code data for an event
@@ -46,6 +76,14 @@ public class QRCodeUtil {
         return qrCodeData;
     }
 
+    /**
+     * @return true if the scanned data is in the format of the event QR codes of the app
+     */
+    public static boolean isEventQRCodeData(String qrCodeData) {
+        return qrCodeData != null && qrCodeData.startsWith("konoha://event/")
+                && qrCodeData.length() > "konoha://event/".length();
+    }
+
     /**
      * Generate a QR code bitmap from QR code data string
      *
@@ -54,28 +92,155 @@ public class QRCodeUtil {
      * @return Bitmap of the QR code
      */
     public static Bitmap generateQRCodeBitmap(String qrCodeData, int size) {
-        if (qrCodeData == null || qrCodeData.isEmpty()) {
+        return generateQRCodeBitmap(qrCodeData, size, Color.BLACK, Color.WHITE);
+    }
+
+    /**
+     * Generate a QR code bitmap with the given colors, from the memory cache if it was rendered
+     * before. Doesn't touch the disk cache, see loadQRCodeBitmap.
+     *
+     * @param qrCodeData The data to encode
+     * @param size The size of the QR code in pixels (width and height)
+     * @param foreground Color of the dark modules
+     * @param background Color of the light modules and the quiet zone
+     * @return Bitmap of the QR code, or null if the data can't be encoded
+     */
+    public static Bitmap generateQRCodeBitmap(String qrCodeData, int size,
+                                              int foreground, int background) {
+        if (qrCodeData == null || qrCodeData.isEmpty() || size <= 0) {
             return null;
         }
 
-        try {
-            QRCodeWriter writer = new QRCodeWriter();
-            BitMatrix bitMatrix = writer.encode(qrCodeData, BarcodeFormat.QR_CODE, size, size);
+        String key = getCacheKey(qrCodeData, size, foreground, background);
+        Bitmap cached = BitmapCache.getCached(key, size, size);
+        if (cached != null) {
+            return cached;
+        }
+
+        Bitmap bitmap = renderBitmap(qrCodeData, size, foreground, background);
+        if (bitmap != null) {
+            BitmapCache.put(key, size, size, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Loads a QR code bitmap off the main thread, from the memory cache, then the disk cache,
+     * and only renders it if neither has it.
+     *
+     * @param callback Called on the main thread with the bitmap, or null if the data can't be
+     *                 encoded. Called right away if the bitmap is in memory.
+     */
+    public static void loadQRCodeBitmap(String qrCodeData, int size, int foreground, int background,
+                                        @NonNull BitmapCallback callback) {
+        if (qrCodeData == null || qrCodeData.isEmpty() || size <= 0) {
+            callback.onCompleted(null);
+            return;
+        }
 
-            Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.RGB_565);
+        String key = getCacheKey(qrCodeData, size, foreground, background);
+        Bitmap cached = BitmapCache.getCached(key, size, size);
+        if (cached != null) {
+            callback.onCompleted(cached);
+            return;
+        }
 
-            for (int x = 0; x < size; x++) {
-                for (int y = 0; y < size; y++) {
-                    bitmap.setPixel(x, y, bitMatrix.get(x, y) ? Color.BLACK : Color.WHITE);
+        BlobStore disk;
+        synchronized (QRCodeUtil.class) {
+            disk = diskCache;
+        }
+        renderExecutor.execute(() -> {
+            Bitmap[] bitmap = new Bitmap[1];
+            if (disk != null) {
+                disk.get(key, data -> {
+                    if (data != null) {
+                        bitmap[0] = BitmapFactory.decodeByteArray(data, 0, data.length);
+                    }
+                });
+            }
+            if (bitmap[0] == null) {
+                bitmap[0] = renderBitmap(qrCodeData, size, foreground, background);
+                if (bitmap[0] != null && disk != null) {
+                    ByteArrayOutputStream png = new ByteArrayOutputStream();
+                    bitmap[0].compress(Bitmap.CompressFormat.PNG, 100, png);
+                    disk.put(key, png.toByteArray(), CONTENT_TYPE_PNG, succeeded -> {});
                 }
             }
+            if (bitmap[0] != null) {
+                BitmapCache.put(key, size, size, bitmap[0]);
+            }
+            getMainHandler().post(() -> callback.onCompleted(bitmap[0]));
+        });
+    }
 
-            return bitmap;
-
+    @Nullable
+    private static Bitmap renderBitmap(@NonNull String qrCodeData, int size,
+                                       int foreground, int background) {
+        BitMatrix modules;
+        try {
+            modules = encodeModules(qrCodeData);
         } catch (WriterException e) {
-            e.printStackTrace();
+            Log.e(LOG_TAG, "Failed to encode QR code", e);
             return null;
         }
+
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.RGB_565);
+        bitmap.setPixels(renderPixels(modules, size, foreground, background), 0, size, 0, 0, size, size);
+        return bitmap;
+    }
+
+    /**
+     * Encodes data at one bit per module, including the quiet zone around the code.
+     */
+    static BitMatrix encodeModules(@NonNull String qrCodeData) throws WriterException {
+        return new QRCodeWriter().encode(qrCodeData, BarcodeFormat.QR_CODE, 0, 0);
+    }
+
+    /**
+     * Scales the modules up by the largest whole number that fits the size, centered on the
+     * background like the zxing writer does. Each module row is filled once into a row buffer
+     * and copied to every pixel row it covers.
+     *
+     * @return Colors of the size by size pixels, row by row
+     */
+    static int[] renderPixels(@NonNull BitMatrix modules, int size, int foreground, int background) {
+        int inputWidth = modules.getWidth();
+        int inputHeight = modules.getHeight();
+        int multiple = Math.max(1, Math.min(size / inputWidth, size / inputHeight));
+        int left = (size - inputWidth * multiple) / 2;
+        int top = (size - inputHeight * multiple) / 2;
+
+        int[] pixels = new int[size * size];
+        Arrays.fill(pixels, background);
+        int[] row = new int[size];
+        for (int moduleY = 0; moduleY < inputHeight; moduleY++) {
+            Arrays.fill(row, background);
+            for (int moduleX = 0; moduleX < inputWidth; moduleX++) {
+                if (modules.get(moduleX, moduleY)) {
+                    int x = left + moduleX * multiple;
+                    Arrays.fill(row, Math.min(size, Math.max(0, x)),
+                            Math.max(0, Math.min(size, x + multiple)), foreground);
+                }
+            }
+            for (int y = top + moduleY * multiple; y < top + (moduleY + 1) * multiple; y++) {
+                if (y >= 0 && y < size) {
+                    System.arraycopy(row, 0, pixels, y * size, size);
+                }
+            }
+        }
+        return pixels;
+    }
+
+    static String getCacheKey(@NonNull String qrCodeData, int size, int foreground, int background) {
+        String description = qrCodeData + "|" + size + "|" + foreground + "|" + background;
+        return "qr_" + HashUtil.sha256Hex(description.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static synchronized Handler getMainHandler() {
+        if (mainHandler == null) {
+            mainHandler = new Handler(Looper.getMainLooper());
+        }
+        return mainHandler;
     }
 
     /**
@@ -0,0 +1,172 @@
+package util;
+
+import androidx.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Decides which camera frames are passed to the QR code detector, and what part of them.
+ * Only a centered region of each frame is analyzed, and frames are throttled so the detector is
+ * busy for at most about half of the time, based on a moving average of how long it takes.
+ * Also keeps the scan latency metrics: the detector latency and the time to the first detection.
+ */
+public class QRScanPipeline {
+    // Fraction of the width and height of the frame at the center that is analyzed
+    public static final float DEFAULT_REGION_FRACTION = 0.6f;
+    public static final long DEFAULT_MIN_FRAME_INTERVAL_MS = 50;
+    public static final long DEFAULT_MAX_FRAME_INTERVAL_MS = 500;
+    // Weight of the newest detector latency in the moving average
+    private static final double LATENCY_SMOOTHING = 0.2;
+    // Fraction of the time the detector may be busy
+    private static final double TARGET_DUTY_CYCLE = 0.5;
+    // Value of the chroma bytes of a gray pixel
+    private static final byte NEUTRAL_CHROMA = (byte) 128;
+
+    private final float regionFraction;
+    private final long minFrameIntervalMs;
+    private final long maxFrameIntervalMs;
+
+    private long startedAtMs = -1;
+    private long lastFrameAtMs = -1;
+    private double averageLatencyMs = -1;
+    private long timeToFirstDetectionMs = -1;
+    private int framesAnalyzed = 0;
+    private int framesSkipped = 0;
+
+    public QRScanPipeline() {
+        this(DEFAULT_REGION_FRACTION, DEFAULT_MIN_FRAME_INTERVAL_MS, DEFAULT_MAX_FRAME_INTERVAL_MS);
+    }
+
+    /**
+     * @param regionFraction     Fraction of the width and height of the frame to analyze, 1 for
+     *                           the whole frame
+     * @param minFrameIntervalMs Shortest time between the start of two analyzed frames
+     * @param maxFrameIntervalMs Longest time between the start of two analyzed frames, however
+     *                           slow the detector is
+     */
+    public QRScanPipeline(float regionFraction, long minFrameIntervalMs, long maxFrameIntervalMs) {
+        if (regionFraction <= 0 || regionFraction > 1) {
+            throw new IllegalArgumentException("regionFraction must be in (0, 1]");
+        }
+        this.regionFraction = regionFraction;
+        this.minFrameIntervalMs = minFrameIntervalMs;
+        this.maxFrameIntervalMs = Math.max(minFrameIntervalMs, maxFrameIntervalMs);
+    }
+
+    /**
+     * Starts measuring the time to the first detection.
+     */
+    public synchronized void start(long nowMs) {
+        startedAtMs = nowMs;
+        timeToFirstDetectionMs = -1;
+    }
+
+    /**
+     * @return true if the frame should be analyzed, false if it should be dropped
+     */
+    public synchronized boolean shouldAnalyze(long nowMs) {
+        if (lastFrameAtMs >= 0 && nowMs - lastFrameAtMs < getFrameIntervalMs()) {
+            framesSkipped++;
+            return false;
+        }
+        lastFrameAtMs = nowMs;
+        framesAnalyzed++;
+        return true;
+    }
+
+    /**
+     * Records how long the detector took on an analyzed frame.
+     */
+    public synchronized void onFrameAnalyzed(long latencyMs) {
+        if (averageLatencyMs < 0) {
+            averageLatencyMs = latencyMs;
+        } else {
+            averageLatencyMs += LATENCY_SMOOTHING * (latencyMs - averageLatencyMs);
+        }
+    }
+
+    /**
+     * Records a detection, the first one after start sets the time to first detection.
+     */
+    public synchronized void onDetection(long nowMs) {
+        if (timeToFirstDetectionMs < 0 && startedAtMs >= 0) {
+            timeToFirstDetectionMs = nowMs - startedAtMs;
+        }
+    }
+
+    /**
+     * @return Time between the start of two analyzed frames, long enough for the detector to be
+     * idle for the rest of the time
+     */
+    public synchronized long getFrameIntervalMs() {
+        if (averageLatencyMs < 0) {
+            return minFrameIntervalMs;
+        }
+        long interval = Math.round(averageLatencyMs / TARGET_DUTY_CYCLE);
+        return Math.max(minFrameIntervalMs, Math.min(maxFrameIntervalMs, interval));
+    }
+
+    /**
+     * @return Moving average of the detector latency in milliseconds, or -1 before any frame
+     */
+    public synchronized long getAverageLatencyMs() {
+        return averageLatencyMs < 0 ? -1 : Math.round(averageLatencyMs);
+    }
+
+    /**
+     * @return Milliseconds from start to the first detection, or -1 if nothing was detected
+     */
+    public synchronized long getTimeToFirstDetectionMs() {
+        return timeToFirstDetectionMs;
+    }
+
+    public synchronized int getFramesAnalyzed() {
+        return framesAnalyzed;
+    }
+
+    public synchronized int getFramesSkipped() {
+        return framesSkipped;
+    }
+
+    /**
+     * @return The centered region to analyze as {left, top, width, height}. The width and height
+     * are even, as NV21 images need even dimensions.
+     */
+    @NonNull
+    public int[] getRegion(int frameWidth, int frameHeight) {
+        int width = Math.max(2, Math.round(frameWidth * regionFraction) & ~1);
+        int height = Math.max(2, Math.round(frameHeight * regionFraction) & ~1);
+        width = Math.min(width, frameWidth & ~1);
+        height = Math.min(height, frameHeight & ~1);
+        int left = (frameWidth - width) / 2;
+        int top = (frameHeight - height) / 2;
+        return new int[]{left, top, width, height};
+    }
+
+    /**
+     * Copies a region of the luminance plane of a frame into an NV21 image. The detector only
+     * needs the luminance, so the chroma is left gray instead of being copied.
+     *
+     * @param yPlane    Luminance plane of the frame, one byte per pixel
+     * @param rowStride Bytes between the start of two rows of the plane
+     * @param region    Region to copy, see getRegion
+     * @return NV21 bytes of an image the size of the region
+     */
+    @NonNull
+    public static byte[] cropLuminance(@NonNull ByteBuffer yPlane, int rowStride, @NonNull int[] region) {
+        int left = region[0];
+        int top = region[1];
+        int width = region[2];
+        int height = region[3];
+
+        byte[] nv21 = new byte[width * height * 3 / 2];
+        ByteBuffer source = yPlane.duplicate();
+        for (int row = 0; row < height; row++) {
+            source.position((top + row) * rowStride + left);
+            source.get(nv21, row * width, width);
+        }
+        Arrays.fill(nv21, width * height, nv21.length, NEUTRAL_CHROMA);
+        return nv21;
+    }
+}
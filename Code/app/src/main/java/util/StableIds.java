@@ -0,0 +1,31 @@
+package util;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Derives RecyclerView stable IDs from string keys such as document IDs.
+ * The ID is a 64-bit FNV-1a hash of the key, so it needs no memory per key and stays the same
+ * for as long as the key does. Unlike 32-bit hash codes, a collision between the document IDs of
+ * one list is practically impossible.
+ */
+public class StableIds {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private StableIds() {
+    }
+
+    /**
+     * @param key Key of the item, such as its document ID
+     * @return The stable ID of the key
+     */
+    public static long of(@NonNull String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
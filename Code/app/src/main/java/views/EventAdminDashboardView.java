@@ -15,7 +15,6 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
-import com.bumptech.glide.Glide;
 import com.example.konoha_events.EventDetails;
 import com.example.konoha_events.R;
 
@@ -24,6 +23,7 @@ import java.util.ArrayList;
 import constants.IntentConstants;
 import models.EventModel;
 import services.FirebaseService;
+import util.ImageUtil;
 
 /**
  * This is an adapter of EventModels used to display info about each EventModel.
@@ -68,13 +68,10 @@ public class EventAdminDashboardView extends ArrayAdapter<EventModel> {
         Button editDetailsButton = view.findViewById(R.id.event_admin_dashboard_view_details_button);
         ImageView posterView = view.findViewById(R.id.event_admin_dashboard_image_view);
 
-        if (eventModel.getImageBitmap() != null) {
+        if (eventModel.hasImage()) {
             posterView.setVisibility(View.VISIBLE);
-            Glide.with(getContext())
-                    .load(eventModel.getImageBitmap())
-                    .into(posterView);
+            ImageUtil.loadInto(posterView, eventModel, 0);
         } else {
-            Glide.with(getContext()).clear(posterView);
             posterView.setImageDrawable(null);
             posterView.setVisibility(View.GONE);
         }
@@ -90,18 +87,25 @@ public class EventAdminDashboardView extends ArrayAdapter<EventModel> {
         }
         eventDeadlineTextView.setText(eventDeadlineString);
 
-        eventOnWaitingListCountTextView.setText("Loading...");
-        fbs.getOnWaitingListsOfEvent(eventModel.getId(), (onWaitingListModels) -> {
-            int count = onWaitingListModels.size();
-            String entrantsString;
-
-            if (eventModel.getEntrantLimit() != null && eventModel.getEntrantLimit() != -1) {
-                entrantsString = String.format("Total Entrants: (%s/%s)", count, eventModel.getEntrantLimit());
-            } else {
-                entrantsString = String.format("Total Entrants: %s", count);
-            }
-            eventOnWaitingListCountTextView.setText(entrantsString);
-        });
+        // The tag tells a recycled row apart from the row the count was requested for
+        eventOnWaitingListCountTextView.setTag(eventModel.getId());
+        Integer cachedCount = fbs.getEntrantCountCache().getCached(eventModel.getId());
+        if (cachedCount != null) {
+            showEntrantCount(eventOnWaitingListCountTextView, eventModel, cachedCount);
+        } else {
+            eventOnWaitingListCountTextView.setText("Loading...");
+            fbs.getEntrantCountCache().load(eventModel.getId(), count -> {
+                if (!eventModel.getId().equals(eventOnWaitingListCountTextView.getTag())) {
+                    return;
+                }
+                if (count == null) {
+                    // Binding the row again, for example after an invalidation, asks for the count again
+                    eventOnWaitingListCountTextView.setText("Total Entrants: unavailable");
+                    return;
+                }
+                showEntrantCount(eventOnWaitingListCountTextView, eventModel, count);
+            });
+        }
 
         eventDescriptionTextView.setText("Description: " + eventModel.getDescription());
 
@@ -119,4 +123,14 @@ public class EventAdminDashboardView extends ArrayAdapter<EventModel> {
 
         return view;
     }
+
+    private void showEntrantCount(TextView countTextView, EventModel eventModel, int count) {
+        String entrantsString;
+        if (eventModel.getEntrantLimit() != null && eventModel.getEntrantLimit() != -1) {
+            entrantsString = String.format("Total Entrants: (%s/%s)", count, eventModel.getEntrantLimit());
+        } else {
+            entrantsString = String.format("Total Entrants: %s", count);
+        }
+        countTextView.setText(entrantsString);
+    }
 }
\ No newline at end of file
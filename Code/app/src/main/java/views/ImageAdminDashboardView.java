@@ -11,7 +11,6 @@ import android.widget.Button;
 import android.widget.ImageView;
 import android.widget.TextView;
 
-import com.bumptech.glide.Glide;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -23,6 +22,7 @@ import java.util.ArrayList;
 import interfaces.HasImage;
 import models.EventModel;
 import services.FirebaseService;
+import util.ImageUtil;
 
 /**
  * This is an adapter of classes implementing HasImage to display the various images of the system.
@@ -46,7 +46,7 @@ public class ImageAdminDashboardView extends ArrayAdapter<HasImage> {
         HasImage hasImage = getItem(position);
 
         // Skip entries without an image
-        if (hasImage == null || hasImage.getImageBitmap() == null) {
+        if (hasImage == null || !hasImage.hasImage()) {
             View emptyView = new View(getContext());
             emptyView.setLayoutParams(new AbsListView.LayoutParams(
                     AbsListView.LayoutParams.MATCH_PARENT, 0));
@@ -68,9 +68,7 @@ public class ImageAdminDashboardView extends ArrayAdapter<HasImage> {
         imageContextTextView.setText(String.format("Image Context: %s", hasImage.getImageContext()));
         uploaderTextView.setText(String.format("Uploader: %s", hasImage.getUploaderId()));
 
-        Glide.with(getContext())
-                .load(hasImage.getImageBitmap())
-                .into(imageView);
+        ImageUtil.loadInto(imageView, hasImage, 0);
 
         removeImageButton.setOnClickListener((v) -> {
             if (hasImage instanceof EventModel) {
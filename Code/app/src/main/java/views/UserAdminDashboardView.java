@@ -18,8 +18,12 @@ import androidx.annotation.Nullable;
 import com.example.konoha_events.R;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import constants.DatabaseConstants;
+import models.EventEntrantEntry;
 import models.EventModel;
 import models.OnWaitingListModel;
 import models.UserModel;
@@ -30,12 +34,16 @@ import services.FirebaseService;
  * The view is shared between Organizer and Admin users, but displays
  * different information based on the type of user. For example, admins
  * have access to the delete user button but Organizers don't.
+ * In the context of an event, the adapter is fed the entrants already joined with their waiting
+ * list rows, see setEntries, so binding a row doesn't query the database.
  */
 public class UserAdminDashboardView extends ArrayAdapter<UserModel> {
     private static final String tag = "[UserAdminDashboardView]";
     private FirebaseService fbs;
     // This field should be non-null in the context of an Event
     private final String eventId;
+    // User ID -> waiting list row of the user for the event
+    private final Map<String, OnWaitingListModel> onWaitingListByUser = new HashMap<>();
 
     public UserAdminDashboardView(Context context,
                                   ArrayList<UserModel> userModels,
@@ -44,6 +52,24 @@ public class UserAdminDashboardView extends ArrayAdapter<UserModel> {
         this.eventId = eventId;
     }
 
+    /**
+     * Replaces the rows with the given entrants of the event. Entries whose user hasn't been
+     * loaded are left out.
+     */
+    public void setEntries(@NonNull List<EventEntrantEntry> entries) {
+        setNotifyOnChange(false);
+        clear();
+        onWaitingListByUser.clear();
+        for (EventEntrantEntry entry : entries) {
+            if (entry.getUser() == null) {
+                continue;
+            }
+            add(entry.getUser());
+            onWaitingListByUser.put(entry.getUser().getId(), entry.getOnWaitingList());
+        }
+        notifyDataSetChanged();
+    }
+
     @NonNull
     @Override
     public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
@@ -93,37 +119,32 @@ public class UserAdminDashboardView extends ArrayAdapter<UserModel> {
         }
 
         cancelEntrantButton.setVisibility(GONE);
-        if (eventId != null) {
-            fbs.getOnWaitingList(eventId, userModel.getId(), onWaitingListModel -> {
-                if (onWaitingListModel == null || !onWaitingListModel.getUserId().equals(userModel.getId())) {
-                    return;
-                }
-
-                cancelEntrantButton.setVisibility(VISIBLE);
-                switch (onWaitingListModel.getStatus()) {
-                    case WAITING:
-                    case SELECTED:
-                    case ACCEPTED:
-                    case DECLINED:
-                        cancelEntrantButton.setText("Cancel Entrant");
-                        cancelEntrantButton.setOnClickListener(v -> fbs.updateStatusOfOnWaitingList(
-                                onWaitingListModel.getId(),
-                                DatabaseConstants.ON_WAITING_LIST_STATUS.CANCELLED,
-                                b -> {}
-                        ));
-                        break;
-
-                    case CANCELLED:
-                        cancelEntrantButton.setText("Move to Waiting");
-                        cancelEntrantButton.setOnClickListener(v -> fbs.updateStatusOfOnWaitingList(
-                                onWaitingListModel.getId(),
-                                DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING,
-                                b -> {}
-                        ));
-                        break;
-                }
-                cancelEntrantButton.setVisibility(VISIBLE);
-            });
+        OnWaitingListModel onWaitingListModel =
+                eventId == null ? null : onWaitingListByUser.get(userModel.getId());
+        if (onWaitingListModel != null) {
+            switch (onWaitingListModel.getStatus()) {
+                case WAITING:
+                case SELECTED:
+                case ACCEPTED:
+                case DECLINED:
+                    cancelEntrantButton.setText("Cancel Entrant");
+                    cancelEntrantButton.setOnClickListener(v -> fbs.updateStatusOfOnWaitingList(
+                            onWaitingListModel.getId(),
+                            DatabaseConstants.ON_WAITING_LIST_STATUS.CANCELLED,
+                            b -> {}
+                    ));
+                    break;
+
+                case CANCELLED:
+                    cancelEntrantButton.setText("Move to Waiting");
+                    cancelEntrantButton.setOnClickListener(v -> fbs.updateStatusOfOnWaitingList(
+                            onWaitingListModel.getId(),
+                            DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING,
+                            b -> {}
+                    ));
+                    break;
+            }
+            cancelEntrantButton.setVisibility(VISIBLE);
         }
 
         return view;
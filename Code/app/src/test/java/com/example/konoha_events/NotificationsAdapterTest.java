@@ -3,10 +3,17 @@ package com.example.konoha_events;
 import static org.junit.Assert.*;
 
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
 
 import java.util.ArrayList;
 import java.util.List;
 
+// The adapter diffs its list through AsyncListDiffer, which needs the main looper
+// Robolectric 4.10 runs at most SDK 33, below the target SDK
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
 public class NotificationsAdapterTest {
 
     @Test
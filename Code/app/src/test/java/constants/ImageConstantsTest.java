@@ -0,0 +1,33 @@
+package constants;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ImageConstantsTest {
+    @Test
+    public void forSize_with_listRowSize_then_thumbnail() {
+        assertEquals(ImageConstants.IMAGE_RENDITION.THUMBNAIL,
+                ImageConstants.IMAGE_RENDITION.forSize(240, 240));
+    }
+
+    @Test
+    public void forSize_with_screenWidePoster_then_card() {
+        assertEquals(ImageConstants.IMAGE_RENDITION.CARD,
+                ImageConstants.IMAGE_RENDITION.forSize(1080, 600));
+    }
+
+    @Test
+    public void forSize_with_unknownOrOversizedView_then_full() {
+        assertEquals(ImageConstants.IMAGE_RENDITION.FULL,
+                ImageConstants.IMAGE_RENDITION.forSize(0, 0));
+        assertEquals(ImageConstants.IMAGE_RENDITION.FULL,
+                ImageConstants.IMAGE_RENDITION.forSize(4000, 3000));
+    }
+
+    @Test
+    public void getKey_with_eachRendition_then_fullKeyIsTheHash() {
+        assertEquals("abc", ImageConstants.IMAGE_RENDITION.FULL.getKey("abc"));
+        assertEquals("abc_thumbnail", ImageConstants.IMAGE_RENDITION.THUMBNAIL.getKey("abc"));
+    }
+}
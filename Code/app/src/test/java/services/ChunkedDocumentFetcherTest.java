@@ -0,0 +1,183 @@
+package services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Robolectric provides android.util.Log, which the fetcher uses to log failed chunks
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class ChunkedDocumentFetcherTest {
+    private static List<String> makeIds(int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add("id" + i);
+        }
+        return ids;
+    }
+
+    @Test
+    public void chunk_with_noIds_then_returnNoChunks() {
+        assertTrue(ChunkedDocumentFetcher.chunk(new ArrayList<String>(), 10).isEmpty());
+    }
+
+    @Test
+    public void chunk_with_exactlyOneChunkOfIds_then_returnOneChunk() {
+        List<List<String>> chunks = ChunkedDocumentFetcher.chunk(makeIds(10), 10);
+
+        assertEquals(1, chunks.size());
+        assertEquals(makeIds(10), chunks.get(0));
+    }
+
+    @Test
+    public void chunk_with_oneIdMoreThanAChunk_then_putItInItsOwnChunk() {
+        List<List<String>> chunks = ChunkedDocumentFetcher.chunk(makeIds(11), 10);
+
+        assertEquals(2, chunks.size());
+        assertEquals(makeIds(10), chunks.get(0));
+        assertEquals(List.of("id10"), chunks.get(1));
+    }
+
+    @Test
+    public void chunk_with_maxIdsPerQuery_then_fitInOneQuery() {
+        List<List<String>> chunks = ChunkedDocumentFetcher.chunk(makeIds(30),
+                ChunkedDocumentFetcher.MAX_IDS_PER_QUERY);
+
+        assertEquals(1, chunks.size());
+        assertEquals(30, chunks.get(0).size());
+    }
+
+    @Test
+    public void chunk_with_thirtyIds_then_keepOrderAcrossChunks() {
+        List<List<String>> chunks = ChunkedDocumentFetcher.chunk(makeIds(30), 10);
+
+        assertEquals(3, chunks.size());
+        List<String> joined = new ArrayList<>();
+        for (List<String> chunk : chunks) {
+            assertEquals(10, chunk.size());
+            joined.addAll(chunk);
+        }
+        assertEquals(makeIds(30), joined);
+    }
+
+    @Test
+    public void chunk_with_duplicateIds_then_keepThem() {
+        // Duplicates are removed by fetch and fetchByField before chunking, not by chunk
+        List<List<String>> chunks = ChunkedDocumentFetcher.chunk(List.of("a", "a", "b"), 2);
+
+        assertEquals(2, chunks.size());
+        assertEquals(List.of("a", "a"), chunks.get(0));
+        assertEquals(List.of("b"), chunks.get(1));
+    }
+
+    private static DocumentSnapshot makeDocument(String id) {
+        DocumentSnapshot document = mock(DocumentSnapshot.class);
+        when(document.getId()).thenReturn(id);
+        return document;
+    }
+
+    /**
+     * Query whose get() completes immediately, with the given documents or as a failure when
+     * documents is null.
+     */
+    @SuppressWarnings("unchecked")
+    private static Query makeQuery(List<DocumentSnapshot> documents) {
+        Task<QuerySnapshot> task = mock(Task.class);
+        if (documents != null) {
+            QuerySnapshot snapshot = mock(QuerySnapshot.class);
+            when(snapshot.getDocuments()).thenReturn(documents);
+            when(task.isSuccessful()).thenReturn(true);
+            when(task.getResult()).thenReturn(snapshot);
+        } else {
+            when(task.isSuccessful()).thenReturn(false);
+            when(task.getException()).thenReturn(new Exception("unavailable"));
+        }
+        when(task.addOnCompleteListener(any())).thenAnswer(invocation -> {
+            ((OnCompleteListener<QuerySnapshot>) invocation.getArgument(0)).onComplete(task);
+            return task;
+        });
+
+        Query query = mock(Query.class);
+        when(query.get()).thenReturn(task);
+        return query;
+    }
+
+    private static CollectionReference makeCollection(Query firstChunk, Query secondChunk) {
+        CollectionReference collection = mock(CollectionReference.class);
+        when(collection.getId()).thenReturn("users");
+        when(collection.whereIn(ArgumentMatchers.<FieldPath>any(), anyList()))
+                .thenReturn(firstChunk, secondChunk);
+        return collection;
+    }
+
+    @Test
+    public void fetch_with_everyChunkRead_then_reportComplete() {
+        CollectionReference collection = makeCollection(
+                makeQuery(List.of(makeDocument("id0"))), makeQuery(List.of(makeDocument("id30"))));
+        List<String> fetched = new ArrayList<>();
+        boolean[] complete = {false};
+
+        ChunkedDocumentFetcher.fetch(collection, makeIds(31), DocumentSnapshot::getId,
+                (models, isComplete) -> {
+                    fetched.addAll(models);
+                    complete[0] = isComplete;
+                });
+
+        assertEquals(List.of("id0", "id30"), fetched);
+        assertTrue(complete[0]);
+    }
+
+    @Test
+    public void fetch_with_failedChunk_then_reportIncompleteWithTheOtherChunk() {
+        CollectionReference collection = makeCollection(
+                makeQuery(List.of(makeDocument("id0"), makeDocument("id1"))), makeQuery(null));
+        List<String> fetched = new ArrayList<>();
+        boolean[] complete = {true};
+        int[] calls = {0};
+
+        ChunkedDocumentFetcher.fetch(collection, makeIds(31), DocumentSnapshot::getId,
+                (models, isComplete) -> {
+                    calls[0]++;
+                    fetched.addAll(models);
+                    complete[0] = isComplete;
+                });
+
+        assertEquals(1, calls[0]);
+        assertEquals(List.of("id0", "id1"), fetched);
+        assertFalse(complete[0]);
+    }
+
+    @Test
+    public void fetchByField_with_failedChunk_then_reportIncomplete() {
+        Query query = mock(Query.class);
+        Query failed = makeQuery(null);
+        when(query.whereIn(any(String.class), anyList())).thenReturn(failed);
+        boolean[] complete = {true};
+
+        ChunkedDocumentFetcher.fetchByField(query, "eventId", List.of("event"),
+                (documents, isComplete) -> complete[0] = isComplete);
+
+        assertFalse(complete[0]);
+    }
+}
@@ -0,0 +1,101 @@
+package services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static services.TestModels.makeRow;
+import static services.TestModels.makeStore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import constants.DatabaseConstants;
+import interfaces.CountCallback;
+import models.OnWaitingListModel;
+
+public class EntrantCountCacheTest {
+    private final List<String> countedEventIds = new ArrayList<>();
+    private final List<CountCallback> pendingCounts = new ArrayList<>();
+    private final List<Integer> results = new ArrayList<>();
+    private ModelStore<OnWaitingListModel> waitlistStore;
+    private EntrantCountCache cache;
+    private long now = 0;
+
+    @Before
+    public void setUp() {
+        cache = new EntrantCountCache((eventId, callback) -> {
+            countedEventIds.add(eventId);
+            pendingCounts.add(callback);
+        }, () -> now);
+        waitlistStore = makeStore();
+        waitlistStore.addChangeListener(cache);
+    }
+
+    @Test
+    public void load_with_countInFlight_then_shareOneQuery() {
+        cache.load("event1", results::add);
+        cache.load("event1", results::add);
+        pendingCounts.get(0).onCompleted(7);
+        cache.load("event1", results::add);
+
+        assertEquals(Arrays.asList("event1"), countedEventIds);
+        assertEquals(Arrays.asList(7, 7, 7), results);
+        assertEquals(Integer.valueOf(7), cache.getCached("event1"));
+    }
+
+    @Test
+    public void onChanged_with_rowAddedToEvent_then_dropOnlyThatCount() {
+        cache.load("event1", results::add);
+        cache.load("event2", results::add);
+        pendingCounts.get(0).onCompleted(1);
+        pendingCounts.get(1).onCompleted(2);
+
+        waitlistStore.put("a", makeRow("a", "event1", "user", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        waitlistStore.commit();
+
+        assertNull(cache.getCached("event1"));
+        assertEquals(Integer.valueOf(2), cache.getCached("event2"));
+    }
+
+    @Test
+    public void onChanged_with_countInFlight_then_loadedCountIsNotKept() {
+        cache.load("event1", results::add);
+        waitlistStore.put("a", makeRow("a", "event1", "user", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        waitlistStore.commit();
+        pendingCounts.get(0).onCompleted(0);
+
+        assertEquals(Arrays.asList(0), results);
+        assertNull(cache.getCached("event1"));
+    }
+
+    @Test
+    public void load_with_expiredCount_then_queryAgain() {
+        cache.load("event1", results::add);
+        pendingCounts.get(0).onCompleted(3);
+
+        now = EntrantCountCache.MAX_AGE_MS - 1;
+        assertEquals(Integer.valueOf(3), cache.getCached("event1"));
+        now = EntrantCountCache.MAX_AGE_MS;
+        assertNull(cache.getCached("event1"));
+
+        cache.load("event1", results::add);
+        assertEquals(Arrays.asList("event1", "event1"), countedEventIds);
+    }
+
+    @Test
+    public void load_with_failedCountInvalidatedWhileLoading_then_keepNextCount() {
+        cache.load("event1", results::add);
+        waitlistStore.put("a", makeRow("a", "event1", "user", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        waitlistStore.commit();
+        pendingCounts.get(0).onCompleted(null);
+
+        cache.load("event1", results::add);
+        pendingCounts.get(1).onCompleted(1);
+
+        assertEquals(Arrays.asList(null, 1), results);
+        assertEquals(Integer.valueOf(1), cache.getCached("event1"));
+    }
+}
@@ -0,0 +1,32 @@
+package services;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class EntrantCsvExporterTest {
+    @Test
+    public void escapeCSV_with_null_then_returnEmptyCell() {
+        assertEquals("", EntrantCsvExporter.escapeCSV(null));
+    }
+
+    @Test
+    public void escapeCSV_with_plainValue_then_returnItUnquoted() {
+        assertEquals("Naruto Uzumaki", EntrantCsvExporter.escapeCSV("Naruto Uzumaki"));
+    }
+
+    @Test
+    public void escapeCSV_with_comma_then_quoteValue() {
+        assertEquals("\"Uzumaki, Naruto\"", EntrantCsvExporter.escapeCSV("Uzumaki, Naruto"));
+    }
+
+    @Test
+    public void escapeCSV_with_quote_then_doubleItAndQuoteValue() {
+        assertEquals("\"The \"\"Hokage\"\"\"", EntrantCsvExporter.escapeCSV("The \"Hokage\""));
+    }
+
+    @Test
+    public void escapeCSV_with_newline_then_quoteValue() {
+        assertEquals("\"Hidden Leaf\nVillage\"", EntrantCsvExporter.escapeCSV("Hidden Leaf\nVillage"));
+    }
+}
@@ -0,0 +1,68 @@
+package services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static services.TestModels.makeEventWithDeadline;
+import static services.TestModels.makeStore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import models.EventModel;
+
+public class EventDeadlineIndexTest {
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private ModelStore<EventModel> store;
+    private EventDeadlineIndex index;
+
+    @Before
+    public void setUp() {
+        store = makeStore();
+        index = new EventDeadlineIndex();
+        store.addChangeListener(index);
+    }
+
+    @Test
+    public void getEventIdsBetween_with_range_then_returnEventsInRangeByDeadline() {
+        store.put("late", makeEventWithDeadline("late", new Date(5 * DAY)));
+        store.put("early", makeEventWithDeadline("early", new Date(2 * DAY)));
+        store.put("end", makeEventWithDeadline("end", new Date(6 * DAY)));
+        store.put("none", makeEventWithDeadline("none", null));
+        store.commit();
+
+        assertEquals(Arrays.asList("early", "late"),
+                index.getEventIdsBetween(new Date(2 * DAY), new Date(6 * DAY)));
+        assertEquals(Arrays.asList("late", "end"), index.getEventIdsBetween(new Date(3 * DAY), null));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void getEventIdsClosingWithin_with_days_then_onlyUpcomingEvents() {
+        store.put("past", makeEventWithDeadline("past", new Date(DAY)));
+        store.put("soon", makeEventWithDeadline("soon", new Date(12 * DAY)));
+        store.put("later", makeEventWithDeadline("later", new Date(30 * DAY)));
+        store.commit();
+
+        assertEquals(Collections.singletonList("soon"),
+                index.getEventIdsClosingWithin(new Date(10 * DAY), 7));
+    }
+
+    @Test
+    public void isDeadlineBetween_with_modifiedDeadline_then_useNewDeadline() {
+        store.put("a", makeEventWithDeadline("a", new Date(DAY)));
+        store.commit();
+        store.put("a", makeEventWithDeadline("a", new Date(9 * DAY)));
+        store.commit();
+
+        assertTrue(index.isDeadlineBetween("a", new Date(8 * DAY), null));
+        assertFalse(index.isDeadlineBetween("a", null, new Date(8 * DAY)));
+        assertEquals(Collections.emptyList(), index.getEventIdsBetween(null, new Date(8 * DAY)));
+    }
+}
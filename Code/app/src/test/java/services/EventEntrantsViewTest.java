@@ -0,0 +1,100 @@
+package services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static services.TestModels.makeRow;
+import static services.TestModels.makeStore;
+import static services.TestModels.makeUser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import constants.DatabaseConstants;
+import models.EventEntrantEntry;
+import models.OnWaitingListModel;
+import models.UserModel;
+
+public class EventEntrantsViewTest {
+    private ModelStore<OnWaitingListModel> waitlistStore;
+    private WaitlistIndex waitlistIndex;
+    private final List<List<String>> loadedUserIds = new ArrayList<>();
+    private boolean failLoads = false;
+    private EventEntrantsView view;
+
+    @Before
+    public void setUp() {
+        waitlistStore = makeStore();
+        waitlistIndex = new WaitlistIndex();
+        waitlistStore.addChangeListener(waitlistIndex);
+        view = new EventEntrantsView("event1", waitlistIndex, waitlistStore,
+                (ids, callback) -> {
+                    loadedUserIds.add(ids);
+                    ArrayList<UserModel> users = new ArrayList<>();
+                    if (failLoads) {
+                        callback.onCompleted(users);
+                        return;
+                    }
+                    for (String id : ids) {
+                        users.add(makeUser(id));
+                    }
+                    callback.onCompleted(users);
+                });
+    }
+
+    @Test
+    public void start_with_existingRows_then_joinRowsOfEventWithUsersInOneLoad() {
+        waitlistStore.put("a", makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        waitlistStore.put("b", makeRow("b", "event1", "user2", DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED));
+        waitlistStore.put("c", makeRow("c", "event2", "user3", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        waitlistStore.commit();
+
+        view.start();
+
+        assertEquals(2, view.getEntries(null).size());
+        ArrayList<EventEntrantEntry> waiting = view.getEntries(DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING);
+        assertEquals(1, waiting.size());
+        assertEquals("user1", waiting.get(0).getUser().getId());
+        assertEquals(Collections.singletonList(List.of("user1", "user2")), loadedUserIds);
+    }
+
+    @Test
+    public void onChanged_with_statusChange_then_moveEntryWithoutLoadingUserAgain() {
+        view.start();
+        waitlistStore.put("a", makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        waitlistStore.commit();
+        UserModel user = view.getEntries(null).get(0).getUser();
+
+        waitlistStore.put("a", makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.CANCELLED));
+        waitlistStore.commit();
+
+        assertEquals(0, view.getEntries(DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING).size());
+        ArrayList<EventEntrantEntry> cancelled = view.getEntries(DatabaseConstants.ON_WAITING_LIST_STATUS.CANCELLED);
+        assertEquals(1, cancelled.size());
+        assertSame(user, cancelled.get(0).getUser());
+        assertEquals(1, loadedUserIds.size());
+
+        waitlistStore.remove("a");
+        waitlistStore.commit();
+        assertEquals(0, view.getEntries(null).size());
+    }
+
+    @Test
+    public void onChanged_with_failedUserLoad_then_requestUserAgain() {
+        failLoads = true;
+        view.start();
+        waitlistStore.put("a", makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        waitlistStore.commit();
+        assertEquals(0, view.getEntries(null).size());
+
+        failLoads = false;
+        waitlistStore.put("a", makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED));
+        waitlistStore.commit();
+
+        assertEquals(List.of(List.of("user1"), List.of("user1")), loadedUserIds);
+        assertEquals("user1", view.getEntries(null).get(0).getUser().getId());
+    }
+}
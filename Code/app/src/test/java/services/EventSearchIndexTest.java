@@ -0,0 +1,69 @@
+package services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static services.TestModels.makeEvent;
+import static services.TestModels.makeStore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import models.EventModel;
+
+public class EventSearchIndexTest {
+    private ModelStore<EventModel> store;
+    private EventSearchIndex index;
+
+    @Before
+    public void setUp() {
+        store = makeStore();
+        index = new EventSearchIndex();
+        store.addChangeListener(index);
+    }
+
+    @Test
+    public void search_with_wordPrefix_then_matchEveryWordStartingWithIt() {
+        store.put("a", makeEvent("a", "Swimming Lessons", "Beginner pool sessions"));
+        store.put("b", makeEvent("b", "Piano", "Learn to swim through music"));
+        store.put("c", makeEvent("c", "Dance", "Salsa"));
+        store.commit();
+
+        assertEquals(Arrays.asList("a", "b"), index.search("swi"));
+    }
+
+    @Test
+    public void search_with_titleAndDescriptionMatches_then_rankTitleFirst() {
+        store.put("a", makeEvent("a", "Cooking", "Yoga snacks"));
+        store.put("b", makeEvent("b", "Yoga", "Morning class"));
+        store.commit();
+
+        assertEquals(Arrays.asList("b", "a"), index.search("yoga"));
+    }
+
+    @Test
+    public void search_with_severalWords_then_requireEveryWord() {
+        store.put("a", makeEvent("a", "Café Night", "Live jazz"));
+        store.put("b", makeEvent("b", "Jazz Brunch", "Pancakes"));
+        store.commit();
+
+        assertEquals(Collections.singletonList("a"), index.search("  CAFE, jaz"));
+    }
+
+    @Test
+    public void search_with_modifiedAndRemovedEvents_then_useLatestText() {
+        store.put("a", makeEvent("a", "Chess Club", null));
+        store.put("b", makeEvent("b", "Chess Finals", null));
+        store.commit();
+
+        store.put("a", makeEvent("a", "Book Club", null));
+        store.remove("b");
+        store.commit();
+
+        assertTrue(index.search("chess").isEmpty());
+        assertEquals(Collections.singletonList("a"), index.search("book"));
+        assertEquals(1, index.size());
+    }
+}
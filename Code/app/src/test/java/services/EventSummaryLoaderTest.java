@@ -0,0 +1,65 @@
+package services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static services.TestModels.makeEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import models.EventModel;
+import models.EventSummary;
+
+public class EventSummaryLoaderTest {
+    private final List<List<String>> loadedEventIds = new ArrayList<>();
+    private final List<List<EventSummary>> results = new ArrayList<>();
+    private EventSummaryLoader loader;
+
+    @Before
+    public void setUp() {
+        loader = new EventSummaryLoader((ids, callback) -> {
+            loadedEventIds.add(ids);
+            ArrayList<EventModel> events = new ArrayList<>();
+            for (String id : ids) {
+                if (!id.equals("deleted")) {
+                    events.add(makeEvent(id, "Title " + id));
+                }
+            }
+            callback.onCompleted(events);
+        });
+    }
+
+    @Test
+    public void load_with_uncachedEvents_then_loadMissingOnesInOneCall() {
+        loader.load(Arrays.asList("a", "b", "deleted", "a"), results::add);
+        loader.load(Arrays.asList("b", "c"), results::add);
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "deleted"),
+                Collections.singletonList("c")), loadedEventIds);
+        assertEquals(2, results.get(0).size());
+        assertEquals("Title a", results.get(0).get(0).getEventTitle());
+        assertEquals("Title b", results.get(1).get(0).getEventTitle());
+        assertEquals("Title c", results.get(1).get(1).getEventTitle());
+    }
+
+    @Test
+    public void load_with_moreEventsThanCacheHolds_then_evictLeastRecentlyUsed() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i <= EventSummaryLoader.MAX_CACHED_SUMMARIES; i++) {
+            ids.add("event" + i);
+        }
+        loader.load(ids.subList(0, 1), results::add);
+        loader.load(ids.subList(1, ids.size() - 1), results::add);
+        // Using the first event again makes the second one the least recently used
+        loader.getCached("event0");
+        loader.load(ids.subList(ids.size() - 1, ids.size()), results::add);
+
+        assertEquals("Title event0", loader.getCached("event0").getEventTitle());
+        assertNull(loader.getCached("event1"));
+    }
+}
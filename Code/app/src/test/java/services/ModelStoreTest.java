@@ -0,0 +1,120 @@
+package services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static services.TestModels.makeRow;
+import static services.TestModels.makeStore;
+
+import androidx.lifecycle.MutableLiveData;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import constants.DatabaseConstants;
+import models.ModelChangeSet;
+import models.OnWaitingListModel;
+
+public class ModelStoreTest {
+    @Mock
+    private MutableLiveData<ArrayList<OnWaitingListModel>> mockLiveData;
+
+    private ModelStore<OnWaitingListModel> store;
+    private List<ModelChangeSet<OnWaitingListModel>> receivedChanges;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        store = new ModelStore<>(mockLiveData);
+        receivedChanges = new ArrayList<>();
+        store.addChangeListener(receivedChanges::add);
+    }
+
+    @Test
+    public void commit_with_newModels_then_reportAdded() {
+        store.put("a", makeRow("a", "event123", "user_a", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        store.put("b", makeRow("b", "event123", "user_b", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        store.commit();
+
+        assertEquals(1, receivedChanges.size());
+        assertEquals(2, receivedChanges.get(0).getAdded().size());
+        assertTrue(receivedChanges.get(0).getModified().isEmpty());
+        assertEquals(2, store.size());
+        verify(mockLiveData, times(1)).postValue(any());
+    }
+
+    @Test
+    public void commit_with_existingModel_then_reportOnlyModified() {
+        store.put("a", makeRow("a", "event123", "user_a", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        store.put("b", makeRow("b", "event123", "user_b", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        store.commit();
+
+        OnWaitingListModel selected =
+                makeRow("a", "event123", "user_a", DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED);
+        store.put("a", selected);
+        ModelChangeSet<OnWaitingListModel> changes = store.commit();
+
+        assertTrue(changes.getAdded().isEmpty());
+        assertEquals(1, changes.getModified().size());
+        assertSame(selected, store.get("a"));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void commit_with_removedModel_then_reportPreviousModel() {
+        OnWaitingListModel model = makeRow("a", "event123", "user_a", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING);
+        store.put("a", model);
+        store.commit();
+
+        store.remove("a");
+        ModelChangeSet<OnWaitingListModel> changes = store.commit();
+
+        assertEquals(1, changes.getRemoved().size());
+        assertSame(model, changes.getRemoved().get(0));
+        assertNull(store.get("a"));
+    }
+
+    @Test
+    public void commit_with_noChanges_then_publishOnlyOnce() {
+        store.commit();
+        store.commit();
+
+        // The first commit publishes the empty view, later empty commits do nothing
+        verify(mockLiveData, times(1)).postValue(any());
+        assertTrue(receivedChanges.isEmpty());
+    }
+
+    @Test
+    public void remove_with_unknownId_then_noChange() {
+        store.commit();
+        store.remove("missing");
+        ModelChangeSet<OnWaitingListModel> changes = store.commit();
+
+        assertTrue(changes.isEmpty());
+        verify(mockLiveData, never()).setValue(any());
+    }
+
+    @Test
+    public void commit_with_noLiveData_then_onlyNotifyListeners() {
+        ModelStore<OnWaitingListModel> storeWithoutLiveData = makeStore();
+        List<ModelChangeSet<OnWaitingListModel>> changes = new ArrayList<>();
+        storeWithoutLiveData.addChangeListener(changes::add);
+
+        storeWithoutLiveData.put("a",
+                makeRow("a", "event123", "user_a", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        storeWithoutLiveData.commit();
+
+        assertEquals(1, changes.size());
+        assertEquals(1, storeWithoutLiveData.getAll().size());
+    }
+}
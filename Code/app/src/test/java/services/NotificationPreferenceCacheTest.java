@@ -0,0 +1,84 @@
+package services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static services.TestModels.makeStore;
+import static services.TestModels.makeUser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import models.UserModel;
+
+public class NotificationPreferenceCacheTest {
+    private ModelStore<UserModel> usersStore;
+    private NotificationPreferenceCache cache;
+    private long now = 0;
+
+    @Before
+    public void setUp() {
+        cache = new NotificationPreferenceCache(null, () -> now);
+        usersStore = makeStore();
+        usersStore.addChangeListener(cache);
+    }
+
+    @Test
+    public void isOptedOut_with_userFromListener_then_returnPreference() {
+        usersStore.put("a", makeUser("a", true));
+        usersStore.put("b", makeUser("b", false));
+        usersStore.commit();
+
+        assertTrue(cache.isOptedOut("a"));
+        assertFalse(cache.isOptedOut("b"));
+        assertNull(cache.isOptedOut("c"));
+    }
+
+    @Test
+    public void isOptedOut_with_userFromListenerAfterTtl_then_expire() {
+        usersStore.put("a", makeUser("a", false));
+        usersStore.commit();
+
+        now = NotificationPreferenceCache.TTL_MILLIS - 1;
+        assertFalse(cache.isOptedOut("a"));
+        now = NotificationPreferenceCache.TTL_MILLIS;
+        assertNull(cache.isOptedOut("a"));
+    }
+
+    @Test
+    public void onChanged_with_optOut_then_replaceCachedPreference() {
+        usersStore.put("a", makeUser("a", false));
+        usersStore.commit();
+        usersStore.put("a", makeUser("a", true));
+        usersStore.commit();
+
+        assertTrue(cache.isOptedOut("a"));
+    }
+
+    @Test
+    public void put_with_optOut_then_applyUntilTtl() {
+        cache.put("a", true);
+
+        now = NotificationPreferenceCache.TTL_MILLIS - 1;
+        assertTrue(cache.isOptedOut("a"));
+        now = NotificationPreferenceCache.TTL_MILLIS;
+        assertNull(cache.isOptedOut("a"));
+    }
+
+    @Test
+    public void filterRecipients_with_cachedPreferences_then_leaveOutOptedOutUsers() {
+        cache.put("a", false);
+        cache.put("b", true);
+        cache.put("c", false);
+        List<String> recipients = new ArrayList<>();
+
+        cache.filterRecipients(Arrays.asList("a", "b", "c", "a"), recipients::addAll);
+
+        assertEquals(Arrays.asList("a", "c"), recipients);
+    }
+}
@@ -0,0 +1,194 @@
+package services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static services.TestModels.makeRow;
+import static services.TestModels.makeStore;
+
+import android.os.Handler;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SnapshotMetadata;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import constants.DatabaseConstants;
+import models.OnWaitingListModel;
+
+public class SubscriptionManagerTest {
+    private static final String KEY = "onWaitingList/user/user1";
+
+    private Handler handler;
+    private Query query;
+    private ListenerRegistration registration;
+    private ModelStore<OnWaitingListModel> store;
+    private WaitlistIndex waitlistIndex;
+    private final List<OnWaitingListModel> removed = new ArrayList<>();
+    private SubscriptionManager subscriptionManager;
+
+    @Before
+    public void setUp() {
+        handler = mock(Handler.class);
+        query = mock(Query.class);
+        registration = mock(ListenerRegistration.class);
+        when(query.addSnapshotListener(any(MetadataChanges.class), any(EventListener.class)))
+                .thenReturn(registration);
+
+        store = makeStore();
+        waitlistIndex = new WaitlistIndex();
+        store.addChangeListener(waitlistIndex);
+        store.addChangeListener(changes -> removed.addAll(changes.getRemoved()));
+        subscriptionManager = new SubscriptionManager(handler);
+    }
+
+    private static OnWaitingListModel toRow(DocumentSnapshot document) {
+        return makeRow(document.getId(), "event-" + document.getId(), "user1",
+                DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING);
+    }
+
+    private static OnWaitingListModel row(String id) {
+        DocumentSnapshot document = mock(DocumentSnapshot.class);
+        when(document.getId()).thenReturn(id);
+        return toRow(document);
+    }
+
+    private static QuerySnapshot snapshotAdding(String... ids) {
+        return snapshotAdding(false, ids);
+    }
+
+    private static QuerySnapshot snapshotAdding(boolean fromCache, String... ids) {
+        List<DocumentChange> changes = new ArrayList<>();
+        for (String id : ids) {
+            QueryDocumentSnapshot document = mock(QueryDocumentSnapshot.class);
+            when(document.getId()).thenReturn(id);
+            DocumentChange change = mock(DocumentChange.class);
+            when(change.getType()).thenReturn(DocumentChange.Type.ADDED);
+            when(change.getDocument()).thenReturn(document);
+            changes.add(change);
+        }
+        QuerySnapshot snapshot = mock(QuerySnapshot.class);
+        when(snapshot.getDocumentChanges()).thenReturn(changes);
+        SnapshotMetadata metadata = mock(SnapshotMetadata.class);
+        when(metadata.isFromCache()).thenReturn(fromCache);
+        when(snapshot.getMetadata()).thenReturn(metadata);
+        return snapshot;
+    }
+
+    @SuppressWarnings("unchecked")
+    private EventListener<QuerySnapshot> acquire() {
+        subscriptionManager.acquire(KEY, query, store, SubscriptionManagerTest::toRow);
+        ArgumentCaptor<EventListener<QuerySnapshot>> listener = ArgumentCaptor.forClass(EventListener.class);
+        verify(query, atLeastOnce()).addSnapshotListener(eq(MetadataChanges.INCLUDE), listener.capture());
+        return listener.getValue();
+    }
+
+    private void releaseAndDetach() {
+        subscriptionManager.release(KEY);
+        ArgumentCaptor<Runnable> detach = ArgumentCaptor.forClass(Runnable.class);
+        verify(handler, atLeastOnce()).postDelayed(detach.capture(), anyLong());
+        detach.getValue().run();
+    }
+
+    @Test
+    public void detach_with_idleQuery_then_keepDocumentsInStore() {
+        acquire().onEvent(snapshotAdding("a", "b"), null);
+
+        releaseAndDetach();
+
+        verify(registration).remove();
+        assertFalse(subscriptionManager.isAttached(KEY));
+        assertEquals(2, store.size());
+        assertNotNull(waitlistIndex.getEntry("event-a", "user1"));
+        assertTrue(removed.isEmpty());
+    }
+
+    @Test
+    public void acquire_with_detachedQuery_then_repopulateAndDropDeletedDocuments() {
+        acquire().onEvent(snapshotAdding("a", "b"), null);
+        releaseAndDetach();
+
+        // b was deleted while nothing listened to the query
+        acquire().onEvent(snapshotAdding("a"), null);
+
+        assertTrue(subscriptionManager.isAttached(KEY));
+        assertEquals(1, store.size());
+        assertNotNull(waitlistIndex.getEntry("event-a", "user1"));
+        assertNull(waitlistIndex.getEntry("event-b", "user1"));
+        assertEquals(1, removed.size());
+        assertEquals("b", removed.get(0).getId());
+    }
+
+    @Test
+    public void restore_with_rowsKeptOnDevice_then_removeUnconfirmedOnesOnceServerAnswers() {
+        Map<String, OnWaitingListModel> kept = new HashMap<>();
+        kept.put("a", row("a"));
+        kept.put("b", row("b"));
+        subscriptionManager.restore(KEY, store, kept);
+        assertEquals(2, store.size());
+
+        EventListener<QuerySnapshot> listener = acquire();
+        // The cache doesn't know about the rows, that doesn't mean they are gone
+        listener.onEvent(snapshotAdding(true), null);
+        assertEquals(2, store.size());
+        assertTrue(removed.isEmpty());
+
+        listener.onEvent(snapshotAdding(false, "a"), null);
+        assertEquals(1, store.size());
+        assertNotNull(waitlistIndex.getEntry("event-a", "user1"));
+        assertEquals(1, removed.size());
+        assertEquals("b", removed.get(0).getId());
+    }
+
+    @Test
+    public void restore_with_queryAnsweredByServer_then_ignoreRows() {
+        acquire().onEvent(snapshotAdding("a"), null);
+
+        Map<String, OnWaitingListModel> kept = new HashMap<>();
+        kept.put("b", row("b"));
+        subscriptionManager.restore(KEY, store, kept);
+
+        assertEquals(1, store.size());
+        assertNull(waitlistIndex.getEntry("event-b", "user1"));
+    }
+
+    @Test
+    public void detachAll_with_attachedQuery_then_removeListenerAndForgetDocuments() {
+        acquire().onEvent(snapshotAdding("a"), null);
+
+        subscriptionManager.detachAll();
+        store.clear();
+        store.commit();
+
+        verify(registration).remove();
+        assertFalse(subscriptionManager.isAttached(KEY));
+        assertEquals(0, store.size());
+        // Acquiring the key again starts from scratch, nothing is left to reconcile
+        acquire().onEvent(snapshotAdding("b"), null);
+        assertEquals(1, store.size());
+        assertNotNull(waitlistIndex.getEntry("event-b", "user1"));
+    }
+}
@@ -0,0 +1,50 @@
+package services;
+
+import java.util.Date;
+
+import constants.DatabaseConstants;
+import models.EventModel;
+import models.OnWaitingListModel;
+import models.UserModel;
+
+/**
+ * Models and stores shared by the tests of the services.
+ */
+final class TestModels {
+    private TestModels() {
+    }
+
+    /**
+     * @return An empty store without LiveData, changes only reach its change listeners
+     */
+    static <T> ModelStore<T> makeStore() {
+        return new ModelStore<>(null);
+    }
+
+    static OnWaitingListModel makeRow(String id, String eventId, String userId,
+                                      DatabaseConstants.ON_WAITING_LIST_STATUS status) {
+        return OnWaitingListModel.builder().id(id).eventId(eventId).userId(userId).status(status).build();
+    }
+
+    static EventModel makeEvent(String id, String title) {
+        return makeEvent(id, title, null);
+    }
+
+    static EventModel makeEvent(String id, String title, String description) {
+        return EventModel.builder().id(id).organizerId("organizer").eventTitle(title)
+                .description(description).build();
+    }
+
+    static EventModel makeEventWithDeadline(String id, Date deadline) {
+        return EventModel.builder().id(id).organizerId("organizer").registrationDeadline(deadline).build();
+    }
+
+    static UserModel makeUser(String id) {
+        return makeUser(id, false);
+    }
+
+    static UserModel makeUser(String id, boolean optedOut) {
+        return UserModel.builder().id(id).userType(DatabaseConstants.USER_TYPE.ENTRANT)
+                .username(id).password("password").notificationsOptOut(optedOut).build();
+    }
+}
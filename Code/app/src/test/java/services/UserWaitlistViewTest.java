@@ -0,0 +1,126 @@
+package services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static services.TestModels.makeEvent;
+import static services.TestModels.makeRow;
+import static services.TestModels.makeStore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import constants.DatabaseConstants;
+import models.EventModel;
+import models.OnWaitingListModel;
+import models.UserWaitlistEntry;
+
+public class UserWaitlistViewTest {
+    private ModelStore<OnWaitingListModel> waitlistStore;
+    private ModelStore<EventModel> eventsStore;
+    private WaitlistIndex waitlistIndex;
+    private final List<List<String>> loadedEventIds = new ArrayList<>();
+    private UserWaitlistView view;
+
+    @Before
+    public void setUp() {
+        waitlistStore = makeStore();
+        eventsStore = makeStore();
+        waitlistIndex = new WaitlistIndex();
+        waitlistStore.addChangeListener(waitlistIndex);
+        view = new UserWaitlistView("user1", waitlistIndex, waitlistStore, eventsStore,
+                (ids, callback) -> {
+                    loadedEventIds.add(ids);
+                    ArrayList<EventModel> events = new ArrayList<>();
+                    for (String id : ids) {
+                        events.add(makeEvent(id, "Loaded " + id));
+                    }
+                    callback.onCompleted(events);
+                });
+    }
+
+    @Test
+    public void start_with_existingRows_then_joinRowsOfUserWithEvents() {
+        EventModel event = makeEvent("event1", "Yoga");
+        eventsStore.put("event1", event);
+        eventsStore.commit();
+        waitlistStore.put("a", makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        waitlistStore.put("b", makeRow("b", "event2", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED));
+        waitlistStore.put("c", makeRow("c", "event1", "user2", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        waitlistStore.commit();
+
+        view.start();
+
+        ArrayList<UserWaitlistEntry> entries = view.getEntries();
+        assertEquals(2, entries.size());
+        assertSame(event, entries.get(0).getEvent());
+        assertEquals("Loaded event2", entries.get(1).getEvent().getEventTitle());
+        assertEquals(Collections.singletonList(Collections.singletonList("event2")), loadedEventIds);
+    }
+
+    @Test
+    public void onChanged_with_rowAndEventChanges_then_updateOnlyAffectedEntries() {
+        view.start();
+        waitlistStore.put("a", makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        waitlistStore.commit();
+
+        waitlistStore.put("a", makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.ACCEPTED));
+        waitlistStore.commit();
+        EventModel renamed = makeEvent("event1", "Renamed");
+        eventsStore.put("event1", renamed);
+        eventsStore.commit();
+
+        UserWaitlistEntry entry = view.getEntries().get(0);
+        assertEquals(DatabaseConstants.ON_WAITING_LIST_STATUS.ACCEPTED, entry.getStatus());
+        assertSame(renamed, entry.getEvent());
+
+        // The event leaving the store, e.g. when its listener is detached, keeps the joined event
+        eventsStore.remove("event1");
+        eventsStore.commit();
+        assertSame(renamed, view.getEntries().get(0).getEvent());
+
+        waitlistStore.remove("a");
+        waitlistStore.commit();
+        assertEquals(0, view.getEntries().size());
+    }
+
+    @Test
+    public void start_with_loaderCalledTwice_then_keepLatestLoadedEvent() {
+        EventModel kept = makeEvent("event1", "Kept on device");
+        EventModel downloaded = makeEvent("event1", "Downloaded");
+        view = new UserWaitlistView("user1", waitlistIndex, waitlistStore, eventsStore,
+                (ids, callback) -> {
+                    callback.onCompleted(new ArrayList<>(Collections.singletonList(kept)));
+                    callback.onCompleted(new ArrayList<>(Collections.singletonList(downloaded)));
+                });
+        waitlistStore.put("a", makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED));
+        waitlistStore.commit();
+
+        view.start();
+
+        assertSame(downloaded, view.getEntries().get(0).getEvent());
+    }
+
+    @Test
+    public void onChanged_with_rowReaddedAfterEventLeftStore_then_reloadEvent() {
+        eventsStore.put("event1", makeEvent("event1", "Yoga"));
+        eventsStore.commit();
+        waitlistStore.put("a", makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        waitlistStore.commit();
+        view.start();
+
+        // Listeners detached: the row and the event leave their stores, then the row comes back
+        waitlistStore.remove("a");
+        eventsStore.remove("event1");
+        waitlistStore.commit();
+        eventsStore.commit();
+        waitlistStore.put("a", makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        waitlistStore.commit();
+
+        assertEquals("Loaded event1", view.getEntries().get(0).getEvent().getEventTitle());
+        assertEquals(Collections.singletonList(Collections.singletonList("event1")), loadedEventIds);
+    }
+}
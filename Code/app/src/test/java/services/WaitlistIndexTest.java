@@ -0,0 +1,99 @@
+package services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static services.TestModels.makeRow;
+import static services.TestModels.makeStore;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import constants.DatabaseConstants;
+import models.OnWaitingListModel;
+
+public class WaitlistIndexTest {
+    private ModelStore<OnWaitingListModel> store;
+    private WaitlistIndex index;
+
+    @Before
+    public void setUp() {
+        store = makeStore();
+        index = new WaitlistIndex();
+        store.addChangeListener(index);
+    }
+
+    @Test
+    public void getEntry_with_addedRows_then_findRowOfPair() {
+        OnWaitingListModel row = makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING);
+        store.put("a", row);
+        store.put("b", makeRow("b", "event1", "user2", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        store.put("c", makeRow("c", "event2", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED));
+        store.commit();
+
+        assertSame(row, index.getEntry("event1", "user1"));
+        assertNull(index.getEntry("event2", "user2"));
+        assertEquals(2, index.getEntriesOfEvent("event1").size());
+        assertEquals(2, index.getEntriesOfUser("user1").size());
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void getStatusCount_with_modifiedRow_then_moveCountToNewStatus() {
+        store.put("a", makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        store.put("b", makeRow("b", "event1", "user2", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        store.commit();
+        assertEquals(2, index.getStatusCount("event1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+
+        store.put("a", makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED));
+        store.commit();
+
+        assertEquals(1, index.getStatusCount("event1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        assertEquals(1, index.getStatusCount("event1", DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED));
+        assertEquals(DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED,
+                index.getEntry("event1", "user1").getStatus());
+        assertEquals(2, index.getEntryCount("event1"));
+    }
+
+    @Test
+    public void getEntry_with_removedRow_then_null() {
+        store.put("a", makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        store.commit();
+        store.remove("a");
+        store.commit();
+
+        assertNull(index.getEntry("event1", "user1"));
+        assertEquals(0, index.getEntryCount("event1"));
+        assertEquals(0, index.getStatusCount("event1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        assertEquals(0, index.getEntriesOfUser("user1").size());
+    }
+
+    @Test
+    public void getEntry_with_duplicateRows_then_fallBackToRemainingRow() {
+        OnWaitingListModel first = makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING);
+        OnWaitingListModel duplicate = makeRow("b", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING);
+        store.put("a", first);
+        store.put("b", duplicate);
+        store.commit();
+        assertSame(first, index.getEntry("event1", "user1"));
+
+        store.remove("a");
+        store.commit();
+
+        assertSame(duplicate, index.getEntry("event1", "user1"));
+        assertEquals(1, index.getStatusCount("event1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+    }
+
+    @Test
+    public void getEntry_with_modifiedDuplicateRow_then_keepRowWithSmallestId() {
+        OnWaitingListModel first = makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING);
+        store.put("a", first);
+        store.put("b", makeRow("b", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.WAITING));
+        store.commit();
+        OnWaitingListModel modified = makeRow("a", "event1", "user1", DatabaseConstants.ON_WAITING_LIST_STATUS.SELECTED);
+        store.put("a", modified);
+        store.commit();
+
+        assertSame(modified, index.getEntry("event1", "user1"));
+    }
+}
@@ -0,0 +1,36 @@
+package util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class BitmapCacheTest {
+    @Test
+    public void calculateInSampleSize_with_noRequestedSize_then_decodeFullSize() {
+        assertEquals(1, BitmapCache.calculateInSampleSize(4000, 3000, 0, 0));
+    }
+
+    @Test
+    public void calculateInSampleSize_with_smallerRequestedSize_then_subsampleByPowerOfTwo() {
+        // 4000x3000 halved four times is 250x187, which still covers 160x160
+        assertEquals(16, BitmapCache.calculateInSampleSize(4000, 3000, 160, 160));
+    }
+
+    @Test
+    public void calculateInSampleSize_with_largerRequestedSize_then_noSubsampling() {
+        assertEquals(1, BitmapCache.calculateInSampleSize(200, 200, 800, 800));
+    }
+
+    @Test
+    public void calculateInSampleSize_with_oneLimitingDimension_then_keepItLargeEnough() {
+        // Height only allows halving once, even though the width would allow more
+        assertEquals(2, BitmapCache.calculateInSampleSize(4000, 600, 200, 300));
+    }
+
+    @Test
+    public void getBitmap_with_noImageData_then_null() {
+        assertNull(BitmapCache.getBitmap("event123", null, 100, 100));
+        assertNull(BitmapCache.getBitmap("event123", "", 100, 100));
+    }
+}
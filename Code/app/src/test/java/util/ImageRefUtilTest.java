@@ -0,0 +1,37 @@
+package util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class ImageRefUtilTest {
+    @Test
+    public void toBlobRef_with_contentHash_then_roundTrips() {
+        String blobRef = ImageRefUtil.toBlobRef("abc123");
+
+        assertTrue(ImageRefUtil.isBlobRef(blobRef));
+        assertEquals("abc123", ImageRefUtil.getContentHash(blobRef));
+    }
+
+    @Test
+    public void isInline_with_eachKindOfRef_then_onlyBase64IsInline() {
+        assertTrue(ImageRefUtil.isInline("iVBORw0KGgo="));
+        assertFalse(ImageRefUtil.isInline(ImageRefUtil.toBlobRef("abc123")));
+        assertFalse(ImageRefUtil.isInline("https://example.com/poster.jpg"));
+        assertFalse(ImageRefUtil.isInline(null));
+        assertFalse(ImageRefUtil.isInline(""));
+    }
+
+    @Test
+    public void sha256Hex_with_sameBytes_then_sameHash() {
+        byte[] first = "poster".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "poster".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(HashUtil.sha256Hex(first), HashUtil.sha256Hex(second));
+        assertEquals(64, HashUtil.sha256Hex(first).length());
+    }
+}
@@ -13,6 +13,7 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.Arrays;
 import java.util.Date;
 
 import constants.DatabaseConstants;
@@ -82,7 +83,8 @@ public class ModelUtilTest {
                 .thenReturn(DatabaseConstants.NOTIFICATION_TYPE.values()[0].name());
 
         long seconds = 1609459200L;
-        when(mockDocumentSnapshot.getTimestamp(DatabaseConstants.COLLECTION_NOTIFICATIONS_DATE_CREATED_FIELD))
+        when(mockDocumentSnapshot.getTimestamp(DatabaseConstants.COLLECTION_NOTIFICATIONS_DATE_CREATED_FIELD,
+                DocumentSnapshot.ServerTimestampBehavior.ESTIMATE))
                 .thenReturn(new Timestamp(seconds, 0));
 
         NotificationModel notificationModel = ModelUtil.toNotificationModel(mockDocumentSnapshot);
@@ -145,4 +147,23 @@ public class ModelUtilTest {
         assertNotNull(userModel.getUserType());
         assertEquals("device-abc", userModel.getDeviceId());
     }
+
+    @Test
+    public void getStoredStatusValues_with_eachStatus_then_valuesAreReadAsThatStatus() {
+        when(mockDocumentSnapshot.getId()).thenReturn("wait123");
+        when(mockDocumentSnapshot.getString(DatabaseConstants.COLLECTION_ON_WAITING_LIST_USER_ID_FIELD))
+                .thenReturn("user123");
+        when(mockDocumentSnapshot.getString(DatabaseConstants.COLLECTION_ON_WAITING_LIST_EVENT_ID_FIELD))
+                .thenReturn("event123");
+
+        for (DatabaseConstants.ON_WAITING_LIST_STATUS status : DatabaseConstants.ON_WAITING_LIST_STATUS.values()) {
+            for (String value : ModelUtil.getStoredStatusValues(status)) {
+                when(mockDocumentSnapshot.getString(DatabaseConstants.COLLECTION_ON_WAITING_LIST_STATUS_FIELD))
+                        .thenReturn(value);
+                assertEquals(value, status, ModelUtil.toOnWaitingListModel(mockDocumentSnapshot).getStatus());
+            }
+        }
+        assertEquals(Arrays.asList("ACCEPTED", "accepted", "Accepted", "a", "A"),
+                ModelUtil.getStoredStatusValues(DatabaseConstants.ON_WAITING_LIST_STATUS.ACCEPTED));
+    }
 }
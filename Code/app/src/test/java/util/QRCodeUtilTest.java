@@ -1,5 +1,7 @@
 package util;
 
+import com.google.zxing.common.BitMatrix;
+
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -26,4 +28,44 @@ public class QRCodeUtilTest {
         String qrData = QRCodeUtil.generateQRCodeData(eventId);
         assertEquals("konoha://event/testEvent", qrData);
     }
+
+    /**
+     * Tests if the modules are scaled by a whole number and centered in the pixel buffer
+     */
+    @Test
+    public void testRenderPixelsScalesModulesAndCenters() {
+        BitMatrix modules = new BitMatrix(3, 3);
+        modules.set(0, 0);
+        modules.set(2, 1);
+
+        // 3 modules scaled by 2 leave one pixel of background on each side of an 8 pixel code
+        int[] pixels = QRCodeUtil.renderPixels(modules, 8, 1, 0);
+
+        int[] expected = {
+                0, 0, 0, 0, 0, 0, 0, 0,
+                0, 1, 1, 0, 0, 0, 0, 0,
+                0, 1, 1, 0, 0, 0, 0, 0,
+                0, 0, 0, 0, 0, 1, 1, 0,
+                0, 0, 0, 0, 0, 1, 1, 0,
+                0, 0, 0, 0, 0, 0, 0, 0,
+                0, 0, 0, 0, 0, 0, 0, 0,
+                0, 0, 0, 0, 0, 0, 0, 0,
+        };
+        assertArrayEquals(expected, pixels);
+    }
+
+    /**
+     * Tests if the same data, size and colors always map to the same cache key
+     */
+    @Test
+    public void testCacheKeyDependsOnDataSizeAndColors() throws Exception {
+        String key = QRCodeUtil.getCacheKey("konoha://event/testEvent", 512, 1, 0);
+        assertEquals(key, QRCodeUtil.getCacheKey("konoha://event/testEvent", 512, 1, 0));
+        assertNotEquals(key, QRCodeUtil.getCacheKey("konoha://event/testEvent", 800, 1, 0));
+        assertNotEquals(key, QRCodeUtil.getCacheKey("konoha://event/testEvent", 512, 2, 0));
+
+        BitMatrix modules = QRCodeUtil.encodeModules("konoha://event/testEvent");
+        // Version 2 code of 25 modules with a 4 module quiet zone on each side
+        assertEquals(33, modules.getWidth());
+    }
 }
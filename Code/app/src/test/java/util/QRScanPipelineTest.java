@@ -0,0 +1,65 @@
+package util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class QRScanPipelineTest {
+    @Test
+    public void shouldAnalyze_with_slowDetector_then_waitTwiceTheLatency() {
+        QRScanPipeline pipeline = new QRScanPipeline(1f, 50, 500);
+        assertTrue(pipeline.shouldAnalyze(0));
+        pipeline.onFrameAnalyzed(100);
+
+        assertEquals(200, pipeline.getFrameIntervalMs());
+        assertFalse(pipeline.shouldAnalyze(150));
+        assertTrue(pipeline.shouldAnalyze(200));
+        assertEquals(2, pipeline.getFramesAnalyzed());
+        assertEquals(1, pipeline.getFramesSkipped());
+    }
+
+    @Test
+    public void getFrameIntervalMs_with_extremeLatencies_then_stayWithinBounds() {
+        QRScanPipeline fast = new QRScanPipeline(1f, 50, 500);
+        fast.onFrameAnalyzed(5);
+        assertEquals(50, fast.getFrameIntervalMs());
+
+        QRScanPipeline slow = new QRScanPipeline(1f, 50, 500);
+        slow.onFrameAnalyzed(2000);
+        assertEquals(500, slow.getFrameIntervalMs());
+    }
+
+    @Test
+    public void onDetection_with_severalDetections_then_keepTheFirst() {
+        QRScanPipeline pipeline = new QRScanPipeline();
+        pipeline.start(1000);
+        pipeline.onDetection(1300);
+        pipeline.onDetection(1600);
+
+        assertEquals(300, pipeline.getTimeToFirstDetectionMs());
+    }
+
+    @Test
+    public void cropLuminance_with_paddedRows_then_copyCenterAndGrayChroma() {
+        // 6x4 frame with rows padded to 8 bytes, the value of a pixel is 10 * row + column
+        int rowStride = 8;
+        byte[] plane = new byte[rowStride * 4];
+        for (int row = 0; row < 4; row++) {
+            for (int column = 0; column < 6; column++) {
+                plane[row * rowStride + column] = (byte) (10 * row + column);
+            }
+        }
+        QRScanPipeline pipeline = new QRScanPipeline(0.5f, 0, 0);
+        int[] region = pipeline.getRegion(6, 4);
+        assertArrayEquals(new int[]{2, 1, 2, 2}, region);
+
+        byte[] nv21 = QRScanPipeline.cropLuminance(ByteBuffer.wrap(plane), rowStride, region);
+
+        assertArrayEquals(new byte[]{12, 13, 22, 23, (byte) 128, (byte) 128}, nv21);
+    }
+}
@@ -0,0 +1,32 @@
+package util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class StableIdsTest {
+    @Test
+    public void of_with_sameKey_then_returnSameId() {
+        assertEquals(StableIds.of("event42"), StableIds.of(new String("event42")));
+    }
+
+    @Test
+    public void of_with_keysOfSameHashCode_then_returnDifferentIds() {
+        // "Aa" and "BB" share a String.hashCode
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertNotEquals(StableIds.of("Aa"), StableIds.of("BB"));
+    }
+
+    @Test
+    public void of_with_manyDocumentIds_then_returnDistinctIds() {
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            ids.add(StableIds.of("doc" + i));
+        }
+        assertEquals(100000, ids.size());
+    }
+}